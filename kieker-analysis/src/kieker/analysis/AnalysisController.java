@@ -382,6 +382,23 @@ public final class AnalysisController implements IAnalysisController { // NOPMD
 	@Override
 	public final void connect(final AbstractPlugin src, final String outputPortName, final AbstractPlugin dst, final String inputPortName)
 			throws IllegalStateException, AnalysisConfigurationException {
+		this.connect(src, outputPortName, dst, inputPortName, 0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void connectAsynchronously(final AbstractPlugin src, final String outputPortName, final AbstractPlugin dst, final String inputPortName,
+			final int queueCapacity) throws IllegalStateException, AnalysisConfigurationException {
+		if (queueCapacity <= 0) {
+			throw new AnalysisConfigurationException("The queue capacity of an asynchronous connection must be positive, but is " + queueCapacity + ".");
+		}
+		this.connect(src, outputPortName, dst, inputPortName, queueCapacity);
+	}
+
+	private void connect(final AbstractPlugin src, final String outputPortName, final AbstractPlugin dst, final String inputPortName, final int queueCapacity)
+			throws IllegalStateException, AnalysisConfigurationException {
 		if (this.state != STATE.READY) {
 			throw new IllegalStateException("Unable to connect readers and filters after starting analysis.");
 		}
@@ -400,7 +417,7 @@ public final class AnalysisController implements IAnalysisController { // NOPMD
 			throw new AnalysisConfigurationException("The plugin '" + dst.getName() + "' (" + dst.getPluginName() + ") is not registered.");
 		}
 		// Use the method of AbstractPlugin (This should be the only allowed call to this method) to check the connection.
-		AbstractPlugin.connect(src, outputPortName, dst, inputPortName); // throws AnalysisConfigurationException
+		AbstractPlugin.connect(src, outputPortName, dst, inputPortName, queueCapacity); // throws AnalysisConfigurationException
 	}
 
 	/**
@@ -111,6 +111,33 @@ public interface IAnalysisController extends IProjectContext {
 	public void connect(final AbstractPlugin src, final String outputPortName, final AbstractPlugin dst,
 			final String inputPortName) throws IllegalStateException, AnalysisConfigurationException;
 
+	/**
+	 * This method connects two plugins by a bounded queue. The destination plugin receives the data in a dedicated thread
+	 * in the order of its submission, while the source plugin continues after handing the data over. The source plugin
+	 * waits if the queue is full. The plugins have to be registered within this controller instance.
+	 * 
+	 * The capacity of the queue is not part of a saved configuration; a loaded configuration connects the plugins
+	 * synchronously.
+	 * 
+	 * @param src
+	 *            The source plugin.
+	 * @param outputPortName
+	 *            The output port of the source plugin.
+	 * @param dst
+	 *            The destination plugin.
+	 * @param inputPortName
+	 *            The input port of the destination port.
+	 * @param queueCapacity
+	 *            The maximal number of data items waiting for the destination plugin.
+	 * @throws IllegalStateException
+	 *             If this instance has already been started or has already been terminated.
+	 * @throws AnalysisConfigurationException
+	 *             If the port names or the given plugins are invalid or not compatible or if the capacity is not positive.
+	 * @since 1.14
+	 */
+	public void connectAsynchronously(final AbstractPlugin src, final String outputPortName, final AbstractPlugin dst,
+			final String inputPortName, final int queueCapacity) throws IllegalStateException, AnalysisConfigurationException;
+
 	/**
 	 * Connects the given repository to this plugin via the given name.
 	 * 
@@ -16,7 +16,7 @@
 
 package kieker.analysis.plugin;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
@@ -58,6 +58,8 @@ import kieker.common.record.misc.KiekerMetadataRecord;
 public abstract class AbstractPlugin extends AbstractAnalysisComponent implements IPlugin {
 
 	private final ConcurrentHashMap<String, List<PluginInputPortReference>> registeredMethods;
+	/** the dispatchers of the output ports; replaced whenever a connection is added. */
+	private final ConcurrentHashMap<String, OutputPortDispatcher> outputPortDispatchers;
 	private final ConcurrentHashMap<String, AbstractRepository> registeredRepositories;
 	private final Map<OutputPort, Class<?>[]> outputPortTypes; // NOCS
 	private final Map<String, RepositoryPort> repositoryPorts;
@@ -67,6 +69,7 @@ public abstract class AbstractPlugin extends AbstractAnalysisComponent implement
 	// Shutdown mechanism
 	private final List<AbstractPlugin> incomingPlugins;
 	private final List<AbstractPlugin> outgoingPlugins;
+	private final List<AsynchronousConnection> incomingAsynchronousConnections;
 	private volatile STATE state = STATE.READY;
 
 	/**
@@ -154,9 +157,14 @@ public abstract class AbstractPlugin extends AbstractAnalysisComponent implement
 		for (final OutputPort outputPort : annotation.outputPorts()) {
 			this.registeredMethods.put(outputPort.name(), new ArrayList<PluginInputPortReference>(1));
 		}
+		this.outputPortDispatchers = new ConcurrentHashMap<String, OutputPortDispatcher>();
+		for (final OutputPort outputPort : this.outputPorts.values()) {
+			this.outputPortDispatchers.put(outputPort.name(), new OutputPortDispatcher(this, this.log, outputPort, this.outputPortTypes.get(outputPort)));
+		}
 		// and a List for every incoming and outgoing plugin
 		this.incomingPlugins = new ArrayList<AbstractPlugin>(1); // usually only one incoming
 		this.outgoingPlugins = new ArrayList<AbstractPlugin>(1); // usually only one outgoing
+		this.incomingAsynchronousConnections = new ArrayList<AsynchronousConnection>(0); // usually none
 	}
 
 	/**
@@ -178,61 +186,12 @@ public abstract class AbstractPlugin extends AbstractAnalysisComponent implement
 			return true;
 		}
 
-		// First step: Get the output port.
-		final OutputPort outputPort = this.outputPorts.get(outputPortName);
-		if (outputPort == null) {
-			return false;
-		}
-
-		// Second step: Check whether the data fits the event types.
-		final Class<?>[] outTypes = this.outputPortTypes.get(outputPort);
-		boolean outTypeMatch = false;
-		for (final Class<?> eventType : outTypes) {
-			if (eventType.isInstance(data)) {
-				outTypeMatch = true;
-				break; // for
-			}
-		}
-		if (!outTypeMatch) {
+		// Send everything to the registered ports accepting the data.
+		final OutputPortDispatcher dispatcher = this.outputPortDispatchers.get(outputPortName);
+		if (dispatcher == null) {
 			return false;
 		}
-
-		// Third step: Send everything to the registered ports.
-		final List<PluginInputPortReference> registeredMethodsOfPort = this.registeredMethods.get(outputPortName);
-
-		for (final PluginInputPortReference pluginInputPortReference : registeredMethodsOfPort) {
-			// Check whether the data fits the event types.
-			Class<?>[] eventTypes = pluginInputPortReference.getEventTypes();
-			if (eventTypes.length == 0) {
-				eventTypes = new Class<?>[] { Object.class };
-			}
-			for (final Class<?> eventType : eventTypes) {
-				if (eventType.isAssignableFrom(data.getClass())) { // data instanceof eventType
-					try {
-						pluginInputPortReference.getInputPortMethod().invoke(pluginInputPortReference.getPlugin(), data);
-					} catch (final InvocationTargetException e) {
-						// This is an exception wrapped by invoke
-						final Throwable cause = e.getCause();
-						if (cause instanceof Error) {
-							// This is a severe case and there is little chance to terminate appropriately
-							throw (Error) cause;
-						} else {
-							this.log.warn("Caught exception when sending data from " + this.getClass().getName() + ": OutputPort " + outputPort.name()
-									+ " to "
-									+ pluginInputPortReference.getPlugin().getClass().getName() + "'s InputPort "
-									+ pluginInputPortReference.getInputPortMethod().getName(), cause);
-						}
-					} catch (final Exception e) { // NOPMD NOCS (catch multiple)
-						// This is an exception wrapped by invoke
-						this.log.error("Caught exception when invoking "
-								+ pluginInputPortReference.getPlugin().getClass().getName() + "'s InputPort "
-								+ pluginInputPortReference.getInputPortMethod().getName(), e);
-					}
-					break; // for
-				}
-			}
-		}
-		return true;
+		return dispatcher.deliver(data);
 	}
 
 	/**
@@ -281,6 +240,31 @@ public abstract class AbstractPlugin extends AbstractAnalysisComponent implement
 	 */
 	public static final void connect(final AbstractPlugin src, final String outputPortName, final AbstractPlugin dst, final String inputPortName) throws
 			AnalysisConfigurationException {
+		AbstractPlugin.connect(src, outputPortName, dst, inputPortName, 0);
+	}
+
+	/**
+	 * This method connects two plugins, optionally by an {@link AsynchronousConnection}. <b>DO NOT USE THIS METHOD!</b> Use
+	 * <code>AnalysisController.connect</code> or <code>AnalysisController.connectAsynchronously</code> instead!
+	 *
+	 * @param src
+	 *            The source plugin.
+	 * @param outputPortName
+	 *            The output port of the source plugin.
+	 * @param dst
+	 *            The destination plugin.
+	 * @param inputPortName
+	 *            The input port of the destination port.
+	 * @param queueCapacity
+	 *            The capacity of the queue of the asynchronous connection or 0 to deliver the data synchronously.
+	 * @throws AnalysisConfigurationException
+	 *             if any given plugin is invalid, any output or input port doesn't exist or if they are incompatible.
+	 *             Furthermore the destination plugin must not be a reader.
+	 *
+	 * @since 1.14
+	 */
+	public static final void connect(final AbstractPlugin src, final String outputPortName, final AbstractPlugin dst, final String inputPortName,
+			final int queueCapacity) throws AnalysisConfigurationException {
 		if (!AbstractPlugin.isConnectionAllowed(src, outputPortName, dst, inputPortName)) {
 			throw new AnalysisConfigurationException("Failed to connect plugin '" + src.getName() + "' (" + src.getPluginName() + ") to plugin '"
 					+ dst.getName() + "' (" + dst.getPluginName() + ").");
@@ -297,7 +281,18 @@ public abstract class AbstractPlugin extends AbstractAnalysisComponent implement
 						return null;
 					}
 				});
-				src.registeredMethods.get(outputPortName).add(new PluginInputPortReference(dst, inputPortName, m, dst.inputPorts.get(inputPortName).eventTypes()));
+				final PluginInputPortReference inputPortReference = new PluginInputPortReference(dst, inputPortName, m,
+						dst.inputPorts.get(inputPortName).eventTypes());
+				MethodHandle inputPortMethodHandle = OutputPortDispatcher.resolveInputPort(inputPortReference);
+				if (queueCapacity > 0) {
+					final AsynchronousConnection connection = new AsynchronousConnection(src, outputPortName, inputPortReference, inputPortMethodHandle,
+							queueCapacity);
+					dst.incomingAsynchronousConnections.add(connection);
+					inputPortMethodHandle = connection.getEnqueueMethodHandle();
+				}
+				src.outputPortDispatchers.put(outputPortName,
+						src.outputPortDispatchers.get(outputPortName).withInputPort(inputPortReference, inputPortMethodHandle));
+				src.registeredMethods.get(outputPortName).add(inputPortReference);
 				src.outgoingPlugins.add(dst);
 				dst.incomingPlugins.add(src);
 
@@ -535,6 +530,17 @@ public abstract class AbstractPlugin extends AbstractAnalysisComponent implement
 		return result;
 	}
 
+	/**
+	 * Returns the asynchronous connections delivering data to this plugin, e.g., to observe their queue depths.
+	 *
+	 * @return The asynchronous connections to the input ports of this plugin.
+	 *
+	 * @since 1.14
+	 */
+	public final List<AsynchronousConnection> getIncomingAsynchronousConnections() {
+		return Collections.unmodifiableList(this.incomingAsynchronousConnections);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -553,7 +559,13 @@ public abstract class AbstractPlugin extends AbstractAnalysisComponent implement
 			return false;
 		}
 		this.state = STATE.RUNNING;
-		return this.init();
+		final boolean initialized = this.init();
+		if (initialized) {
+			for (final AsynchronousConnection connection : this.incomingAsynchronousConnections) {
+				connection.start();
+			}
+		}
+		return initialized;
 	}
 
 	/**
@@ -575,6 +587,9 @@ public abstract class AbstractPlugin extends AbstractAnalysisComponent implement
 			plugin.shutdown(error);
 		}
 		// when we arrive here, all incoming plugins are terminated!
+		for (final AsynchronousConnection connection : this.incomingAsynchronousConnections) {
+			connection.terminate(); // delivers the remaining data
+		}
 		this.terminate(error);
 		if (error) {
 			this.state = STATE.FAILED;
@@ -0,0 +1,305 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.analysis.plugin;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import kieker.analysis.plugin.IPlugin.PluginInputPortReference;
+import kieker.common.logging.Log;
+import kieker.common.logging.LogFactory;
+
+/**
+ * A connection between an output port and an input port which decouples both plugins by a bounded queue. The source
+ * plugin only hands the data over to the queue and blocks if the queue is full; a dedicated thread delivers the data to
+ * the input port in the order of its submission.
+ *
+ * <p>
+ * The thread is started together with the destination plugin. Before the destination plugin terminates, the remaining
+ * data in the queue is delivered and the thread terminates. If an input port throws an {@link Error}, the thread
+ * terminates as well; the data remaining in the queue and the data handed over afterwards is dropped and counted
+ * (see {@link #getNumDropped()}). The same holds if the thread is interrupted.
+ * </p>
+ *
+ * <p>
+ * A configuration saved by the analysis controller contains the connection as a synchronous one, i.e., the capacity
+ * of the queue is not persisted.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class AsynchronousConnection {
+
+	private static final Log LOG = LogFactory.getLog(AsynchronousConnection.class);
+
+	private static final Object END_OF_DATA = new Object();
+	/** how long a source waits for free space in the queue before checking again whether the thread still delivers. */
+	private static final long HAND_OVER_RECHECK_INTERVAL_MS = 100;
+	private static final MethodHandle ENQUEUE;
+
+	static {
+		try {
+			ENQUEUE = MethodHandles.lookup().findVirtual(AsynchronousConnection.class, "enqueue", MethodType.methodType(void.class, Object.class));
+		} catch (final ReflectiveOperationException ex) {
+			throw new ExceptionInInitializerError(ex);
+		}
+	}
+
+	private final AbstractPlugin sourcePlugin;
+	private final String outputPortName;
+	private final PluginInputPortReference inputPort;
+	private final MethodHandle inputPortMethodHandle;
+	private final BlockingQueue<Object> queue;
+	private final int capacity;
+	private final Thread thread;
+
+	private volatile boolean started;
+	/** whether the thread delivers the data remaining in the queue and terminates afterwards. */
+	private volatile boolean terminationRequested;
+	/** whether the thread has terminated and no longer delivers data. */
+	private volatile boolean delivering = true;
+
+	// statistics
+	private final AtomicLong numBlockedHandOvers = new AtomicLong();
+	private final AtomicLong numDropped = new AtomicLong();
+	private volatile long numDelivered;
+
+	/**
+	 * @param sourcePlugin
+	 *            the plugin owning the output port
+	 * @param outputPortName
+	 *            the name of the output port
+	 * @param inputPort
+	 *            the connected input port
+	 * @param inputPortMethodHandle
+	 *            the method handle of the input port bound to its plugin and adapted to <code>(Object)void</code>
+	 * @param capacity
+	 *            the maximal number of data items in the queue
+	 */
+	AsynchronousConnection(final AbstractPlugin sourcePlugin, final String outputPortName, final PluginInputPortReference inputPort,
+			final MethodHandle inputPortMethodHandle, final int capacity) {
+		this.sourcePlugin = sourcePlugin;
+		this.outputPortName = outputPortName;
+		this.inputPort = inputPort;
+		this.inputPortMethodHandle = inputPortMethodHandle;
+		this.capacity = capacity;
+		this.queue = new ArrayBlockingQueue<Object>(capacity);
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				AsynchronousConnection.this.deliverQueuedData();
+			}
+		}, "Kieker-" + AsynchronousConnection.class.getSimpleName() + "-" + inputPort.getPlugin().getName() + "." + inputPort.getInputPortName());
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * @return a method handle of type <code>(Object)void</code> which hands the data over to this connection
+	 */
+	MethodHandle getEnqueueMethodHandle() {
+		return ENQUEUE.bindTo(this);
+	}
+
+	void start() {
+		this.started = true;
+		this.thread.start();
+	}
+
+	/**
+	 * Delivers the remaining data to the input port and waits for the thread to terminate.
+	 */
+	void terminate() {
+		this.terminationRequested = true;
+		if (!this.started) {
+			// the destination plugin has not been initialized; there is nothing to deliver to
+			this.delivering = false;
+			this.discardQueuedData();
+			return;
+		}
+		if (Thread.currentThread() == this.thread) { // NOPMD (compare references by == not by equals())
+			return; // the input port itself has triggered the termination; the thread terminates once the queue is empty
+		}
+		// wakes up the thread if it waits for data; if the queue is full, the thread notices the request once it is empty
+		this.queue.offer(END_OF_DATA);
+		try {
+			this.thread.join();
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted while waiting for " + this.thread.getName() + " to terminate.", ex);
+			return;
+		}
+		// removes the end marker if the thread had terminated before it arrived
+		this.discardQueuedData();
+	}
+
+	@SuppressWarnings("unused")
+	private void enqueue(final Object data) { // invoked by ENQUEUE
+		this.handOver(data);
+	}
+
+	private void handOver(final Object data) {
+		if (!this.delivering) {
+			this.numDropped.incrementAndGet();
+			LOG.error(this.thread.getName() + " has terminated. Dropping " + data);
+			return;
+		}
+		if (!this.queue.offer(data)) {
+			this.numBlockedHandOvers.incrementAndGet();
+			try {
+				// the thread may terminate while the queue is full; in this case nobody frees space any longer
+				while (!this.queue.offer(data, HAND_OVER_RECHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+					if (!this.delivering) {
+						this.numDropped.incrementAndGet();
+						LOG.error(this.thread.getName() + " has terminated. Dropping " + data);
+						return;
+					}
+				}
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				this.numDropped.incrementAndGet();
+				LOG.error("Interrupted while handing over data to " + this.thread.getName() + ". Dropping " + data, ex);
+				return;
+			}
+		}
+		if (!this.delivering) {
+			// the thread has terminated after the check above and may have discarded the queue before the data arrived
+			this.discardQueuedData();
+		}
+	}
+
+	private void deliverQueuedData() {
+		final List<Object> batch = new ArrayList<Object>(this.capacity);
+		try {
+			while (true) {
+				final Object data;
+				if (this.terminationRequested) {
+					data = this.queue.poll();
+					if (data == null) {
+						return; // all data has been delivered
+					}
+				} else {
+					data = this.queue.take();
+				}
+				batch.add(data);
+				this.queue.drainTo(batch);
+				for (final Object element : batch) {
+					if (element == END_OF_DATA) { // NOPMD (compare references by == not by equals())
+						return;
+					}
+					this.deliver(element);
+				}
+				batch.clear();
+			}
+		} catch (final InterruptedException ex) {
+			LOG.warn(this.thread.getName() + " was interrupted.", ex);
+		} finally {
+			this.delivering = false;
+			// releases sources waiting for free space
+			final int numDiscarded = this.discardQueuedData();
+			if (numDiscarded > 0) {
+				LOG.warn(this.thread.getName() + " has terminated. Dropped " + numDiscarded + " data items remaining in the queue.");
+			}
+		}
+	}
+
+	/**
+	 * Removes all data from the queue and counts it as dropped.
+	 *
+	 * @return the number of data items removed
+	 */
+	private int discardQueuedData() {
+		final List<Object> discarded = new ArrayList<Object>();
+		this.queue.drainTo(discarded);
+		int numDiscarded = 0;
+		for (final Object element : discarded) {
+			if (element != END_OF_DATA) { // NOPMD (compare references by == not by equals())
+				numDiscarded++;
+			}
+		}
+		this.numDropped.addAndGet(numDiscarded);
+		return numDiscarded;
+	}
+
+	private void deliver(final Object data) {
+		try {
+			this.inputPortMethodHandle.invokeExact(data);
+		} catch (final Error e) { // NOPMD (rethrow)
+			// This is a severe case and there is little chance to terminate appropriately
+			throw e;
+		} catch (final Throwable e) { // NOPMD NOCS (the input port may throw anything)
+			LOG.warn("Caught exception when sending data from " + this.sourcePlugin.getClass().getName() + ": OutputPort " + this.outputPortName
+					+ " to "
+					+ this.inputPort.getPlugin().getClass().getName() + "'s InputPort "
+					+ this.inputPort.getInputPortMethod().getName(), e);
+		}
+		this.numDelivered++; // NOPMD NOCS (only written by the delivering thread)
+	}
+
+	public AbstractPlugin getSourcePlugin() {
+		return this.sourcePlugin;
+	}
+
+	public String getOutputPortName() {
+		return this.outputPortName;
+	}
+
+	public PluginInputPortReference getInputPort() {
+		return this.inputPort;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @return the number of data items which have been handed over, but not yet delivered
+	 */
+	public int getQueueDepth() {
+		return this.queue.size();
+	}
+
+	/**
+	 * @return the number of data items which have been delivered to the input port
+	 */
+	public long getNumDelivered() {
+		return this.numDelivered;
+	}
+
+	/**
+	 * @return how often the source plugin had to wait because the queue was full
+	 */
+	public long getNumBlockedHandOvers() {
+		return this.numBlockedHandOvers.get();
+	}
+
+	/**
+	 * @return the number of data items which have been dropped because the thread had terminated or the source plugin
+	 *         was interrupted while handing them over
+	 */
+	public long getNumDropped() {
+		return this.numDropped.get();
+	}
+}
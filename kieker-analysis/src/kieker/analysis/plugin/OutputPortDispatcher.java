@@ -0,0 +1,238 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.analysis.plugin;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import kieker.analysis.exception.AnalysisConfigurationException;
+import kieker.analysis.plugin.IPlugin.PluginInputPortReference;
+import kieker.analysis.plugin.annotation.OutputPort;
+import kieker.common.logging.Log;
+
+/**
+ * Delivers data of an output port to the connected input ports. The input port methods are resolved to method handles
+ * bound to their plugins once the connection is made. The type checks of the output port and of the input ports are
+ * evaluated once per class of the delivered data and cached, so that delivering data of an already known class only
+ * invokes the matching input ports. As with the former reflective invocation, exceptions thrown by an input port are
+ * logged as warnings, whereas failures to invoke an input port, e.g., due to a mismatching parameter type, are logged
+ * as errors.
+ *
+ * <p>
+ * Instances are immutable except for the cache; a new connection of the output port replaces the dispatcher (see
+ * {@link #withInputPort(PluginInputPortReference, MethodHandle)}).
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+final class OutputPortDispatcher {
+
+	private static final MethodType INPUT_PORT_TYPE = MethodType.methodType(void.class, Object.class);
+	private static final Receiver[] NO_RECEIVERS = new Receiver[0];
+
+	private final AbstractPlugin plugin;
+	private final Log pluginLog; // NOPMD (logger passed by the plugin)
+	private final OutputPort outputPort;
+	private final Class<?>[] outputPortTypes;
+	private final Receiver[] receivers;
+
+	/** the routes per class of the delivered data. */
+	private final ConcurrentHashMap<Class<?>, Route> routes = new ConcurrentHashMap<Class<?>, Route>(); // NOPMD (concurrent access)
+	/** the route of the most recently delivered class; usually, an output port delivers a single class. */
+	private volatile Route lastRoute = new Route(null, false, NO_RECEIVERS, NO_RECEIVERS);
+
+	/**
+	 * Creates a dispatcher without connected input ports.
+	 *
+	 * @param plugin
+	 *            the plugin owning the output port
+	 * @param pluginLog
+	 *            the log of the plugin
+	 * @param outputPort
+	 *            the output port
+	 * @param outputPortTypes
+	 *            the event types of the output port
+	 */
+	public OutputPortDispatcher(final AbstractPlugin plugin, final Log pluginLog, final OutputPort outputPort, final Class<?>[] outputPortTypes) {
+		this(plugin, pluginLog, outputPort, outputPortTypes, NO_RECEIVERS);
+	}
+
+	private OutputPortDispatcher(final AbstractPlugin plugin, final Log pluginLog, final OutputPort outputPort, final Class<?>[] outputPortTypes,
+			final Receiver[] receivers) {
+		this.plugin = plugin;
+		this.pluginLog = pluginLog;
+		this.outputPort = outputPort;
+		this.outputPortTypes = outputPortTypes;
+		this.receivers = receivers;
+	}
+
+	/**
+	 * @param inputPort
+	 *            the input port to resolve
+	 * @return the method handle of the input port bound to its plugin and adapted to <code>(Object)void</code>
+	 * @throws AnalysisConfigurationException
+	 *             if the input port method cannot be accessed
+	 */
+	public static MethodHandle resolveInputPort(final PluginInputPortReference inputPort) throws AnalysisConfigurationException {
+		try {
+			// the method has been made accessible before; the return value of the input port is ignored
+			return MethodHandles.lookup().unreflect(inputPort.getInputPortMethod()).bindTo(inputPort.getPlugin()).asType(INPUT_PORT_TYPE);
+		} catch (final IllegalAccessException ex) {
+			throw new AnalysisConfigurationException("Failed to access the input port " + inputPort.getInputPortName() + " of "
+					+ inputPort.getPlugin().getClass().getName(), ex);
+		}
+	}
+
+	/**
+	 * @param inputPort
+	 *            the input port to connect
+	 * @param methodHandle
+	 *            the method handle of type <code>(Object)void</code> receiving the data for the input port (see
+	 *            {@link #resolveInputPort(PluginInputPortReference)})
+	 * @return a new dispatcher delivering to the input ports of this dispatcher and to the given one
+	 */
+	public OutputPortDispatcher withInputPort(final PluginInputPortReference inputPort, final MethodHandle methodHandle) {
+		Class<?>[] eventTypes = inputPort.getEventTypes();
+		if (eventTypes.length == 0) {
+			eventTypes = new Class<?>[] { Object.class };
+		}
+		final Receiver[] newReceivers = Arrays.copyOf(this.receivers, this.receivers.length + 1);
+		newReceivers[this.receivers.length] = new Receiver(inputPort, methodHandle, eventTypes);
+		return new OutputPortDispatcher(this.plugin, this.pluginLog, this.outputPort, this.outputPortTypes, newReceivers);
+	}
+
+	/**
+	 * Delivers the given data to all connected input ports accepting its class.
+	 *
+	 * @param data
+	 *            the data to deliver; must not be <code>null</code>
+	 * @return <code>true</code> if and only if the data suits the event types of the output port
+	 */
+	public boolean deliver(final Object data) {
+		final Class<?> dataClass = data.getClass();
+		Route route = this.lastRoute;
+		if (route.dataClass != dataClass) {
+			route = this.routes.get(dataClass);
+			if (route == null) {
+				route = this.createRoute(dataClass);
+				this.routes.put(dataClass, route);
+			}
+			this.lastRoute = route;
+		}
+		if (!route.accepted) {
+			return false;
+		}
+		for (final Receiver receiver : route.receivers) {
+			try {
+				receiver.methodHandle.invokeExact(data);
+			} catch (final WrongMethodTypeException e) {
+				this.logInvocationFailure(receiver, e);
+			} catch (final Error e) { // NOPMD (rethrow)
+				// This is a severe case and there is little chance to terminate appropriately
+				throw e;
+			} catch (final Throwable e) { // NOPMD NOCS (the input port may throw anything)
+				this.pluginLog.warn("Caught exception when sending data from " + this.plugin.getClass().getName() + ": OutputPort " + this.outputPort.name()
+						+ " to "
+						+ receiver.inputPort.getPlugin().getClass().getName() + "'s InputPort "
+						+ receiver.inputPort.getInputPortMethod().getName(), e);
+			}
+		}
+		for (final Receiver receiver : route.mismatchingReceivers) {
+			this.logInvocationFailure(receiver, new IllegalArgumentException("argument type mismatch: " + dataClass.getName()));
+		}
+		return true;
+	}
+
+	private void logInvocationFailure(final Receiver receiver, final RuntimeException e) {
+		this.pluginLog.error("Caught exception when invoking "
+				+ receiver.inputPort.getPlugin().getClass().getName() + "'s InputPort "
+				+ receiver.inputPort.getInputPortMethod().getName(), e);
+	}
+
+	private Route createRoute(final Class<?> dataClass) {
+		if (!OutputPortDispatcher.isInstanceOfAny(dataClass, this.outputPortTypes)) {
+			return new Route(dataClass, false, NO_RECEIVERS, NO_RECEIVERS);
+		}
+		final List<Receiver> matchingReceivers = new ArrayList<Receiver>(this.receivers.length);
+		final List<Receiver> mismatchingReceivers = new ArrayList<Receiver>(0);
+		for (final Receiver receiver : this.receivers) {
+			if (OutputPortDispatcher.isInstanceOfAny(dataClass, receiver.eventTypes)) {
+				// the event types of an input port do not necessarily match the type of its parameter
+				if (receiver.parameterType.isAssignableFrom(dataClass)) {
+					matchingReceivers.add(receiver);
+				} else {
+					mismatchingReceivers.add(receiver);
+				}
+			}
+		}
+		return new Route(dataClass, true, matchingReceivers.toArray(new Receiver[matchingReceivers.size()]),
+				mismatchingReceivers.toArray(new Receiver[mismatchingReceivers.size()]));
+	}
+
+	private static boolean isInstanceOfAny(final Class<?> dataClass, final Class<?>[] eventTypes) {
+		for (final Class<?> eventType : eventTypes) {
+			if (eventType.isAssignableFrom(dataClass)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A connected input port.
+	 */
+	private static final class Receiver {
+		final PluginInputPortReference inputPort; // NOCS NOPMD (package-private for the enclosing class only)
+		final MethodHandle methodHandle; // NOCS NOPMD
+		final Class<?>[] eventTypes; // NOCS NOPMD
+		/** the type of the parameter of the input port method; a wrapper type instead of a primitive one. */
+		final Class<?> parameterType; // NOCS NOPMD
+
+		Receiver(final PluginInputPortReference inputPort, final MethodHandle methodHandle, final Class<?>[] eventTypes) {
+			this.inputPort = inputPort;
+			this.methodHandle = methodHandle;
+			this.eventTypes = eventTypes;
+			this.parameterType = MethodType.methodType(inputPort.getInputPortMethod().getParameterTypes()[0]).wrap().returnType();
+		}
+	}
+
+	/**
+	 * The cached result of the type checks for a class of delivered data.
+	 */
+	private static final class Route {
+		final Class<?> dataClass; // NOCS NOPMD (package-private for the enclosing class only)
+		final boolean accepted; // NOCS NOPMD
+		final Receiver[] receivers; // NOCS NOPMD
+		/** the input ports accepting the class by their event types, but not by the type of their parameter. */
+		final Receiver[] mismatchingReceivers; // NOCS NOPMD
+
+		Route(final Class<?> dataClass, final boolean accepted, final Receiver[] receivers, final Receiver[] mismatchingReceivers) {
+			this.dataClass = dataClass;
+			this.accepted = accepted;
+			this.receivers = receivers;
+			this.mismatchingReceivers = mismatchingReceivers;
+		}
+	}
+}
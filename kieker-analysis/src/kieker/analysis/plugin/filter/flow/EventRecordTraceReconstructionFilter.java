@@ -17,16 +17,24 @@
 package kieker.analysis.plugin.filter.flow;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import kieker.analysis.IProjectContext;
 import kieker.analysis.plugin.annotation.InputPort;
@@ -82,7 +90,12 @@ import kieker.common.record.flow.trace.operation.object.BeforeOperationObjectEve
 						defaultValue = EventRecordTraceReconstructionFilter.CONFIG_PROPERTY_VALUE_MAX_TIME),
 				@Property(
 						name = EventRecordTraceReconstructionFilter.CONFIG_PROPERTY_NAME_REPAIR_EVENT_BASED_TRACES,
-						defaultValue = "false") })
+						defaultValue = "false"),
+				@Property(
+						name = EventRecordTraceReconstructionFilter.CONFIG_PROPERTY_NAME_NUM_SHARDS,
+						defaultValue = "1",
+						description = "The number of shards reconstructing the traces concurrently, each in its own thread; "
+								+ "1 reconstructs the traces in the calling thread") })
 public final class EventRecordTraceReconstructionFilter extends AbstractFilterPlugin {
 	/**
 	 * The name of the output port delivering the valid traces.
@@ -130,15 +143,31 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 	 * whether to repair BeforeEvents with missing AfterEvents (e.g. because of software crash) or not.
 	 */
 	public static final String CONFIG_PROPERTY_NAME_REPAIR_EVENT_BASED_TRACES = "repairEventBasedTraces";
+	/**
+	 * The name of the property determining the number of shards. The records are routed to the shards by the hash of
+	 * their trace id; each shard owns its traces and reconstructs them in its own thread.
+	 */
+	public static final String CONFIG_PROPERTY_NAME_NUM_SHARDS = "numShards";
+
+	private static final int SHARD_QUEUE_CAPACITY = 8192;
+	private static final Object END_OF_RECORDS = new Object();
+	/** the interval in which a blocked hand-over checks whether the shard worker is still running. */
+	private static final long SHARD_WORKER_CHECK_INTERVAL_IN_MS = 100;
 
 	private final TimeUnit timeunit;
 	private final long maxTraceDuration;
 	private final long maxTraceTimeout;
 	private final boolean hasTimeout;
 	private final boolean repairEventBasedTracesEnabled;
-	private long maxEncounteredLoggingTimestamp = -1;
 
-	private final Map<Long, TraceBuffer> traceId2trace;
+	/** the shard reconstructing all traces in the calling thread; <code>null</code> if there are several shards. */
+	private final TraceReconstructionShard shard;
+	/** the workers of the shards; <code>null</code> if there is only a single shard. */
+	private final ShardWorker[] shardWorkers;
+	/** serializes the deliveries of the shard workers, since the successors are not required to be thread-safe. */
+	private final Object deliveryLock = new Object();
+	/** the number of records dropped because their shard worker stopped due to an error. */
+	private final AtomicLong numDroppedRecords = new AtomicLong();
 
 	/**
 	 * Creates a new instance of this class using the given parameters.
@@ -167,7 +196,31 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 		this.maxTraceDuration = this.timeunit.convert(configuration.getLongProperty(CONFIG_PROPERTY_NAME_MAX_TRACE_DURATION), configTimeunit);
 		this.maxTraceTimeout = this.timeunit.convert(configuration.getLongProperty(CONFIG_PROPERTY_NAME_MAX_TRACE_TIMEOUT), configTimeunit);
 		this.hasTimeout = (this.maxTraceTimeout != Long.MAX_VALUE) || (this.maxTraceDuration != Long.MAX_VALUE);
-		this.traceId2trace = new ConcurrentHashMap<>();
+
+		final int numShards = configuration.getIntProperty(CONFIG_PROPERTY_NAME_NUM_SHARDS);
+		if (numShards > 1) {
+			this.shard = null;
+			this.shardWorkers = new ShardWorker[numShards];
+			for (int i = 0; i < numShards; i++) {
+				this.shardWorkers[i] = new ShardWorker(i);
+			}
+		} else {
+			this.shard = new TraceReconstructionShard();
+			this.shardWorkers = null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean init() {
+		if (this.shardWorkers != null) {
+			for (final ShardWorker shardWorker : this.shardWorkers) {
+				shardWorker.start();
+			}
+		}
+		return super.init();
 	}
 
 	/**
@@ -181,9 +234,13 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 			description = "Input port for a periodic time signal",
 			eventTypes = { Long.class })
 	public void newEvent(final Long timestamp) {
-		synchronized (this) {
-			if (this.hasTimeout) {
-				this.processTimeoutQueue(timestamp);
+		if (this.hasTimeout) {
+			if (this.shardWorkers == null) {
+				this.shard.processTimeout(timestamp);
+			} else {
+				for (final ShardWorker shardWorker : this.shardWorkers) {
+					shardWorker.enqueue(timestamp);
+				}
 			}
 		}
 	}
@@ -219,27 +276,134 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 			description = "Reconstruct traces from incoming flow records",
 			eventTypes = { TraceMetadata.class, AbstractTraceEvent.class })
 	public void newEvent(final IFlowRecord record) {
-		final Long traceId;
-		TraceBuffer traceBuffer;
-		final long loggingTimestamp;
-		if (record instanceof TraceMetadata) {
-			traceId = ((TraceMetadata) record).getTraceId();
-			traceBuffer = this.traceId2trace.get(traceId);
-			if (traceBuffer == null) { // first record for this id!
+		if (this.shardWorkers == null) {
+			this.shard.newEvent(record);
+		} else {
+			final long traceId;
+			if (record instanceof TraceMetadata) {
+				traceId = ((TraceMetadata) record).getTraceId();
+			} else if (record instanceof AbstractTraceEvent) {
+				traceId = ((AbstractTraceEvent) record).getTraceId();
+			} else {
+				return; // invalid type which should not happen due to the specified eventTypes
+			}
+			final int hash = (int) (traceId ^ (traceId >>> 32));
+			this.shardWorkers[(hash & Integer.MAX_VALUE) % this.shardWorkers.length].enqueue(record);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void terminate(final boolean error) {
+		if (this.shardWorkers == null) {
+			this.shard.terminate();
+		} else {
+			for (final ShardWorker shardWorker : this.shardWorkers) {
+				shardWorker.terminate();
+			}
+			// the workers have processed all records; deliver the remaining traces in the order of the shards
+			for (final ShardWorker shardWorker : this.shardWorkers) {
+				shardWorker.shard.terminate();
+			}
+			final long numDropped = this.numDroppedRecords.get();
+			if (numDropped > 0) {
+				this.log.error("Dropped " + numDropped + " records since their shard stopped due to an error.");
+			}
+		}
+	}
+
+	private void deliverTrace(final String outputPortName, final TraceEventRecords traceEventRecords) {
+		if (this.shardWorkers == null) {
+			super.deliver(outputPortName, traceEventRecords);
+		} else {
+			synchronized (this.deliveryLock) {
+				super.deliver(outputPortName, traceEventRecords);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Configuration getCurrentConfiguration() {
+		final Configuration configuration = new Configuration();
+		configuration.setProperty(CONFIG_PROPERTY_NAME_TIMEUNIT, this.timeunit.name());
+		configuration.setProperty(CONFIG_PROPERTY_NAME_MAX_TRACE_DURATION, String.valueOf(this.maxTraceDuration));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_MAX_TRACE_TIMEOUT, String.valueOf(this.maxTraceTimeout));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_REPAIR_EVENT_BASED_TRACES, Boolean.toString(this.repairEventBasedTracesEnabled));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_NUM_SHARDS,
+				Integer.toString((this.shardWorkers == null) ? 1 : this.shardWorkers.length)); // NOCS (inline conditional)
+		return configuration;
+	}
+
+	/**
+	 * Reconstructs the traces of a subset of the trace ids. Each shard owns its trace buffers and timeout queues and
+	 * expires its traces based on the latest logging timestamp it has received and on the periodic time signal.
+	 */
+	private final class TraceReconstructionShard {
+		private final long maxTraceDuration = EventRecordTraceReconstructionFilter.this.maxTraceDuration;
+		private final long maxTraceTimeout = EventRecordTraceReconstructionFilter.this.maxTraceTimeout;
+		private final boolean hasTimeout = EventRecordTraceReconstructionFilter.this.hasTimeout;
+		private final boolean repairEventBasedTracesEnabled = EventRecordTraceReconstructionFilter.this.repairEventBasedTracesEnabled;
+		private long maxEncounteredLoggingTimestamp = -1;
+
+		private final ConcurrentMap<Long, TraceBuffer> traceId2trace = new ConcurrentHashMap<>();
+		/** the open traces ordered by their maximal logging timestamp at the time of insertion; only used if maxTraceTimeout is set. */
+		private final PriorityQueue<TimeoutEntry> traceTimeoutQueue = new PriorityQueue<>();
+		/** the open traces ordered by their minimal logging timestamp; only used if maxTraceDuration is set. */
+		private final PriorityQueue<TimeoutEntry> traceDurationQueue = new PriorityQueue<>();
+
+		public TraceReconstructionShard() {
+			// default empty constructor
+		}
+
+		public void processTimeout(final long timestamp) {
+			synchronized (this) {
+				this.processTimeoutQueue(timestamp);
+			}
+		}
+
+		public void newEvent(final IFlowRecord record) {
+			final Long traceId;
+			final TraceBuffer traceBuffer;
+			final long loggingTimestamp;
+			if (record instanceof TraceMetadata) {
+				traceId = ((TraceMetadata) record).getTraceId();
+				traceBuffer = this.getOrCreateTraceBuffer(traceId);
+				traceBuffer.setTrace((TraceMetadata) record);
+				loggingTimestamp = -1;
+			} else if (record instanceof AbstractTraceEvent) {
+				traceId = ((AbstractTraceEvent) record).getTraceId();
+				traceBuffer = this.getOrCreateTraceBuffer(traceId);
+				traceBuffer.insertEvent((AbstractTraceEvent) record);
+				loggingTimestamp = ((AbstractTraceEvent) record).getTimestamp();
+			} else {
+				return; // invalid type which should not happen due to the specified eventTypes
+			}
+			if (traceBuffer.isFinished()) {
+				synchronized (this) { // has to be synchronized because of timeout cleanup
+					this.traceId2trace.remove(traceId);
+					traceBuffer.setRemoved();
+				}
+				EventRecordTraceReconstructionFilter.this.deliverTrace(OUTPUT_PORT_NAME_TRACE_VALID, traceBuffer.toTraceEvents());
+			}
+			if (this.hasTimeout) {
 				synchronized (this) {
-					traceBuffer = this.traceId2trace.get(traceId);
-					if (traceBuffer == null) { // NOCS (DCL)
-						traceBuffer = new TraceBuffer();
-						traceBuffer.setRepairEventBasedTracesEnabled(this.repairEventBasedTracesEnabled);
-						this.traceId2trace.put(traceId, traceBuffer);
+					this.updateTraceDurationQueue(traceId, traceBuffer);
+					// can we assume a rough order of logging timestamps? (yes, except with DB reader)
+					if (loggingTimestamp > this.maxEncounteredLoggingTimestamp) {
+						this.maxEncounteredLoggingTimestamp = loggingTimestamp;
 					}
+					this.processTimeoutQueue(this.maxEncounteredLoggingTimestamp);
 				}
 			}
-			traceBuffer.setTrace((TraceMetadata) record);
-			loggingTimestamp = -1;
-		} else if (record instanceof AbstractTraceEvent) {
-			traceId = ((AbstractTraceEvent) record).getTraceId();
-			traceBuffer = this.traceId2trace.get(traceId);
+		}
+
+		private TraceBuffer getOrCreateTraceBuffer(final Long traceId) {
+			TraceBuffer traceBuffer = this.traceId2trace.get(traceId);
 			if (traceBuffer == null) { // first record for this id!
 				synchronized (this) {
 					traceBuffer = this.traceId2trace.get(traceId);
@@ -247,94 +411,280 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 						traceBuffer = new TraceBuffer();
 						traceBuffer.setRepairEventBasedTracesEnabled(this.repairEventBasedTracesEnabled);
 						this.traceId2trace.put(traceId, traceBuffer);
+						if (this.maxTraceTimeout != Long.MAX_VALUE) {
+							this.traceTimeoutQueue.add(new TimeoutEntry(traceBuffer.getMaxLoggingTimestamp(), traceId, traceBuffer));
+						}
 					}
 				}
 			}
-			traceBuffer.insertEvent((AbstractTraceEvent) record);
-			loggingTimestamp = ((AbstractTraceEvent) record).getTimestamp();
-		} else {
-			return; // invalid type which should not happen due to the specified eventTypes
+			return traceBuffer;
 		}
-		if (traceBuffer.isFinished()) {
-			synchronized (this) { // has to be synchronized because of timeout cleanup
-				this.traceId2trace.remove(traceId);
+
+		/**
+		 * Adds the trace to the duration queue if its minimal logging timestamp has decreased. The entry with the former
+		 * timestamp becomes stale and is skipped when it is polled.
+		 */
+		// only called within synchronized!
+		private void updateTraceDurationQueue(final Long traceId, final TraceBuffer traceBuffer) {
+			if ((this.maxTraceDuration != Long.MAX_VALUE) && !traceBuffer.isRemoved()) {
+				final long minLoggingTimestamp = traceBuffer.getMinLoggingTimestamp();
+				if (minLoggingTimestamp < traceBuffer.getQueuedMinLoggingTimestamp()) {
+					traceBuffer.setQueuedMinLoggingTimestamp(minLoggingTimestamp);
+					this.traceDurationQueue.add(new TimeoutEntry(minLoggingTimestamp, traceId, traceBuffer));
+				}
 			}
-			super.deliver(OUTPUT_PORT_NAME_TRACE_VALID, traceBuffer.toTraceEvents());
 		}
-		if (this.hasTimeout) {
+
+		/**
+		 * Delivers all traces which are still open.
+		 */
+		public void terminate() {
 			synchronized (this) {
-				// can we assume a rough order of logging timestamps? (yes, except with DB reader)
-				if (loggingTimestamp > this.maxEncounteredLoggingTimestamp) {
-					this.maxEncounteredLoggingTimestamp = loggingTimestamp;
+				for (final Entry<Long, TraceBuffer> entry : this.traceId2trace.entrySet()) {
+					final TraceBuffer traceBuffer = entry.getValue();
+					if (this.repairEventBasedTracesEnabled && traceBuffer.hasBeforeEventsWithoutAfterEvent()) {
+						traceBuffer.repairAllBeforeEventsLeftInStackAtTermination();
+					}
+					if (traceBuffer.isInvalid()) {
+						EventRecordTraceReconstructionFilter.this.deliverTrace(OUTPUT_PORT_NAME_TRACE_INVALID, traceBuffer.toTraceEvents());
+					} else {
+						EventRecordTraceReconstructionFilter.this.deliverTrace(OUTPUT_PORT_NAME_TRACE_VALID, traceBuffer.toTraceEvents());
+					}
+				}
+				this.traceId2trace.clear();
+				this.traceTimeoutQueue.clear();
+				this.traceDurationQueue.clear();
+			}
+		}
+
+		// only called within synchronized! We assume timestamps >= 0
+		private void processTimeoutQueue(final long timestamp) {
+			if (this.maxTraceTimeout != Long.MAX_VALUE) {
+				final long traceTimeout = timestamp - this.maxTraceTimeout;
+				TimeoutEntry entry = this.traceTimeoutQueue.peek();
+				while ((entry != null) && (entry.timestamp <= traceTimeout)) {
+					this.traceTimeoutQueue.poll();
+					if (!entry.traceBuffer.isRemoved()) {
+						final long maxLoggingTimestamp = entry.traceBuffer.getMaxLoggingTimestamp();
+						if (maxLoggingTimestamp <= traceTimeout) { // long time no see
+							this.timeout(entry.traceId, entry.traceBuffer);
+						} else { // the trace has received newer events in the meantime
+							this.traceTimeoutQueue.add(new TimeoutEntry(maxLoggingTimestamp, entry.traceId, entry.traceBuffer));
+						}
+					}
+					entry = this.traceTimeoutQueue.peek();
+				}
+				this.removeStaleEntriesIfNecessary(this.traceTimeoutQueue, false);
+			}
+
+			if (this.maxTraceDuration != Long.MAX_VALUE) {
+				final long duration = timestamp - this.maxTraceDuration;
+				TimeoutEntry entry = this.traceDurationQueue.peek();
+				while ((entry != null) && (entry.timestamp <= duration)) { // max duration is gone
+					this.traceDurationQueue.poll();
+					if (!entry.isStaleDurationEntry()) {
+						this.timeout(entry.traceId, entry.traceBuffer);
+					}
+					entry = this.traceDurationQueue.peek();
+				}
+				this.removeStaleEntriesIfNecessary(this.traceDurationQueue, true);
+			}
+		}
+
+		// only called within synchronized!
+		private void timeout(final Long traceId, final TraceBuffer traceBuffer) {
+			if (traceBuffer.isInvalid()) {
+				EventRecordTraceReconstructionFilter.this.deliverTrace(OUTPUT_PORT_NAME_TRACE_INVALID, traceBuffer.toTraceEvents());
+			} else {
+				EventRecordTraceReconstructionFilter.this.deliverTrace(OUTPUT_PORT_NAME_TRACE_VALID, traceBuffer.toTraceEvents());
+			}
+			this.traceId2trace.remove(traceId, traceBuffer);
+			traceBuffer.setRemoved();
+		}
+
+		/**
+		 * Rebuilds the given queue without the entries of removed traces if they make up the majority of the queue. Hence,
+		 * the size of the queue stays proportional to the number of open traces.
+		 */
+		// only called within synchronized!
+		private void removeStaleEntriesIfNecessary(final PriorityQueue<TimeoutEntry> queue, final boolean isDurationQueue) {
+			if (queue.size() > ((2 * this.traceId2trace.size()) + 64)) {
+				final List<TimeoutEntry> liveEntries = new ArrayList<>(this.traceId2trace.size());
+				for (final TimeoutEntry entry : queue) {
+					if (!entry.traceBuffer.isRemoved() && (!isDurationQueue || !entry.isStaleDurationEntry())) {
+						liveEntries.add(entry);
+					}
 				}
-				this.processTimeoutQueue(this.maxEncounteredLoggingTimestamp);
+				queue.clear();
+				queue.addAll(liveEntries);
 			}
 		}
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Hands the records of a shard over to a dedicated thread. If the thread stops due to an error, the records of the
+	 * shard are dropped and counted instead of blocking the caller.
 	 */
-	@Override
-	public void terminate(final boolean error) {
-		synchronized (this) {
-			for (final Entry<Long, TraceBuffer> entry : this.traceId2trace.entrySet()) {
-				final TraceBuffer traceBuffer = entry.getValue();
-				if (this.repairEventBasedTracesEnabled && !traceBuffer.getEventStack().isEmpty()) {
-					traceBuffer.repairAllBeforeEventsLeftInStackAtTermination();
+	private final class ShardWorker implements Runnable {
+		final TraceReconstructionShard shard = new TraceReconstructionShard(); // NOCS NOPMD (package-private for the enclosing class only)
+		private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(SHARD_QUEUE_CAPACITY);
+		private final Thread thread;
+		private volatile boolean running = true;
+
+		public ShardWorker(final int index) {
+			this.thread = new Thread(this, "Kieker-" + EventRecordTraceReconstructionFilter.class.getSimpleName() + "-" + index);
+			this.thread.setDaemon(true);
+		}
+
+		public void start() {
+			this.thread.start();
+		}
+
+		/**
+		 * @param element
+		 *            a flow record or a timestamp of the time signal
+		 */
+		public void enqueue(final Object element) {
+			try {
+				while (this.running) {
+					if (this.queue.offer(element, SHARD_WORKER_CHECK_INTERVAL_IN_MS, TimeUnit.MILLISECONDS)) {
+						// the worker may have stopped and discarded its queue in the meantime
+						if (this.running || !this.queue.remove(element)) {
+							return;
+						}
+						break;
+					}
 				}
-				if (traceBuffer.isInvalid()) {
-					super.deliver(OUTPUT_PORT_NAME_TRACE_INVALID, traceBuffer.toTraceEvents());
-				} else {
-					super.deliver(OUTPUT_PORT_NAME_TRACE_VALID, traceBuffer.toTraceEvents());
+				this.drop(element);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				EventRecordTraceReconstructionFilter.this.log.error("Interrupted while handing over to " + this.thread.getName() + ": " + element, e);
+			}
+		}
+
+		private void drop(final Object element) {
+			if (element instanceof IFlowRecord) {
+				EventRecordTraceReconstructionFilter.this.numDroppedRecords.incrementAndGet();
+			}
+		}
+
+		/**
+		 * Waits until all records handed over so far have been processed and terminates the thread.
+		 */
+		public void terminate() {
+			this.enqueue(END_OF_RECORDS);
+			try {
+				this.thread.join();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				EventRecordTraceReconstructionFilter.this.log.warn("Interrupted while waiting for " + this.thread.getName() + " to terminate.", e);
+			}
+		}
+
+		@Override
+		public void run() {
+			final List<Object> batch = new ArrayList<>(SHARD_QUEUE_CAPACITY);
+			int next = 0;
+			boolean completed = false;
+			try {
+				while (!completed) {
+					batch.add(this.queue.take());
+					this.queue.drainTo(batch);
+					for (next = 0; next < batch.size(); next++) {
+						final Object element = batch.get(next);
+						if (element == END_OF_RECORDS) { // NOPMD (compare references by == not by equals())
+							completed = true;
+							break;
+						}
+						this.process(element);
+					}
+					batch.clear();
+				}
+			} catch (final InterruptedException e) {
+				EventRecordTraceReconstructionFilter.this.log.warn(this.thread.getName() + " was interrupted.", e);
+			} finally {
+				this.running = false;
+				if (!completed) {
+					EventRecordTraceReconstructionFilter.this.log.error(this.thread.getName() + " stopped. The further records of its traces are dropped.");
+				}
+				// the unprocessed part of the current batch and the records still queued
+				for (int i = next + 1; i < batch.size(); i++) {
+					this.drop(batch.get(i));
+				}
+				batch.clear();
+				this.queue.drainTo(batch);
+				for (final Object element : batch) {
+					this.drop(element);
 				}
 			}
-			this.traceId2trace.clear();
 		}
-	}
 
-	// only called within synchronized! We assume timestamps >= 0
-	private void processTimeoutQueue(final long timestamp) {
-		final long duration = timestamp - this.maxTraceDuration;
-		final long traceTimeout = timestamp - this.maxTraceTimeout;
-		for (final Iterator<Entry<Long, TraceBuffer>> iterator = this.traceId2trace.entrySet().iterator(); iterator.hasNext();) {
-			final TraceBuffer traceBuffer = iterator.next().getValue();
-			if ((traceBuffer.getMaxLoggingTimestamp() <= traceTimeout) // long time no see
-					|| (traceBuffer.getMinLoggingTimestamp() <= duration)) { // max duration is gone
-				if (traceBuffer.isInvalid()) {
-					super.deliver(OUTPUT_PORT_NAME_TRACE_INVALID, traceBuffer.toTraceEvents());
+		private void process(final Object element) {
+			try {
+				if (element instanceof Long) {
+					this.shard.processTimeout((Long) element);
 				} else {
-					super.deliver(OUTPUT_PORT_NAME_TRACE_VALID, traceBuffer.toTraceEvents());
+					this.shard.newEvent((IFlowRecord) element);
 				}
-				iterator.remove();
+			} catch (final RuntimeException e) { // NOPMD (a single broken record must not stop the shard)
+				EventRecordTraceReconstructionFilter.this.log.error("Failed to process " + element, e);
 			}
 		}
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * An entry of the timeout queues. Entries are not updated, but replaced by new entries.
 	 */
-	@Override
-	public Configuration getCurrentConfiguration() {
-		final Configuration configuration = new Configuration();
-		configuration.setProperty(CONFIG_PROPERTY_NAME_TIMEUNIT, this.timeunit.name());
-		configuration.setProperty(CONFIG_PROPERTY_NAME_MAX_TRACE_DURATION, String.valueOf(this.maxTraceDuration));
-		configuration.setProperty(CONFIG_PROPERTY_NAME_MAX_TRACE_TIMEOUT, String.valueOf(this.maxTraceTimeout));
-		configuration.setProperty(CONFIG_PROPERTY_NAME_REPAIR_EVENT_BASED_TRACES, Boolean.toString(this.repairEventBasedTracesEnabled));
-		return configuration;
+	private static final class TimeoutEntry implements Comparable<TimeoutEntry> {
+		final long timestamp; // NOCS NOPMD (package-private for the enclosing class only)
+		final Long traceId; // NOCS NOPMD
+		final TraceBuffer traceBuffer; // NOCS NOPMD
+
+		TimeoutEntry(final long timestamp, final Long traceId, final TraceBuffer traceBuffer) {
+			this.timestamp = timestamp;
+			this.traceId = traceId;
+			this.traceBuffer = traceBuffer;
+		}
+
+		/**
+		 * @return whether the trace has been removed or has been re-inserted into the duration queue with a smaller timestamp
+		 */
+		boolean isStaleDurationEntry() {
+			return this.traceBuffer.isRemoved() || (this.timestamp != this.traceBuffer.getQueuedMinLoggingTimestamp());
+		}
+
+		@Override
+		public int compareTo(final TimeoutEntry other) {
+			return (this.timestamp < other.timestamp) ? -1 : ((this.timestamp == other.timestamp) ? 0 : 1); // NOCS (inline conditional)
+		}
 	}
 
 	/**
 	 * The TraceBuffer is synchronized to prevent problems with concurrent access.
 	 *
+	 * <p>
+	 * The events are stored in an array indexed by their order index, since the order indices of a trace are dense and
+	 * arrive almost sorted. Events with a negative order index or an order index far beyond the number of events (which
+	 * only occur in broken traces) are kept in a separate sorted set to bound the size of the array.
+	 * </p>
+	 *
 	 * @author Jan Waller
 	 */
 	private static final class TraceBuffer {
 		private static final Log LOG = LogFactory.getLog(TraceBuffer.class);
 		private static final Comparator<AbstractTraceEvent> COMPARATOR = new TraceEventComperator();
+		private static final AbstractTraceEvent[] NO_EVENTS = new AbstractTraceEvent[0];
+		private static final BeforeOperationEvent[] NO_BEFORE_EVENTS = new BeforeOperationEvent[0];
+		private static final int INITIAL_CAPACITY = 8;
+		/** the maximal distance of an order index to the number of events such that the event is stored in the array. */
+		private static final int MAX_ORDER_INDEX_GAP = 1024;
 
 		private TraceMetadata trace;
-		private final SortedSet<AbstractTraceEvent> events = new TreeSet<>(COMPARATOR);
+		/** the events indexed by their order index; contains gaps until all events have been received. */
+		private AbstractTraceEvent[] events = NO_EVENTS;
+		private int numEventsInArray;
+		/** the events whose order index is out of the range of the array; created on demand. */
+		private SortedSet<AbstractTraceEvent> outOfRangeEvents;
 
 		private boolean closeable;
 		private boolean damaged;
@@ -349,8 +699,14 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 		private boolean beforeEventStackEmptyAtTermination;
 		private boolean repairEventBasedTracesEnabled;
 
-		private final Deque<BeforeOperationEvent> beforeEventStack = new LinkedList<>();
-		private final Deque<AbstractTraceEvent> eventQueue = new LinkedList<>();
+		// timeout bookkeeping; only accessed while holding the lock of the shard
+		private boolean removed;
+		private long queuedMinLoggingTimestamp = Long.MAX_VALUE;
+
+		// only used if the repair of event based traces is enabled
+		private BeforeOperationEvent[] beforeEventStack = NO_BEFORE_EVENTS;
+		private int beforeEventStackSize;
+		private Deque<AbstractTraceEvent> eventQueue;
 
 		/**
 		 * Creates a new instance of this class.
@@ -368,45 +724,79 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 				} else {
 					this.checkIfAfterEventsMissingThenRepair(event);
 				}
+				synchronized (this) {
+					while (!this.eventQueue.isEmpty()) {
+						this.addEvent(this.eventQueue.removeFirst(), event, myTraceId);
+					}
+				}
 			} else {
-				this.eventQueue.add(event);
+				synchronized (this) {
+					this.addEvent(event, event, myTraceId);
+				}
 			}
-			synchronized (this) {
-				while (!this.eventQueue.isEmpty()) {
-					final AbstractTraceEvent receivedEvent = this.eventQueue.removeFirst();
-					if (this.traceId == -1) {
-						this.traceId = myTraceId;
-					} else if (this.traceId != myTraceId) {
-						LOG.error("Invalid traceId! Expected: " + this.traceId + " but found: " + myTraceId + " in event " + event.toString());
-						this.damaged = true;
-					}
-					final long loggingTimestamp = receivedEvent.getTimestamp();
-					if (loggingTimestamp > this.maxLoggingTimestamp) {
-						this.maxLoggingTimestamp = loggingTimestamp;
-					}
-					if (loggingTimestamp < this.minLoggingTimestamp) {
-						this.minLoggingTimestamp = loggingTimestamp;
-					}
-					final int orderIndex = receivedEvent.getOrderIndex();
-					if (orderIndex > this.maxOrderIndex) {
-						this.maxOrderIndex = orderIndex;
-					}
-					if (receivedEvent instanceof BeforeOperationEvent) {
-						if (orderIndex == 0) {
-							this.closeable = true;
-						}
-						this.openEvents++;
-					} else if (receivedEvent instanceof AfterOperationEvent) {
-						this.openEvents--;
-					} else if (receivedEvent instanceof AfterOperationFailedEvent) {
-						this.openEvents--;
-					}
-					if (!this.events.add(receivedEvent)) {
-						LOG.error("Duplicate entry for orderIndex " + orderIndex + " with traceId " + myTraceId);
-						this.damaged = true;
-					}
+		}
+
+		// only called within synchronized!
+		private void addEvent(final AbstractTraceEvent receivedEvent, final AbstractTraceEvent event, final long myTraceId) {
+			if (this.traceId == -1) {
+				this.traceId = myTraceId;
+			} else if (this.traceId != myTraceId) {
+				LOG.error("Invalid traceId! Expected: " + this.traceId + " but found: " + myTraceId + " in event " + event.toString());
+				this.damaged = true;
+			}
+			final long loggingTimestamp = receivedEvent.getTimestamp();
+			if (loggingTimestamp > this.maxLoggingTimestamp) {
+				this.maxLoggingTimestamp = loggingTimestamp;
+			}
+			if (loggingTimestamp < this.minLoggingTimestamp) {
+				this.minLoggingTimestamp = loggingTimestamp;
+			}
+			final int orderIndex = receivedEvent.getOrderIndex();
+			if (orderIndex > this.maxOrderIndex) {
+				this.maxOrderIndex = orderIndex;
+			}
+			if (receivedEvent instanceof BeforeOperationEvent) {
+				if (orderIndex == 0) {
+					this.closeable = true;
+				}
+				this.openEvents++;
+			} else if (receivedEvent instanceof AfterOperationEvent) {
+				this.openEvents--;
+			} else if (receivedEvent instanceof AfterOperationFailedEvent) {
+				this.openEvents--;
+			}
+			if (!this.storeEvent(receivedEvent, orderIndex)) {
+				LOG.error("Duplicate entry for orderIndex " + orderIndex + " with traceId " + myTraceId);
+				this.damaged = true;
+			}
+		}
+
+		/**
+		 * @return <code>false</code> if an event with the same order index has already been stored
+		 */
+		private boolean storeEvent(final AbstractTraceEvent receivedEvent, final int orderIndex) {
+			if ((orderIndex < 0) || ((orderIndex >= this.events.length) && (orderIndex >= (this.numEventsInArray + MAX_ORDER_INDEX_GAP)))) {
+				if ((orderIndex >= 0) && (orderIndex < this.events.length) && (this.events[orderIndex] != null)) {
+					return false;
+				}
+				if (this.outOfRangeEvents == null) {
+					this.outOfRangeEvents = new TreeSet<>(COMPARATOR);
 				}
+				return this.outOfRangeEvents.add(receivedEvent);
 			}
+			if (orderIndex >= this.events.length) {
+				this.events = Arrays.copyOf(this.events, Math.max(Math.max(INITIAL_CAPACITY, 2 * this.events.length), orderIndex + 1));
+			}
+			if ((this.events[orderIndex] != null) || ((this.outOfRangeEvents != null) && this.outOfRangeEvents.contains(receivedEvent))) {
+				return false;
+			}
+			this.events[orderIndex] = receivedEvent;
+			this.numEventsInArray++;
+			return true;
+		}
+
+		private int getNumEvents() {
+			return (this.outOfRangeEvents == null) ? this.numEventsInArray : this.numEventsInArray + this.outOfRangeEvents.size(); // NOCS
 		}
 
 		public void checkIfAfterEventsMissingThenRepair(final AbstractTraceEvent event) {
@@ -418,13 +808,13 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 			}
 
 			if (event instanceof BeforeOperationEvent) {
-				this.beforeEventStack.addLast((BeforeOperationEvent) event);
+				this.pushBeforeEvent((BeforeOperationEvent) event);
 				this.eventQueue.add(event);
 			} else if (event instanceof AfterOperationEvent) {
-				while ((!this.beforeEventStack.getLast().getOperationSignature().equals(((AfterOperationEvent) event).getOperationSignature()))
+				while ((!this.peekBeforeEvent().getOperationSignature().equals(((AfterOperationEvent) event).getOperationSignature()))
 						&&
-						(!(this.beforeEventStack.getLast().getClassSignature()).equals(((AfterOperationEvent) event).getClassSignature()))) {
-					final BeforeOperationEvent beforeEvent = this.beforeEventStack.getLast();
+						(!(this.peekBeforeEvent().getClassSignature()).equals(((AfterOperationEvent) event).getClassSignature()))) {
+					final BeforeOperationEvent beforeEvent = this.peekBeforeEvent();
 					final String opSignature = beforeEvent.getOperationSignature();
 					final String classSignature = beforeEvent.getClassSignature();
 					final long timestamp = event.getTimestamp();
@@ -432,20 +822,20 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 
 					if (beforeEvent instanceof BeforeConstructorObjectEvent) {
 						this.eventQueue.add(new AfterConstructorObjectEvent(timestamp, traceID, orderIndex, opSignature, classSignature,
-								((BeforeConstructorObjectEvent) this.beforeEventStack.getLast()).getObjectId()));
+								((BeforeConstructorObjectEvent) this.peekBeforeEvent()).getObjectId()));
 					} else if (beforeEvent instanceof BeforeConstructorEvent) {
 						this.eventQueue.add(new AfterConstructorEvent(timestamp, traceID, orderIndex, opSignature, classSignature));
 					} else if (beforeEvent instanceof BeforeOperationObjectEvent) {
 						this.eventQueue.add(new AfterOperationObjectEvent(timestamp, traceID, orderIndex, opSignature, classSignature,
-								((BeforeOperationObjectEvent) this.beforeEventStack.getLast()).getObjectId()));
+								((BeforeOperationObjectEvent) this.peekBeforeEvent()).getObjectId()));
 					} else {
 						this.eventQueue.add(new AfterOperationEvent(timestamp, traceID, orderIndex, opSignature, classSignature));
 					}
-					this.beforeEventStack.removeLast();
+					this.popBeforeEvent();
 					orderIndex++;
 				}
 
-				this.beforeEventStack.removeLast();
+				this.popBeforeEvent();
 				// true as long as no events repaired, event passes without orderIndex adjustment
 				if (!alreadyRepairedSomeEvents && ((orderIndex - 1) == this.maxOrderIndex)) {
 					this.eventQueue.add(event);
@@ -487,8 +877,8 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 		public void repairAllBeforeEventsLeftInStackAtTermination() {
 
 			this.beforeEventStackEmptyAtTermination = true;
-			while (!this.beforeEventStack.isEmpty()) {
-				final BeforeOperationEvent beforeEvent = this.beforeEventStack.getLast();
+			while (this.beforeEventStackSize > 0) {
+				final BeforeOperationEvent beforeEvent = this.peekBeforeEvent();
 				final String opSignature = beforeEvent.getOperationSignature();
 				final String classSignature = beforeEvent.getClassSignature();
 				final long timestamp = beforeEvent.getTimestamp();
@@ -497,16 +887,16 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 
 				if (beforeEvent instanceof BeforeConstructorObjectEvent) {
 					this.insertEvent(new AfterConstructorObjectEvent(timestamp, traceID, orderIndex, opSignature, classSignature,
-							((BeforeConstructorObjectEvent) this.beforeEventStack.getLast()).getObjectId()));
+							((BeforeConstructorObjectEvent) this.peekBeforeEvent()).getObjectId()));
 				} else if (beforeEvent instanceof BeforeConstructorEvent) {
 					this.insertEvent(new AfterConstructorEvent(timestamp, traceID, orderIndex, opSignature, classSignature));
 				} else if (beforeEvent instanceof BeforeOperationObjectEvent) {
 					this.insertEvent(new AfterOperationObjectEvent(timestamp, traceID, orderIndex, opSignature, classSignature,
-							((BeforeOperationObjectEvent) this.beforeEventStack.getLast()).getObjectId()));
+							((BeforeOperationObjectEvent) this.peekBeforeEvent()).getObjectId()));
 				} else {
 					this.insertEvent(new AfterOperationEvent(timestamp, traceID, orderIndex, opSignature, classSignature));
 				}
-				this.beforeEventStack.removeLast();
+				this.popBeforeEvent();
 			}
 		}
 
@@ -536,16 +926,43 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 
 		public boolean isInvalid() {
 			synchronized (this) {
-				return (this.trace == null) || this.damaged || (this.openEvents != 0) || (((this.maxOrderIndex + 1) != this.events.size()) || this.events.isEmpty());
+				final int numEvents = this.getNumEvents();
+				return (this.trace == null) || this.damaged || (this.openEvents != 0) || (((this.maxOrderIndex + 1) != numEvents) || (numEvents == 0));
 			}
 		}
 
 		public TraceEventRecords toTraceEvents() {
 			synchronized (this) {
-				return new TraceEventRecords(this.trace, this.events.toArray(new AbstractTraceEvent[this.events.size()]));
+				if ((this.outOfRangeEvents == null) && (this.numEventsInArray == (this.maxOrderIndex + 1))) { // no gaps
+					return new TraceEventRecords(this.trace, Arrays.copyOf(this.events, this.numEventsInArray));
+				}
+				// merge the events of the array, skipping the gaps, with the events out of its range
+				final AbstractTraceEvent[] sortedEvents = new AbstractTraceEvent[this.getNumEvents()];
+				final Iterator<AbstractTraceEvent> outOfRangeIterator = (this.outOfRangeEvents == null) ? null // NOCS (inline conditional)
+						: this.outOfRangeEvents.iterator();
+				AbstractTraceEvent nextOutOfRangeEvent = TraceBuffer.next(outOfRangeIterator);
+				int numSortedEvents = 0;
+				for (final AbstractTraceEvent arrayEvent : this.events) {
+					if (arrayEvent != null) {
+						while ((nextOutOfRangeEvent != null) && (nextOutOfRangeEvent.getOrderIndex() < arrayEvent.getOrderIndex())) {
+							sortedEvents[numSortedEvents++] = nextOutOfRangeEvent;
+							nextOutOfRangeEvent = TraceBuffer.next(outOfRangeIterator);
+						}
+						sortedEvents[numSortedEvents++] = arrayEvent;
+					}
+				}
+				while (nextOutOfRangeEvent != null) {
+					sortedEvents[numSortedEvents++] = nextOutOfRangeEvent;
+					nextOutOfRangeEvent = TraceBuffer.next(outOfRangeIterator);
+				}
+				return new TraceEventRecords(this.trace, sortedEvents);
 			}
 		}
 
+		private static AbstractTraceEvent next(final Iterator<AbstractTraceEvent> iterator) {
+			return ((iterator != null) && iterator.hasNext()) ? iterator.next() : null; // NOCS (inline conditional)
+		}
+
 		public long getMaxLoggingTimestamp() {
 			synchronized (this) {
 				return this.maxLoggingTimestamp;
@@ -558,12 +975,55 @@ public final class EventRecordTraceReconstructionFilter extends AbstractFilterPl
 			}
 		}
 
+		public boolean isRemoved() {
+			return this.removed;
+		}
+
+		public void setRemoved() {
+			this.removed = true;
+		}
+
+		/**
+		 * @return the minimal logging timestamp of the latest entry of this trace in the duration queue
+		 */
+		public long getQueuedMinLoggingTimestamp() {
+			return this.queuedMinLoggingTimestamp;
+		}
+
+		public void setQueuedMinLoggingTimestamp(final long queuedMinLoggingTimestamp) {
+			this.queuedMinLoggingTimestamp = queuedMinLoggingTimestamp;
+		}
+
 		public void setRepairEventBasedTracesEnabled(final boolean isEnabled) {
 			this.repairEventBasedTracesEnabled = isEnabled;
+			if (isEnabled && (this.eventQueue == null)) {
+				this.eventQueue = new ArrayDeque<>();
+			}
+		}
+
+		public boolean hasBeforeEventsWithoutAfterEvent() {
+			return this.beforeEventStackSize > 0;
 		}
 
-		public Deque<BeforeOperationEvent> getEventStack() {
-			return this.beforeEventStack;
+		private void pushBeforeEvent(final BeforeOperationEvent beforeEvent) {
+			if (this.beforeEventStackSize == this.beforeEventStack.length) {
+				this.beforeEventStack = Arrays.copyOf(this.beforeEventStack, Math.max(INITIAL_CAPACITY, 2 * this.beforeEventStackSize));
+			}
+			this.beforeEventStack[this.beforeEventStackSize++] = beforeEvent;
+		}
+
+		private BeforeOperationEvent peekBeforeEvent() {
+			if (this.beforeEventStackSize == 0) {
+				throw new NoSuchElementException();
+			}
+			return this.beforeEventStack[this.beforeEventStackSize - 1];
+		}
+
+		private void popBeforeEvent() {
+			if (this.beforeEventStackSize == 0) {
+				throw new NoSuchElementException();
+			}
+			this.beforeEventStack[--this.beforeEventStackSize] = null;
 		}
 
 		/**
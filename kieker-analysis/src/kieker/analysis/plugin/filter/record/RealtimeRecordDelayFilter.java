@@ -16,6 +16,13 @@
 
 package kieker.analysis.plugin.filter.record;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -34,6 +41,12 @@ import kieker.common.record.IMonitoringRecord;
  * first record is forwarded immediately; the second will be forwarded 1500 nanos later. The acceleration factor can be used to accelerate/slow down the
  * replay (default 1.0, which means no acceleration/slow down).
  *
+ * <p>
+ * The records are grouped into time slots of the configured duration by their scheduling time. Each time slot is delivered by a single task at the beginning
+ * of the slot, with its records in the order of their logging timestamps. Hence, the number of scheduled tasks depends on the replay duration rather than on
+ * the number of records, while records are delivered at most one slot duration early.
+ * </p>
+ *
  * @author Andre van Hoorn, Robert von Massow, Jan Waller
  *
  * @since 1.6
@@ -45,7 +58,8 @@ import kieker.common.record.IMonitoringRecord;
 	@Property(name = RealtimeRecordDelayFilter.CONFIG_PROPERTY_NAME_ADDITIONAL_SHUTDOWN_DELAY_SECONDS, defaultValue = "5"),
 	@Property(name = RealtimeRecordDelayFilter.CONFIG_PROPERTY_NAME_WARN_NEGATIVE_DELAY_SECONDS, defaultValue = "2"),
 	@Property(name = RealtimeRecordDelayFilter.CONFIG_PROPERTY_NAME_TIMER, defaultValue = "MILLISECONDS"),
-	@Property(name = RealtimeRecordDelayFilter.CONFIG_PROPERTY_NAME_ACCELERATION_FACTOR, defaultValue = "1") // CONFIG_PROPERTY_ACCELERATION_FACTOR_DEFAULT
+	@Property(name = RealtimeRecordDelayFilter.CONFIG_PROPERTY_NAME_ACCELERATION_FACTOR, defaultValue = "1"), // CONFIG_PROPERTY_ACCELERATION_FACTOR_DEFAULT
+	@Property(name = RealtimeRecordDelayFilter.CONFIG_PROPERTY_NAME_TIME_SLOT_MILLIS, defaultValue = "1")
 })
 public class RealtimeRecordDelayFilter extends AbstractFilterPlugin {
 
@@ -81,6 +95,13 @@ public class RealtimeRecordDelayFilter extends AbstractFilterPlugin {
 
 	public static final double CONFIG_PROPERTY_ACCELERATION_FACTOR_DEFAULT = 1;
 
+	/**
+	 * The duration of the time slots in milliseconds. All records of a slot are delivered together.
+	 */
+	public static final String CONFIG_PROPERTY_NAME_TIME_SLOT_MILLIS = "timeSlotMillis";
+
+	private static final Comparator<IMonitoringRecord> LOGGING_TIMESTAMP_COMPARATOR = new LoggingTimestampComparator();
+
 	private final TimeUnit timeunit;
 
 	private final String strTimerOrigin;
@@ -96,6 +117,12 @@ public class RealtimeRecordDelayFilter extends AbstractFilterPlugin {
 	private final ScheduledThreadPoolExecutor executor;
 	private final long shutdownDelay;
 
+	private final long timeSlotMillis;
+	/** the duration of a time slot in the time unit of the records. */
+	private final long timeSlotDuration;
+	/** the records of the time slots which have been scheduled, but not yet delivered, by the index of the slot; guarded by this. */
+	private final Map<Long, List<IMonitoringRecord>> pendingTimeSlots = new HashMap<Long, List<IMonitoringRecord>>(); // NOPMD (guarded by this)
+
 	private volatile long startTime = -1;
 	private volatile long firstLoggingTimestamp;
 
@@ -137,6 +164,14 @@ public class RealtimeRecordDelayFilter extends AbstractFilterPlugin {
 		this.numWorkers = configuration.getIntProperty(CONFIG_PROPERTY_NAME_NUM_WORKERS);
 		this.shutdownDelay = this.timeunit.convert(this.configuration.getLongProperty(CONFIG_PROPERTY_NAME_ADDITIONAL_SHUTDOWN_DELAY_SECONDS), TimeUnit.SECONDS);
 
+		long timeSlotMillisTmp = configuration.getLongProperty(CONFIG_PROPERTY_NAME_TIME_SLOT_MILLIS, 1);
+		if (timeSlotMillisTmp <= 0) {
+			this.log.warn("Time slot must be > 0. Using default: 1");
+			timeSlotMillisTmp = 1;
+		}
+		this.timeSlotMillis = timeSlotMillisTmp;
+		this.timeSlotDuration = Math.max(1, this.timeunit.convert(this.timeSlotMillis, TimeUnit.MILLISECONDS));
+
 		this.executor = new ScheduledThreadPoolExecutor(this.numWorkers);
 		this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(true);
 		this.executor.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
@@ -150,9 +185,8 @@ public class RealtimeRecordDelayFilter extends AbstractFilterPlugin {
 	 */
 	@InputPort(name = INPUT_PORT_NAME_RECORDS, eventTypes = { IMonitoringRecord.class }, description = "Receives the records to be delayed")
 	public final void inputRecord(final IMonitoringRecord monitoringRecord) {
-		final long currentTime = this.timer.getCurrentTime(this.timeunit);
-
 		synchronized (this) {
+			final long currentTime = this.timer.getCurrentTime(this.timeunit); // not before the start time
 			if (this.startTime == -1) { // init on first record
 				this.firstLoggingTimestamp = monitoringRecord.getLoggingTimestamp();
 				this.startTime = currentTime;
@@ -176,19 +210,28 @@ public class RealtimeRecordDelayFilter extends AbstractFilterPlugin {
 				this.latestSchedulingTime = absSchedTime;
 			}
 
-			// Schedule
-			this.executor.schedule(new Runnable() {
-
-				@Override
-				public void run() {
-					RealtimeRecordDelayFilter.this.deliverIndirect(OUTPUT_PORT_NAME_RECORDS, monitoringRecord);
-				}
-			}, schedTimeFromNow, this.timeunit);
+			// Schedule the time slot of the record unless it is already scheduled; absSchedTime >= currentTime >= startTime
+			final long timeSlotIndex = (absSchedTime - this.startTime) / this.timeSlotDuration;
+			List<IMonitoringRecord> timeSlot = this.pendingTimeSlots.get(timeSlotIndex);
+			if (timeSlot == null) {
+				timeSlot = new ArrayList<IMonitoringRecord>();
+				this.pendingTimeSlots.put(timeSlotIndex, timeSlot);
+				final long timeSlotStart = this.startTime + (timeSlotIndex * this.timeSlotDuration);
+				this.executor.schedule(new TimeSlotDelivery(timeSlotIndex), Math.max(0, timeSlotStart - currentTime), this.timeunit);
+			}
+			timeSlot.add(monitoringRecord);
 		}
 	}
 
-	final boolean deliverIndirect(final String outputPortName, final Object data) { // NOPMD package for inner class
-		return this.deliver(outputPortName, data);
+	final void deliverTimeSlot(final long timeSlotIndex) { // NOPMD package for inner class
+		final List<IMonitoringRecord> timeSlot;
+		synchronized (this) {
+			timeSlot = this.pendingTimeSlots.remove(timeSlotIndex);
+		}
+		Collections.sort(timeSlot, LOGGING_TIMESTAMP_COMPARATOR); // stable and linear for (almost) sorted records
+		for (final IMonitoringRecord monitoringRecord : timeSlot) {
+			this.deliver(OUTPUT_PORT_NAME_RECORDS, monitoringRecord);
+		}
 	}
 
 	@Override
@@ -224,6 +267,7 @@ public class RealtimeRecordDelayFilter extends AbstractFilterPlugin {
 		configuration.setProperty(CONFIG_PROPERTY_NAME_NUM_WORKERS, Integer.toString(this.numWorkers));
 		configuration.setProperty(CONFIG_PROPERTY_NAME_TIMER, this.strTimerOrigin);
 		configuration.setProperty(CONFIG_PROPERTY_NAME_ACCELERATION_FACTOR, Double.toString(this.accelerationFactor));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_TIME_SLOT_MILLIS, Long.toString(this.timeSlotMillis));
 
 		configuration
 				.setProperty(CONFIG_PROPERTY_NAME_ADDITIONAL_SHUTDOWN_DELAY_SECONDS, Long.toString(TimeUnit.SECONDS.convert(this.shutdownDelay, this.timeunit)));
@@ -231,6 +275,40 @@ public class RealtimeRecordDelayFilter extends AbstractFilterPlugin {
 		return configuration;
 	}
 
+	/**
+	 * Delivers the records of a time slot.
+	 */
+	private final class TimeSlotDelivery implements Runnable {
+		private final long timeSlotIndex;
+
+		public TimeSlotDelivery(final long timeSlotIndex) {
+			this.timeSlotIndex = timeSlotIndex;
+		}
+
+		@Override
+		public void run() {
+			RealtimeRecordDelayFilter.this.deliverTimeSlot(this.timeSlotIndex);
+		}
+	}
+
+	/**
+	 * Orders records by their logging timestamps.
+	 */
+	private static final class LoggingTimestampComparator implements Comparator<IMonitoringRecord>, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		public LoggingTimestampComparator() {
+			// default empty constructor
+		}
+
+		@Override
+		public int compare(final IMonitoringRecord o1, final IMonitoringRecord o2) {
+			final long t1 = o1.getLoggingTimestamp();
+			final long t2 = o2.getLoggingTimestamp();
+			return (t1 < t2) ? -1 : ((t1 == t2) ? 0 : 1); // NOCS (inline conditional)
+		}
+	}
+
 	/**
 	 * @author Jan Waller
 	 */
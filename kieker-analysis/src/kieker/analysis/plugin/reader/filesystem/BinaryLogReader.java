@@ -43,7 +43,16 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 @Plugin(description = "A file system reader which reads records from multiple directories", outputPorts = {
 	@OutputPort(name = BinaryLogReader.OUTPUT_PORT_NAME_RECORDS, eventTypes = {
 		IMonitoringRecord.class }, description = "Output Port of the reader") }, configuration = {
-			@Property(name = BinaryLogReader.CONFIG_PROPERTY_NAME_INPUTDIRS, defaultValue = ".", description = "The name of the input dirs used to read data (multiple dirs are separated by |).")
+			@Property(name = BinaryLogReader.CONFIG_PROPERTY_NAME_INPUTDIRS, defaultValue = ".", description = "The name of the input dirs used to read data (multiple dirs are separated by |)."),
+			@Property(name = BinaryLogReader.CONFIG_PROPERTY_NAME_IGNORE_BEFORE_TIMESTAMP, defaultValue = BinaryLogReader.CONFIG_PROPERTY_VALUE_MIN_TIMESTAMP,
+					description = "Blocks of block-compressed files containing only records logged before this timestamp are skipped."),
+			@Property(name = BinaryLogReader.CONFIG_PROPERTY_NAME_IGNORE_AFTER_TIMESTAMP, defaultValue = BinaryLogReader.CONFIG_PROPERTY_VALUE_MAX_TIMESTAMP,
+					description = "Blocks of block-compressed files containing only records logged after this timestamp are skipped."),
+			@Property(name = BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECOMPRESSION_THREADS, defaultValue = "0",
+					description = "The number of threads decompressing the blocks of block-compressed files per input dir (0 uses one per processor)."),
+			@Property(name = BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECODING_THREADS, defaultValue = "0",
+					description = "The number of threads decoding all files concurrently; the records are merged by their logging timestamp "
+							+ "(0 reads each input dir by a single thread).")
 		})
 public class BinaryLogReader extends AbstractReaderPlugin implements IMonitoringRecordReceiver {
 
@@ -56,6 +65,19 @@ public class BinaryLogReader extends AbstractReaderPlugin implements IMonitoring
 	public static final String CONFIG_PROPERTY_NAME_IGNORE_UNKNOWN_RECORD_TYPES = "ignoreUnknownRecordTypes";
 	/** The name of the configuration determining whether to decompress the Kieker log files. */
 	public static final String CONFIG_SHOULD_DECOMPRESS = "shouldDecompress";
+	/** The name of the configuration determining the lower bound of the time window of block-compressed files. */
+	public static final String CONFIG_PROPERTY_NAME_IGNORE_BEFORE_TIMESTAMP = "ignoreBeforeTimestamp";
+	/** The name of the configuration determining the upper bound of the time window of block-compressed files. */
+	public static final String CONFIG_PROPERTY_NAME_IGNORE_AFTER_TIMESTAMP = "ignoreAfterTimestamp";
+	/** The name of the configuration determining the number of threads decompressing block-compressed files. */
+	public static final String CONFIG_PROPERTY_NAME_NUM_DECOMPRESSION_THREADS = "numDecompressionThreads";
+	/** The name of the configuration determining the number of threads decoding all files concurrently (0 reads each input dir by a single thread). */
+	public static final String CONFIG_PROPERTY_NAME_NUM_DECODING_THREADS = "numDecodingThreads";
+
+	/** The minimal timestamp of the time window (Long.MIN_VALUE). */
+	public static final String CONFIG_PROPERTY_VALUE_MIN_TIMESTAMP = "-9223372036854775808";
+	/** The maximal timestamp of the time window (Long.MAX_VALUE). */
+	public static final String CONFIG_PROPERTY_VALUE_MAX_TIMESTAMP = "9223372036854775807";
 
 	/** This dummy record can be send to the reader's record queue to mark the end of the current file. */
 	private static final IMonitoringRecord EOF = new EmptyRecord();
@@ -64,6 +86,11 @@ public class BinaryLogReader extends AbstractReaderPlugin implements IMonitoring
 	private final PriorityQueue<IMonitoringRecord> recordQueue;
 
 	private final boolean shouldDecompress;
+	private final long ignoreBeforeTimestamp;
+	private final long ignoreAfterTimestamp;
+	private final int numDecompressionThreads;
+	private final int numDecodingThreads;
+	private volatile ParallelBinaryLogMerger parallelLogMerger;
 
 	private final List<AbstractLogReaderThread> readerThreads = new ArrayList<>();
 
@@ -93,6 +120,10 @@ public class BinaryLogReader extends AbstractReaderPlugin implements IMonitoring
 		this.recordQueue = new PriorityQueue<IMonitoringRecord>(nDirs);
 
 		this.shouldDecompress = this.configuration.getBooleanProperty(CONFIG_SHOULD_DECOMPRESS);
+		this.ignoreBeforeTimestamp = this.configuration.getLongProperty(CONFIG_PROPERTY_NAME_IGNORE_BEFORE_TIMESTAMP, Long.MIN_VALUE);
+		this.ignoreAfterTimestamp = this.configuration.getLongProperty(CONFIG_PROPERTY_NAME_IGNORE_AFTER_TIMESTAMP, Long.MAX_VALUE);
+		this.numDecompressionThreads = Math.max(0, this.configuration.getIntProperty(CONFIG_PROPERTY_NAME_NUM_DECOMPRESSION_THREADS, 0));
+		this.numDecodingThreads = Math.max(0, this.configuration.getIntProperty(CONFIG_PROPERTY_NAME_NUM_DECODING_THREADS, 0));
 	}
 
 	/**
@@ -104,6 +135,10 @@ public class BinaryLogReader extends AbstractReaderPlugin implements IMonitoring
 		for (final AbstractLogReaderThread readerThread : this.readerThreads) {
 			readerThread.terminate();
 		}
+		final ParallelBinaryLogMerger logMerger = this.parallelLogMerger;
+		if (logMerger != null) {
+			logMerger.terminate();
+		}
 	}
 
 	/**
@@ -112,6 +147,10 @@ public class BinaryLogReader extends AbstractReaderPlugin implements IMonitoring
 	@Override
 	@SuppressFBWarnings("NN_NAKED_NOTIFY")
 	public boolean read() {
+		if (this.numDecodingThreads > 0) {
+			return this.readConcurrently();
+		}
+
 		// start all reader
 		int notInitializesReaders = 0;
 		for (final String inputDirFn : this.inputDirs) {
@@ -119,7 +158,8 @@ public class BinaryLogReader extends AbstractReaderPlugin implements IMonitoring
 			final File inputDir = new File(inputDirFn);
 
 			if (inputDir.isDirectory()) {
-				final AbstractLogReaderThread readerThread = new BinaryLogReaderThread(inputDir, this, this.shouldDecompress);
+				final AbstractLogReaderThread readerThread = new BinaryLogReaderThread(inputDir, this, this.shouldDecompress, this.ignoreBeforeTimestamp,
+						this.ignoreAfterTimestamp, this.getResolvedNumDecompressionThreads());
 				readerThread.setDaemon(true);
 				this.readerThreads.add(readerThread);
 				readerThread.start();
@@ -154,6 +194,36 @@ public class BinaryLogReader extends AbstractReaderPlugin implements IMonitoring
 		return true;
 	}
 
+	/**
+	 * Decodes all files concurrently and delivers the records merged by their logging timestamp.
+	 */
+	private boolean readConcurrently() {
+		final List<File> validInputDirs = new ArrayList<File>(this.inputDirs.length);
+		for (final String inputDirFn : this.inputDirs) {
+			final File inputDir = new File(inputDirFn);
+			if (inputDir.isDirectory()) {
+				validInputDirs.add(inputDir);
+			} else {
+				this.log.warn("Invalid Directory or filename (no Kieker log): " + inputDirFn);
+			}
+		}
+
+		this.parallelLogMerger = new ParallelBinaryLogMerger(this.log, validInputDirs, this.shouldDecompress, this.ignoreBeforeTimestamp,
+				this.ignoreAfterTimestamp, this.getResolvedNumDecompressionThreads(), this.numDecodingThreads);
+		this.parallelLogMerger.read(new IMonitoringRecordReceiver() {
+			@Override
+			public boolean newMonitoringRecord(final IMonitoringRecord record) {
+				return BinaryLogReader.super.deliver(OUTPUT_PORT_NAME_RECORDS, record);
+			}
+
+			@Override
+			public void newEndOfFileRecord() {
+				// no end of file records are sent
+			}
+		});
+		return true;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -181,9 +251,20 @@ public class BinaryLogReader extends AbstractReaderPlugin implements IMonitoring
 	public Configuration getCurrentConfiguration() {
 		final Configuration configuration = new Configuration();
 		configuration.setProperty(CONFIG_PROPERTY_NAME_INPUTDIRS, Configuration.toProperty(this.inputDirs));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_IGNORE_BEFORE_TIMESTAMP, Long.toString(this.ignoreBeforeTimestamp));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_IGNORE_AFTER_TIMESTAMP, Long.toString(this.ignoreAfterTimestamp));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_NUM_DECOMPRESSION_THREADS, Integer.toString(this.numDecompressionThreads));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_NUM_DECODING_THREADS, Integer.toString(this.numDecodingThreads));
 		return configuration;
 	}
 
+	/**
+	 * @return the configured number of decompression threads, or the number of processors if it is 0 (auto)
+	 */
+	private int getResolvedNumDecompressionThreads() {
+		return (this.numDecompressionThreads > 0) ? this.numDecompressionThreads : Runtime.getRuntime().availableProcessors(); // NOCS
+	}
+
 	@Override
 	public void newEndOfFileRecord() {
 		this.newMonitoringRecord(EOF);
@@ -46,11 +46,16 @@ class BinaryLogReaderThread extends AbstractLogReaderThread {
 
 	private static final Log LOG = LogFactory.getLog(BinaryLogReaderThread.class);
 
+	private static final FileExtensionFilter BIN_OR_BLOCK = new FileExtensionFilter(FSUtil.BINARY_FILE_EXTENSION, FSUtil.BLOCK_FILE_EXTENSION);
+	private static final FileExtensionFilter ZIP_OR_BLOCK = new FileExtensionFilter(FSUtil.ZIP_FILE_EXTENSION, FSUtil.BLOCK_FILE_EXTENSION);
+
 	private final ReaderRegistry<String> readerRegistry = new ReaderRegistry<String>();
 	private final IMonitoringRecordReceiver recordReceiver;
 	private final File inputDir;
 	private final boolean shouldDecompress;
 	private final ByteBufferDeserializer deserializer;
+	/** reads block-compressed files; null if the directory contains no such files. */
+	private final BlockLogFileReader blockLogFileReader;
 
 	/**
 	 * Creates a new instance of this class.
@@ -65,6 +70,30 @@ class BinaryLogReaderThread extends AbstractLogReaderThread {
 	 *            <code>true</code> if each log file is compressed, otherwise <code>false</code>
 	 */
 	public BinaryLogReaderThread(final File inputDir, final IMonitoringRecordReceiver recordReceiver, final boolean shouldDecompress) {
+		this(inputDir, recordReceiver, shouldDecompress, Long.MIN_VALUE, Long.MAX_VALUE, 1);
+	}
+
+	/**
+	 * Creates a new instance of this class. Block-compressed files in the input directory are read along with the other
+	 * binary files.
+	 *
+	 * @param inputDir
+	 *            The File object for the input directory.
+	 * @param recordReceiver
+	 *            The receiver handling the records.
+	 * @param shouldDecompress
+	 *            <code>true</code> if each log file is compressed, otherwise <code>false</code>
+	 * @param ignoreBeforeTimestamp
+	 *            blocks of block-compressed files containing only records logged before this timestamp are skipped
+	 * @param ignoreAfterTimestamp
+	 *            blocks of block-compressed files containing only records logged after this timestamp are skipped
+	 * @param numDecompressionThreads
+	 *            the number of threads decompressing the blocks of block-compressed files
+	 *
+	 * @since 1.14
+	 */
+	public BinaryLogReaderThread(final File inputDir, final IMonitoringRecordReceiver recordReceiver, final boolean shouldDecompress,
+			final long ignoreBeforeTimestamp, final long ignoreAfterTimestamp, final int numDecompressionThreads) {
 		super(LOG, inputDir);
 		if ((inputDir == null) || !inputDir.isDirectory()) {
 			throw new IllegalArgumentException("Invalid or empty inputDir");
@@ -74,10 +103,20 @@ class BinaryLogReaderThread extends AbstractLogReaderThread {
 		this.shouldDecompress = shouldDecompress;
 		this.deserializer = new ByteBufferDeserializer(this.readerRegistry, LOG, 8192);
 		this.deserializer.register(recordReceiver);
+
+		final String[] blockFileNames = inputDir.list(FileExtensionFilter.BLOCK);
+		if ((blockFileNames != null) && (blockFileNames.length > 0)) {
+			this.blockLogFileReader = new BlockLogFileReader(LOG, this.deserializer, ignoreBeforeTimestamp, ignoreAfterTimestamp, numDecompressionThreads);
+		} else {
+			this.blockLogFileReader = null; // NOPMD (null)
+		}
 	}
 
 	@Override
 	protected FileExtensionFilter getFileExtensionFilter() {
+		if (this.blockLogFileReader != null) {
+			return (this.shouldDecompress) ? ZIP_OR_BLOCK : BIN_OR_BLOCK; // NOCS // NOPMD
+		}
 		return (this.shouldDecompress) ? FileExtensionFilter.ZIP : FileExtensionFilter.BIN; // NOCS // NOPMD
 	}
 
@@ -86,17 +125,26 @@ class BinaryLogReaderThread extends AbstractLogReaderThread {
 	 */
 	@Override
 	protected void readMappingFile() {
-		File mappingFile = new File(this.inputDir.getAbsolutePath() + File.separator + FSUtil.MAP_FILENAME);
+		BinaryLogReaderThread.readMappingFile(this.inputDir, this.readerRegistry);
+	}
+
+	/**
+	 * Reads the mapping file located in the given directory into the given registry.
+	 *
+	 * @since 1.14
+	 */
+	static void readMappingFile(final File inputDir, final ReaderRegistry<String> readerRegistry) {
+		File mappingFile = new File(inputDir.getAbsolutePath() + File.separator + FSUtil.MAP_FILENAME);
 		if (!mappingFile.exists()) {
 			// No mapping file found. Check whether we find a legacy tpmon.map file!
-			mappingFile = new File(this.inputDir.getAbsolutePath() + File.separator + FSUtil.LEGACY_MAP_FILENAME);
+			mappingFile = new File(inputDir.getAbsolutePath() + File.separator + FSUtil.LEGACY_MAP_FILENAME);
 			if (mappingFile.exists()) {
-				LOG.info("Directory '" + this.inputDir + "' contains no file '" + FSUtil.MAP_FILENAME + "'. Found '" + FSUtil.LEGACY_MAP_FILENAME
+				LOG.info("Directory '" + inputDir + "' contains no file '" + FSUtil.MAP_FILENAME + "'. Found '" + FSUtil.LEGACY_MAP_FILENAME
 						+ "' ... switching to legacy mode");
 			} else {
 				// no {kieker|tpmon}.map exists. This is valid for very old monitoring logs. Hence, only dump a log.warn
 				if (LOG.isWarnEnabled()) {
-					LOG.warn("No mapping file in directory '" + this.inputDir.getAbsolutePath() + "'");
+					LOG.warn("No mapping file in directory '" + inputDir.getAbsolutePath() + "'");
 				}
 				return;
 			}
@@ -129,7 +177,7 @@ class BinaryLogReaderThread extends AbstractLogReaderThread {
 					LOG.error("Error reading mapping file, id must be integer", ex);
 					continue; // continue on errors
 				}
-				final String prevVal = this.readerRegistry.register(id, value);
+				final String prevVal = readerRegistry.register(id, value);
 				if (prevVal != null) {
 					LOG.error("Found addional entry for id='" + id + "', old value was '" + prevVal + "' new value is '" + value + "'");
 				}
@@ -155,6 +203,15 @@ class BinaryLogReaderThread extends AbstractLogReaderThread {
 	 */
 	@Override
 	protected void processNormalInputFile(final File inputFile) {
+		if (inputFile.getName().endsWith(FSUtil.BLOCK_FILE_EXTENSION)) {
+			try {
+				this.blockLogFileReader.read(inputFile);
+			} catch (final IOException e) {
+				LOG.error("An exception occurred", e);
+			}
+			return;
+		}
+
 		ReadableByteChannel channel = null;
 		try {
 			InputStream fileInputStream = new FileInputStream(inputFile);
@@ -186,6 +243,9 @@ class BinaryLogReaderThread extends AbstractLogReaderThread {
 
 	@Override
 	protected void onEndOfRun() {
+		if (this.blockLogFileReader != null) {
+			this.blockLogFileReader.terminate();
+		}
 		this.recordReceiver.newEndOfFileRecord();
 	}
 
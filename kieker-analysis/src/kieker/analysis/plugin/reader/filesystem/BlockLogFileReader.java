@@ -0,0 +1,377 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.analysis.plugin.reader.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import kieker.analysis.plugin.reader.util.ByteBufferDeserializer;
+import kieker.common.logging.Log;
+import kieker.common.util.filesystem.BlockLogFormat;
+
+/**
+ * Reads Kieker's block-compressed binary files (see {@link BlockLogFormat}). The blocks are located by means of the
+ * index at the end of a file or, if a file has no index, by scanning the block headers. Blocks whose logging timestamps
+ * lie completely outside of the configured time window are skipped without decompressing them. The remaining blocks are
+ * decompressed by a pool of threads and deserialized in the order of the file.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+class BlockLogFileReader {
+
+	private final Log logger; // NOPMD (logger from the caller)
+	private final ByteBufferDeserializer deserializer;
+	private final long ignoreBeforeTimestamp;
+	private final long ignoreAfterTimestamp;
+	/** decompresses the blocks; null if the blocks are decompressed by the reading thread. */
+	private final ExecutorService decompressionService;
+	/** the maximal number of blocks being decompressed ahead of the deserialization. */
+	private final int maxPendingBlocks;
+
+	/**
+	 * @param numDecompressionThreads
+	 *            the number of threads decompressing the blocks; 1 decompresses them within the reading thread
+	 */
+	public BlockLogFileReader(final Log logger, final ByteBufferDeserializer deserializer, final long ignoreBeforeTimestamp, final long ignoreAfterTimestamp,
+			final int numDecompressionThreads) {
+		this.logger = logger;
+		this.deserializer = deserializer;
+		this.ignoreBeforeTimestamp = ignoreBeforeTimestamp;
+		this.ignoreAfterTimestamp = ignoreAfterTimestamp;
+		if (numDecompressionThreads > 1) {
+			this.decompressionService = Executors.newFixedThreadPool(numDecompressionThreads, new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable runnable) {
+					final Thread thread = new Thread(runnable, "Kieker-" + BlockLogFileReader.class.getSimpleName());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		} else {
+			this.decompressionService = null; // NOPMD (null)
+		}
+		this.maxPendingBlocks = 2 * numDecompressionThreads;
+	}
+
+	/**
+	 * Reads the records of the given file and passes them to the deserializer's receiver.
+	 */
+	public void read(final File inputFile) throws IOException {
+		final FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+		try {
+			final List<BlockInfo> blocks = this.readBlocks(channel, inputFile);
+			final Deque<Future<ByteBuffer>> pendingBlocks = new ArrayDeque<Future<ByteBuffer>>();
+			for (final BlockInfo block : blocks) {
+				final DecompressionTask task = new DecompressionTask(channel, block.offset);
+				if (this.decompressionService == null) {
+					this.deserializer.deserialize(task.call());
+				} else {
+					if (pendingBlocks.size() >= this.maxPendingBlocks) {
+						this.deserializeNext(pendingBlocks);
+					}
+					pendingBlocks.add(this.decompressionService.submit(task));
+				}
+			}
+			while (!pendingBlocks.isEmpty()) {
+				this.deserializeNext(pendingBlocks);
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * @param channel
+	 *            the channel of the given file
+	 * @return the blocks of the given file which contain records within the time window; empty if the file is not a
+	 *         block-compressed Kieker log
+	 *
+	 * @since 1.14
+	 */
+	List<BlockInfo> readBlocks(final FileChannel channel, final File inputFile) throws IOException {
+		final ByteBuffer fileHeader = ByteBuffer.allocate(BlockLogFormat.FILE_HEADER_SIZE);
+		this.readFully(channel, fileHeader, 0);
+		if ((fileHeader.getInt(0) != BlockLogFormat.FILE_MAGIC) || (fileHeader.getInt(4) != BlockLogFormat.VERSION)) {
+			this.logger.error("The file '" + inputFile + "' is not a block-compressed Kieker log of version " + BlockLogFormat.VERSION + ".");
+			return new ArrayList<BlockInfo>(0);
+		}
+
+		List<BlockInfo> blocks = this.readIndex(channel);
+		if (blocks == null) {
+			this.logger.warn("The file '" + inputFile + "' has no valid index. Scanning its blocks.");
+			blocks = this.scanBlocks(channel);
+		}
+
+		final List<BlockInfo> blocksInTimeWindow = new ArrayList<BlockInfo>(blocks.size());
+		for (final BlockInfo block : blocks) {
+			if ((block.maxLoggingTimestamp >= this.ignoreBeforeTimestamp) && (block.minLoggingTimestamp <= this.ignoreAfterTimestamp)) {
+				blocksInTimeWindow.add(block);
+			}
+		}
+		if ((blocksInTimeWindow.size() < blocks.size()) && this.logger.isDebugEnabled()) {
+			this.logger.debug("Skipping " + (blocks.size() - blocksInTimeWindow.size()) + " of " + blocks.size() + " blocks outside of the time window in '"
+					+ inputFile + "'.");
+		}
+		return blocksInTimeWindow;
+	}
+
+	/**
+	 * Starts reading and decompressing the block at the given offset on a decompression thread or, if there are none,
+	 * reads and decompresses it within the calling thread.
+	 *
+	 * @return the pending records of the block, to be obtained by {@link #awaitDecompression(Future)}
+	 *
+	 * @since 1.14
+	 */
+	Future<ByteBuffer> submitDecompression(final FileChannel channel, final long offset) {
+		final DecompressionTask task = new DecompressionTask(channel, offset);
+		if (this.decompressionService == null) {
+			final FutureTask<ByteBuffer> decompressedBlock = new FutureTask<ByteBuffer>(task);
+			decompressedBlock.run();
+			return decompressedBlock;
+		}
+		return this.decompressionService.submit(task);
+	}
+
+	/**
+	 * @return the records of a block submitted by {@link #submitDecompression(FileChannel, long)}
+	 *
+	 * @since 1.14
+	 */
+	ByteBuffer awaitDecompression(final Future<ByteBuffer> pendingBlock) throws IOException {
+		try {
+			return pendingBlock.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a block to be decompressed.");
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * @return the maximal number of blocks of a file which should be decompressed ahead of the deserialization
+	 *
+	 * @since 1.14
+	 */
+	int getMaxPendingBlocks() {
+		return (this.decompressionService == null) ? 1 : this.maxPendingBlocks; // NOCS (inline conditional)
+	}
+
+	private void deserializeNext(final Deque<Future<ByteBuffer>> pendingBlocks) throws IOException {
+		final Future<ByteBuffer> pendingBlock = pendingBlocks.removeFirst();
+		try {
+			this.deserializer.deserialize(pendingBlock.get());
+		} catch (final InterruptedException e) {
+			for (final Future<ByteBuffer> block : pendingBlocks) {
+				block.cancel(true);
+			}
+			pendingBlocks.clear();
+			Thread.currentThread().interrupt();
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Reads the index if the footer is valid and the index is consistent with it, i.e., the blocks follow each other
+	 * from the file header up to the index.
+	 *
+	 * @return the blocks listed in the index of the file or <code>null</code> if the file has no valid index.
+	 */
+	private List<BlockInfo> readIndex(final FileChannel channel) throws IOException {
+		final long fileSize = channel.size();
+		if (fileSize < (BlockLogFormat.FILE_HEADER_SIZE + BlockLogFormat.FOOTER_SIZE)) {
+			return null;
+		}
+		final ByteBuffer footer = ByteBuffer.allocate(BlockLogFormat.FOOTER_SIZE);
+		this.readFully(channel, footer, fileSize - BlockLogFormat.FOOTER_SIZE);
+		final long indexOffset = footer.getLong();
+		final int numBlocks = footer.getInt();
+		if ((footer.getInt() != BlockLogFormat.FOOTER_MAGIC) || (numBlocks < 0) || (indexOffset < BlockLogFormat.FILE_HEADER_SIZE)
+				|| ((indexOffset + ((long) numBlocks * BlockLogFormat.INDEX_ENTRY_SIZE) + BlockLogFormat.FOOTER_SIZE) != fileSize)) {
+			return null;
+		}
+
+		final ByteBuffer index = ByteBuffer.allocate(numBlocks * BlockLogFormat.INDEX_ENTRY_SIZE);
+		this.readFully(channel, index, indexOffset);
+		final List<BlockInfo> blocks = new ArrayList<BlockInfo>(numBlocks);
+		long expectedOffset = BlockLogFormat.FILE_HEADER_SIZE;
+		final ByteBuffer blockHeader = ByteBuffer.allocate(BlockLogFormat.BLOCK_HEADER_SIZE);
+		for (int i = 0; i < numBlocks; i++) {
+			final long offset = index.getLong();
+			final int numRecords = index.getInt();
+			final BlockInfo block = new BlockInfo(offset, index.getLong(), index.getLong());
+			if ((offset != expectedOffset) || ((offset + BlockLogFormat.BLOCK_HEADER_SIZE) > indexOffset)) {
+				return null;
+			}
+			// the index entry must match the header of its block
+			blockHeader.clear();
+			this.readFully(channel, blockHeader, offset);
+			final int compressedSize = blockHeader.getInt();
+			blockHeader.getInt(); // uncompressed size
+			if ((compressedSize < 0) || (blockHeader.getInt() != numRecords) || (blockHeader.getLong() != block.minLoggingTimestamp)
+					|| (blockHeader.getLong() != block.maxLoggingTimestamp)) {
+				return null;
+			}
+			blocks.add(block);
+			expectedOffset = offset + BlockLogFormat.BLOCK_HEADER_SIZE + compressedSize;
+		}
+		if (expectedOffset != indexOffset) {
+			return null;
+		}
+		return blocks;
+	}
+
+	/**
+	 * @return the complete blocks found by reading the block headers one after another
+	 */
+	private List<BlockInfo> scanBlocks(final FileChannel channel) throws IOException {
+		final long fileSize = channel.size();
+		final List<BlockInfo> blocks = new ArrayList<BlockInfo>();
+		final ByteBuffer blockHeader = ByteBuffer.allocate(BlockLogFormat.BLOCK_HEADER_SIZE);
+		long offset = BlockLogFormat.FILE_HEADER_SIZE;
+		while ((offset + BlockLogFormat.BLOCK_HEADER_SIZE) <= fileSize) {
+			blockHeader.clear();
+			this.readFully(channel, blockHeader, offset);
+			final int compressedSize = blockHeader.getInt();
+			final int uncompressedSize = blockHeader.getInt();
+			final int numRecords = blockHeader.getInt();
+			final long minLoggingTimestamp = blockHeader.getLong();
+			final long maxLoggingTimestamp = blockHeader.getLong();
+			final long nextOffset = offset + BlockLogFormat.BLOCK_HEADER_SIZE + compressedSize;
+			if ((compressedSize < 0) || (uncompressedSize < 0) || (numRecords <= 0) || (minLoggingTimestamp > maxLoggingTimestamp)) {
+				break; // no block header, e.g., the index of a file whose footer is incomplete
+			}
+			if (nextOffset > fileSize) {
+				break; // incomplete block
+			}
+			blocks.add(new BlockInfo(offset, minLoggingTimestamp, maxLoggingTimestamp));
+			offset = nextOffset;
+		}
+		return blocks;
+	}
+
+	/**
+	 * Reads the remaining bytes of the given buffer from the given position and flips the buffer.
+	 */
+	private void readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+		long currentPosition = position;
+		while (buffer.hasRemaining()) {
+			final int numBytesRead = channel.read(buffer, currentPosition);
+			if (numBytesRead == -1) {
+				throw new IOException("Unexpected end of file at position " + currentPosition + ".");
+			}
+			currentPosition += numBytesRead;
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Stops the decompression threads.
+	 */
+	public void terminate() {
+		if (this.decompressionService != null) {
+			this.decompressionService.shutdownNow();
+		}
+	}
+
+	/**
+	 * The position and the time range of a block.
+	 */
+	static final class BlockInfo {
+		final long offset; // NOCS NOPMD (package-private for the enclosing class only)
+		final long minLoggingTimestamp; // NOCS NOPMD
+		final long maxLoggingTimestamp; // NOCS NOPMD
+
+		BlockInfo(final long offset, final long minLoggingTimestamp, final long maxLoggingTimestamp) {
+			this.offset = offset;
+			this.minLoggingTimestamp = minLoggingTimestamp;
+			this.maxLoggingTimestamp = maxLoggingTimestamp;
+		}
+	}
+
+	/**
+	 * Reads and decompresses a single block. File channels support concurrent reads at absolute positions.
+	 */
+	private final class DecompressionTask implements Callable<ByteBuffer> {
+		private final FileChannel channel;
+		private final long offset;
+
+		DecompressionTask(final FileChannel channel, final long offset) {
+			this.channel = channel;
+			this.offset = offset;
+		}
+
+		@Override
+		public ByteBuffer call() throws IOException {
+			final ByteBuffer blockHeader = ByteBuffer.allocate(BlockLogFormat.BLOCK_HEADER_SIZE);
+			BlockLogFileReader.this.readFully(this.channel, blockHeader, this.offset);
+			final int compressedSize = blockHeader.getInt();
+			final int uncompressedSize = blockHeader.getInt();
+
+			// the inflater may need an additional dummy byte if the data is not wrapped by a zlib header
+			final ByteBuffer compressedBlock = ByteBuffer.allocate(compressedSize + 1);
+			compressedBlock.limit(compressedSize);
+			BlockLogFileReader.this.readFully(this.channel, compressedBlock, this.offset + BlockLogFormat.BLOCK_HEADER_SIZE);
+
+			final byte[] uncompressedBlock = new byte[uncompressedSize];
+			final Inflater inflater = new Inflater(true);
+			try {
+				inflater.setInput(compressedBlock.array(), 0, compressedSize + 1);
+				int numBytes = 0;
+				while (numBytes < uncompressedSize) {
+					final int numInflatedBytes = inflater.inflate(uncompressedBlock, numBytes, uncompressedSize - numBytes);
+					if ((numInflatedBytes == 0) && (inflater.finished() || inflater.needsInput())) {
+						throw new IOException("The block at position " + this.offset + " is shorter than declared.");
+					}
+					numBytes += numInflatedBytes;
+				}
+			} catch (final DataFormatException e) {
+				throw new IOException("The block at position " + this.offset + " is corrupt.", e);
+			} finally {
+				inflater.end();
+			}
+			return ByteBuffer.wrap(uncompressedBlock);
+		}
+	}
+}
@@ -314,6 +314,9 @@ final class FSDirectoryReader implements Runnable {
 				} catch (final EOFException eof) {
 					break; // we are finished
 				}
+				if (id == FSUtil.END_OF_RECORDS_CLASS_ID) {
+					break; // the remainder of the file is unused
+				}
 				final String classname = this.stringRegistry.get(id);
 				if (classname == null) {
 					LOG.error("Missing classname mapping for record type id " + "'" + id + "'");
@@ -0,0 +1,263 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.analysis.plugin.reader.filesystem;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import kieker.analysis.plugin.reader.util.IMonitoringRecordReceiver;
+import kieker.common.logging.Log;
+import kieker.common.util.filesystem.FSUtil;
+import kieker.common.util.filesystem.FileExtensionFilter;
+import kieker.common.util.registry.reader.ReaderRegistry;
+
+/**
+ * Decodes the files of the given log directories concurrently on a pool of worker threads and merges the decoded
+ * records by their logging timestamp (k-way merge with a heap). Records with the same logging timestamp are passed in
+ * the order of their files; the records of a single file are passed in the order of the file.
+ *
+ * <p>
+ * The files of a directory are rotated by the writer and hence in time order, so only the end of a file may overlap
+ * with the beginning of the following ones. Therefore, the files of a directory are opened lazily: only the current
+ * file and the next {@link #NUM_FILES_AHEAD} files are open and decoded ahead. A file is opened when the file
+ * {@link #NUM_FILES_AHEAD} + 1 positions before it has ended. This bounds the number of open files and of buffered
+ * batches by the number of directories, regardless of the number of files.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+class ParallelBinaryLogMerger {
+
+	/** the number of files per directory which are opened and decoded ahead of the current one. */
+	static final int NUM_FILES_AHEAD = 1;
+
+	private final Log logger; // NOPMD (logger from the caller)
+	private final List<File> inputDirs;
+	private final boolean shouldDecompress;
+	private final long ignoreBeforeTimestamp;
+	private final long ignoreAfterTimestamp;
+	private final int numDecompressionThreads;
+	private final ExecutorService workers;
+
+	private volatile boolean shouldTerminate;
+	private volatile Thread readingThread;
+
+	/**
+	 * @param numDecompressionThreads
+	 *            the number of threads decompressing the blocks of the block-compressed files per directory
+	 * @param numWorkers
+	 *            the number of threads decoding the files
+	 */
+	public ParallelBinaryLogMerger(final Log logger, final List<File> inputDirs, final boolean shouldDecompress, final long ignoreBeforeTimestamp,
+			final long ignoreAfterTimestamp, final int numDecompressionThreads, final int numWorkers) {
+		this.logger = logger;
+		this.inputDirs = inputDirs;
+		this.shouldDecompress = shouldDecompress;
+		this.ignoreBeforeTimestamp = ignoreBeforeTimestamp;
+		this.ignoreAfterTimestamp = ignoreAfterTimestamp;
+		this.numDecompressionThreads = numDecompressionThreads;
+		this.workers = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "Kieker-" + ParallelBinaryLogMerger.class.getSimpleName());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Passes the records of all files to the given receiver ordered by their logging timestamp. Returns after all records
+	 * have been passed or after {@link #terminate()} has been called.
+	 */
+	public void read(final IMonitoringRecordReceiver recordReceiver) {
+		this.readingThread = Thread.currentThread();
+		final List<DirectoryFiles> directories = this.listDirectories();
+		try {
+			final PriorityQueue<StreamHead> heads = new PriorityQueue<StreamHead>(Math.max(1, directories.size() * (NUM_FILES_AHEAD + 1)),
+					new Comparator<StreamHead>() {
+						@Override
+						public int compare(final StreamHead head1, final StreamHead head2) {
+							final long timestamp1 = head1.stream.getRecord().getLoggingTimestamp();
+							final long timestamp2 = head2.stream.getRecord().getLoggingTimestamp();
+							if (timestamp1 != timestamp2) {
+								return (timestamp1 < timestamp2) ? -1 : 1; // NOCS (inline conditional)
+							}
+							return (head1.streamIndex < head2.streamIndex) ? -1 : ((head1.streamIndex == head2.streamIndex) ? 0 : 1); // NOCS
+						}
+					});
+
+			// schedule the first files of all directories before waiting for any of them
+			final List<StreamHead> openedHeads = new ArrayList<StreamHead>();
+			for (final DirectoryFiles directory : directories) {
+				for (int i = 0; i <= NUM_FILES_AHEAD; i++) {
+					final StreamHead head = directory.openNextFile();
+					if (head != null) {
+						openedHeads.add(head);
+					}
+				}
+			}
+			for (final StreamHead head : openedHeads) {
+				this.addToHeap(head, heads);
+			}
+
+			while (!heads.isEmpty() && !this.shouldTerminate) {
+				final StreamHead head = heads.poll();
+				recordReceiver.newMonitoringRecord(head.stream.getRecord());
+				if (head.stream.advance()) {
+					heads.add(head);
+				} else {
+					this.addToHeap(head.directory.openNextFile(), heads);
+				}
+			}
+		} catch (final InterruptedException e) {
+			this.logger.info("Interrupted while waiting for records to be decoded.");
+		} finally {
+			this.readingThread = null; // NOPMD (null)
+			this.workers.shutdownNow();
+			for (final DirectoryFiles directory : directories) {
+				directory.terminate();
+			}
+		}
+	}
+
+	/**
+	 * Adds the given stream to the heap as soon as its first record has been decoded. If the stream is empty, the next
+	 * file of its directory takes its place.
+	 *
+	 * @param head
+	 *            the head of a new stream or <code>null</code> if there is none
+	 */
+	private void addToHeap(final StreamHead head, final PriorityQueue<StreamHead> heads) throws InterruptedException {
+		StreamHead currentHead = head;
+		while ((currentHead != null) && !currentHead.stream.advance()) {
+			currentHead = currentHead.directory.openNextFile();
+		}
+		if (currentHead != null) {
+			heads.add(currentHead);
+		}
+	}
+
+	private List<DirectoryFiles> listDirectories() {
+		final List<DirectoryFiles> directories = new ArrayList<DirectoryFiles>();
+		int numFiles = 0;
+		for (final File inputDir : this.inputDirs) {
+			// the registry is only read after it has been filled and the decoding tasks have been submitted
+			final ReaderRegistry<String> readerRegistry = new ReaderRegistry<String>();
+			BinaryLogReaderThread.readMappingFile(inputDir, readerRegistry);
+
+			final File[] inputFiles = inputDir.listFiles(new FileExtensionFilter(
+					(this.shouldDecompress) ? FSUtil.ZIP_FILE_EXTENSION : FSUtil.BINARY_FILE_EXTENSION, FSUtil.BLOCK_FILE_EXTENSION)); // NOCS
+			if (inputFiles == null) {
+				this.logger.error("Directory '" + inputDir + "' does not exist or an I/O error occured.");
+				continue;
+			}
+
+			Arrays.sort(inputFiles);
+			directories.add(new DirectoryFiles(inputFiles, numFiles, readerRegistry));
+			numFiles += inputFiles.length;
+		}
+		return directories;
+	}
+
+	public void terminate() {
+		this.shouldTerminate = true;
+		this.workers.shutdownNow();
+		final Thread thread = this.readingThread;
+		if (thread != null) {
+			thread.interrupt(); // wakes up the reading thread waiting for a batch that will never be decoded
+		}
+	}
+
+	/**
+	 * The files of a directory which have not been opened yet.
+	 */
+	private final class DirectoryFiles {
+		private final File[] inputFiles;
+		/** the index of the first file of this directory among the files of all directories. */
+		private final int firstStreamIndex;
+		private final ReaderRegistry<String> readerRegistry;
+		/** shared by the block-compressed files of this directory; created with the first one. */
+		private BlockLogFileReader blockLogFileReader;
+		private int nextFileIndex;
+
+		DirectoryFiles(final File[] inputFiles, final int firstStreamIndex, final ReaderRegistry<String> readerRegistry) {
+			this.inputFiles = inputFiles;
+			this.firstStreamIndex = firstStreamIndex;
+			this.readerRegistry = readerRegistry;
+		}
+
+		/**
+		 * Opens the next file of this directory and schedules its decoding.
+		 *
+		 * @return the head of the new stream or <code>null</code> if all files have been opened
+		 */
+		StreamHead openNextFile() {
+			if (this.nextFileIndex >= this.inputFiles.length) {
+				return null;
+			}
+			final File inputFile = this.inputFiles[this.nextFileIndex];
+			final BlockLogFileReader fileBlockReader;
+			if (inputFile.getName().endsWith(FSUtil.BLOCK_FILE_EXTENSION)) {
+				if (this.blockLogFileReader == null) {
+					this.blockLogFileReader = new BlockLogFileReader(ParallelBinaryLogMerger.this.logger, null, ParallelBinaryLogMerger.this.ignoreBeforeTimestamp,
+							ParallelBinaryLogMerger.this.ignoreAfterTimestamp, ParallelBinaryLogMerger.this.numDecompressionThreads);
+				}
+				fileBlockReader = this.blockLogFileReader;
+			} else {
+				fileBlockReader = null; // NOPMD (null)
+			}
+			final RecordFileStream stream = new RecordFileStream(ParallelBinaryLogMerger.this.logger, inputFile, this.readerRegistry, fileBlockReader,
+					ParallelBinaryLogMerger.this.workers);
+			stream.schedule();
+			return new StreamHead(stream, this.firstStreamIndex + this.nextFileIndex++, this);
+		}
+
+		/**
+		 * Stops the decompression threads of this directory.
+		 */
+		void terminate() {
+			if (this.blockLogFileReader != null) {
+				this.blockLogFileReader.terminate();
+			}
+		}
+	}
+
+	/**
+	 * A stream within the heap together with its position in the list of all files and its directory.
+	 */
+	private static final class StreamHead {
+		final RecordFileStream stream; // NOCS NOPMD (package-private for the enclosing class only)
+		final int streamIndex; // NOCS NOPMD
+		final DirectoryFiles directory; // NOCS NOPMD
+
+		StreamHead(final RecordFileStream stream, final int streamIndex, final DirectoryFiles directory) {
+			this.stream = stream;
+			this.streamIndex = streamIndex;
+			this.directory = directory;
+		}
+	}
+}
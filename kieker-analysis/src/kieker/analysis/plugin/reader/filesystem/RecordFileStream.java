@@ -0,0 +1,253 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.analysis.plugin.reader.filesystem;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.ZipInputStream;
+
+import kieker.analysis.plugin.reader.util.ByteBufferDeserializer;
+import kieker.analysis.plugin.reader.util.IMonitoringRecordReceiver;
+import kieker.common.logging.Log;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.util.filesystem.FSUtil;
+import kieker.common.util.registry.reader.ReaderRegistry;
+
+/**
+ * Decodes the records of a single log file in batches on an executor. At most {@link #MAX_PENDING_BATCHES} decoded
+ * batches are buffered; the decoding is continued as soon as the consumer takes a batch. Hence, many files can be
+ * decoded concurrently by a small number of threads without exhausting the memory.
+ *
+ * <p>
+ * The decoding side and the consuming side may run on different threads. The consuming methods
+ * {@link #advance()} and {@link #getRecord()} must be called by a single thread.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+class RecordFileStream implements Runnable, IMonitoringRecordReceiver {
+
+	/** the maximal number of decoded batches waiting to be consumed. */
+	static final int MAX_PENDING_BATCHES = 2;
+
+	private static final int BUFFER_CAPACITY = 16 * 1024;
+	/** marks the end of the stream. */
+	private static final List<IMonitoringRecord> END_OF_STREAM = new ArrayList<IMonitoringRecord>(0);
+
+	private final Log logger; // NOPMD (logger from the caller)
+	private final File inputFile;
+	private final ReaderRegistry<String> readerRegistry;
+	/** reads the blocks of a block-compressed file; null if the file is not block-compressed. May be shared by streams. */
+	private final BlockLogFileReader blockLogFileReader;
+	private final Executor executor;
+	private final BlockingQueue<List<IMonitoringRecord>> batches = new ArrayBlockingQueue<List<IMonitoringRecord>>(MAX_PENDING_BATCHES);
+
+	// decoding side; only accessed by the task currently decoding
+	private ByteBufferDeserializer deserializer;
+	private ReadableByteChannel channel;
+	private List<BlockLogFileReader.BlockInfo> blocks;
+	private int nextBlockIndex;
+	private final Deque<Future<ByteBuffer>> pendingBlocks = new ArrayDeque<Future<ByteBuffer>>();
+	private List<IMonitoringRecord> decodedRecords;
+
+	// guarded by this
+	private boolean decoding;
+	private boolean ended;
+
+	// consuming side
+	private List<IMonitoringRecord> currentBatch = END_OF_STREAM;
+	private int currentIndex;
+	private IMonitoringRecord record;
+
+	/**
+	 * @param blockLogFileReader
+	 *            the reader for block-compressed files or <code>null</code> if the file is a binary file
+	 */
+	public RecordFileStream(final Log logger, final File inputFile, final ReaderRegistry<String> readerRegistry, final BlockLogFileReader blockLogFileReader,
+			final Executor executor) {
+		this.logger = logger;
+		this.inputFile = inputFile;
+		this.readerRegistry = readerRegistry;
+		this.blockLogFileReader = blockLogFileReader;
+		this.executor = executor;
+	}
+
+	/**
+	 * Schedules the decoding of the next batch unless a batch is being decoded, no slot for a further batch is free, or
+	 * the end of the file has been reached.
+	 */
+	public void schedule() {
+		synchronized (this) {
+			// the consumer only frees slots, and no other task can fill one while none is decoding
+			if (this.decoding || this.ended || (this.batches.remainingCapacity() == 0)) {
+				return;
+			}
+			this.decoding = true;
+		}
+		try {
+			this.executor.execute(this);
+		} catch (final RejectedExecutionException e) {
+			// the executor has been shut down
+			synchronized (this) {
+				this.decoding = false;
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		List<IMonitoringRecord> batch;
+		try {
+			batch = this.decodeNextBatch();
+		} catch (final IOException e) {
+			this.logger.error("Error reading " + this.inputFile, e);
+			batch = END_OF_STREAM;
+		} catch (final RuntimeException e) { // NOPMD (e.g., an unknown record type: we cannot continue reading the file)
+			this.logger.error("Error reading " + this.inputFile, e);
+			batch = END_OF_STREAM;
+		}
+
+		if (batch == END_OF_STREAM) { // NOPMD (compare references by == not by equals())
+			this.closeChannel();
+		}
+		// there is a free slot since only one batch is decoded at a time and this stream was scheduled for a free slot
+		this.batches.add(batch);
+		synchronized (this) {
+			this.decoding = false;
+			this.ended = batch == END_OF_STREAM; // NOPMD (compare references by == not by equals())
+		}
+		this.schedule();
+	}
+
+	/**
+	 * @return the next non-empty batch of records or {@link #END_OF_STREAM}
+	 */
+	private List<IMonitoringRecord> decodeNextBatch() throws IOException {
+		if (this.deserializer == null) {
+			this.open();
+		}
+		this.decodedRecords = new ArrayList<IMonitoringRecord>();
+		while (this.decodedRecords.isEmpty()) {
+			if (this.blockLogFileReader != null) {
+				// keep the decompression threads busy with the following blocks while this one is deserialized
+				while ((this.pendingBlocks.size() < this.blockLogFileReader.getMaxPendingBlocks()) && (this.nextBlockIndex < this.blocks.size())) {
+					final BlockLogFileReader.BlockInfo block = this.blocks.get(this.nextBlockIndex++);
+					this.pendingBlocks.add(this.blockLogFileReader.submitDecompression((FileChannel) this.channel, block.offset));
+				}
+				if (this.pendingBlocks.isEmpty()) {
+					return END_OF_STREAM;
+				}
+				this.deserializer.deserialize(this.blockLogFileReader.awaitDecompression(this.pendingBlocks.removeFirst()));
+			} else if (!this.deserializer.deserializeNextChunk(this.channel)) {
+				return END_OF_STREAM;
+			}
+		}
+		return this.decodedRecords;
+	}
+
+	private void open() throws IOException {
+		this.deserializer = new ByteBufferDeserializer(this.readerRegistry, this.logger, BUFFER_CAPACITY);
+		this.deserializer.register(this);
+		if (this.blockLogFileReader != null) {
+			final FileChannel fileChannel = FileChannel.open(this.inputFile.toPath(), StandardOpenOption.READ);
+			this.channel = fileChannel;
+			this.blocks = this.blockLogFileReader.readBlocks(fileChannel, this.inputFile);
+		} else if (this.inputFile.getName().endsWith(FSUtil.ZIP_FILE_EXTENSION)) {
+			final InputStream inputStream = new FileInputStream(this.inputFile);
+			final ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+			zipInputStream.getNextEntry();
+			this.channel = Channels.newChannel(zipInputStream);
+		} else {
+			this.channel = FileChannel.open(this.inputFile.toPath(), StandardOpenOption.READ);
+		}
+	}
+
+	private void closeChannel() {
+		for (final Future<ByteBuffer> pendingBlock : this.pendingBlocks) {
+			pendingBlock.cancel(false); // interrupting a read would close the channel under the other pending blocks
+		}
+		this.pendingBlocks.clear();
+		if (this.channel != null) {
+			try {
+				this.channel.close();
+			} catch (final IOException e) {
+				this.logger.warn("An exception occurred", e);
+			}
+		}
+		// release the buffers
+		this.deserializer = null; // NOPMD (null)
+		this.channel = null; // NOPMD (null)
+		this.blocks = null; // NOPMD (null)
+	}
+
+	@Override
+	public boolean newMonitoringRecord(final IMonitoringRecord monitoringRecord) {
+		this.decodedRecords.add(monitoringRecord);
+		return true;
+	}
+
+	@Override
+	public void newEndOfFileRecord() {
+		// not sent by the deserializer
+	}
+
+	/**
+	 * Moves to the next record of this stream, waiting for it to be decoded if necessary.
+	 *
+	 * @return <code>false</code> if the end of the stream has been reached, otherwise <code>true</code>
+	 */
+	public boolean advance() throws InterruptedException {
+		this.currentIndex++;
+		while (this.currentIndex >= this.currentBatch.size()) {
+			final List<IMonitoringRecord> batch = this.batches.take();
+			if (batch == END_OF_STREAM) { // NOPMD (compare references by == not by equals())
+				this.record = null; // NOPMD (null)
+				return false;
+			}
+			this.schedule(); // a slot has become free
+			this.currentBatch = batch;
+			this.currentIndex = 0;
+		}
+		this.record = this.currentBatch.get(this.currentIndex);
+		return true;
+	}
+
+	/**
+	 * @return the current record of this stream; valid after {@link #advance()} has returned <code>true</code>
+	 */
+	public IMonitoringRecord getRecord() {
+		return this.record;
+	}
+}
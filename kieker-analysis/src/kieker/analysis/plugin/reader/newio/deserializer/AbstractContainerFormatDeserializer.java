@@ -58,11 +58,47 @@ public abstract class AbstractContainerFormatDeserializer extends AbstractMonito
 
 		// Check the actual format identifier
 		final int formatIdentifier = buffer.getInt();
-		if (formatIdentifier != this.getFormatIdentifier()) {
+		if (!this.isSupportedFormat(formatIdentifier)) {
 			throw new InvalidFormatException(String.format("An invalid format identifier %08x was found.", formatIdentifier));
 		}
 
-		return this.decodeRecords(buffer, (dataSize - HEADER_SIZE));
+		return this.decodeRecords(buffer, formatIdentifier, (dataSize - HEADER_SIZE));
+	}
+
+	/**
+	 * Returns whether the given format can be decoded. By default, only the format identified by
+	 * {@link #getFormatIdentifier()} is supported.
+	 *
+	 * @param formatIdentifier
+	 *            The format identifier found in the container
+	 * @return see above
+	 *
+	 * @since 1.14
+	 */
+	protected boolean isSupportedFormat(final int formatIdentifier) {
+		return formatIdentifier == this.getFormatIdentifier();
+	}
+
+	/**
+	 * Decodes the records from the container's payload in the given format. By default, the format is ignored and
+	 * {@link #decodeRecords(ByteBuffer, int)} is used.
+	 *
+	 * @param buffer
+	 *            The buffer to decode the data from. It is positioned at the
+	 *            first byte of the payload
+	 * @param formatIdentifier
+	 *            The format identifier found in the container; it is supported by this deserializer
+	 * @param dataSize
+	 *            The size of the payload data in bytes
+	 * @return The decoded records
+	 * @throws InvalidFormatException
+	 *             When an invalid data format is encountered
+	 *
+	 * @since 1.14
+	 */
+	protected List<IMonitoringRecord> decodeRecords(final ByteBuffer buffer, final int formatIdentifier, final int dataSize)
+			throws InvalidFormatException {
+		return this.decodeRecords(buffer, dataSize);
 	}
 
 	/**
@@ -19,7 +19,11 @@ package kieker.analysis.plugin.reader.newio.deserializer;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import kieker.analysis.IProjectContext;
 import kieker.common.configuration.Configuration;
@@ -29,9 +33,13 @@ import kieker.common.record.factory.IRecordFactory;
 import kieker.common.record.io.DefaultValueDeserializer;
 import kieker.common.util.dataformat.FormatIdentifier;
 import kieker.common.util.dataformat.VariableLengthEncoding;
-import kieker.common.util.registry.IRegistry;
 
 /**
+ * Deserializer for the default Kieker binary record format. Containers with a string dictionary spanning several
+ * containers (see {@link FormatIdentifier#DICTIONARY_BINARY_FORMAT}) are supported as well; their strings are
+ * accumulated across the containers of a stream. The containers of several streams may be interleaved, since each
+ * container carries the ID of its stream and a dictionary is kept per stream.
+ *
  * @author Holger Knoche
  *
  * @since 1.13
@@ -47,8 +55,26 @@ public class BinaryDeserializer extends AbstractContainerFormatDeserializer {
 	/** Charset for the encoding. */
 	private static final Charset CHARSET = Charset.forName(ENCODING_NAME);
 
+	/** Format identifier of containers with a string dictionary spanning several containers. */
+	private static final int DICTIONARY_FORMAT_IDENTIFIER = FormatIdentifier.DICTIONARY_BINARY_FORMAT.getIdentifierValue();
+
+	private static final IRecordFactory<?>[] NO_RECORD_FACTORIES = new IRecordFactory<?>[0];
+
+	/** the maximal number of streams whose dictionaries are kept; the least recently used one is dropped. */
+	private static final int MAX_NUMBER_OF_STREAMS = 1024;
+
 	private final CachedRecordFactoryCatalog cachedRecordFactoryCatalog = CachedRecordFactoryCatalog.getInstance();
 
+	/** the dictionaries by the IDs of their streams. */
+	private final Map<Long, StreamDictionary> dictionaries = new LinkedHashMap<Long, StreamDictionary>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Long, StreamDictionary> eldest) {
+			return this.size() > MAX_NUMBER_OF_STREAMS;
+		}
+	};
+
 	/**
 	 * Creates a new record deserializer.
 	 *
@@ -66,6 +92,58 @@ public class BinaryDeserializer extends AbstractContainerFormatDeserializer {
 		return FORMAT_IDENTIFIER;
 	}
 
+	@Override
+	protected boolean isSupportedFormat(final int formatIdentifier) {
+		return (formatIdentifier == FORMAT_IDENTIFIER) || (formatIdentifier == DICTIONARY_FORMAT_IDENTIFIER);
+	}
+
+	@Override
+	protected List<IMonitoringRecord> decodeRecords(final ByteBuffer buffer, final int formatIdentifier, final int dataSize) throws InvalidFormatException {
+		if (formatIdentifier == DICTIONARY_FORMAT_IDENTIFIER) {
+			return this.decodeRecordsWithDictionary(buffer, dataSize);
+		}
+		return this.decodeRecords(buffer, dataSize);
+	}
+
+	private List<IMonitoringRecord> decodeRecordsWithDictionary(final ByteBuffer buffer, final int dataSize) throws InvalidFormatException {
+		final int baseOffset = buffer.position();
+
+		// Retrieve the offset of the string table (last four bytes of the data)
+		buffer.position((baseOffset + dataSize) - 4);
+		final int stringTableOffset = buffer.getInt();
+
+		// Position the buffer and add the new strings to the dictionary
+		final int absoluteStringTableOffset = baseOffset + stringTableOffset;
+		buffer.position(absoluteStringTableOffset);
+		final long streamId = buffer.getLong();
+		StreamDictionary dictionary = this.dictionaries.get(streamId);
+		if (dictionary == null) {
+			dictionary = new StreamDictionary();
+			this.dictionaries.put(streamId, dictionary);
+		}
+		final int firstStringId = VariableLengthEncoding.decodeInt(buffer);
+		if (firstStringId == 0) {
+			// the writer has started or reset its dictionary
+			dictionary.strings.clear();
+			Arrays.fill(dictionary.recordFactories, null);
+		} else if (firstStringId != dictionary.strings.getSize()) {
+			throw new InvalidFormatException("Missing strings " + dictionary.strings.getSize() + " to " + (firstStringId - 1)
+					+ " of the string dictionary of stream " + streamId + "; the records can only be decoded after the dictionary has been reset.");
+		}
+		final int numberOfEntries = VariableLengthEncoding.decodeInt(buffer);
+		for (int entryIndex = 0; entryIndex < numberOfEntries; entryIndex++) {
+			dictionary.strings.add(BinaryDeserializer.decodeString(buffer));
+		}
+		final int dictionarySize = dictionary.strings.getSize();
+		if (dictionary.recordFactories.length < dictionarySize) {
+			dictionary.recordFactories = Arrays.copyOf(dictionary.recordFactories, Math.max(dictionarySize, 2 * dictionary.recordFactories.length));
+		}
+
+		// Position the buffer and decode the records
+		buffer.position(baseOffset);
+		return this.decodeMonitoringRecords(buffer, dictionary.strings, dictionary.recordFactories, absoluteStringTableOffset);
+	}
+
 	@Override
 	protected List<IMonitoringRecord> decodeRecords(final ByteBuffer buffer, final int dataSize) throws InvalidFormatException {
 		final int baseOffset = buffer.position();
@@ -77,44 +155,60 @@ public class BinaryDeserializer extends AbstractContainerFormatDeserializer {
 		// Position the buffer and decode the string table
 		final int absoluteStringTableOffset = baseOffset + stringTableOffset;
 		buffer.position(absoluteStringTableOffset);
-		final IRegistry<String> stringRegistry = this.decodeStringRegistry(buffer);
+		final DeserializerStringRegistry stringRegistry = this.decodeStringRegistry(buffer);
 
 		// Position the buffer and decode the records
 		buffer.position(baseOffset);
-		final List<IMonitoringRecord> records = this.decodeMonitoringRecords(buffer, stringRegistry, absoluteStringTableOffset);
+		// the record type ids are only valid within this container; so are the factories resolved for them
+		final IRecordFactory<?>[] recordFactoriesByTypeId = new IRecordFactory<?>[stringRegistry.getSize()];
+		final List<IMonitoringRecord> records = this.decodeMonitoringRecords(buffer, stringRegistry, recordFactoriesByTypeId, absoluteStringTableOffset);
 
 		return records;
 	}
 
-	private IRegistry<String> decodeStringRegistry(final ByteBuffer buffer) {
+	private DeserializerStringRegistry decodeStringRegistry(final ByteBuffer buffer) {
 		final int numberOfEntries = VariableLengthEncoding.decodeInt(buffer);
 		final List<String> values = new ArrayList<String>(numberOfEntries);
 
 		for (int entryIndex = 0; entryIndex < numberOfEntries; entryIndex++) {
-			final int entryLength = VariableLengthEncoding.decodeInt(buffer);
-			final byte[] entryDataBytes = new byte[entryLength];
-			buffer.get(entryDataBytes);
-
-			final String entryData = new String(entryDataBytes, CHARSET);
-			values.add(entryData);
+			values.add(BinaryDeserializer.decodeString(buffer));
 		}
 
 		return new DeserializerStringRegistry(values);
 	}
 
-	private List<IMonitoringRecord> decodeMonitoringRecords(final ByteBuffer buffer, final IRegistry<String> stringRegistry, final int endOffset) {
+	private static String decodeString(final ByteBuffer buffer) {
+		final int entryLength = VariableLengthEncoding.decodeInt(buffer);
+		final byte[] entryDataBytes = new byte[entryLength];
+		buffer.get(entryDataBytes);
+
+		return new String(entryDataBytes, CHARSET);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<IMonitoringRecord> decodeMonitoringRecords(final ByteBuffer buffer, final DeserializerStringRegistry stringRegistry,
+			final IRecordFactory<?>[] recordFactoriesByTypeId, final int endOffset) {
 		final List<IMonitoringRecord> records = new ArrayList<IMonitoringRecord>();
 		int currentOffset = buffer.position();
 
 		final CachedRecordFactoryCatalog recordFactoryCatalog = this.cachedRecordFactoryCatalog;
+		// all records of the container are read from the same buffer and registry
+		final DefaultValueDeserializer deserializer = DefaultValueDeserializer.create(buffer, stringRegistry);
 
 		while (currentOffset < endOffset) {
 			final int recordTypeId = buffer.getInt();
-			final String recordTypeName = stringRegistry.get(recordTypeId);
 			final long loggingTimestamp = buffer.getLong();
 
-			final IRecordFactory<? extends IMonitoringRecord> recordFactory = recordFactoryCatalog.get(recordTypeName);
-			final IMonitoringRecord record = recordFactory.create(DefaultValueDeserializer.create(buffer, stringRegistry));
+			final IRecordFactory<? extends IMonitoringRecord> recordFactory;
+			if ((recordTypeId >= 0) && (recordTypeId < recordFactoriesByTypeId.length)) {
+				if (recordFactoriesByTypeId[recordTypeId] == null) {
+					recordFactoriesByTypeId[recordTypeId] = recordFactoryCatalog.get(stringRegistry.get(recordTypeId));
+				}
+				recordFactory = (IRecordFactory<? extends IMonitoringRecord>) recordFactoriesByTypeId[recordTypeId];
+			} else {
+				recordFactory = recordFactoryCatalog.get(stringRegistry.get(recordTypeId));
+			}
+			final IMonitoringRecord record = recordFactory.create(deserializer);
 			record.setLoggingTimestamp(loggingTimestamp);
 
 			records.add(record);
@@ -140,4 +234,16 @@ public class BinaryDeserializer extends AbstractContainerFormatDeserializer {
 		// Nothing to do
 	}
 
+	/**
+	 * The strings of a stream sent so far and the record factories for the record type ids among them.
+	 */
+	private static final class StreamDictionary {
+		final DeserializerStringRegistry strings = new DeserializerStringRegistry(Collections.<String> emptyList()); // NOCS NOPMD (package for outer class)
+		IRecordFactory<?>[] recordFactories = NO_RECORD_FACTORIES; // NOCS NOPMD (package for outer class)
+
+		public StreamDictionary() {
+			// empty default constructor
+		}
+	}
+
 }
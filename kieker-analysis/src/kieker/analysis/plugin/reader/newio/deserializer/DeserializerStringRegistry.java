@@ -16,10 +16,9 @@
 
 package kieker.analysis.plugin.reader.newio.deserializer;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import com.google.common.collect.ImmutableList;
-
 import kieker.common.util.registry.IRegistry;
 import kieker.common.util.registry.IRegistryRecordReceiver;
 
@@ -39,7 +38,21 @@ public class DeserializerStringRegistry implements IRegistry<String> {
 	 * @param values The values to use
 	 */
 	public DeserializerStringRegistry(final List<String> values) {
-		this.values = ImmutableList.copyOf(values);
+		this.values = new ArrayList<String>(values);
+	}
+
+	/**
+	 * Adds a value with the next ID; used for dictionaries spanning several containers.
+	 */
+	void add(final String value) {
+		this.values.add(value);
+	}
+
+	/**
+	 * Removes all values; used for dictionaries spanning several containers.
+	 */
+	void clear() {
+		this.values.clear();
 	}
 
 	@Override
@@ -64,7 +77,7 @@ public class DeserializerStringRegistry implements IRegistry<String> {
 
 	@Override
 	public int getSize() {
-		throw new UnsupportedOperationException();
+		return this.values.size();
 	}
 
 	@Override
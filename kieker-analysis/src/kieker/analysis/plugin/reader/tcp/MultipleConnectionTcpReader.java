@@ -0,0 +1,103 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.analysis.plugin.reader.tcp;
+
+import kieker.analysis.IProjectContext;
+import kieker.analysis.plugin.annotation.OutputPort;
+import kieker.analysis.plugin.annotation.Plugin;
+import kieker.analysis.plugin.annotation.Property;
+import kieker.analysis.plugin.reader.AbstractReaderPlugin;
+import kieker.analysis.plugin.reader.tcp.util.MultipleConnectionRecordReader;
+import kieker.analysis.plugin.reader.util.IRecordReceivedListener;
+import kieker.common.configuration.Configuration;
+import kieker.common.record.IMonitoringRecord;
+
+/**
+ * This is a reader which reads the records from a TCP port. In contrast to the {@link SingleSocketTcpReader}, it
+ * accepts connections from an arbitrary number of monitored applications at the same time. The connections are read and
+ * decoded by a small number of worker threads; the records are delivered one after another.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+@Plugin(description = "A reader which reads records from multiple TCP connections", outputPorts = {
+	@OutputPort(name = MultipleConnectionTcpReader.OUTPUT_PORT_NAME_RECORDS, eventTypes = { IMonitoringRecord.class },
+			description = "Output Port of the MultipleConnectionTcpReader")
+}, configuration = {
+	@Property(name = MultipleConnectionTcpReader.CONFIG_PROPERTY_NAME_PORT, defaultValue = "10133",
+			description = "The port of the server used for the TCP connections."),
+	@Property(name = MultipleConnectionTcpReader.CONFIG_PROPERTY_NAME_NUM_WORKERS, defaultValue = "2",
+			description = "The number of threads reading and decoding the records of the connections.")
+})
+public final class MultipleConnectionTcpReader extends AbstractReaderPlugin implements IRecordReceivedListener {
+
+	/** The name of the output port delivering the received records. */
+	public static final String OUTPUT_PORT_NAME_RECORDS = "monitoringRecords";
+
+	/** The name of the configuration determining the TCP port. */
+	public static final String CONFIG_PROPERTY_NAME_PORT = "port";
+	/** The name of the configuration determining the number of worker threads. */
+	public static final String CONFIG_PROPERTY_NAME_NUM_WORKERS = "numWorkers";
+
+	private static final int MESSAGE_BUFFER_SIZE = 65535;
+
+	private final int port;
+	private final int numWorkers;
+
+	private final MultipleConnectionRecordReader recordReader;
+
+	public MultipleConnectionTcpReader(final Configuration configuration, final IProjectContext projectContext) {
+		super(configuration, projectContext);
+		this.port = this.configuration.getIntProperty(CONFIG_PROPERTY_NAME_PORT);
+		this.numWorkers = Math.max(1, this.configuration.getIntProperty(CONFIG_PROPERTY_NAME_NUM_WORKERS));
+		this.recordReader = new MultipleConnectionRecordReader(this.port, MESSAGE_BUFFER_SIZE, this.numWorkers, this.log, this);
+	}
+
+	@Override
+	public Configuration getCurrentConfiguration() {
+		final Configuration configuration = new Configuration();
+		configuration.setProperty(CONFIG_PROPERTY_NAME_PORT, Integer.toString(this.port));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_NUM_WORKERS, Integer.toString(this.numWorkers));
+		return configuration;
+	}
+
+	/**
+	 * Accepts and reads connections until the reader is terminated.
+	 */
+	@Override
+	public boolean read() {
+		this.recordReader.run();
+		return true;
+	}
+
+	/**
+	 * Invoked by the worker threads; the records are delivered one after another since the connected filters need not
+	 * be thread-safe.
+	 */
+	@Override
+	public synchronized void onRecordReceived(final IMonitoringRecord record) {
+		super.deliver(OUTPUT_PORT_NAME_RECORDS, record);
+	}
+
+	@Override
+	public void terminate(final boolean error) {
+		this.log.info("Shutdown of MultipleConnectionTcpReader requested.");
+		this.recordReader.terminate();
+	}
+
+}
@@ -0,0 +1,354 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+package kieker.analysis.plugin.reader.tcp.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kieker.analysis.plugin.reader.util.IRecordReceivedListener;
+import kieker.analysis.plugin.reader.util.RecordStreamDecoder;
+import kieker.common.exception.RecordInstantiationException;
+import kieker.common.logging.Log;
+import kieker.common.record.factory.CachedRecordFactoryCatalog;
+import kieker.common.util.registry.reader.ReaderRegistry;
+
+/**
+ * Represents a TCP reader which accepts an arbitrary number of connections and reconstructs Kieker records from each of
+ * them. The wire format of each connection is the same as the one read by {@link SingleSocketRecordReader}.
+ *
+ * <p>
+ * The thread executing {@link #run()} only accepts new connections and assigns them to a small, fixed number of worker
+ * threads in a round-robin fashion. Each worker waits for data on its connections by means of its own {@link Selector}
+ * and decodes the records directly from the receive buffer of the connection (see {@link RecordStreamDecoder}). Each
+ * connection has its own buffer and its own string registry. The records of a single connection are passed to the listener in the order of their arrival; the
+ * records of different connections may be passed concurrently by different workers. A connection whose data cannot be decoded or processed is
+ * closed without affecting the other connections of its worker. A worker which stopped due to an I/O error does not receive further connections;
+ * if no worker is left, new connections are closed immediately.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class MultipleConnectionRecordReader implements Runnable {
+
+	private static final int CONNECTION_CLOSED_BY_CLIENT = -1;
+
+	@SuppressWarnings({ "PMD.LoggerIsNotStaticFinal", "PMD.ProperLogger" })
+	protected final Log logger;
+
+	private final int port;
+	private final int bufferCapacity;
+	private final int numWorkers;
+	private final IRecordReceivedListener listener;
+	private final CachedRecordFactoryCatalog recordFactories = new CachedRecordFactoryCatalog();
+
+	private final AtomicBoolean started = new AtomicBoolean();
+	private final CountDownLatch stopped = new CountDownLatch(1);
+	private volatile boolean terminated;
+	private volatile Selector acceptSelector;
+
+	/**
+	 * Constructs a new TCP reader.
+	 *
+	 * @param port
+	 *            on which to listen for requests
+	 * @param bufferCapacity
+	 *            of the read buffer of each connection
+	 * @param numWorkers
+	 *            the number of threads reading and decoding the records of the connections
+	 * @param logger
+	 *            for notification to users and developers
+	 * @param listener
+	 *            to which the records are passed; must be thread-safe if more than one worker is used
+	 */
+	public MultipleConnectionRecordReader(final int port, final int bufferCapacity, final int numWorkers, final Log logger,
+			final IRecordReceivedListener listener) {
+		super();
+		this.port = port;
+		this.bufferCapacity = bufferCapacity;
+		this.numWorkers = numWorkers;
+		this.logger = logger;
+		this.listener = listener;
+	}
+
+	@Override
+	public final void run() {
+		if (!this.started.compareAndSet(false, true)) {
+			throw new IllegalStateException("The reader has already been started.");
+		}
+		ServerSocketChannel serversocket = null;
+		final Worker[] workers = new Worker[this.numWorkers];
+		try {
+			this.acceptSelector = Selector.open();
+			for (int i = 0; i < workers.length; i++) {
+				workers[i] = new Worker(i, Selector.open());
+			}
+			serversocket = ServerSocketChannel.open();
+			serversocket.socket().bind(new InetSocketAddress(this.port));
+			serversocket.configureBlocking(false);
+			serversocket.register(this.acceptSelector, SelectionKey.OP_ACCEPT);
+			if (this.logger.isDebugEnabled()) {
+				this.logger.debug("Listening on port " + this.port);
+			}
+			for (final Worker worker : workers) {
+				worker.start();
+			}
+
+			int nextWorker = 0;
+			while (!this.terminated) {
+				this.acceptSelector.select();
+				this.acceptSelector.selectedKeys().clear();
+				SocketChannel socketChannel;
+				while ((socketChannel = serversocket.accept()) != null) { // NOPMD (assignment in operand)
+					socketChannel.configureBlocking(false);
+					nextWorker = this.assignConnection(workers, nextWorker, socketChannel);
+				}
+			}
+		} catch (final IOException ex) {
+			this.logger.error("Error while reading.", ex);
+		} finally {
+			this.close(serversocket);
+			this.terminateWorkers(workers);
+			this.close(this.acceptSelector);
+			this.stopped.countDown();
+		}
+	}
+
+	/**
+	 * Assigns the given connection to the next worker which is still running, starting with the given one.
+	 *
+	 * @return the index of the worker to start with for the next connection
+	 */
+	private int assignConnection(final Worker[] workers, final int nextWorker, final SocketChannel socketChannel) {
+		for (int i = 0; i < workers.length; i++) {
+			final int index = (nextWorker + i) % workers.length;
+			if (workers[index].addConnection(socketChannel)) {
+				return (index + 1) % workers.length;
+			}
+		}
+		this.logger.error("No worker is left to read from the connection " + socketChannel + ". Closing it.");
+		this.close(socketChannel);
+		return nextWorker;
+	}
+
+	private void terminateWorkers(final Worker[] workers) {
+		for (final Worker worker : workers) {
+			if (worker != null) {
+				worker.terminate();
+			}
+		}
+		for (final Worker worker : workers) {
+			if (worker != null) {
+				worker.awaitTermination();
+				this.close(worker.selector);
+			}
+		}
+	}
+
+	private void close(final Closeable closeable) {
+		if (null != closeable) {
+			try {
+				closeable.close();
+			} catch (final IOException e) {
+				this.logger.debug("Failed to close " + closeable, e);
+			}
+		}
+	}
+
+	/**
+	 * Gracefully terminates this TCP reader and waits until the workers have passed their last record to the listener.
+	 */
+	public void terminate() {
+		this.terminated = true;
+		final Selector selector = this.acceptSelector;
+		if (null != selector) {
+			selector.wakeup();
+		}
+		if (this.started.get()) {
+			try {
+				this.stopped.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.logger.warn("Interrupted while waiting for the TCP reader to terminate.", e);
+			}
+		}
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	/**
+	 * Reads and decodes the data of the connections assigned to it.
+	 */
+	private final class Worker implements Runnable {
+
+		final Selector selector; // NOCS NOPMD (package-private for the enclosing class only)
+		private final Queue<SocketChannel> newConnections = new ConcurrentLinkedQueue<SocketChannel>();
+		private final Thread thread;
+		private volatile boolean running = true;
+
+		Worker(final int index, final Selector selector) {
+			this.selector = selector;
+			this.thread = new Thread(this, "Kieker-" + MultipleConnectionRecordReader.class.getSimpleName() + "-" + MultipleConnectionRecordReader.this.port
+					+ "-" + index);
+			// All Kieker threads must be daemon threads. Otherwise the monitored application can never terminate.
+			this.thread.setDaemon(true);
+		}
+
+		void start() {
+			this.thread.start();
+		}
+
+		/**
+		 * @return false if this worker has stopped and thus has not taken over the connection
+		 */
+		boolean addConnection(final SocketChannel socketChannel) {
+			if (!this.running) {
+				return false;
+			}
+			this.newConnections.add(socketChannel);
+			// the worker may have stopped and closed its pending connections in the meantime
+			if (!this.running && this.newConnections.remove(socketChannel)) {
+				return false;
+			}
+			this.selector.wakeup();
+			return true;
+		}
+
+		void terminate() {
+			this.selector.wakeup();
+		}
+
+		void awaitTermination() {
+			try {
+				this.thread.join();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				MultipleConnectionRecordReader.this.logger.warn("Interrupted while waiting for " + this.thread.getName() + " to terminate.", e);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!MultipleConnectionRecordReader.this.terminated) {
+					this.selector.select();
+					this.registerNewConnections();
+					final Iterator<SelectionKey> selectedKeys = this.selector.selectedKeys().iterator();
+					while (selectedKeys.hasNext()) {
+						final SelectionKey key = selectedKeys.next();
+						selectedKeys.remove();
+						this.read(key);
+					}
+				}
+			} catch (final IOException ex) {
+				MultipleConnectionRecordReader.this.logger.error("Error while waiting for data.", ex);
+			} finally {
+				this.running = false;
+				this.closeConnections();
+			}
+		}
+
+		private void registerNewConnections() {
+			SocketChannel socketChannel;
+			while ((socketChannel = this.newConnections.poll()) != null) { // NOPMD (assignment in operand)
+				final Connection connection = new Connection(ByteBuffer.allocateDirect(MultipleConnectionRecordReader.this.bufferCapacity),
+						new RecordStreamDecoder(new ReaderRegistry<String>(), MultipleConnectionRecordReader.this.recordFactories,
+								MultipleConnectionRecordReader.this.listener, MultipleConnectionRecordReader.this.logger));
+				try {
+					socketChannel.register(this.selector, SelectionKey.OP_READ, connection);
+				} catch (final IOException ex) {
+					MultipleConnectionRecordReader.this.logger.error("Failed to register the connection " + socketChannel, ex);
+					MultipleConnectionRecordReader.this.close(socketChannel);
+				}
+			}
+		}
+
+		private void read(final SelectionKey key) {
+			final SocketChannel socketChannel = (SocketChannel) key.channel();
+			final Connection connection = (Connection) key.attachment();
+			try {
+				if (socketChannel.read(connection.buffer) == CONNECTION_CLOSED_BY_CLIENT) {
+					key.cancel();
+					MultipleConnectionRecordReader.this.close(socketChannel);
+				} else {
+					connection.process();
+				}
+			} catch (final IOException ex) {
+				MultipleConnectionRecordReader.this.logger.warn("Error while reading from the connection " + socketChannel + ". Closing it.", ex);
+				key.cancel();
+				MultipleConnectionRecordReader.this.close(socketChannel);
+			} catch (final RecordInstantiationException | BufferUnderflowException ex) {
+				MultipleConnectionRecordReader.this.logger.error("Cannot decode the data of the connection " + socketChannel + ". Closing it.", ex);
+				key.cancel();
+				MultipleConnectionRecordReader.this.close(socketChannel);
+			} catch (final RuntimeException ex) { // NOPMD (e.g., thrown by a record constructor or by the listener)
+				// letting it escape would stop the worker and thereby all of its other connections
+				MultipleConnectionRecordReader.this.logger.error("Error while processing the data of the connection " + socketChannel + ". Closing it.", ex);
+				key.cancel();
+				MultipleConnectionRecordReader.this.close(socketChannel);
+			}
+		}
+
+		private void closeConnections() {
+			for (final SelectionKey key : this.selector.keys()) {
+				MultipleConnectionRecordReader.this.close(key.channel());
+			}
+			SocketChannel socketChannel;
+			while ((socketChannel = this.newConnections.poll()) != null) { // NOPMD (assignment in operand)
+				MultipleConnectionRecordReader.this.close(socketChannel);
+			}
+		}
+	}
+
+	/**
+	 * The receive buffer and the decoder of a connection.
+	 */
+	private final class Connection {
+
+		final ByteBuffer buffer; // NOCS NOPMD (package-private for the enclosing class only)
+		private final RecordStreamDecoder decoder;
+
+		Connection(final ByteBuffer buffer, final RecordStreamDecoder decoder) {
+			this.buffer = buffer;
+			this.decoder = decoder;
+		}
+
+		void process() {
+			this.buffer.flip();
+			this.decoder.decode(this.buffer);
+			this.buffer.compact();
+			if (!this.buffer.hasRemaining()) { // the next entry can never be completed; reading again would not make progress
+				throw new RecordInstantiationException(new IllegalStateException("The next entry requires " + this.decoder.getNumBytesRequired()
+						+ " bytes, which exceeds the buffer capacity of " + this.buffer.capacity() + " bytes."));
+			}
+		}
+	}
+}
@@ -15,19 +15,14 @@
  ***************************************************************************/
 package kieker.analysis.plugin.reader.tcp.util;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
 
 import kieker.analysis.plugin.reader.util.IRecordReceivedListener;
+import kieker.analysis.plugin.reader.util.RecordStreamDecoder;
 import kieker.common.exception.RecordInstantiationException;
 import kieker.common.logging.Log;
-import kieker.common.record.AbstractMonitoringRecord;
-import kieker.common.record.IMonitoringRecord;
 import kieker.common.record.factory.CachedRecordFactoryCatalog;
-import kieker.common.record.factory.IRecordFactory;
-import kieker.common.record.io.DefaultValueDeserializer;
-import kieker.common.util.registry.IRegistry;
-import kieker.common.util.registry.reader.GetValueAdapter;
 import kieker.common.util.registry.reader.ReaderRegistry;
 
 /**
@@ -39,81 +34,26 @@ import kieker.common.util.registry.reader.ReaderRegistry;
  */
 public class SingleSocketRecordReader extends AbstractTcpReader {
 
-	private static final int INT_BYTES = AbstractMonitoringRecord.TYPE_SIZE_INT;
-	private static final int LONG_BYTES = AbstractMonitoringRecord.TYPE_SIZE_LONG;
-	private static final Charset ENCODING = Charset.forName("UTF-8");
-
-	private final ReaderRegistry<String> readerRegistry = new ReaderRegistry<String>();
-	private final IRegistry<String> stringRegistryWrapper;
-	private final IRecordReceivedListener listener;
-	private final CachedRecordFactoryCatalog recordFactories = new CachedRecordFactoryCatalog();
+	private final RecordStreamDecoder decoder;
 
 	public SingleSocketRecordReader(final int port, final int bufferCapacity, final Log logger, final IRecordReceivedListener listener) {
 		super(port, bufferCapacity, logger);
-		this.listener = listener;
-		this.stringRegistryWrapper = new GetValueAdapter<String>(this.readerRegistry);
+		this.decoder = new RecordStreamDecoder(new ReaderRegistry<String>(), new CachedRecordFactoryCatalog(), listener, logger);
 	}
 
 	@Override
 	protected boolean onBufferReceived(final ByteBuffer buffer) {
-		// identify record class
-		if (buffer.remaining() < INT_BYTES) {
-			return false;
-		}
-		final int clazzId = buffer.getInt();
-
-		if (clazzId == -1) {
-			return this.registerRegistryEntry(buffer);
-		} else {
-			return this.deserializeRecord(clazzId, buffer);
-		}
-	}
-
-	private boolean registerRegistryEntry(final ByteBuffer buffer) {
-		// identify string identifier and string length
-		if (buffer.remaining() < (INT_BYTES + INT_BYTES)) {
-			return false;
-		}
-
-		final int id = buffer.getInt(); // NOPMD (id must be read before stringLength)
-		final int stringLength = buffer.getInt();
-
-		if (buffer.remaining() < stringLength) {
-			return false;
-		}
-
-		final byte[] strBytes = new byte[stringLength];
-		buffer.get(strBytes);
-		final String string = new String(strBytes, ENCODING);
-
-		this.readerRegistry.register(id, string);
-		return true;
-	}
-
-	private boolean deserializeRecord(final int clazzId, final ByteBuffer buffer) {
-		// identify logging timestamp
-		if (buffer.remaining() < LONG_BYTES) {
-			return false;
-		}
-		final long loggingTimestamp = buffer.getLong(); // NOPMD (timestamp must be read before checking the buffer for record size)
-
-		final String recordClassName = this.readerRegistry.get(clazzId);
-		// identify record data
-		final IRecordFactory<? extends IMonitoringRecord> recordFactory = this.recordFactories.get(recordClassName);
-		if (buffer.remaining() < recordFactory.getRecordSizeInBytes()) {
-			return false;
-		}
-
 		try {
-			final IMonitoringRecord record = recordFactory.create(DefaultValueDeserializer.create(buffer, this.stringRegistryWrapper));
-			record.setLoggingTimestamp(loggingTimestamp);
-
-			this.listener.onRecordReceived(record);
-		} catch (final RecordInstantiationException ex) {
-			super.logger.error("Failed to create: " + recordClassName, ex);
+			this.decoder.decode(buffer);
+		} catch (final RecordInstantiationException | BufferUnderflowException ex) {
+			super.logger.error("Skipping the received bytes since the stream cannot be decoded any further.", ex);
+			this.decoder.reset();
+			buffer.position(buffer.limit());
+			return true;
 		}
-
-		return true;
+		// the decoder has consumed the headers of an incomplete entry; only the remaining bytes must be kept
+		buffer.mark();
+		return !buffer.hasRemaining();
 	}
 
 }
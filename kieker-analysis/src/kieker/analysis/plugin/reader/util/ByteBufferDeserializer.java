@@ -21,15 +21,9 @@ import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 
-import kieker.common.exception.RecordInstantiationException;
 import kieker.common.logging.Log;
-import kieker.common.record.AbstractMonitoringRecord;
 import kieker.common.record.IMonitoringRecord;
 import kieker.common.record.factory.CachedRecordFactoryCatalog;
-import kieker.common.record.factory.IRecordFactory;
-import kieker.common.record.io.DefaultValueDeserializer;
-import kieker.common.util.registry.IRegistry;
-import kieker.common.util.registry.reader.GetValueAdapter;
 import kieker.common.util.registry.reader.ReaderRegistry;
 
 /**
@@ -39,81 +33,89 @@ import kieker.common.util.registry.reader.ReaderRegistry;
  */
 public class ByteBufferDeserializer {
 
-	private static final int INT_BYTES = AbstractMonitoringRecord.TYPE_SIZE_INT;
-	private static final int LONG_BYTES = AbstractMonitoringRecord.TYPE_SIZE_LONG;
-
-	private final IRegistry<String> stringRegistry;
 	private final Log logger; // NOPMD (logger from the caller)
-	private final CachedRecordFactoryCatalog recordFactories;
+	private final RecordStreamDecoder decoder;
 	private final ByteBuffer buffer;
 	private IMonitoringRecordReceiver recordReceiver;
 
 	public ByteBufferDeserializer(final ReaderRegistry<String> readerRegistry, final Log logger, final int bufferCapacity) {
 		super();
-		this.stringRegistry = new GetValueAdapter<String>(readerRegistry); // compatibility wrapper
 		this.logger = logger;
-		this.recordFactories = new CachedRecordFactoryCatalog();
+		this.decoder = new RecordStreamDecoder(readerRegistry, new CachedRecordFactoryCatalog(), new IRecordReceivedListener() {
+			@SuppressWarnings("synthetic-access")
+			@Override
+			public void onRecordReceived(final IMonitoringRecord record) {
+				ByteBufferDeserializer.this.recordReceiver.newMonitoringRecord(record);
+			}
+		}, logger);
 		this.buffer = ByteBuffer.allocateDirect(bufferCapacity);
 	}
 
 	public void deserialize(final ReadableByteChannel channel) throws IOException {
 		final ByteBuffer buffer = this.buffer; // NOCS (hides field)
-		while ((channel.read(buffer) != -1)) {
+		while (!this.decoder.isAtEndOfRecords() && (channel.read(buffer) != -1)) {
 			this.process(buffer);
 		}
-	}
-
-	private void process(final ByteBuffer buffer) { // NOCS (hides field)
-		buffer.flip();
-		try {
-			while (buffer.hasRemaining()) {
-				buffer.mark();
-				final boolean success = this.onBufferReceived(buffer);
-				if (!success) {
-					buffer.reset();
-					buffer.compact();
-					return;
-				}
-			}
+		if (this.decoder.isAtEndOfRecords()) { // the next channel starts with a new entry
+			this.decoder.reset();
 			buffer.clear();
-		} catch (final BufferUnderflowException ex) {
-			this.logger.warn("Unexpected buffer underflow. Resetting and compacting buffer.", ex);
-			buffer.reset();
-			buffer.compact();
 		}
 	}
 
-	private boolean onBufferReceived(final ByteBuffer buffer) { // NOCS (hides field)
-		// identify record class
-		if (buffer.remaining() < INT_BYTES) {
+	/**
+	 * Reads the next chunk of bytes from the given channel and deserializes the complete records. An incomplete record at
+	 * the end of the chunk is kept and completed by the next chunk.
+	 *
+	 * @return <code>false</code> if the end of the channel or the end marker of the records has been reached, otherwise
+	 *         <code>true</code>
+	 *
+	 * @since 1.14
+	 */
+	public boolean deserializeNextChunk(final ReadableByteChannel channel) throws IOException {
+		if (this.decoder.isAtEndOfRecords() || (channel.read(this.buffer) == -1)) {
 			return false;
 		}
-		final int clazzId = buffer.getInt(); // NOPMD (clazzId must be read before reading timestamp)
+		this.process(this.buffer);
+		return true;
+	}
 
-		// identify logging timestamp
-		if (buffer.remaining() < LONG_BYTES) {
-			return false;
+	/**
+	 * Deserializes the records from the position to the limit of the given buffer. In contrast to
+	 * {@link #deserialize(ReadableByteChannel)}, the buffer is expected to end with a complete record.
+	 *
+	 * @param recordBuffer
+	 *            the buffer containing the serialized records
+	 *
+	 * @since 1.14
+	 */
+	public void deserialize(final ByteBuffer recordBuffer) {
+		try {
+			this.decoder.decode(recordBuffer);
+		} catch (final BufferUnderflowException ex) {
+			this.logger.warn("Ignoring incomplete record at the end of the buffer.", ex);
+			this.decoder.reset();
+			return;
 		}
-		final long loggingTimestamp = buffer.getLong(); // NOPMD (timestamp must be read before checking the buffer for record size)
-
-		final String recordClassName = this.stringRegistry.get(clazzId);
-		// identify record data
-		final IRecordFactory<? extends IMonitoringRecord> recordFactory = this.recordFactories.get(recordClassName);
-		if (buffer.remaining() < recordFactory.getRecordSizeInBytes()) { // includes the case where size is -1
-			return false;
+		if (!this.decoder.isAtEntryBoundary() || recordBuffer.hasRemaining()) {
+			this.logger.warn("Ignoring incomplete record at the end of the buffer.");
+			this.decoder.reset();
 		}
+	}
 
+	/**
+	 * Decodes the complete records of the given buffer; the bytes of an incomplete record remain in the buffer.
+	 */
+	private void process(final ByteBuffer buffer) { // NOCS (hides field)
+		buffer.flip();
 		try {
-			final IMonitoringRecord record = recordFactory.create(DefaultValueDeserializer.create(buffer, this.stringRegistry));
-			record.setLoggingTimestamp(loggingTimestamp);
-
-			this.recordReceiver.newMonitoringRecord(record);
-		} catch (final RecordInstantiationException ex) {
-			this.logger.error("Failed to create: " + recordClassName, ex);
-			throw ex; // we cannot continue reading the buffer because we do not know at which position to continue
+			this.decoder.decode(buffer);
+		} catch (final BufferUnderflowException ex) {
+			this.logger.warn("Unexpected buffer underflow. Discarding the buffer.", ex);
+			this.decoder.reset();
+			buffer.clear();
+			return;
 		}
-
-		return true;
+		buffer.compact();
 	}
 
 	public void register(final IMonitoringRecordReceiver recordReceiver) { // NOCS (hides field)
@@ -0,0 +1,265 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.analysis.plugin.reader.util;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import kieker.common.exception.RecordInstantiationException;
+import kieker.common.logging.Log;
+import kieker.common.record.AbstractMonitoringRecord;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.factory.CachedRecordFactoryCatalog;
+import kieker.common.record.factory.IRecordFactory;
+import kieker.common.record.io.DefaultValueDeserializer;
+import kieker.common.util.filesystem.FSUtil;
+import kieker.common.util.registry.IRegistry;
+import kieker.common.util.registry.reader.GetValueAdapter;
+import kieker.common.util.registry.reader.ReaderRegistry;
+
+/**
+ * Reconstructs Kieker records from a binary stream which arrives in chunks of arbitrary size. The stream consists of
+ * records (class id, logging timestamp, record data) and string registry entries (-1, string id, string length, string
+ * bytes). An end marker ({@link FSUtil#END_OF_RECORDS_CLASS_ID}) terminates the stream; the bytes after it are ignored.
+ *
+ * <p>
+ * The decoder is a state machine: a header which has been read completely is consumed and remembered, so that an entry
+ * spanning the end of a chunk is continued, and not decoded again from its beginning, once the next chunk has arrived.
+ * Only the data of a record and the bytes of a string are required to be contiguous. The record factory of each class
+ * id is resolved once and cached in an array indexed by the class id.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread-safe; each stream requires its own decoder.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class RecordStreamDecoder {
+
+	private static final int INT_BYTES = AbstractMonitoringRecord.TYPE_SIZE_INT;
+	private static final int LONG_BYTES = AbstractMonitoringRecord.TYPE_SIZE_LONG;
+	private static final Charset ENCODING = Charset.forName("UTF-8");
+
+	private static final int REGISTRY_ENTRY_CLASS_ID = -1;
+	/** class ids above this value are not cached in the array. */
+	private static final int MAX_CACHED_CLASS_ID = 0xFFFF;
+	/** the maximal length of a registered string in bytes; a longer one indicates a corrupt stream. */
+	private static final int MAX_STRING_LENGTH = 1024 * 1024;
+
+	/**
+	 * The part of the stream expected next.
+	 */
+	private enum State {
+		CLASS_ID, LOGGING_TIMESTAMP, RECORD_DATA, REGISTRY_ENTRY_HEADER, REGISTRY_ENTRY_STRING, END_OF_RECORDS
+	}
+
+	private final ReaderRegistry<String> readerRegistry;
+	private final IRegistry<String> stringRegistry;
+	private final CachedRecordFactoryCatalog recordFactories;
+	private final IRecordReceivedListener listener;
+	private final Log logger; // NOPMD (logger from the caller)
+
+	private IRecordFactory<?>[] recordFactoriesByClassId = new IRecordFactory<?>[16];
+
+	// the state of the entry being decoded
+	private State state = State.CLASS_ID;
+	private int numBytesRequired = INT_BYTES;
+	private int classId;
+	private long loggingTimestamp;
+	private IRecordFactory<? extends IMonitoringRecord> recordFactory;
+	private int stringId;
+
+	/**
+	 * @param readerRegistry
+	 *            the registry used to look up and to register the strings of the stream
+	 * @param recordFactories
+	 *            the catalog of record factories; may be shared by several decoders
+	 * @param listener
+	 *            to which the reconstructed records are passed
+	 * @param logger
+	 *            for notification to users and developers
+	 */
+	public RecordStreamDecoder(final ReaderRegistry<String> readerRegistry, final CachedRecordFactoryCatalog recordFactories,
+			final IRecordReceivedListener listener, final Log logger) {
+		this.readerRegistry = readerRegistry;
+		this.stringRegistry = new GetValueAdapter<String>(readerRegistry); // compatibility wrapper
+		this.recordFactories = recordFactories;
+		this.listener = listener;
+		this.logger = logger;
+	}
+
+	/**
+	 * Decodes all complete entries from the position to the limit of the given buffer. Afterwards, the position of the
+	 * buffer points to the first byte which has not been consumed yet. These bytes belong to an incomplete entry and
+	 * must be passed again, followed by the remaining bytes of the stream, with the next invocation.
+	 *
+	 * @param buffer
+	 *            the next chunk of the stream
+	 *
+	 * @throws RecordInstantiationException
+	 *             if a record of an unknown class id or of unknown size cannot be created, or if a string has an invalid
+	 *             length; the stream cannot be decoded any further in this case
+	 */
+	public void decode(final ByteBuffer buffer) {
+		while (buffer.remaining() >= this.numBytesRequired) {
+			switch (this.state) {
+			case CLASS_ID:
+				this.classId = buffer.getInt();
+				if (this.classId == REGISTRY_ENTRY_CLASS_ID) {
+					this.expect(State.REGISTRY_ENTRY_HEADER, INT_BYTES + INT_BYTES);
+				} else if (this.classId == FSUtil.END_OF_RECORDS_CLASS_ID) {
+					this.expect(State.END_OF_RECORDS, 0);
+				} else {
+					this.expect(State.LOGGING_TIMESTAMP, LONG_BYTES);
+				}
+				break;
+			case LOGGING_TIMESTAMP:
+				this.loggingTimestamp = buffer.getLong();
+				this.recordFactory = this.getRecordFactory(this.classId);
+				// a record of unknown size is tried to be created from the bytes available so far
+				this.expect(State.RECORD_DATA, Math.max(0, this.recordFactory.getRecordSizeInBytes()));
+				break;
+			case RECORD_DATA:
+				if (!this.createRecord(buffer)) {
+					return; // wait for more bytes
+				}
+				this.expect(State.CLASS_ID, INT_BYTES);
+				break;
+			case REGISTRY_ENTRY_HEADER:
+				this.stringId = buffer.getInt();
+				final int stringLength = buffer.getInt();
+				if ((stringLength < 0) || (stringLength > MAX_STRING_LENGTH)) {
+					throw new RecordInstantiationException(new IllegalStateException("Invalid length of the string " + this.stringId + ": " + stringLength));
+				}
+				this.expect(State.REGISTRY_ENTRY_STRING, stringLength);
+				break;
+			case REGISTRY_ENTRY_STRING:
+				final byte[] strBytes = new byte[this.numBytesRequired];
+				buffer.get(strBytes);
+				this.registerString(this.stringId, new String(strBytes, ENCODING));
+				this.expect(State.CLASS_ID, INT_BYTES);
+				break;
+			case END_OF_RECORDS:
+				buffer.position(buffer.limit()); // skip the remainder
+				return;
+			default:
+				throw new IllegalStateException("Unknown state: " + this.state);
+			}
+		}
+	}
+
+	private void expect(final State nextState, final int numBytes) {
+		this.state = nextState;
+		this.numBytesRequired = numBytes;
+	}
+
+	/**
+	 * @return <code>true</code> if the record has been created or skipped, <code>false</code> if more bytes are required
+	 */
+	private boolean createRecord(final ByteBuffer buffer) {
+		final int recordSize = this.recordFactory.getRecordSizeInBytes();
+		final int recordStart = buffer.position();
+		try {
+			final IMonitoringRecord record = this.recordFactory.create(DefaultValueDeserializer.create(buffer, this.stringRegistry));
+			record.setLoggingTimestamp(this.loggingTimestamp);
+
+			this.listener.onRecordReceived(record);
+		} catch (final BufferUnderflowException ex) {
+			if (recordSize >= 0) {
+				throw ex; // the record is larger than stated by its factory
+			}
+			buffer.position(recordStart);
+			this.numBytesRequired = buffer.remaining() + 1;
+			return false;
+		} catch (final RecordInstantiationException ex) {
+			this.logger.error("Failed to create: " + this.readerRegistry.get(this.classId), ex);
+			if (recordSize < 0) {
+				throw ex; // we cannot continue reading the buffer because we do not know at which position to continue
+			}
+			buffer.position(recordStart + recordSize);
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private IRecordFactory<? extends IMonitoringRecord> getRecordFactory(final int recordClassId) {
+		final boolean cacheable = (recordClassId >= 0) && (recordClassId <= MAX_CACHED_CLASS_ID);
+		if (cacheable && (recordClassId < this.recordFactoriesByClassId.length)) {
+			final IRecordFactory<?> cachedFactory = this.recordFactoriesByClassId[recordClassId];
+			if (cachedFactory != null) {
+				return (IRecordFactory<? extends IMonitoringRecord>) cachedFactory;
+			}
+		}
+
+		final String recordClassName = this.readerRegistry.get(recordClassId);
+		if (recordClassName == null) {
+			throw new RecordInstantiationException(new IllegalStateException("Unknown record class id: " + recordClassId));
+		}
+		final IRecordFactory<? extends IMonitoringRecord> factory = this.recordFactories.get(recordClassName);
+		if (cacheable) {
+			if (recordClassId >= this.recordFactoriesByClassId.length) {
+				this.recordFactoriesByClassId = Arrays.copyOf(this.recordFactoriesByClassId,
+						Math.min(MAX_CACHED_CLASS_ID + 1, Math.max(recordClassId + 1, this.recordFactoriesByClassId.length * 2)));
+			}
+			this.recordFactoriesByClassId[recordClassId] = factory;
+		}
+		return factory;
+	}
+
+	private void registerString(final int id, final String string) {
+		this.readerRegistry.register(id, string);
+		if ((id >= 0) && (id < this.recordFactoriesByClassId.length)) {
+			this.recordFactoriesByClassId[id] = null; // the id may have denoted another record class before
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the last decoded chunk ended exactly after an entry, otherwise <code>false</code>
+	 */
+	public boolean isAtEntryBoundary() {
+		return this.state == State.CLASS_ID;
+	}
+
+	/**
+	 * @return <code>true</code> if the end marker of the stream has been decoded, otherwise <code>false</code>
+	 */
+	public boolean isAtEndOfRecords() {
+		return this.state == State.END_OF_RECORDS;
+	}
+
+	/**
+	 * @return the number of bytes which must be available, starting at the first byte which has not been consumed, to
+	 *         continue decoding
+	 */
+	public int getNumBytesRequired() {
+		return this.numBytesRequired;
+	}
+
+	/**
+	 * Discards the state of the entry being decoded so that the next chunk is expected to begin with a new entry. The
+	 * cached record factories and the registered strings are kept.
+	 */
+	public void reset() {
+		this.expect(State.CLASS_ID, INT_BYTES);
+		this.recordFactory = null;
+	}
+}
@@ -23,8 +23,14 @@ import org.junit.Test;
 
 import kieker.analysis.AnalysisController;
 import kieker.analysis.IAnalysisController;
+import kieker.analysis.IProjectContext;
 import kieker.analysis.analysisComponent.AbstractAnalysisComponent;
 import kieker.analysis.exception.AnalysisConfigurationException;
+import kieker.analysis.plugin.AsynchronousConnection;
+import kieker.analysis.plugin.annotation.InputPort;
+import kieker.analysis.plugin.annotation.Plugin;
+import kieker.analysis.plugin.filter.AbstractFilterPlugin;
+import kieker.analysis.plugin.filter.forward.AnalysisThroughputFilter;
 import kieker.analysis.plugin.filter.forward.ListCollectionFilter;
 import kieker.analysis.plugin.reader.filesystem.FSReader;
 import kieker.analysis.plugin.reader.list.ListReader;
@@ -125,6 +131,130 @@ public class TestPlugin extends AbstractKiekerTest {
 		Assert.assertEquals(testObject2, list.get(1));
 	}
 
+	/**
+	 * This method tests that data of alternating classes is only delivered to the input ports accepting the respective class.
+	 *
+	 * @throws IllegalStateException
+	 *             If something went wrong during the test.
+	 * @throws AnalysisConfigurationException
+	 *             If something went wrong during the test.
+	 */
+	@Test
+	public void testDeliveryRespectsEventTypesOfInputPorts() throws IllegalStateException, AnalysisConfigurationException {
+		final IAnalysisController analysisController = new AnalysisController();
+
+		final ListReader<Object> simpleListReader = new ListReader<Object>(new Configuration(), analysisController);
+		simpleListReader.addObject("first");
+		simpleListReader.addObject(1L);
+		simpleListReader.addObject("second");
+		simpleListReader.addObject(2L);
+		final AnalysisThroughputFilter throughputFilter = new AnalysisThroughputFilter(new Configuration(), analysisController);
+		final ListCollectionFilter<Object> allObjectsSink = new ListCollectionFilter<Object>(new Configuration(), analysisController);
+		final ListCollectionFilter<Object> throughputSink = new ListCollectionFilter<Object>(new Configuration(), analysisController);
+
+		// the time input port of the throughput filter only accepts Long values
+		analysisController.connect(simpleListReader, ListReader.OUTPUT_PORT_NAME, throughputFilter, AnalysisThroughputFilter.INPUT_PORT_NAME_TIME);
+		analysisController.connect(simpleListReader, ListReader.OUTPUT_PORT_NAME, allObjectsSink, ListCollectionFilter.INPUT_PORT_NAME);
+		analysisController.connect(throughputFilter, AnalysisThroughputFilter.OUTPUT_PORT_NAME_THROUGHPUT, throughputSink, ListCollectionFilter.INPUT_PORT_NAME);
+
+		analysisController.run();
+		Assert.assertEquals(AnalysisController.STATE.TERMINATED, analysisController.getState());
+
+		Assert.assertEquals(4, allObjectsSink.getList().size());
+		Assert.assertEquals(2, throughputSink.getList().size());
+	}
+
+	/**
+	 * This method tests that an asynchronous connection delivers all data in order before the destination terminates.
+	 *
+	 * @throws IllegalStateException
+	 *             If something went wrong during the test.
+	 * @throws AnalysisConfigurationException
+	 *             If something went wrong during the test.
+	 */
+	@Test
+	public void testAsynchronousConnectionDeliversAllDataInOrder() throws IllegalStateException, AnalysisConfigurationException {
+		final int numObjects = 1000;
+		final IAnalysisController analysisController = new AnalysisController();
+
+		final ListReader<Object> simpleListReader = new ListReader<Object>(new Configuration(), analysisController);
+		for (int i = 0; i < numObjects; i++) {
+			simpleListReader.addObject(i);
+		}
+		final ListCollectionFilter<Object> simpleSinkPlugin = new ListCollectionFilter<Object>(new Configuration(), analysisController);
+
+		// a small queue makes the reader wait for the sink
+		analysisController.connectAsynchronously(simpleListReader, ListReader.OUTPUT_PORT_NAME, simpleSinkPlugin, ListCollectionFilter.INPUT_PORT_NAME, 16);
+
+		analysisController.run();
+		Assert.assertEquals(AnalysisController.STATE.TERMINATED, analysisController.getState());
+
+		final List<Object> list = simpleSinkPlugin.getList();
+		Assert.assertEquals(numObjects, list.size());
+		for (int i = 0; i < numObjects; i++) {
+			Assert.assertEquals(i, list.get(i));
+		}
+		final AsynchronousConnection connection = simpleSinkPlugin.getIncomingAsynchronousConnections().get(0);
+		Assert.assertEquals(0, connection.getQueueDepth());
+		Assert.assertEquals(numObjects, connection.getNumDelivered());
+	}
+
+	/**
+	 * This method tests that the destination of a full asynchronous connection can terminate the analysis.
+	 *
+	 * @throws IllegalStateException
+	 *             If something went wrong during the test.
+	 * @throws AnalysisConfigurationException
+	 *             If something went wrong during the test.
+	 */
+	@Test(timeout = 10000)
+	public void testAsynchronousConnectionTerminatedByItsDestination() throws IllegalStateException, AnalysisConfigurationException {
+		final IAnalysisController analysisController = new AnalysisController();
+
+		final ListReader<Object> simpleListReader = new ListReader<Object>(new Configuration(), analysisController);
+		for (int i = 0; i < 1000; i++) {
+			simpleListReader.addObject(i);
+		}
+		final TerminatingFilter terminatingFilter = new TerminatingFilter(new Configuration(), analysisController);
+
+		// the reader keeps the queue full while the filter terminates the analysis
+		analysisController.connectAsynchronously(simpleListReader, ListReader.OUTPUT_PORT_NAME, terminatingFilter, TerminatingFilter.INPUT_PORT_NAME, 1);
+
+		analysisController.run();
+		Assert.assertEquals(AnalysisController.STATE.TERMINATED, analysisController.getState());
+	}
+
+	/**
+	 * This method tests that the source of a full asynchronous connection does not block forever once the delivering
+	 * thread has been interrupted and that the remaining data is counted as dropped.
+	 *
+	 * @throws IllegalStateException
+	 *             If something went wrong during the test.
+	 * @throws AnalysisConfigurationException
+	 *             If something went wrong during the test.
+	 */
+	@Test(timeout = 10000)
+	public void testAsynchronousConnectionInterruptedWhileFull() throws IllegalStateException, AnalysisConfigurationException {
+		final int numObjects = 1000;
+		final IAnalysisController analysisController = new AnalysisController();
+
+		final ListReader<Object> simpleListReader = new ListReader<Object>(new Configuration(), analysisController);
+		for (int i = 0; i < numObjects; i++) {
+			simpleListReader.addObject(i);
+		}
+		final InterruptingFilter interruptingFilter = new InterruptingFilter(new Configuration(), analysisController);
+
+		analysisController.connectAsynchronously(simpleListReader, ListReader.OUTPUT_PORT_NAME, interruptingFilter, InterruptingFilter.INPUT_PORT_NAME, 4);
+
+		analysisController.run();
+		Assert.assertEquals(AnalysisController.STATE.TERMINATED, analysisController.getState());
+
+		final AsynchronousConnection connection = interruptingFilter.getIncomingAsynchronousConnections().get(0);
+		Assert.assertEquals(0, connection.getQueueDepth());
+		Assert.assertTrue("No data has been dropped", connection.getNumDropped() > 0);
+		Assert.assertEquals(numObjects, connection.getNumDelivered() + connection.getNumDropped());
+	}
+
 	/**
 	 * This method tests that the analysis controller makes sure that component names are unique.
 	 */
@@ -150,4 +280,70 @@ public class TestPlugin extends AbstractKiekerTest {
 		// make sure that both reader names differ
 		Assert.assertNotEquals(reader1.getName(), reader2.getName());
 	}
+
+	/**
+	 * A filter which interrupts the thread delivering its input as soon as its incoming queue is full.
+	 */
+	@Plugin(programmaticOnly = true)
+	public static final class InterruptingFilter extends AbstractFilterPlugin {
+		public static final String INPUT_PORT_NAME = "in";
+
+		private boolean interrupted;
+
+		public InterruptingFilter(final Configuration configuration, final IProjectContext projectContext) {
+			super(configuration, projectContext);
+		}
+
+		@Override
+		public Configuration getCurrentConfiguration() {
+			return new Configuration();
+		}
+
+		@InputPort(name = INPUT_PORT_NAME)
+		public final void inputEvent(final Object event) throws InterruptedException {
+			if (this.interrupted) {
+				return;
+			}
+			this.interrupted = true;
+			final AsynchronousConnection connection = this.getIncomingAsynchronousConnections().get(0);
+			while (connection.getQueueDepth() < connection.getCapacity()) {
+				Thread.sleep(1);
+			}
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A filter which terminates the analysis on its first input as soon as its incoming queue is full.
+	 */
+	@Plugin(programmaticOnly = true)
+	public static final class TerminatingFilter extends AbstractFilterPlugin {
+		public static final String INPUT_PORT_NAME = "in";
+
+		private final IProjectContext projectContext;
+		private boolean terminated;
+
+		public TerminatingFilter(final Configuration configuration, final IProjectContext projectContext) {
+			super(configuration, projectContext);
+			this.projectContext = projectContext;
+		}
+
+		@Override
+		public Configuration getCurrentConfiguration() {
+			return new Configuration();
+		}
+
+		@InputPort(name = INPUT_PORT_NAME)
+		public final void inputEvent(final Object event) throws InterruptedException {
+			if (this.terminated) {
+				return;
+			}
+			this.terminated = true;
+			final AsynchronousConnection connection = this.getIncomingAsynchronousConnections().get(0);
+			while (connection.getQueueDepth() < connection.getCapacity()) {
+				Thread.sleep(1);
+			}
+			((IAnalysisController) this.projectContext).terminate();
+		}
+	}
 }
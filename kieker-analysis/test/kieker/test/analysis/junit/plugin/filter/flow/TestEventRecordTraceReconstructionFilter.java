@@ -16,12 +16,21 @@
 
 package kieker.test.analysis.junit.plugin.filter.flow;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import kieker.analysis.AnalysisController;
 import kieker.analysis.IAnalysisController;
+import kieker.analysis.IProjectContext;
 import kieker.analysis.exception.AnalysisConfigurationException;
+import kieker.analysis.plugin.annotation.InputPort;
+import kieker.analysis.plugin.annotation.Plugin;
+import kieker.analysis.plugin.filter.AbstractFilterPlugin;
 import kieker.analysis.plugin.filter.flow.EventRecordTraceReconstructionFilter;
 import kieker.analysis.plugin.filter.flow.TraceEventRecords;
 import kieker.analysis.plugin.filter.forward.ListCollectionFilter;
@@ -224,6 +233,103 @@ public class TestEventRecordTraceReconstructionFilter extends AbstractKiekerTest
 		this.runTestFailedInterleaved(bookstoreTrace1, bookstoreTrace2, Long.MAX_VALUE, 1);
 	}
 
+	@Test
+	public void testTraceWithEventsInReverseOrderPasses() throws IllegalStateException, AnalysisConfigurationException {
+		final TraceEventRecords bookstoreTrace = BookstoreEventRecordFactory.validSyncTraceBeforeAfterEvents(START_TIME, TRACE_ID, SESSION_ID, HOSTNAME);
+		final AbstractTraceEvent[] events = bookstoreTrace.getTraceEvents();
+		final AbstractTraceEvent[] reversedEvents = new AbstractTraceEvent[events.length];
+		for (int i = 0; i < events.length; i++) {
+			reversedEvents[events.length - 1 - i] = events[i];
+		}
+		final TraceEventRecords reversedTrace = new TraceEventRecords(bookstoreTrace.getTraceMetadata(), reversedEvents);
+
+		final IAnalysisController controller = new AnalysisController();
+		final ListReader<Object> reader = new ListReader<Object>(new Configuration(), controller);
+		final EventRecordTraceReconstructionFilter traceFilter = new EventRecordTraceReconstructionFilter(new Configuration(), controller);
+		final ListCollectionFilter<TraceEventRecords> sinkPlugin = new ListCollectionFilter<TraceEventRecords>(new Configuration(), controller);
+
+		controller.connect(reader, ListReader.OUTPUT_PORT_NAME, traceFilter, EventRecordTraceReconstructionFilter.INPUT_PORT_NAME_TRACEEVENT_RECORDS);
+		controller.connect(traceFilter, EventRecordTraceReconstructionFilter.OUTPUT_PORT_NAME_TRACE_VALID, sinkPlugin, ListCollectionFilter.INPUT_PORT_NAME);
+
+		reader.addObject(reversedTrace);
+		controller.run();
+		Assert.assertEquals(AnalysisController.STATE.TERMINATED, controller.getState());
+
+		Assert.assertEquals("No trace passed filter", 1, sinkPlugin.getList().size());
+		Assert.assertEquals(bookstoreTrace, sinkPlugin.getList().get(0));
+	}
+
+	@Test
+	public void testShardedReconstructionDeliversAllInterleavedTraces() throws IllegalStateException, AnalysisConfigurationException {
+		final int numTraces = 100;
+		final IAnalysisController controller = new AnalysisController();
+
+		final ListReader<Object> reader = new ListReader<Object>(new Configuration(), controller);
+
+		final Configuration configuration = new Configuration();
+		configuration.setProperty(EventRecordTraceReconstructionFilter.CONFIG_PROPERTY_NAME_NUM_SHARDS, "4");
+		final EventRecordTraceReconstructionFilter traceFilter = new EventRecordTraceReconstructionFilter(configuration, controller);
+
+		final ListCollectionFilter<TraceEventRecords> sinkPlugin = new ListCollectionFilter<TraceEventRecords>(new Configuration(), controller);
+
+		controller.connect(reader, ListReader.OUTPUT_PORT_NAME, traceFilter, EventRecordTraceReconstructionFilter.INPUT_PORT_NAME_TRACE_RECORDS);
+		controller.connect(traceFilter, EventRecordTraceReconstructionFilter.OUTPUT_PORT_NAME_TRACE_VALID, sinkPlugin, ListCollectionFilter.INPUT_PORT_NAME);
+
+		final Map<Long, TraceEventRecords> expectedTraces = new HashMap<Long, TraceEventRecords>();
+		for (int i = 0; i < numTraces; i++) {
+			final TraceEventRecords trace = BookstoreEventRecordFactory.validSyncTraceBeforeAfterEvents(START_TIME + i, TRACE_ID + i, SESSION_ID, HOSTNAME);
+			expectedTraces.put(TRACE_ID + i, trace);
+			reader.addObject(trace.getTraceMetadata());
+		}
+		// interleave the events of all traces
+		for (int eventIndex = 0; eventIndex < expectedTraces.get(TRACE_ID).getTraceEvents().length; eventIndex++) {
+			for (int i = 0; i < numTraces; i++) {
+				reader.addObject(expectedTraces.get(TRACE_ID + i).getTraceEvents()[eventIndex]);
+			}
+		}
+		controller.run();
+		Assert.assertEquals(AnalysisController.STATE.TERMINATED, controller.getState());
+
+		Assert.assertEquals("Unexpected number of traces", numTraces, sinkPlugin.getList().size());
+		for (final TraceEventRecords trace : sinkPlugin.getList()) {
+			Assert.assertEquals(expectedTraces.get(trace.getTraceMetadata().getTraceId()), trace);
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testShardedReconstructionDropsTheRecordsOfAStoppedShard() throws IllegalStateException, AnalysisConfigurationException {
+		// enough records to fill the queue of the stopped shard several times
+		final int numTraces = 6000;
+		final IAnalysisController controller = new AnalysisController();
+
+		final ListReader<Object> reader = new ListReader<Object>(new Configuration(), controller);
+
+		final Configuration configuration = new Configuration();
+		configuration.setProperty(EventRecordTraceReconstructionFilter.CONFIG_PROPERTY_NAME_NUM_SHARDS, "2");
+		final EventRecordTraceReconstructionFilter traceFilter = new EventRecordTraceReconstructionFilter(configuration, controller);
+
+		final FailingFilter sinkPlugin = new FailingFilter(new Configuration(), controller);
+
+		controller.connect(reader, ListReader.OUTPUT_PORT_NAME, traceFilter, EventRecordTraceReconstructionFilter.INPUT_PORT_NAME_TRACE_RECORDS);
+		controller.connect(traceFilter, EventRecordTraceReconstructionFilter.OUTPUT_PORT_NAME_TRACE_VALID, sinkPlugin, FailingFilter.INPUT_PORT_NAME);
+
+		for (int i = 0; i < numTraces; i++) {
+			final TraceEventRecords trace = BookstoreEventRecordFactory.validSyncTraceBeforeAfterEvents(START_TIME + i, TRACE_ID + i, SESSION_ID, HOSTNAME);
+			reader.addObject(trace.getTraceMetadata());
+			for (final AbstractTraceEvent event : trace.getTraceEvents()) {
+				reader.addObject(event);
+			}
+		}
+		controller.run();
+		Assert.assertEquals(AnalysisController.STATE.TERMINATED, controller.getState());
+
+		// the shard of the first trace stops on its delivery; the other shard delivers all of its traces
+		Assert.assertEquals("Unexpected number of traces", numTraces / 2, sinkPlugin.getTraces().size());
+		for (final TraceEventRecords trace : sinkPlugin.getTraces()) {
+			Assert.assertNotEquals(TRACE_ID % 2, trace.getTraceMetadata().getTraceId() % 2);
+		}
+	}
+
 	@Test
 	public void testEventBasedTraceRepairWithoutAnyAfterEvent() throws IllegalStateException, AnalysisConfigurationException {
 		final TraceEventRecords brokenTrace = this.brokenEventsWithoutAfterEvents(START_TIME, TRACE_ID, SESSION_ID, HOSTNAME);
@@ -307,4 +413,36 @@ public class TestEventRecordTraceReconstructionFilter extends AbstractKiekerTest
 		};
 		return new TraceEventRecords(trace, events);
 	}
+
+	/**
+	 * A filter which throws an error on its first trace and collects the further ones.
+	 */
+	@Plugin(programmaticOnly = true)
+	public static final class FailingFilter extends AbstractFilterPlugin {
+		public static final String INPUT_PORT_NAME = "in";
+
+		private final List<TraceEventRecords> traces = new ArrayList<TraceEventRecords>();
+
+		public FailingFilter(final Configuration configuration, final IProjectContext projectContext) {
+			super(configuration, projectContext);
+		}
+
+		@Override
+		public Configuration getCurrentConfiguration() {
+			return new Configuration();
+		}
+
+		@InputPort(name = INPUT_PORT_NAME, eventTypes = { TraceEventRecords.class })
+		public final void inputEvent(final TraceEventRecords trace) {
+			// fail on a fixed trace, since the other shard may deliver its first trace earlier
+			if (trace.getTraceMetadata().getTraceId() == TRACE_ID) {
+				throw new Error("stops the shard"); // NOPMD (simulates a fatal error)
+			}
+			this.traces.add(trace);
+		}
+
+		public List<TraceEventRecords> getTraces() {
+			return this.traces;
+		}
+	}
 }
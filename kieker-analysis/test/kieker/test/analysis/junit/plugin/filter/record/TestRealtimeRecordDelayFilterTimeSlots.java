@@ -0,0 +1,135 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.analysis.junit.plugin.filter.record;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.analysis.AnalysisController;
+import kieker.analysis.IProjectContext;
+import kieker.analysis.exception.AnalysisConfigurationException;
+import kieker.analysis.plugin.annotation.InputPort;
+import kieker.analysis.plugin.annotation.Plugin;
+import kieker.analysis.plugin.filter.AbstractFilterPlugin;
+import kieker.analysis.plugin.filter.record.RealtimeRecordDelayFilter;
+import kieker.analysis.plugin.reader.list.ListReader;
+import kieker.common.configuration.Configuration;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.misc.EmptyRecord;
+
+import kieker.test.common.junit.AbstractKiekerTest;
+
+/**
+ * Tests the time slots of the {@link RealtimeRecordDelayFilter}: the records of a slot are delivered together at the beginning of the slot, in the order of
+ * their logging timestamps, and hence at most one slot duration early.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class TestRealtimeRecordDelayFilterTimeSlots extends AbstractKiekerTest {
+
+	private static final long TIME_SLOT_MILLIS = 500;
+	/** the maximal time between the deliveries of the records of a slot, which is well below the time between their logging timestamps. */
+	private static final long MAX_SLOT_DELIVERY_MILLIS = 150;
+
+	/** the logging timestamps relative to the first record in milliseconds, unordered within each slot. */
+	private static final long[] OFFSETS_MILLIS = { 0, 100, 300, 200, 700, 600, 950 };
+	private static final long[] EXPECTED_OFFSETS_MILLIS = { 0, 100, 200, 300, 600, 700, 950 };
+
+	private static final long START_TIME_MILLIS = 246561000L;
+
+	public TestRealtimeRecordDelayFilterTimeSlots() {
+		// empty default constructor
+	}
+
+	@Test
+	public void testRecordsAreDeliveredPerTimeSlot() throws IllegalStateException, AnalysisConfigurationException {
+		final AnalysisController analysisController = new AnalysisController();
+
+		final Configuration readerConfiguration = new Configuration();
+		readerConfiguration.setProperty(ListReader.CONFIG_PROPERTY_NAME_AWAIT_TERMINATION, Boolean.FALSE.toString());
+		final ListReader<IMonitoringRecord> reader = new ListReader<IMonitoringRecord>(readerConfiguration, analysisController);
+		for (final long offsetMillis : OFFSETS_MILLIS) {
+			final EmptyRecord record = new EmptyRecord();
+			record.setLoggingTimestamp(TimeUnit.MILLISECONDS.toNanos(START_TIME_MILLIS + offsetMillis));
+			reader.addObject(record);
+		}
+
+		final Configuration delayFilterConfiguration = new Configuration();
+		delayFilterConfiguration.setProperty(RealtimeRecordDelayFilter.CONFIG_PROPERTY_NAME_TIMER, "NANOSECONDS");
+		delayFilterConfiguration.setProperty(RealtimeRecordDelayFilter.CONFIG_PROPERTY_NAME_TIME_SLOT_MILLIS, Long.toString(TIME_SLOT_MILLIS));
+		final RealtimeRecordDelayFilter delayFilter = new RealtimeRecordDelayFilter(delayFilterConfiguration, analysisController);
+		final DeliveryTimeCollector sink = new DeliveryTimeCollector(new Configuration(), analysisController);
+
+		analysisController.connect(reader, ListReader.OUTPUT_PORT_NAME, delayFilter, RealtimeRecordDelayFilter.INPUT_PORT_NAME_RECORDS);
+		analysisController.connect(delayFilter, RealtimeRecordDelayFilter.OUTPUT_PORT_NAME_RECORDS, sink, DeliveryTimeCollector.INPUT_PORT_NAME);
+
+		final long startTime = System.nanoTime(); // not after the start time of the filter
+		analysisController.run();
+		Assert.assertEquals(AnalysisController.STATE.TERMINATED, analysisController.getState());
+
+		Assert.assertEquals("Unexpected number of relayed records", EXPECTED_OFFSETS_MILLIS.length, sink.records.size());
+		for (int i = 0; i < EXPECTED_OFFSETS_MILLIS.length; i++) {
+			final long offsetMillis = EXPECTED_OFFSETS_MILLIS[i];
+			Assert.assertEquals("Records of a slot must be ordered by their logging timestamps",
+					TimeUnit.MILLISECONDS.toNanos(START_TIME_MILLIS + offsetMillis), sink.records.get(i).getLoggingTimestamp());
+			final long deliveryTimeMillis = TimeUnit.NANOSECONDS.toMillis(sink.deliveryTimes.get(i) - startTime);
+			Assert.assertTrue("Record " + offsetMillis + " delivered more than one slot early: " + deliveryTimeMillis,
+					deliveryTimeMillis >= (offsetMillis - TIME_SLOT_MILLIS));
+		}
+
+		// the records of a slot are delivered by a single task at the beginning of the slot and not one after the other
+		this.assertDeliveredTogether(sink, 0, 3);
+		this.assertDeliveredTogether(sink, 4, 6);
+	}
+
+	private void assertDeliveredTogether(final DeliveryTimeCollector sink, final int firstIndex, final int lastIndex) {
+		final long deliveryDurationMillis = TimeUnit.NANOSECONDS.toMillis(sink.deliveryTimes.get(lastIndex) - sink.deliveryTimes.get(firstIndex));
+		Assert.assertTrue("Records of one slot delivered " + deliveryDurationMillis + " ms apart", deliveryDurationMillis < MAX_SLOT_DELIVERY_MILLIS);
+	}
+
+	/**
+	 * Collects the records together with the times of their delivery.
+	 */
+	@Plugin(programmaticOnly = true)
+	private static final class DeliveryTimeCollector extends AbstractFilterPlugin {
+		public static final String INPUT_PORT_NAME = "in";
+
+		final List<IMonitoringRecord> records = new ArrayList<IMonitoringRecord>(); // NOPMD NOCS package for outer class
+		final List<Long> deliveryTimes = new ArrayList<Long>(); // NOPMD NOCS package for outer class
+
+		public DeliveryTimeCollector(final Configuration configuration, final IProjectContext projectContext) {
+			super(configuration, projectContext);
+		}
+
+		@Override
+		public Configuration getCurrentConfiguration() {
+			return new Configuration();
+		}
+
+		@InputPort(name = INPUT_PORT_NAME, eventTypes = IMonitoringRecord.class)
+		public synchronized void collect(final IMonitoringRecord record) {
+			this.deliveryTimes.add(System.nanoTime());
+			this.records.add(record);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.analysis.junit.plugin.reader.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.analysis.plugin.reader.util.IRecordReceivedListener;
+import kieker.analysis.plugin.reader.util.RecordStreamDecoder;
+import kieker.common.logging.LogFactory;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.controlflow.OperationExecutionRecord;
+import kieker.common.record.factory.CachedRecordFactoryCatalog;
+import kieker.common.record.io.DefaultValueSerializer;
+import kieker.common.record.misc.EmptyRecord;
+import kieker.common.util.filesystem.FSUtil;
+import kieker.common.util.registry.Registry;
+import kieker.common.util.registry.reader.ReaderRegistry;
+
+import kieker.test.common.junit.AbstractKiekerTest;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class RecordStreamDecoderTest extends AbstractKiekerTest {
+
+	private static final Charset ENCODING = Charset.forName("UTF-8");
+	private static final int NUM_RECORDS = 50;
+
+	public RecordStreamDecoderTest() {
+		super();
+	}
+
+	@Test
+	public void testRecordsSpanningChunksAreDecodedOnce() {
+		final List<IMonitoringRecord> expectedRecords = new ArrayList<IMonitoringRecord>();
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			final IMonitoringRecord record;
+			if ((i % 5) == 0) {
+				record = new EmptyRecord();
+			} else {
+				record = new OperationExecutionRecord("op" + (i % 3) + "()", "session", i, i, i + 1, "host", i, 0);
+			}
+			record.setLoggingTimestamp(1000L + i);
+			expectedRecords.add(record);
+		}
+		final ByteBuffer stream = RecordStreamDecoderTest.serialize(expectedRecords);
+
+		// feed the stream in chunks of varying size
+		for (int chunkSize = 1; chunkSize <= 13; chunkSize++) {
+			final List<IMonitoringRecord> records = new ArrayList<IMonitoringRecord>();
+			final RecordStreamDecoder decoder = new RecordStreamDecoder(new ReaderRegistry<String>(), new CachedRecordFactoryCatalog(),
+					new IRecordReceivedListener() {
+						@Override
+						public void onRecordReceived(final IMonitoringRecord record) {
+							records.add(record);
+						}
+					}, LogFactory.getLog(RecordStreamDecoderTest.class));
+
+			final ByteBuffer buffer = ByteBuffer.allocate(256);
+			final ByteBuffer input = stream.duplicate();
+			while (input.hasRemaining()) {
+				final ByteBuffer chunk = input.slice();
+				chunk.limit(Math.min(chunkSize, chunk.remaining()));
+				input.position(input.position() + chunk.remaining());
+				buffer.put(chunk);
+				buffer.flip();
+				decoder.decode(buffer);
+				// only the bytes of an incomplete record are kept, never the consumed headers
+				Assert.assertTrue(buffer.remaining() < decoder.getNumBytesRequired());
+				buffer.compact();
+			}
+
+			Assert.assertTrue(decoder.isAtEntryBoundary());
+			Assert.assertEquals(0, buffer.position());
+			Assert.assertEquals("Chunk size " + chunkSize, expectedRecords, records);
+		}
+	}
+
+	@Test
+	public void testBytesAfterEndMarkerAreIgnored() {
+		final List<IMonitoringRecord> expectedRecords = new ArrayList<IMonitoringRecord>();
+		for (int i = 0; i < 3; i++) {
+			final IMonitoringRecord record = new EmptyRecord();
+			record.setLoggingTimestamp(1000L + i);
+			expectedRecords.add(record);
+		}
+		final ByteBuffer stream = RecordStreamDecoderTest.serialize(expectedRecords);
+
+		// the unused remainder of a pre-allocated file is filled with zeros
+		final ByteBuffer buffer = ByteBuffer.allocate(stream.remaining() + 4 + 64);
+		buffer.put(stream);
+		buffer.putInt(FSUtil.END_OF_RECORDS_CLASS_ID);
+		buffer.flip();
+		buffer.limit(buffer.capacity());
+
+		final List<IMonitoringRecord> records = new ArrayList<IMonitoringRecord>();
+		final RecordStreamDecoder decoder = new RecordStreamDecoder(new ReaderRegistry<String>(), new CachedRecordFactoryCatalog(),
+				new IRecordReceivedListener() {
+					@Override
+					public void onRecordReceived(final IMonitoringRecord record) {
+						records.add(record);
+					}
+				}, LogFactory.getLog(RecordStreamDecoderTest.class));
+		decoder.decode(buffer);
+
+		Assert.assertTrue(decoder.isAtEndOfRecords());
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertEquals(expectedRecords, records);
+	}
+
+	/**
+	 * Serializes the given records in the format of the single socket TCP writer, with the registry entries in front of
+	 * the records.
+	 */
+	private static ByteBuffer serialize(final List<IMonitoringRecord> records) {
+		final Registry<String> stringRegistry = new Registry<String>();
+		final ByteBuffer recordBuffer = ByteBuffer.allocate(64 * 1024);
+		final DefaultValueSerializer serializer = DefaultValueSerializer.create(recordBuffer, stringRegistry);
+		for (final IMonitoringRecord record : records) {
+			serializer.putString(record.getClass().getName());
+			serializer.putLong(record.getLoggingTimestamp());
+			record.serialize(serializer);
+		}
+		recordBuffer.flip();
+
+		final ByteBuffer stream = ByteBuffer.allocate(recordBuffer.remaining() + (16 * 1024));
+		for (int id = 0; id < stringRegistry.getSize(); id++) {
+			final byte[] bytes = stringRegistry.get(id).getBytes(ENCODING);
+			stream.putInt(-1);
+			stream.putInt(id);
+			stream.putInt(bytes.length);
+			stream.put(bytes);
+		}
+		stream.put(recordBuffer);
+		stream.flip();
+		return stream;
+	}
+}
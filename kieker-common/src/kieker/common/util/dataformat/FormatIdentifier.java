@@ -25,7 +25,14 @@ public enum FormatIdentifier {
 	/** Identifier for the container format. Reads "KIKA" in ASCII encoding. */
 	CONTAINER_FORMAT(0x4B494B41),
 	/** Identifier for the default binary encoding. Reads "DFLT" in ASCII encoding. */
-	DEFAULT_BINARY_FORMAT(0x44464C54);
+	DEFAULT_BINARY_FORMAT(0x44464C54),
+	/**
+	 * Identifier for the binary encoding with a string dictionary spanning several containers. Reads "DICT" in ASCII
+	 * encoding.
+	 *
+	 * @since 1.14
+	 */
+	DICTIONARY_BINARY_FORMAT(0x44494354);
 
 	private final int identifierValue;
 	
@@ -0,0 +1,62 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.common.util.filesystem;
+
+/**
+ * Describes the layout of Kieker's block-compressed binary record files (see {@link FSUtil#BLOCK_FILE_EXTENSION}). All
+ * numbers are stored in big-endian byte order.
+ *
+ * <pre>
+ * file   := FILE_MAGIC VERSION block* index? footer?
+ * block  := compressedSize:int uncompressedSize:int numRecords:int minLoggingTimestamp:long maxLoggingTimestamp:long data
+ * index  := (blockOffset:long numRecords:int minLoggingTimestamp:long maxLoggingTimestamp:long)*
+ * footer := indexOffset:long numBlocks:int FOOTER_MAGIC
+ * </pre>
+ *
+ * <p>
+ * The data of each block is compressed independently with the "deflate" format without zlib header (see
+ * {@link java.util.zip.Deflater#Deflater(int, boolean)}) and contains the records in the binary format of the
+ * uncompressed files, i.e., each record starts with its class id and its logging timestamp. A file without footer, for
+ * example, one of a writer that has been killed, can still be read block by block up to its last complete block.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class BlockLogFormat { // NOCS NOPMD (constants interface)
+
+	/** The first four bytes of each block-compressed file ("KBLK"). */
+	public static final int FILE_MAGIC = 0x4B424C4B;
+	/** The version of the format which follows the {@link #FILE_MAGIC}. */
+	public static final int VERSION = 1;
+	/** The last four bytes of a completely written file ("KIDX"). */
+	public static final int FOOTER_MAGIC = 0x4B494458;
+
+	/** The size of the file header in bytes. */
+	public static final int FILE_HEADER_SIZE = 4 + 4;
+	/** The size of a block header in bytes. */
+	public static final int BLOCK_HEADER_SIZE = 4 + 4 + 4 + 8 + 8;
+	/** The size of an index entry in bytes. */
+	public static final int INDEX_ENTRY_SIZE = 8 + 4 + 8 + 8;
+	/** The size of the footer in bytes. */
+	public static final int FOOTER_SIZE = 8 + 4 + 4;
+
+	private BlockLogFormat() {
+		// private default constructor
+	}
+}
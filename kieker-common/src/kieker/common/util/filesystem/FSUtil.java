@@ -53,9 +53,23 @@ public final class FSUtil { // NOCS NOPMD (constants interface)
 	public static final String GZIP_FILE_EXTENSION = ".gz";
 	/** The extension of Kieker's binary record files. */
 	public static final String BINARY_FILE_EXTENSION = ".bin";
+	/**
+	 * The extension of Kieker's block-compressed binary record files.
+	 *
+	 * @since 1.14
+	 */
+	public static final String BLOCK_FILE_EXTENSION = ".blk";
 	/** The extension of Kieker's mapping files. */
 	public static final String MAP_FILE_EXTENSION = ".map";
 
+	/**
+	 * The class id which marks the end of the records in a binary record file. Readers ignore the remainder of the file,
+	 * e.g., the unused part of a pre-allocated file which could not be truncated after a crash.
+	 *
+	 * @since 1.14
+	 */
+	public static final int END_OF_RECORDS_CLASS_ID = -2;
+
 	/** The encoding usually used within Kieker. */
 	public static final String ENCODING = "UTF-8";
 
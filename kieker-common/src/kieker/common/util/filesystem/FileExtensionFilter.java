@@ -32,12 +32,24 @@ public class FileExtensionFilter implements FilenameFilter {
 	/** A filter ensuring that the name of the file starts with {@value FSUtil.FILE_PREFIX} and ends with {@value FSUtil.MAP_FILE_EXTENSION} */
 	public static final FileExtensionFilter MAP = new FileExtensionFilter(FSUtil.MAP_FILE_EXTENSION);
 	public static final FileExtensionFilter ZIP = new FileExtensionFilter(FSUtil.ZIP_FILE_EXTENSION);
+	/** @since 1.14 */
+	public static final FileExtensionFilter BLOCK = new FileExtensionFilter(FSUtil.BLOCK_FILE_EXTENSION);
 
-	private final String fileExtension;
+	private final String[] fileExtensions;
 
 	public FileExtensionFilter(final String fileExtension) {
+		this(new String[] { fileExtension });
+	}
+
+	/**
+	 * @param fileExtensions
+	 *            the accepted file extensions
+	 *
+	 * @since 1.14
+	 */
+	public FileExtensionFilter(final String... fileExtensions) {
 		super();
-		this.fileExtension = fileExtension;
+		this.fileExtensions = fileExtensions;
 	}
 
 	@Override
@@ -45,7 +57,12 @@ public class FileExtensionFilter implements FilenameFilter {
 		if (!name.startsWith(FSUtil.FILE_PREFIX)) {
 			return false;
 		}
-		return name.endsWith(this.fileExtension);
+		for (final String fileExtension : this.fileExtensions) {
+			if (name.endsWith(fileExtension)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 }
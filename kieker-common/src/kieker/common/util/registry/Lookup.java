@@ -32,6 +32,8 @@ public final class Lookup<E> implements ILookup<E> {
 	private final long id;
 
 	private transient volatile E[] array;
+	/** the highest id set so far plus one. */
+	private volatile int size;
 
 	/**
 	 * Create a new lookup entry.
@@ -88,51 +90,56 @@ public final class Lookup<E> implements ILookup<E> {
 
 	@Override
 	public E[] getAll() {
+		final int currentSize = this.size; // read before the array which has at least this size then
 		final E[] arr = this.array; // work on this "copy" to prevent concurrent modification
 		@SuppressWarnings("unchecked")
-		final E[] result = (E[]) new Object[arr.length];
-		System.arraycopy(arr, 0, result, 0, arr.length);
+		final E[] result = (E[]) new Object[currentSize];
+		System.arraycopy(arr, 0, result, 0, currentSize);
 		return result;
 	}
 
 	@Override
 	public int getSize() {
-		return this.array.length;
+		return this.size;
 	}
 
 	@Override
 	public E get(final int i) {
+		// lock-free path for the values which have already been set
+		final E value = this.getNonBlocking(i);
+		if (null != value) {
+			return value;
+		}
 		synchronized (this) {
-			E value = this.getNonBlocking(i);
-			while (null == value) {
+			E valueToWaitFor = this.getNonBlocking(i);
+			while (null == valueToWaitFor) {
 				try {
 					this.wait();
 				} catch (final InterruptedException e) {
 					return null;
 				}
-				value = this.get(i);
+				valueToWaitFor = this.getNonBlocking(i);
 			}
-			return value;
+			return valueToWaitFor;
 		}
 	}
 
 	@Override
 	public boolean set(final E value, final int id) { // NOCS Ignore hiding the ID field
 		synchronized (this) {
-			if (id < this.array.length) {
-				if (null == this.array[id]) {
-					this.array[id] = value;
-					this.notifyAll();
-					return true;
-				} else {
+			E[] arr = this.array;
+			if (id < arr.length) {
+				if (null != arr[id]) {
 					return false;
 				}
-			} // increase capacity
-			@SuppressWarnings("unchecked")
-			final E[] newArray = (E[]) new Object[id + 1];
-			System.arraycopy(this.array, 0, newArray, 0, this.array.length);
-			newArray[id] = value;
-			this.array = newArray;
+			} else { // increase capacity
+				arr = Arrays.copyOf(arr, Math.max(id + 1, arr.length * 2));
+			}
+			arr[id] = value;
+			this.array = arr; // volatile write publishes the value to the lock-free readers
+			if (id >= this.size) {
+				this.size = id + 1;
+			}
 			this.notifyAll();
 			return true;
 		}
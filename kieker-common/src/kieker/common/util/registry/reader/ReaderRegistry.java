@@ -15,12 +15,19 @@
  ***************************************************************************/
 package kieker.common.util.registry.reader;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Represents an unsynchronized registry for read-only purposes. It is used by the readers within the analysis component.
  *
+ * <p>
+ * The values of the dense, non-negative keys used by the writers are stored in an array indexed by the key; other keys
+ * are stored in a map. Each registration republishes the array so that a value registered by one thread can be looked
+ * up by another thread without locking, provided that the lookup happens after the registration.
+ * </p>
+ *
  * @param <E>
  *            the type of the values in this registry
  *
@@ -30,8 +37,12 @@ import java.util.Map;
  */
 public class ReaderRegistry<E> {
 
-	// NOCS TODO replace by a high performance map with primitive key type
-	private final Map<Long, E> registryEntries = new HashMap<Long, E>(); // NOPMD (should be unsynchronized)
+	/** keys from this value on are not stored in the array. */
+	private static final int MAX_ARRAY_KEY = 1 << 20;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private volatile Object[] values = new Object[INITIAL_CAPACITY];
+	private Map<Long, E> otherEntries; // NOPMD (should be unsynchronized)
 
 	/**
 	 * Constructs an unsynchronized reader registry.
@@ -40,14 +51,37 @@ public class ReaderRegistry<E> {
 		super();
 	}
 
+	@SuppressWarnings("unchecked")
 	public E get(final long key) {
-		return this.registryEntries.get(key);
+		final Object[] currentValues = this.values; // volatile read
+		if ((key >= 0) && (key < currentValues.length)) {
+			return (E) currentValues[(int) key];
+		}
+		if ((this.otherEntries == null) || ((key >= 0) && (key < MAX_ARRAY_KEY))) {
+			return null;
+		}
+		return this.otherEntries.get(key);
 	}
 
 	/**
 	 * @return the previous associated value for the given <code>key</code>, or <code>null</code> otherwise.
 	 */
+	@SuppressWarnings("unchecked")
 	public E register(final long key, final E value) {
-		return this.registryEntries.put(key, value);
+		if ((key < 0) || (key >= MAX_ARRAY_KEY)) {
+			if (this.otherEntries == null) {
+				this.otherEntries = new HashMap<Long, E>(); // NOPMD (should be unsynchronized)
+			}
+			return this.otherEntries.put(key, value);
+		}
+		Object[] currentValues = this.values;
+		final int index = (int) key;
+		if (index >= currentValues.length) {
+			currentValues = Arrays.copyOf(currentValues, Math.min(MAX_ARRAY_KEY, Math.max(index + 1, currentValues.length * 2)));
+		}
+		final E previousValue = (E) currentValues[index];
+		currentValues[index] = value;
+		this.values = currentValues; // volatile write publishes the new value
+		return previousValue;
 	}
 }
@@ -0,0 +1,90 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.common.junit.record.flow.trace;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.common.record.flow.trace.SampledTraceMetadata;
+import kieker.common.record.flow.trace.TraceMetadata;
+import kieker.common.record.io.DefaultValueDeserializer;
+import kieker.common.record.io.DefaultValueSerializer;
+import kieker.common.util.registry.IRegistry;
+import kieker.common.util.registry.Registry;
+
+import kieker.test.common.junit.AbstractKiekerTest;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class TestSampledTraceMetadata extends AbstractKiekerTest {
+
+	private static final long TRACE_ID = 23444L;
+	private static final long THREAD_ID = 2389L;
+	private static final String SESSION_ID = "mysession";
+	private static final String HOSTNAME = "myhostname";
+	private static final long PARENT_TRACE_ID = 3487L;
+	private static final int PARENT_ORDER_ID = 357835;
+	private static final int SAMPLING_INTERVAL = 17;
+
+	/**
+	 * Default constructor.
+	 */
+	public TestSampledTraceMetadata() {
+		// empty default constructor
+	}
+
+	/**
+	 * Tests the constructor and serialize(..) methods of {@link SampledTraceMetadata}.
+	 */
+	@Test
+	public void testSerializeDeserializeBinaryEquals() {
+		final SampledTraceMetadata trace1 = new SampledTraceMetadata(TRACE_ID, THREAD_ID, SESSION_ID, HOSTNAME, PARENT_TRACE_ID, PARENT_ORDER_ID,
+				SAMPLING_INTERVAL);
+
+		Assert.assertEquals("Unexpected trace ID", TRACE_ID, trace1.getTraceId());
+		Assert.assertEquals("Unexpected parent order ID", PARENT_ORDER_ID, trace1.getParentOrderId());
+		Assert.assertEquals("Unexpected sampling interval", SAMPLING_INTERVAL, trace1.getSamplingInterval());
+
+		final IRegistry<String> stringRegistry = new Registry<String>();
+		final ByteBuffer buffer = ByteBuffer.allocate(trace1.getSize());
+		trace1.serialize(DefaultValueSerializer.create(buffer, stringRegistry));
+		buffer.flip();
+
+		final SampledTraceMetadata trace2 = new SampledTraceMetadata(DefaultValueDeserializer.create(buffer, stringRegistry));
+
+		Assert.assertEquals(trace1, trace2);
+		Assert.assertEquals(0, trace1.compareTo(trace2));
+		Assert.assertFalse(buffer.hasRemaining());
+	}
+
+	/**
+	 * Tests that a sampled trace is distinguished from an unsampled one with the same values.
+	 */
+	@Test
+	public void testNotEqualToTraceMetadata() {
+		final TraceMetadata trace = new TraceMetadata(TRACE_ID, THREAD_ID, SESSION_ID, HOSTNAME, PARENT_TRACE_ID, PARENT_ORDER_ID);
+		final SampledTraceMetadata sampledTrace = new SampledTraceMetadata(TRACE_ID, THREAD_ID, SESSION_ID, HOSTNAME, PARENT_TRACE_ID, PARENT_ORDER_ID, 1);
+
+		Assert.assertNotEquals(trace, sampledTrace);
+		Assert.assertNotEquals(sampledTrace, trace);
+	}
+}
@@ -74,5 +74,7 @@ interface Keys { // NOPMD NOCS (static list)
 	public static final String ADAPTIVE_MONITORING_CONFIG_FILE_READ_INTERVALL = PREFIX + "adaptiveMonitoring.readInterval";
 	public static final String ADAPTIVE_MONITORING_MAX_CACHE_SIZE = PREFIX + "adaptiveMonitoring.maxCacheSize";
 	public static final String ADAPTIVE_MONITORING_BOUNDED_CACHE_BEHAVIOUR = PREFIX + "adaptiveMonitoring.boundedCacheBehaviour";
+	public static final String ADAPTIVE_MONITORING_MAX_TRACE_RECORD_RATE = PREFIX + "adaptiveMonitoring.maxTraceRecordRate";
+	public static final String ADAPTIVE_MONITORING_TRACE_SAMPLING_PERIOD = PREFIX + "adaptiveMonitoring.traceSamplingPeriod";
 
 }
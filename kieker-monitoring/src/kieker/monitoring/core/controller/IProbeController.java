@@ -18,6 +18,8 @@ package kieker.monitoring.core.controller;
 
 import java.util.List;
 
+import kieker.monitoring.core.sampler.AdaptiveTraceSampler;
+
 /**
  * @author Jan Waller
  * 
@@ -84,4 +86,25 @@ public interface IProbeController {
 	 * @since 1.6
 	 */
 	public List<String> getProbePatternList();
+
+	/**
+	 * Returns a number which changes whenever the patterns change. Probes may cache the result of
+	 * {@link #isProbeActivated(String)} per signature as long as this number is unchanged.
+	 * 
+	 * @return
+	 *         the current generation of the pattern list
+	 * 
+	 * @since 1.14
+	 */
+	public int getProbePatternGeneration();
+
+	/**
+	 * Returns the sampler deciding which traces are monitored, if the number of trace records per second is limited.
+	 * 
+	 * @return
+	 *         the trace sampler or <code>null</code> if all traces are monitored
+	 * 
+	 * @since 1.14
+	 */
+	public AdaptiveTraceSampler getTraceSampler();
 }
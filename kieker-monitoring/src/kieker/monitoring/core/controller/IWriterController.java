@@ -61,4 +61,60 @@ public interface IWriterController extends IMonitoringRecordReceiver {
 	 */
 	void waitForTermination(long timeoutInMs) throws InterruptedException;
 
+	/**
+	 * Writes a {@link kieker.common.record.flow.trace.operation.BeforeOperationEvent} with the given fields. If the
+	 * operation event buffers are enabled (see {@link WriterController#OPERATION_EVENT_BUFFER_SIZE}), no record object is
+	 * created; otherwise, this method is equivalent to {@link #newMonitoringRecord(IMonitoringRecord)}.
+	 *
+	 * @return true on success; false in case of an error.
+	 *
+	 * @since 1.14
+	 */
+	boolean newBeforeOperationEvent(long timestamp, long traceId, int orderIndex, String operationSignature, String classSignature);
+
+	/**
+	 * Writes an {@link kieker.common.record.flow.trace.operation.AfterOperationEvent} with the given fields (see
+	 * {@link #newBeforeOperationEvent(long, long, int, String, String)}).
+	 *
+	 * @return true on success; false in case of an error.
+	 *
+	 * @since 1.14
+	 */
+	boolean newAfterOperationEvent(long timestamp, long traceId, int orderIndex, String operationSignature, String classSignature);
+
+	/**
+	 * Like {@link #newBeforeOperationEvent(long, long, int, String, String)}, but with the ids of the signatures in the
+	 * {@link kieker.monitoring.registry.SignatureRegistry}, which probes intern once per join point.
+	 *
+	 * @return true on success; false in case of an error.
+	 *
+	 * @since 1.14
+	 */
+	boolean newBeforeOperationEvent(long timestamp, long traceId, int orderIndex, int operationSignatureId, int classSignatureId);
+
+	/**
+	 * Like {@link #newAfterOperationEvent(long, long, int, String, String)}, but with the ids of the signatures in the
+	 * {@link kieker.monitoring.registry.SignatureRegistry}.
+	 *
+	 * @return true on success; false in case of an error.
+	 *
+	 * @since 1.14
+	 */
+	boolean newAfterOperationEvent(long timestamp, long traceId, int orderIndex, int operationSignatureId, int classSignatureId);
+
+	/**
+	 * Hands the records collected by the calling thread over to the writer, if record batching or the operation event
+	 * buffers are enabled (see {@link WriterController#RECORD_BATCH_SIZE} and
+	 * {@link WriterController#OPERATION_EVENT_BUFFER_SIZE}). The next record of the calling thread is handed over
+	 * immediately, too. Probes call this method when a trace has been closed.
+	 * If {@link WriterController#RECORD_BATCH_PUBLISH_ON_TRACE_END} is disabled, the records are only handed over
+	 * together with the next record if they are older than {@link WriterController#RECORD_BATCH_TIMEOUT}; otherwise,
+	 * they are handed over with a full or an expired batch.
+	 *
+	 * @return true on success; false in case of an error.
+	 *
+	 * @since 1.14
+	 */
+	boolean publishRecordBatch();
+
 }
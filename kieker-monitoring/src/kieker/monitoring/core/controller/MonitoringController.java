@@ -23,12 +23,17 @@ import kieker.common.configuration.Configuration;
 import kieker.common.logging.Log;
 import kieker.common.logging.LogFactory;
 import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.flow.ITraceRecord;
+import kieker.common.record.flow.trace.TraceMetadata;
 import kieker.common.record.misc.KiekerMetadataRecord;
 import kieker.common.util.Version;
 import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.core.sampler.AdaptiveTraceSampler;
 import kieker.monitoring.core.sampler.ISampler;
 import kieker.monitoring.core.sampler.ScheduledSamplerJob;
+import kieker.monitoring.registry.SignatureRegistry;
 import kieker.monitoring.timer.ITimeSource;
+import kieker.monitoring.writer.OperationEventBuffer;
 
 /**
  * @author Jan Waller
@@ -51,6 +56,8 @@ public final class MonitoringController extends AbstractController implements IM
 	private final WriterController writerController;
 	private final TimeSourceController timeSourceController;
 	private final ProbeController probeController;
+	/** decides which traces are monitored; null if all traces are monitored. */
+	private final AdaptiveTraceSampler traceSampler;
 	/** Whether or not the {@link IMonitoringRecord#setLoggingTimestamp(long)} is automatically set. */
 	private final boolean autoSetLoggingTimestamp;
 
@@ -64,6 +71,7 @@ public final class MonitoringController extends AbstractController implements IM
 		this.stateController.setStateListener(this);
 		this.timeSourceController = new TimeSourceController(configuration);
 		this.probeController = new ProbeController(configuration);
+		this.traceSampler = this.probeController.getTraceSampler();
 		this.autoSetLoggingTimestamp = configuration.getBooleanProperty(ConfigurationFactory.AUTO_SET_LOGGINGTSTAMP);
 	}
 
@@ -293,17 +301,94 @@ public final class MonitoringController extends AbstractController implements IM
 		if (!this.isMonitoringEnabled()) { // enabled and not terminated
 			return false;
 		}
+		if (this.traceSampler != null) {
+			if (record instanceof ITraceRecord) {
+				if (!this.acceptTraceRecord(((ITraceRecord) record).getTraceId())) {
+					return true; // the trace is not monitored
+				}
+			} else if (record instanceof TraceMetadata) {
+				if (!this.acceptTraceRecord(((TraceMetadata) record).getTraceId())) {
+					return true; // the trace is not monitored
+				}
+			}
+		}
 		if (this.autoSetLoggingTimestamp) {
 			record.setLoggingTimestamp(this.getTimeSource().getTime());
 		}
 		return this.writerController.newMonitoringRecord(record);
 	}
 
+	@Override
+	public final boolean newBeforeOperationEvent(final long timestamp, final long traceId, final int orderIndex, final String operationSignature,
+			final String classSignature) {
+		return this.newOperationEvent(OperationEventBuffer.BEFORE_OPERATION_EVENT, timestamp, traceId, orderIndex, operationSignature, classSignature);
+	}
+
+	@Override
+	public final boolean newAfterOperationEvent(final long timestamp, final long traceId, final int orderIndex, final String operationSignature,
+			final String classSignature) {
+		return this.newOperationEvent(OperationEventBuffer.AFTER_OPERATION_EVENT, timestamp, traceId, orderIndex, operationSignature, classSignature);
+	}
+
+	@Override
+	public final boolean newBeforeOperationEvent(final long timestamp, final long traceId, final int orderIndex, final int operationSignatureId,
+			final int classSignatureId) {
+		return this.newOperationEvent(OperationEventBuffer.BEFORE_OPERATION_EVENT, timestamp, traceId, orderIndex, operationSignatureId, classSignatureId);
+	}
+
+	@Override
+	public final boolean newAfterOperationEvent(final long timestamp, final long traceId, final int orderIndex, final int operationSignatureId,
+			final int classSignatureId) {
+		return this.newOperationEvent(OperationEventBuffer.AFTER_OPERATION_EVENT, timestamp, traceId, orderIndex, operationSignatureId, classSignatureId);
+	}
+
+	private boolean newOperationEvent(final byte type, final long timestamp, final long traceId, final int orderIndex, final String operationSignature,
+			final String classSignature) {
+		if (!this.writerController.isOperationEventBufferEnabled()) {
+			return this.newMonitoringRecord(OperationEventBuffer.createRecord(type, timestamp, traceId, orderIndex, operationSignature, classSignature));
+		}
+		return this.newOperationEvent(type, timestamp, traceId, orderIndex, SignatureRegistry.INSTANCE.intern(operationSignature),
+				SignatureRegistry.INSTANCE.intern(classSignature));
+	}
+
+	private boolean newOperationEvent(final byte type, final long timestamp, final long traceId, final int orderIndex, final int operationSignatureId,
+			final int classSignatureId) {
+		if (!this.writerController.isOperationEventBufferEnabled()) {
+			return this.newMonitoringRecord(OperationEventBuffer.createRecord(type, timestamp, traceId, orderIndex,
+					SignatureRegistry.INSTANCE.get(operationSignatureId), SignatureRegistry.INSTANCE.get(classSignatureId)));
+		}
+		if (!this.isMonitoringEnabled()) { // enabled and not terminated
+			return false;
+		}
+		if ((this.traceSampler != null) && !this.acceptTraceRecord(traceId)) {
+			return true; // the trace is not monitored
+		}
+		final long loggingTimestamp = this.autoSetLoggingTimestamp ? this.getTimeSource().getTime() : -1; // NOCS (inline conditional)
+		return this.writerController.newOperationEvent(type, loggingTimestamp, timestamp, traceId, orderIndex, operationSignatureId, classSignatureId);
+	}
+
+	/**
+	 * Decides by the trace id (not by the current trace of the calling thread) whether a record of a trace is monitored,
+	 * since some records, e.g., the after event of the outermost operation, are created after their trace has been unregistered.
+	 */
+	private boolean acceptTraceRecord(final long traceId) {
+		if (AdaptiveTraceSampler.isSampledOut(traceId)) {
+			return false;
+		}
+		this.traceSampler.recordAccepted();
+		return true;
+	}
+
 	@Override
 	public void waitForTermination(final long timeoutInMs) throws InterruptedException {
 		this.writerController.waitForTermination(timeoutInMs);
 	}
 
+	@Override
+	public final boolean publishRecordBatch() {
+		return this.writerController.publishRecordBatch();
+	}
+
 	@Override
 	public final ScheduledSamplerJob schedulePeriodicSampler(final ISampler sampler, final long initialDelay, final long period, final TimeUnit timeUnit) {
 		return this.samplingController.schedulePeriodicSampler(sampler, initialDelay, period, timeUnit);
@@ -339,6 +424,16 @@ public final class MonitoringController extends AbstractController implements IM
 		return this.probeController.isProbeActivated(signature);
 	}
 
+	@Override
+	public int getProbePatternGeneration() {
+		return this.probeController.getProbePatternGeneration();
+	}
+
+	@Override
+	public AdaptiveTraceSampler getTraceSampler() {
+		return this.probeController.getTraceSampler();
+	}
+
 	@Override
 	public void setProbePatternList(final List<String> patternList) {
 		this.probeController.setProbePatternList(patternList);
@@ -31,7 +31,6 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Locale;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentHashMap;
@@ -46,9 +45,11 @@ import kieker.common.logging.LogFactory;
 import kieker.common.util.map.BoundedConcurrentHashMap;
 import kieker.common.util.map.BoundedConcurrentHashMap.BoundedCacheBehaviour;
 import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.core.sampler.AdaptiveTraceSampler;
 import kieker.monitoring.core.signaturePattern.InvalidPatternException;
 import kieker.monitoring.core.signaturePattern.PatternEntry;
 import kieker.monitoring.core.signaturePattern.PatternParser;
+import kieker.monitoring.core.signaturePattern.SignatureMatcher;
 
 /**
  * @author Jan Waller, Bjoern Weissenfels, Nils Christian Ehmke
@@ -67,9 +68,16 @@ public class ProbeController extends AbstractController implements IProbeControl
 	private final int maxCacheSize;
 	private final int boundedCacheBehaviour;
 	private final ConfigFileReader configFileReader;
+	/** decides which traces are monitored; null if all traces are monitored. */
+	private final AdaptiveTraceSampler traceSampler;
+	private final long traceSamplingPeriod;
 
 	private final ConcurrentMap<String, Boolean> signatureCache;
 	private final List<PatternEntry> patternList = new ArrayList<PatternEntry>(); // only accessed synchronized
+	/** an immutable snapshot of the pattern list; replaced whenever the list changes. */
+	private volatile SignatureMatcher signatureMatcher = new SignatureMatcher(this.patternList);
+	/** incremented whenever the pattern list changes; only written synchronized. */
+	private volatile int patternGeneration;
 
 	/**
 	 * Creates a new instance of this class using the given configuration to initialize the class.
@@ -132,10 +140,26 @@ public class ProbeController extends AbstractController implements IProbeControl
 			this.configFileReader = null; // NOPMD (null)
 			this.signatureCache = new ConcurrentHashMap<String, Boolean>();
 		}
+		final double maxTraceRecordRate = configuration.getDoubleProperty(ConfigurationFactory.ADAPTIVE_MONITORING_MAX_TRACE_RECORD_RATE, 0);
+		if (maxTraceRecordRate > 0) {
+			this.traceSampler = new AdaptiveTraceSampler(maxTraceRecordRate);
+			this.traceSamplingPeriod = configuration.getLongProperty(ConfigurationFactory.ADAPTIVE_MONITORING_TRACE_SAMPLING_PERIOD, 1000);
+		} else {
+			this.traceSampler = null; // NOPMD (null)
+			this.traceSamplingPeriod = 0;
+		}
 	}
 
 	@Override
 	protected void init() {
+		if ((this.traceSampler != null) && (this.monitoringController != null)) {
+			if (this.traceSamplingPeriod > 0) {
+				this.monitoringController.schedulePeriodicSampler(this.traceSampler, this.traceSamplingPeriod, this.traceSamplingPeriod, TimeUnit.MILLISECONDS);
+			} else {
+				LOG.warn("Invalid value for property '" + ConfigurationFactory.ADAPTIVE_MONITORING_TRACE_SAMPLING_PERIOD
+						+ "'. The sampling interval of traces will not be adapted.");
+			}
+		}
 		if (this.enabled && (this.monitoringController != null)) {
 			final SamplingController samplingController = this.monitoringController.getSamplingController();
 			final ScheduledThreadPoolExecutor scheduler = samplingController.periodicSensorsPoolExecutor;
@@ -183,6 +207,10 @@ public class ProbeController extends AbstractController implements IProbeControl
 		} else {
 			sb.append("disabled");
 		}
+		if (this.traceSampler != null) {
+			sb.append("\n\t");
+			sb.append(this.traceSampler.toString());
+		}
 		sb.append('\n');
 		return sb.toString();
 	}
@@ -220,6 +248,19 @@ public class ProbeController extends AbstractController implements IProbeControl
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getProbePatternGeneration() {
+		return this.patternGeneration;
+	}
+
+	@Override
+	public AdaptiveTraceSampler getTraceSampler() {
+		return this.traceSampler;
+	}
+
 	/**
 	 * Sets the list of probe patterns.
 	 *
@@ -237,10 +278,10 @@ public class ProbeController extends AbstractController implements IProbeControl
 
 		synchronized (this) {
 			this.patternList.clear();
-			this.signatureCache.clear();
 			for (final String pattern : strPatternList) {
 				this.addToPatternEntryList(pattern);
 			}
+			this.onPatternListChanged();
 			if (updateConfig && this.configFileUpdate) {
 				this.updatePatternFile();
 			}
@@ -309,26 +350,31 @@ public class ProbeController extends AbstractController implements IProbeControl
 
 	/**
 	 * This method tests if the given signature matches a pattern and completes accordingly the signatureCache map.
+	 * It does not lock as the patterns are evaluated by an immutable {@link SignatureMatcher}.
 	 *
 	 * @param signature
 	 *            The signature to match.
 	 */
 	private boolean matchesPattern(final String signature) {
-		synchronized (this) {
-			final ListIterator<PatternEntry> patternListIterator = this.patternList.listIterator(this.patternList.size());
-			while (patternListIterator.hasPrevious()) {
-				final PatternEntry patternEntry = patternListIterator.previous();
-				if (patternEntry.getPattern().matcher(signature).matches()) {
-					final boolean value = patternEntry.isActivated();
-					this.signatureCache.put(signature, value);
-					return value;
-				}
-			}
+		final SignatureMatcher matcher = this.signatureMatcher;
+		final boolean value = matcher.isActivated(signature);
+		this.signatureCache.put(signature, value);
+		if (matcher != this.signatureMatcher) { // NOPMD (compare references)
+			// the patterns have changed concurrently; the cache may have been cleared before our put
+			this.signatureCache.remove(signature);
 		}
-		// Do not forget to remember this default value
-		this.signatureCache.put(signature, true);
+		return value;
+	}
 
-		return true; // if nothing matches, the default is true!
+	/**
+	 * Must be called synchronized after each change of the pattern list. The new matcher must be visible before the
+	 * cache is cleared (see {@link #matchesPattern(String)}).
+	 */
+	private void onPatternListChanged() {
+		this.signatureMatcher = new SignatureMatcher(this.patternList);
+		// we must always clear the cache!
+		this.signatureCache.clear();
+		this.patternGeneration++; // NOPMD NOCS (only written synchronized)
 	}
 
 	private boolean addPattern(final String strPattern, final boolean activated) {
@@ -337,8 +383,6 @@ public class ProbeController extends AbstractController implements IProbeControl
 			return false;
 		}
 		synchronized (this) {
-			// we must always clear the cache!
-			this.signatureCache.clear();
 			final Pattern pattern;
 			try {
 				pattern = PatternParser.parseToPattern(strPattern);
@@ -347,6 +391,7 @@ public class ProbeController extends AbstractController implements IProbeControl
 				return false;
 			}
 			this.patternList.add(new PatternEntry(strPattern, pattern, activated));
+			this.onPatternListChanged();
 			if (this.configFileUpdate) {
 				this.updatePatternFile();
 			}
@@ -20,6 +20,7 @@ import kieker.common.configuration.Configuration;
 import kieker.common.logging.Log;
 import kieker.common.logging.LogFactory;
 import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.timer.AbstractTimeSource;
 import kieker.monitoring.timer.ITimeSource;
 
 /**
@@ -50,7 +51,9 @@ public final class TimeSourceController extends AbstractController implements IT
 
 	@Override
 	protected final void init() {
-		// do nothing
+		if (this.timeSource instanceof AbstractTimeSource) {
+			((AbstractTimeSource) this.timeSource).start();
+		}
 	}
 
 	@Override
@@ -58,6 +61,9 @@ public final class TimeSourceController extends AbstractController implements IT
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Shutting down TimeSource Controller");
 		}
+		if (this.timeSource instanceof AbstractTimeSource) {
+			((AbstractTimeSource) this.timeSource).terminate();
+		}
 	}
 
 	@Override
@@ -21,13 +21,20 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import kieker.common.configuration.Configuration;
 import kieker.common.logging.Log;
 import kieker.common.logging.LogFactory;
 import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.misc.KiekerMetadataRecord;
+import kieker.common.util.thread.DaemonThreadFactory;
 import kieker.monitoring.core.configuration.ConfigurationFactory;
 import kieker.monitoring.queue.BlockingQueueDecorator;
+import kieker.monitoring.queue.OperationEventBatcher;
+import kieker.monitoring.queue.ThreadLocalBatcher;
 import kieker.monitoring.queue.behavior.BlockOnFailedInsertBehavior;
 import kieker.monitoring.queue.behavior.BypassQueueBehavior;
 import kieker.monitoring.queue.behavior.CountOnFailedInsertBehavior;
@@ -38,8 +45,10 @@ import kieker.monitoring.queue.putstrategy.PutStrategy;
 import kieker.monitoring.queue.putstrategy.SPBlockingPutStrategy;
 import kieker.monitoring.queue.takestrategy.SCBlockingTakeStrategy;
 import kieker.monitoring.queue.takestrategy.TakeStrategy;
+import kieker.monitoring.registry.SignatureRegistry;
 import kieker.monitoring.writer.AbstractMonitoringWriter;
 import kieker.monitoring.writer.MonitoringWriterThread;
+import kieker.monitoring.writer.OperationEventBuffer;
 
 /**
  * @author Andre van Hoorn, Matthias Rohr, Jan Waller, Robert von Massow
@@ -53,10 +62,29 @@ public final class WriterController extends AbstractController implements IWrite
 	public static final String RECORD_QUEUE_SIZE = "RecordQueueSize";
 	/** The name of the configuration determining the insert behavior to the queue of the writer. */
 	public static final String RECORD_QUEUE_INSERT_BEHAVIOR = "RecordQueueInsertBehavior";
-	/** The fully qualified name of the queue to be used for the records. */
+	/**
+	 * The fully qualified name of the queue to be used for the records. Non-blocking queues are wrapped by a
+	 * {@link BlockingQueueDecorator}; {@link kieker.monitoring.queue.MpscRingBuffer} is used as is.
+	 */
 	public static final String RECORD_QUEUE_FQN = "RecordQueueFQN";
+	/** The name of the configuration determining the number of records each thread collects before handing them over to the writer (0 disables batching). */
+	public static final String RECORD_BATCH_SIZE = "RecordBatchSize";
+	/** The name of the configuration determining the maximal time in milliseconds a record stays in a thread-local batch. */
+	public static final String RECORD_BATCH_TIMEOUT = "RecordBatchTimeout";
+	/**
+	 * The name of the configuration determining whether the records collected by a thread are handed over when its outermost trace is closed (default:
+	 * true). If false, they are handed over at the end of a trace only if they are older than {@link #RECORD_BATCH_TIMEOUT}.
+	 */
+	public static final String RECORD_BATCH_PUBLISH_ON_TRACE_END = "RecordBatchPublishOnTraceEnd";
+	/**
+	 * The name of the configuration determining the number of operation events each thread stores in a pre-allocated buffer before handing the buffer over to
+	 * the writer (0 disables the buffers). The timeout is given by {@link #RECORD_BATCH_TIMEOUT}. The buffers are only used if the writer serializes the
+	 * events directly (see {@link AbstractMonitoringWriter#isOperationEventBufferSupported()}).
+	 */
+	public static final String OPERATION_EVENT_BUFFER_SIZE = "OperationEventBufferSize";
 
 	private static final Log LOG = LogFactory.getLog(WriterController.class);
+	private static final long DEFAULT_RECORD_BATCH_TIMEOUT = 100;
 	/** Monitoring Writer. */
 	private AbstractMonitoringWriter monitoringWriter; // NOPMD (so far, cannot be made final due to the MonitoringController)
 	/** Whether or not to automatically log the metadata record. */
@@ -70,6 +98,19 @@ public final class WriterController extends AbstractController implements IWrite
 
 	private InsertBehavior<IMonitoringRecord> insertBehavior; // NOPMD (so far, cannot be made final due to the MonitoringController)
 
+	/** the number of records per thread-local batch; 0 if batching is disabled. */
+	private final int recordBatchSize;
+	private final long recordBatchTimeoutInMs;
+	/** whether the batches of a thread are handed over when its outermost trace is closed, or only if they are due. */
+	private final boolean publishBatchOnTraceEnd;
+	/** collects the records per thread; null if batching is disabled. */
+	private ThreadLocalBatcher<IMonitoringRecord> recordBatcher; // NOPMD (so far, cannot be made final due to the MonitoringController)
+	/** the number of operation events per thread-local buffer; 0 if the buffers are disabled. */
+	private final int operationEventBufferSize;
+	/** collects the operation events per thread; null if the buffers are disabled. */
+	private OperationEventBatcher operationEventBatcher; // NOPMD (so far, cannot be made final due to the MonitoringController)
+	private ScheduledExecutorService recordBatchTimeoutExecutor; // NOPMD (so far, cannot be made final due to the MonitoringController)
+
 	// private Disruptor<IMonitoringRecordEvent> disruptor;
 
 	// private RingBuffer<IMonitoringRecordEvent> ringBuffer;
@@ -88,6 +129,17 @@ public final class WriterController extends AbstractController implements IWrite
 
 		this.queueCapacity = configuration.getIntProperty(PREFIX + RECORD_QUEUE_SIZE);
 		final String queueFqn = configuration.getStringProperty(PREFIX + RECORD_QUEUE_FQN);
+		this.recordBatchSize = Math.max(0, configuration.getIntProperty(PREFIX + RECORD_BATCH_SIZE, 0));
+		this.operationEventBufferSize = Math.max(0, configuration.getIntProperty(PREFIX + OPERATION_EVENT_BUFFER_SIZE, 0));
+		final long recordBatchTimeout = configuration.getLongProperty(PREFIX + RECORD_BATCH_TIMEOUT, DEFAULT_RECORD_BATCH_TIMEOUT);
+		if (recordBatchTimeout > 0) {
+			this.recordBatchTimeoutInMs = recordBatchTimeout;
+		} else {
+			LOG.warn("Invalid value '" + recordBatchTimeout + "' for " + PREFIX + RECORD_BATCH_TIMEOUT + "; using default value " + DEFAULT_RECORD_BATCH_TIMEOUT);
+			this.recordBatchTimeoutInMs = DEFAULT_RECORD_BATCH_TIMEOUT;
+		}
+		// getBooleanProperty(key, true) would yield false for a missing key since the key is read as an empty string
+		this.publishBatchOnTraceEnd = Boolean.parseBoolean(configuration.getStringProperty(PREFIX + RECORD_BATCH_PUBLISH_ON_TRACE_END, "true"));
 
 		final Queue<IMonitoringRecord> queue = this.newQueue(queueFqn, this.queueCapacity);
 		if (queue instanceof BlockingQueue) {
@@ -143,6 +195,40 @@ public final class WriterController extends AbstractController implements IWrite
 			this.insertBehavior = new TerminateOnFailedInsertBehavior<>(this.writerQueue);
 			break;
 		}
+
+		// these behaviors do not use the writer queue which the batches are handed over to
+		final boolean usesWriterQueue = (recordQueueInsertBehavior != 3) && (recordQueueInsertBehavior != 5);
+		if (this.recordBatchSize > 0) {
+			if (usesWriterQueue) {
+				this.recordBatcher = new ThreadLocalBatcher<>(this.writerQueue, this.insertBehavior, this.recordBatchSize,
+						TimeUnit.MILLISECONDS.toNanos(this.recordBatchTimeoutInMs));
+			} else {
+				LOG.warn(PREFIX + RECORD_BATCH_SIZE + " is ignored for " + PREFIX + RECORD_QUEUE_INSERT_BEHAVIOR + "=" + recordQueueInsertBehavior);
+			}
+		}
+		if (this.operationEventBufferSize > 0) {
+			if (!usesWriterQueue) {
+				LOG.warn(PREFIX + OPERATION_EVENT_BUFFER_SIZE + " is ignored for " + PREFIX + RECORD_QUEUE_INSERT_BEHAVIOR + "=" + recordQueueInsertBehavior);
+			} else if (!this.monitoringWriter.isOperationEventBufferSupported()) {
+				// the writer would create a record per event anyway, only later and in the writer thread
+				LOG.warn(PREFIX + OPERATION_EVENT_BUFFER_SIZE + " is ignored for " + writerClassName + ", which does not serialize buffered operation events");
+			} else {
+				this.operationEventBatcher = this.newOperationEventBatcher();
+			}
+		}
+	}
+
+	private OperationEventBatcher newOperationEventBatcher() {
+		final MonitoringWriterThread writerThread = this.monitoringWriterThread;
+		final InsertBehavior<IMonitoringRecord> recordInsertBehavior = this.insertBehavior;
+		final InsertBehavior<OperationEventBuffer> publisher = new InsertBehavior<OperationEventBuffer>() {
+			@Override
+			public boolean insert(final OperationEventBuffer buffer) {
+				return writerThread.addOperationEvents(buffer, recordInsertBehavior);
+			}
+		};
+		return new OperationEventBatcher(publisher, writerThread.getRecycledOperationEventBuffers(), this.operationEventBufferSize,
+				TimeUnit.MILLISECONDS.toNanos(this.recordBatchTimeoutInMs));
 	}
 
 	// private void initDisruptor(final Configuration configuration) throws IOException {
@@ -218,6 +304,31 @@ public final class WriterController extends AbstractController implements IWrite
 		if (this.monitoringWriterThread != null) {
 			this.monitoringWriterThread.start();
 		}
+
+		if ((this.recordBatcher != null) || (this.operationEventBatcher != null)) {
+			this.recordBatchTimeoutExecutor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+			this.recordBatchTimeoutExecutor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				@SuppressWarnings("synthetic-access")
+				public void run() {
+					if (!WriterController.this.publishExpiredBatches()) {
+						LOG.error("Error writing the monitoring data. Will terminate monitoring!");
+						WriterController.this.terminate();
+					}
+				}
+			}, this.recordBatchTimeoutInMs, this.recordBatchTimeoutInMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private boolean publishExpiredBatches() {
+		boolean published = true;
+		if (this.recordBatcher != null) {
+			published &= this.recordBatcher.publishExpiredBatches();
+		}
+		if (this.operationEventBatcher != null) {
+			published &= this.operationEventBatcher.publishExpiredBatches();
+		}
+		return published;
 	}
 
 	@Override
@@ -226,6 +337,17 @@ public final class WriterController extends AbstractController implements IWrite
 			LOG.debug("Shutting down Writer Controller");
 		}
 
+		if (this.recordBatchTimeoutExecutor != null) {
+			this.recordBatchTimeoutExecutor.shutdown();
+		}
+		if (this.recordBatcher != null) {
+			// the remaining records must be inserted before the end of monitoring is signaled to the writer thread
+			this.recordBatcher.publishAllBatches();
+		}
+		if (this.operationEventBatcher != null) {
+			this.operationEventBatcher.publishAllBatches();
+		}
+
 		if (this.monitoringWriterThread != null) {
 			this.monitoringWriterThread.terminate();
 		}
@@ -248,6 +370,10 @@ public final class WriterController extends AbstractController implements IWrite
 				.append(this.queueCapacity)
 				.append("\n\tInsert behavior (a.k.a. QueueFullBehavior): ")
 				.append(this.insertBehavior.toString())
+				.append("\n\tRecord batch size: ")
+				.append(this.recordBatchSize)
+				.append("\n\tOperation event buffer size: ")
+				.append((this.operationEventBatcher != null) ? this.operationEventBufferSize : 0) // NOPMD (null)
 				.append("\n");
 		if (this.monitoringWriter != null) {
 			sb.append(this.monitoringWriter.toString());
@@ -260,7 +386,13 @@ public final class WriterController extends AbstractController implements IWrite
 
 	@Override
 	public final boolean newMonitoringRecord(final IMonitoringRecord record) {
-		final boolean recordSent = this.insertBehavior.insert(record);
+		// the operation events of the calling thread must be written before its subsequent records
+		boolean recordSent = (this.operationEventBatcher == null) || this.operationEventBatcher.publishPendingBatch();
+		if ((this.recordBatcher != null) && !(record instanceof KiekerMetadataRecord)) { // the metadata record must not be delayed
+			recordSent &= this.recordBatcher.insert(record);
+		} else {
+			recordSent &= this.insertBehavior.insert(record);
+		}
 		if (!recordSent) {
 			LOG.error("Error writing the monitoring data. Will terminate monitoring!");
 			this.terminate();
@@ -269,6 +401,111 @@ public final class WriterController extends AbstractController implements IWrite
 		return recordSent;
 	}
 
+	@Override
+	public final boolean newBeforeOperationEvent(final long timestamp, final long traceId, final int orderIndex, final String operationSignature,
+			final String classSignature) {
+		return this.newOperationEvent(OperationEventBuffer.BEFORE_OPERATION_EVENT, timestamp, traceId, orderIndex, operationSignature, classSignature);
+	}
+
+	@Override
+	public final boolean newAfterOperationEvent(final long timestamp, final long traceId, final int orderIndex, final String operationSignature,
+			final String classSignature) {
+		return this.newOperationEvent(OperationEventBuffer.AFTER_OPERATION_EVENT, timestamp, traceId, orderIndex, operationSignature, classSignature);
+	}
+
+	@Override
+	public final boolean newBeforeOperationEvent(final long timestamp, final long traceId, final int orderIndex, final int operationSignatureId,
+			final int classSignatureId) {
+		return this.newOperationEvent(OperationEventBuffer.BEFORE_OPERATION_EVENT, timestamp, traceId, orderIndex, operationSignatureId, classSignatureId);
+	}
+
+	@Override
+	public final boolean newAfterOperationEvent(final long timestamp, final long traceId, final int orderIndex, final int operationSignatureId,
+			final int classSignatureId) {
+		return this.newOperationEvent(OperationEventBuffer.AFTER_OPERATION_EVENT, timestamp, traceId, orderIndex, operationSignatureId, classSignatureId);
+	}
+
+	private boolean newOperationEvent(final byte type, final long timestamp, final long traceId, final int orderIndex, final String operationSignature,
+			final String classSignature) {
+		if (this.operationEventBatcher == null) {
+			return this.newMonitoringRecord(OperationEventBuffer.createRecord(type, timestamp, traceId, orderIndex, operationSignature, classSignature));
+		}
+		return this.newOperationEvent(type, -1, timestamp, traceId, orderIndex, SignatureRegistry.INSTANCE.intern(operationSignature),
+				SignatureRegistry.INSTANCE.intern(classSignature));
+	}
+
+	private boolean newOperationEvent(final byte type, final long timestamp, final long traceId, final int orderIndex, final int operationSignatureId,
+			final int classSignatureId) {
+		if (this.operationEventBatcher == null) {
+			return this.newMonitoringRecord(OperationEventBuffer.createRecord(type, timestamp, traceId, orderIndex,
+					SignatureRegistry.INSTANCE.get(operationSignatureId), SignatureRegistry.INSTANCE.get(classSignatureId)));
+		}
+		return this.newOperationEvent(type, -1, timestamp, traceId, orderIndex, operationSignatureId, classSignatureId);
+	}
+
+	/**
+	 * @return whether operation events are collected in pre-allocated buffers, i.e., whether
+	 *         {@link #newOperationEvent(byte, long, long, long, int, int, int)} may be used.
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	// default
+	boolean isOperationEventBufferEnabled() {
+		return this.operationEventBatcher != null;
+	}
+
+	/**
+	 * Stores the given operation event in the buffer of the calling thread. Must only be called if
+	 * {@link #isOperationEventBufferEnabled()}.
+	 *
+	 * @param type
+	 *            {@link OperationEventBuffer#BEFORE_OPERATION_EVENT} or {@link OperationEventBuffer#AFTER_OPERATION_EVENT}
+	 * @param operationSignatureId
+	 *            the id of the operation signature in the {@link SignatureRegistry}
+	 * @param classSignatureId
+	 *            the id of the class signature in the {@link SignatureRegistry}
+	 * @return true on success; false in case of an error.
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	// default
+	boolean newOperationEvent(final byte type, final long loggingTimestamp, final long timestamp, final long traceId, final int orderIndex, // NOPMD
+			final int operationSignatureId, final int classSignatureId) {
+		// the batched records of the calling thread must be written before its subsequent events
+		boolean eventSent = (this.recordBatcher == null) || this.recordBatcher.publishPendingBatch();
+		eventSent &= this.operationEventBatcher.insert(type, loggingTimestamp, timestamp, traceId, orderIndex, operationSignatureId,
+				classSignatureId);
+		if (!eventSent) {
+			LOG.error("Error writing the monitoring data. Will terminate monitoring!");
+			this.terminate();
+		}
+		return eventSent;
+	}
+
+	@Override
+	public final boolean publishRecordBatch() {
+		if (!this.publishBatchOnTraceEnd) {
+			if (this.recordBatcher != null) {
+				this.recordBatcher.publishBatchIfDue();
+			}
+			if (this.operationEventBatcher != null) {
+				this.operationEventBatcher.publishBatchIfDue();
+			}
+			return true;
+		}
+
+		boolean recordsSent = true;
+		if (this.recordBatcher != null) {
+			recordsSent &= this.recordBatcher.publishBatch();
+		}
+		if (this.operationEventBatcher != null) {
+			recordsSent &= this.operationEventBatcher.publishBatch();
+		}
+		if (!recordsSent) {
+			LOG.error("Error writing the monitoring data. Will terminate monitoring!");
+			this.terminate();
+		}
+		return recordsSent;
+	}
+
 	@Override
 	public void waitForTermination(final long timeoutInMs) throws InterruptedException {
 		if (this.monitoringWriterThread != null) {
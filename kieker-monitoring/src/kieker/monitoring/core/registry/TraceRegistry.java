@@ -23,8 +23,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import kieker.common.logging.Log;
 import kieker.common.logging.LogFactory;
+import kieker.common.record.flow.trace.SampledTraceMetadata;
 import kieker.common.record.flow.trace.TraceMetadata;
+import kieker.monitoring.core.controller.IMonitoringController;
 import kieker.monitoring.core.controller.MonitoringController;
+import kieker.monitoring.core.sampler.AdaptiveTraceSampler;
 
 /**
  * @author Jan Waller
@@ -36,11 +39,16 @@ public enum TraceRegistry { // Singleton (Effective Java #3)
 	INSTANCE;
 
 	private static final Log LOG = LogFactory.getLog(TraceRegistry.class); // NOPMD (enum logger)
+	/** the trace counter occupies the lower 32 bits of a trace id while trace sampling is active. */
+	private static final long TRACE_COUNTER_MASK = 0xFFFFFFFFL;
 
 	private final AtomicInteger nextTraceId = new AtomicInteger(0);
+	private final IMonitoringController monitoringController = MonitoringController.getInstance();
 	private final long unique = MonitoringController.getInstance().isDebug() ? 0 : ((long) new SecureRandom().nextInt()) << 32; // NOCS
 	/** the hostname is final after the instantiation of the monitoring controller. */
 	private final String hostname = MonitoringController.getInstance().getHostname();
+	/** decides which traces are monitored; null if all traces are monitored. */
+	private final AdaptiveTraceSampler traceSampler = MonitoringController.getInstance().getTraceSampler();
 
 	/** the current trace; null if new trace. */
 	private final ThreadLocal<TraceMetadata> traceStorage = new ThreadLocal<TraceMetadata>();
@@ -55,6 +63,12 @@ public enum TraceRegistry { // Singleton (Effective Java #3)
 		return this.unique | this.nextTraceId.getAndIncrement();
 	}
 
+	private final long getNewId(final boolean sampled) {
+		// the flag replaces a bit of the random part so that the counter keeps its full range
+		final long id = (this.unique & ~AdaptiveTraceSampler.UNSAMPLED_TRACE_ID_BIT) | (this.nextTraceId.getAndIncrement() & TRACE_COUNTER_MASK);
+		return sampled ? id : id | AdaptiveTraceSampler.UNSAMPLED_TRACE_ID_BIT; // NOCS (?:)
+	}
+
 	/**
 	 * Gets a Trace for the current thread. If no trace is active, null is returned.
 	 * 
@@ -83,7 +97,19 @@ public enum TraceRegistry { // Singleton (Effective Java #3)
 		}
 		final Thread thread = Thread.currentThread();
 		final TracePoint tp = this.getAndRemoveParentTraceId(thread);
-		final long traceId = this.getNewId();
+		// sub traces share the sampling decision of their parent trace
+		final int samplingInterval;
+		if (this.traceSampler == null) {
+			samplingInterval = 1;
+		} else if (tp != null) {
+			samplingInterval = tp.samplingInterval;
+		} else if (enclosingTrace != null) {
+			samplingInterval = this.getSamplingInterval(enclosingTrace);
+		} else {
+			samplingInterval = this.traceSampler.sampleTrace();
+		}
+		final long traceId = (this.traceSampler == null) ? this.getNewId() // NOCS (?:)
+				: this.getNewId(samplingInterval != AdaptiveTraceSampler.NOT_SAMPLED);
 		final long parentTraceId;
 		final int parentOrderId;
 		if (tp != null) { // we have a known split point
@@ -100,28 +126,44 @@ public enum TraceRegistry { // Singleton (Effective Java #3)
 			parentOrderId = -1;
 		}
 		final String sessionId = SessionRegistry.INSTANCE.recallThreadLocalSessionId();
-		final TraceMetadata trace = new TraceMetadata(traceId, thread.getId(), sessionId, this.hostname, parentTraceId, parentOrderId);
+		final TraceMetadata trace;
+		if ((this.traceSampler == null) || (samplingInterval == AdaptiveTraceSampler.NOT_SAMPLED)) {
+			trace = new TraceMetadata(traceId, thread.getId(), sessionId, this.hostname, parentTraceId, parentOrderId);
+		} else {
+			trace = new SampledTraceMetadata(traceId, thread.getId(), sessionId, this.hostname, parentTraceId, parentOrderId, samplingInterval);
+		}
 		this.traceStorage.set(trace);
 		return trace;
 	}
 
+	private int getSamplingInterval(final TraceMetadata trace) {
+		if (trace instanceof SampledTraceMetadata) {
+			return ((SampledTraceMetadata) trace).getSamplingInterval();
+		} else if ((this.traceSampler != null) && AdaptiveTraceSampler.isSampledOut(trace.getTraceId())) {
+			return AdaptiveTraceSampler.NOT_SAMPLED;
+		} else {
+			return 1;
+		}
+	}
+
 	/**
 	 * Unregisters the current Trace object.
 	 * 
 	 * Future calls of getTrace() will either return null or the enclosing trace object.
+	 * If the outermost trace of the current thread has been unregistered, the records collected by this thread are handed over to the writer
+	 * (see {@link kieker.monitoring.core.controller.IWriterController#publishRecordBatch()}).
 	 */
 	public final void unregisterTrace() {
 		final Stack<TraceMetadata> localTraceStack = this.enclosingTraceStack.get();
 		if (localTraceStack != null) { // we might have an enclosing trace and and are able to restore it
 			if (!localTraceStack.isEmpty()) { // we actually found something
 				this.traceStorage.set(localTraceStack.pop());
-			} else {
-				this.enclosingTraceStack.remove();
-				this.traceStorage.remove();
+				return; // the enclosing trace is still open
 			}
-		} else {
-			this.traceStorage.remove();
+			this.enclosingTraceStack.remove();
 		}
+		this.traceStorage.remove();
+		this.monitoringController.publishRecordBatch();
 	}
 
 	private final TracePoint getAndRemoveParentTraceId(final Thread t) {
@@ -142,8 +184,11 @@ public enum TraceRegistry { // Singleton (Effective Java #3)
 	 *            the parent order id
 	 */
 	public final void setParentTraceId(final Thread t, final long traceId, final int orderId) {
+		// the parent trace is usually the current trace of the calling thread
+		final TraceMetadata currentTrace = this.getTrace();
+		final int samplingInterval = (currentTrace != null) ? this.getSamplingInterval(currentTrace) : 1; // NOCS (?:)
 		synchronized (this) {
-			this.parentTrace.put(t, new TracePoint(traceId, orderId));
+			this.parentTrace.put(t, new TracePoint(traceId, orderId, samplingInterval));
 		}
 	}
 
@@ -153,10 +198,12 @@ public enum TraceRegistry { // Singleton (Effective Java #3)
 	private static final class TracePoint {
 		public final long traceId; // NOCS (public no setters or getters)
 		public final int orderId; // NOCS (public no setters or getters)
+		public final int samplingInterval; // NOCS (public no setters or getters)
 
-		public TracePoint(final long traceId, final int orderId) {
+		public TracePoint(final long traceId, final int orderId, final int samplingInterval) {
 			this.traceId = traceId;
 			this.orderId = orderId;
+			this.samplingInterval = samplingInterval;
 		}
 	}
 }
@@ -0,0 +1,170 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.core.sampler;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import kieker.monitoring.core.controller.IMonitoringController;
+
+/**
+ * Decides which traces are monitored in order to keep the rate of trace records under a budget. Each new trace is
+ * monitored with a probability of 1/N, where the sampling interval N is adapted whenever this sampler is triggered:
+ * the number of records of the monitored traces since the last adaption, multiplied by the current interval, yields
+ * an estimate of the rate without sampling, which determines the next interval. Sub-traces share the decision of their
+ * enclosing trace (see {@link kieker.monitoring.core.registry.TraceRegistry}). The interval of a monitored trace is part
+ * of its {@link kieker.common.record.flow.trace.SampledTraceMetadata}, so that an analysis can extrapolate.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class AdaptiveTraceSampler implements ISampler {
+
+	/** The sampling interval of traces which are not monitored. */
+	public static final int NOT_SAMPLED = 0;
+
+	/**
+	 * The bit which marks the ids of traces which are not monitored (see {@link kieker.monitoring.core.registry.TraceRegistry}).
+	 * Thus, the records of such a trace are recognized by their trace id, even if they are created after the trace has been unregistered.
+	 * It is the lowest bit of the random upper half of a trace id, so that the trace counter in the lower half keeps its full range.
+	 */
+	public static final long UNSAMPLED_TRACE_ID_BIT = 1L << 32;
+
+	private static final int MAX_SAMPLING_INTERVAL = 1 << 20;
+	/** the weight of the latest estimate of the rate without sampling. */
+	private static final double SMOOTHING = 0.5;
+	/** the number of record counters; a power of two. */
+	private static final int NUM_STRIPES = 32;
+	/** the distance between two record counters, so that each one occupies a cache line of its own. */
+	private static final int STRIPE_PADDING = 8;
+
+	private final double maxRecordsPerSecond;
+
+	private volatile int samplingInterval = 1;
+
+	/** the numbers of records of monitored traces, counted per group of threads. */
+	private final AtomicLongArray numRecords = new AtomicLongArray(NUM_STRIPES * STRIPE_PADDING);
+
+	// guarded by this
+	private long lastAdaptionTime = System.nanoTime();
+	private long lastNumRecords;
+	private double estimatedUnsampledRecordsPerSecond = -1;
+
+	/**
+	 * Creates a new sampler which initially monitors all traces.
+	 *
+	 * @param maxRecordsPerSecond
+	 *            the budget of trace records per second
+	 */
+	public AdaptiveTraceSampler(final double maxRecordsPerSecond) {
+		this.maxRecordsPerSecond = maxRecordsPerSecond;
+	}
+
+	/**
+	 * Decides whether a new trace is monitored.
+	 *
+	 * @return the current sampling interval if the trace is monitored, otherwise {@link #NOT_SAMPLED}
+	 */
+	public int sampleTrace() {
+		final int interval = this.samplingInterval;
+		if ((interval == 1) || (ThreadLocalRandom.current().nextInt(interval) == 0)) {
+			return interval;
+		}
+		return NOT_SAMPLED;
+	}
+
+	/**
+	 * @param traceId
+	 *            the id of a trace created while trace sampling is active
+	 * @return <code>true</code> if the trace is not monitored, otherwise <code>false</code>
+	 */
+	public static boolean isSampledOut(final long traceId) {
+		return (traceId & UNSAMPLED_TRACE_ID_BIT) != 0;
+	}
+
+	/**
+	 * Accounts a record of a monitored trace.
+	 */
+	public void recordAccepted() {
+		// counters per thread group avoid contention on a single counter
+		final int stripe = (int) Thread.currentThread().getId() & (NUM_STRIPES - 1);
+		this.numRecords.incrementAndGet(stripe * STRIPE_PADDING);
+	}
+
+	/**
+	 * Adapts the sampling interval to the rate of records since the previous invocation.
+	 */
+	@Override
+	public void sample(final IMonitoringController monitoringController) {
+		this.adapt(System.nanoTime());
+	}
+
+	/**
+	 * Adapts the sampling interval to the rate of records since the previous adaption.
+	 *
+	 * @param currentTime
+	 *            the current time in nanoseconds (see {@link System#nanoTime()})
+	 */
+	public synchronized void adapt(final long currentTime) {
+		final long elapsed = currentTime - this.lastAdaptionTime;
+		if (elapsed <= 0) {
+			return;
+		}
+		final long currentNumRecords = this.getNumRecords();
+		final double recordsPerSecond = ((currentNumRecords - this.lastNumRecords) * 1e9) / elapsed;
+		this.lastAdaptionTime = currentTime;
+		this.lastNumRecords = currentNumRecords;
+
+		final double unsampledRecordsPerSecond = recordsPerSecond * this.samplingInterval;
+		if (this.estimatedUnsampledRecordsPerSecond < 0) {
+			this.estimatedUnsampledRecordsPerSecond = unsampledRecordsPerSecond;
+		} else {
+			this.estimatedUnsampledRecordsPerSecond += SMOOTHING * (unsampledRecordsPerSecond - this.estimatedUnsampledRecordsPerSecond);
+		}
+		final double interval = Math.ceil(this.estimatedUnsampledRecordsPerSecond / this.maxRecordsPerSecond);
+		this.samplingInterval = (int) Math.max(1, Math.min(MAX_SAMPLING_INTERVAL, interval));
+	}
+
+	/**
+	 * @return the current sampling interval, i.e., N if every Nth trace is monitored on average
+	 */
+	public int getSamplingInterval() {
+		return this.samplingInterval;
+	}
+
+	public double getMaxRecordsPerSecond() {
+		return this.maxRecordsPerSecond;
+	}
+
+	/**
+	 * @return the number of records of monitored traces
+	 */
+	public long getNumRecords() {
+		long sum = 0;
+		for (int stripe = 0; stripe < NUM_STRIPES; stripe++) {
+			sum += this.numRecords.get(stripe * STRIPE_PADDING);
+		}
+		return sum;
+	}
+
+	@Override
+	public String toString() {
+		return "Adaptive trace sampling: at most " + (long) this.maxRecordsPerSecond + " records per second; sampling interval: " + this.samplingInterval
+				+ "; records of sampled traces: " + this.getNumRecords();
+	}
+}
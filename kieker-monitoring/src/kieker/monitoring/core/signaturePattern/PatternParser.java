@@ -158,6 +158,35 @@ public final class PatternParser {
 		return Pattern.compile(sb.toString());
 	}
 
+	/**
+	 * Returns the method name of the given pattern string if the pattern requires a fixed method name, i.e., if it is
+	 * neither a regular expression nor contains a wildcard within the method name. Signatures with another method name
+	 * never match such a pattern.
+	 *
+	 * @param strPattern
+	 *            The pattern string.
+	 * @return the literal method name or <code>null</code> if the pattern accepts several method names.
+	 *
+	 * @since 1.14
+	 */
+	public static final String getLiteralMethodName(final String strPattern) {
+		final String trimPattern = strPattern.trim();
+		if ((trimPattern.length() == 0) || (trimPattern.charAt(0) == SignatureFactory.PATTERN_PREFIX)) {
+			return null;
+		}
+		final int openingParenthesis = trimPattern.indexOf('(');
+		if (openingParenthesis == -1) {
+			return null;
+		}
+		final String[] array = trimPattern.substring(0, openingParenthesis).trim().split("\\s+"); // NOPMD
+		final String fqName = array[array.length - 1];
+		final String methodName = fqName.substring(fqName.lastIndexOf('.') + 1);
+		if ((methodName.length() == 0) || (methodName.indexOf('*') != -1)) {
+			return null;
+		}
+		return methodName;
+	}
+
 	private static final String parseMethodName(final String methodName) throws InvalidPatternException {
 		try {
 			return PatternParser.parseIdentifier(methodName);
@@ -0,0 +1,147 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.core.signaturePattern;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of a list of {@link PatternEntry}s which determines whether a signature is activated. As with
+ * the list, the last matching entry wins and a signature without a matching entry is activated.
+ *
+ * <p>
+ * The entries are indexed by their literal method name (see {@link PatternParser#getLiteralMethodName(String)}) so that
+ * only the entries whose method name equals the one of the signature and the entries accepting several method names
+ * are evaluated. Instances are thread-safe and can be evaluated without locking; a change of the patterns is realized
+ * by replacing the instance.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class SignatureMatcher {
+
+	private static final int[] NO_INDICES = new int[0];
+
+	private final PatternEntry[] entries;
+	/** the indices of the entries with a literal method name, in ascending order. */
+	private final Map<String, int[]> indicesByMethodName;
+	/** the indices of the entries accepting several method names, in ascending order. */
+	private final int[] otherIndices;
+
+	/**
+	 * Creates a new matcher.
+	 *
+	 * @param patternEntries
+	 *            the entries in the order of their priority; a later entry overrides an earlier one
+	 */
+	public SignatureMatcher(final List<PatternEntry> patternEntries) {
+		this.entries = patternEntries.toArray(new PatternEntry[patternEntries.size()]);
+
+		final Map<String, List<Integer>> indexLists = new HashMap<String, List<Integer>>(); // NOPMD (no conc. access)
+		final List<Integer> otherIndexList = new ArrayList<Integer>();
+		for (int i = 0; i < this.entries.length; i++) {
+			final String methodName = PatternParser.getLiteralMethodName(this.entries[i].getStrPattern());
+			if (null == methodName) {
+				otherIndexList.add(i);
+			} else {
+				List<Integer> indexList = indexLists.get(methodName);
+				if (null == indexList) {
+					indexList = new ArrayList<Integer>();
+					indexLists.put(methodName, indexList);
+				}
+				indexList.add(i);
+			}
+		}
+
+		this.indicesByMethodName = new HashMap<String, int[]>(); // NOPMD (read-only after construction)
+		for (final Map.Entry<String, List<Integer>> indexList : indexLists.entrySet()) {
+			this.indicesByMethodName.put(indexList.getKey(), SignatureMatcher.toArray(indexList.getValue()));
+		}
+		this.otherIndices = SignatureMatcher.toArray(otherIndexList);
+	}
+
+	private static int[] toArray(final List<Integer> list) {
+		final int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * @param signature
+	 *            the long string representation of an operation signature
+	 * @return the activation state of the last entry matching the given signature or <code>true</code> if no entry
+	 *         matches.
+	 */
+	public boolean isActivated(final String signature) {
+		final String methodName = SignatureMatcher.getMethodName(signature);
+		if (null == methodName) {
+			return this.isActivatedByAnyEntry(signature);
+		}
+		int[] candidates = this.indicesByMethodName.get(methodName);
+		if (null == candidates) {
+			candidates = NO_INDICES;
+		}
+		final int[] others = this.otherIndices;
+
+		// merge both candidate lists from the highest to the lowest priority
+		int i = candidates.length - 1;
+		int j = others.length - 1;
+		while ((i >= 0) || (j >= 0)) {
+			final int index;
+			if ((j < 0) || ((i >= 0) && (candidates[i] > others[j]))) {
+				index = candidates[i--];
+			} else {
+				index = others[j--];
+			}
+			final PatternEntry entry = this.entries[index];
+			if (entry.getPattern().matcher(signature).matches()) {
+				return entry.isActivated();
+			}
+		}
+		return true; // if nothing matches, the default is true!
+	}
+
+	private boolean isActivatedByAnyEntry(final String signature) {
+		for (int i = this.entries.length - 1; i >= 0; i--) {
+			final PatternEntry entry = this.entries[i];
+			if (entry.getPattern().matcher(signature).matches()) {
+				return entry.isActivated();
+			}
+		}
+		return true; // if nothing matches, the default is true!
+	}
+
+	/**
+	 * @return the method name of the given signature, i.e., the identifier in front of the parameter list, or
+	 *         <code>null</code> if the signature has no or an ambiguous parameter list.
+	 */
+	private static String getMethodName(final String signature) {
+		final int openingParenthesis = signature.indexOf('(');
+		if ((openingParenthesis == -1) || (openingParenthesis != signature.lastIndexOf('('))) {
+			return null;
+		}
+		final int dot = signature.lastIndexOf('.', openingParenthesis);
+		final int space = signature.lastIndexOf(' ', openingParenthesis);
+		return signature.substring(Math.max(dot, space) + 1, openingParenthesis);
+	}
+}
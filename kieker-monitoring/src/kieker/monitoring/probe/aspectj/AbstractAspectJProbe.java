@@ -17,14 +17,17 @@
 package kieker.monitoring.probe.aspectj;
 
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.ConstructorSignature;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.aspectj.lang.reflect.SourceLocation;
 
 import kieker.monitoring.probe.IMonitoringProbe;
 
@@ -36,7 +39,15 @@ import kieker.monitoring.probe.IMonitoringProbe;
 @Aspect
 public abstract class AbstractAspectJProbe implements IMonitoringProbe {
 
-	private final ConcurrentMap<Signature, String> signatureCache = new ConcurrentHashMap<Signature, String>();
+	private final ConcurrentMap<Signature, JoinPointSignature> signatureCache = new ConcurrentHashMap<Signature, JoinPointSignature>();
+
+	/** the join point signatures of each woven type, indexed by the ids of its static join points. */
+	private final ClassValue<StaticPartTable> staticPartCache = new ClassValue<StaticPartTable>() {
+		@Override
+		protected StaticPartTable computeValue(final Class<?> type) {
+			return new StaticPartTable();
+		}
+	};
 
 	// Pointcuts should not be final!
 
@@ -73,60 +84,111 @@ public abstract class AbstractAspectJProbe implements IMonitoringProbe {
 	 * @return LongString representation of the signature
 	 */
 	protected String signatureToLongString(final Signature sig) {
-		String signatureString = this.signatureCache.get(sig);
-		if (null != signatureString) {
-			return signatureString;
-		} else {
-			if (sig instanceof MethodSignature) {
-				final MethodSignature signature = (MethodSignature) sig;
-				final StringBuilder sb = new StringBuilder(256);
-				// modifiers
-				final String modString = Modifier.toString(signature.getModifiers());
-				sb.append(modString);
-				if (modString.length() > 0) {
-					sb.append(' ');
-				}
-				// return
-				this.addType(sb, signature.getReturnType());
+		return this.getJoinPointSignature(sig).getOperationSignature();
+	}
+
+	/**
+	 * Returns the cached strings and the cached activation state of the given signature. As the signature object is
+	 * unique per join point, the strings are computed only once per join point.
+	 * 
+	 * @param sig
+	 *            an AspectJ Signature
+	 * @return the cache entry of the signature
+	 * 
+	 * @since 1.14
+	 */
+	protected JoinPointSignature getJoinPointSignature(final Signature sig) {
+		final JoinPointSignature joinPointSignature = this.signatureCache.get(sig);
+		if (null != joinPointSignature) {
+			return joinPointSignature;
+		}
+		final JoinPointSignature newJoinPointSignature = new JoinPointSignature(this.buildLongString(sig), sig.getDeclaringTypeName());
+		final JoinPointSignature existingJoinPointSignature = this.signatureCache.putIfAbsent(sig, newJoinPointSignature);
+		return (null != existingJoinPointSignature) ? existingJoinPointSignature : newJoinPointSignature; // NOCS (inline conditional)
+	}
+
+	/**
+	 * Returns the cached strings and the cached activation state of the given static join point. The entry is found
+	 * by the type containing the join point and the id AspectJ assigns to the join point within this type, so that no
+	 * signature needs to be hashed. Static parts without a source location are looked up by their signature.
+	 * 
+	 * @param staticPart
+	 *            the static part of an AspectJ join point
+	 * @return the cache entry of the join point's signature
+	 * 
+	 * @since 1.14
+	 */
+	protected JoinPointSignature getJoinPointSignature(final JoinPoint.StaticPart staticPart) {
+		final Signature sig = staticPart.getSignature();
+		final SourceLocation sourceLocation = staticPart.getSourceLocation();
+		final Class<?> withinType = (null != sourceLocation) ? sourceLocation.getWithinType() : null; // NOCS (inline conditional)
+		if (null == withinType) {
+			return this.getJoinPointSignature(sig);
+		}
+		final StaticPartTable table = this.staticPartCache.get(withinType);
+		final int id = staticPart.getId();
+		final StaticPartEntry entry = table.get(id);
+		// the signature check guards against types woven by an AspectJ version which does not number the join points
+		if ((null != entry) && (entry.signature == sig)) {
+			return entry.joinPointSignature;
+		}
+		final JoinPointSignature joinPointSignature = this.getJoinPointSignature(sig);
+		if (null == entry) {
+			table.put(id, new StaticPartEntry(sig, joinPointSignature));
+		}
+		return joinPointSignature;
+	}
+
+	private String buildLongString(final Signature sig) {
+		final String signatureString;
+		if (sig instanceof MethodSignature) {
+			final MethodSignature signature = (MethodSignature) sig;
+			final StringBuilder sb = new StringBuilder(256);
+			// modifiers
+			final String modString = Modifier.toString(signature.getModifiers());
+			sb.append(modString);
+			if (modString.length() > 0) {
+				sb.append(' ');
+			}
+			// return
+			this.addType(sb, signature.getReturnType());
+			sb.append(' ');
+			// component
+			sb.append(signature.getDeclaringTypeName());
+			sb.append('.');
+			// name
+			sb.append(signature.getName());
+			// parameters
+			sb.append('(');
+			this.addTypeList(sb, signature.getParameterTypes());
+			sb.append(')');
+			// throws
+			// this.addTypeList(sb, signature.getExceptionTypes());
+			signatureString = sb.toString();
+		} else if (sig instanceof ConstructorSignature) {
+			final ConstructorSignature signature = (ConstructorSignature) sig;
+			final StringBuilder sb = new StringBuilder(256);
+			// modifiers
+			final String modString = Modifier.toString(signature.getModifiers());
+			sb.append(modString);
+			if (modString.length() > 0) {
 				sb.append(' ');
-				// component
-				sb.append(signature.getDeclaringTypeName());
-				sb.append('.');
-				// name
-				sb.append(signature.getName());
-				// parameters
-				sb.append('(');
-				this.addTypeList(sb, signature.getParameterTypes());
-				sb.append(')');
-				// throws
-				// this.addTypeList(sb, signature.getExceptionTypes());
-				signatureString = sb.toString();
-			} else if (sig instanceof ConstructorSignature) {
-				final ConstructorSignature signature = (ConstructorSignature) sig;
-				final StringBuilder sb = new StringBuilder(256);
-				// modifiers
-				final String modString = Modifier.toString(signature.getModifiers());
-				sb.append(modString);
-				if (modString.length() > 0) {
-					sb.append(' ');
-				}
-				// component
-				sb.append(signature.getDeclaringTypeName());
-				sb.append('.');
-				// name
-				sb.append(signature.getName());
-				// parameters
-				sb.append('(');
-				this.addTypeList(sb, signature.getParameterTypes());
-				sb.append(')');
-				// throws
-				// this.addTypeList(sb, signature.getExceptionTypes());
-				signatureString = sb.toString();
-			} else {
-				signatureString = sig.toLongString();
 			}
+			// component
+			sb.append(signature.getDeclaringTypeName());
+			sb.append('.');
+			// name
+			sb.append(signature.getName());
+			// parameters
+			sb.append('(');
+			this.addTypeList(sb, signature.getParameterTypes());
+			sb.append(')');
+			// throws
+			// this.addTypeList(sb, signature.getExceptionTypes());
+			signatureString = sb.toString();
+		} else {
+			signatureString = sig.toLongString();
 		}
-		this.signatureCache.putIfAbsent(sig, signatureString);
 		return signatureString;
 	}
 
@@ -157,4 +219,46 @@ public abstract class AbstractAspectJProbe implements IMonitoringProbe {
 		}
 		return sb;
 	}
+
+	/**
+	 * The join point signatures of a single type. The entries are read without synchronization; their final fields
+	 * guarantee that a reader sees them completely initialized.
+	 */
+	private static final class StaticPartTable {
+		private volatile StaticPartEntry[] entries = new StaticPartEntry[0];
+
+		StaticPartTable() {
+			// nothing to do
+		}
+
+		StaticPartEntry get(final int id) {
+			final StaticPartEntry[] currentEntries = this.entries;
+			return ((id >= 0) && (id < currentEntries.length)) ? currentEntries[id] : null; // NOCS (inline conditional)
+		}
+
+		synchronized void put(final int id, final StaticPartEntry entry) {
+			if (id < 0) {
+				return;
+			}
+			StaticPartEntry[] currentEntries = this.entries;
+			if (id >= currentEntries.length) {
+				currentEntries = Arrays.copyOf(currentEntries, Math.max(id + 1, 2 * currentEntries.length));
+			}
+			currentEntries[id] = entry;
+			this.entries = currentEntries;
+		}
+	}
+
+	/**
+	 * A join point signature together with the AspectJ signature it belongs to.
+	 */
+	private static final class StaticPartEntry {
+		final Signature signature; // NOCS NOPMD (package-private for the enclosing class only)
+		final JoinPointSignature joinPointSignature; // NOCS NOPMD (package-private for the enclosing class only)
+
+		StaticPartEntry(final Signature signature, final JoinPointSignature joinPointSignature) {
+			this.signature = signature;
+			this.joinPointSignature = joinPointSignature;
+		}
+	}
 }
@@ -0,0 +1,136 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.probe.aspectj;
+
+import kieker.monitoring.core.controller.IProbeController;
+import kieker.monitoring.registry.SignatureRegistry;
+
+/**
+ * Caches the strings of a join point's signature and their ids in the {@link SignatureRegistry} together with the
+ * activation state of the corresponding probe. The activation state is re-evaluated only if the probe patterns have
+ * changed since the last evaluation (see {@link IProbeController#getProbePatternGeneration()}).
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class JoinPointSignature {
+
+	private static final int UNKNOWN = -1;
+
+	private final String operationSignature;
+	private final String declaringTypeName;
+	private final int operationSignatureId;
+	private final int declaringTypeNameId;
+
+	/** the class of the last object the join point has been executed on, and the id of its name. */
+	private RuntimeClass lastRuntimeClass; // NOPMD (benign data race, the entry is immutable)
+
+	/**
+	 * The pattern generation shifted left by one and the activation flag in the lowest bit; both are read and written
+	 * at once. The field is intentionally not volatile: a stale value carries an outdated generation and is thus only
+	 * re-evaluated, so that the volatile generation is the only volatile read of a cache hit.
+	 */
+	private int activationState = UNKNOWN; // NOPMD (benign data race)
+
+	/**
+	 * @param operationSignature
+	 *            the long string representation of the signature
+	 * @param declaringTypeName
+	 *            the name of the type declaring the signature
+	 */
+	public JoinPointSignature(final String operationSignature, final String declaringTypeName) {
+		this.operationSignature = operationSignature;
+		this.declaringTypeName = declaringTypeName;
+		this.operationSignatureId = SignatureRegistry.INSTANCE.intern(operationSignature);
+		this.declaringTypeNameId = SignatureRegistry.INSTANCE.intern(declaringTypeName);
+	}
+
+	public String getOperationSignature() {
+		return this.operationSignature;
+	}
+
+	public String getDeclaringTypeName() {
+		return this.declaringTypeName;
+	}
+
+	/**
+	 * @return the id of the operation signature in the {@link SignatureRegistry}
+	 */
+	public int getOperationSignatureId() {
+		return this.operationSignatureId;
+	}
+
+	/**
+	 * @return the id of the name of the declaring type in the {@link SignatureRegistry}
+	 */
+	public int getDeclaringTypeNameId() {
+		return this.declaringTypeNameId;
+	}
+
+	/**
+	 * Returns the id of the name of the given class in the {@link SignatureRegistry}. The id of the last class is cached,
+	 * since a join point is usually executed on objects of a single class.
+	 *
+	 * @param runtimeClass
+	 *            the class of the object the join point is executed on
+	 * @return the id of the name of the given class
+	 */
+	public int getClassNameId(final Class<?> runtimeClass) {
+		final RuntimeClass last = this.lastRuntimeClass;
+		if ((last != null) && (last.clazz == runtimeClass)) { // NOPMD (compare references by == not by equals())
+			return last.nameId;
+		}
+		final int nameId = SignatureRegistry.INSTANCE.intern(runtimeClass.getName());
+		this.lastRuntimeClass = new RuntimeClass(runtimeClass, nameId);
+		return nameId;
+	}
+
+	/**
+	 * Returns the cached activation state of the probe if the probe patterns are unchanged. Otherwise, the state is
+	 * queried from the given controller and cached.
+	 *
+	 * @param probeController
+	 *            the controller holding the probe patterns
+	 * @return whether the probe is activated
+	 */
+	public boolean isProbeActivated(final IProbeController probeController) {
+		// read the generation before evaluating the patterns so that a concurrent change invalidates the cached state
+		final int generation = probeController.getProbePatternGeneration();
+		final int state = this.activationState;
+		// compare the shifted values, since shifting drops the highest bit of the generation
+		if ((state != UNKNOWN) && ((state & ~1) == (generation << 1))) {
+			return (state & 1) != 0;
+		}
+		final boolean activated = probeController.isProbeActivated(this.operationSignature);
+		this.activationState = (generation << 1) | (activated ? 1 : 0); // NOCS (inline conditional)
+		return activated;
+	}
+
+	/**
+	 * A class together with the id of its name.
+	 */
+	private static final class RuntimeClass {
+		final Class<?> clazz; // NOCS NOPMD (package-private for the enclosing class only)
+		final int nameId; // NOCS NOPMD
+
+		RuntimeClass(final Class<?> clazz, final int nameId) {
+			this.clazz = clazz;
+			this.nameId = nameId;
+		}
+	}
+}
@@ -17,19 +17,17 @@
 package kieker.monitoring.probe.aspectj.flow.operationExecution;
 
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 
 import kieker.common.record.flow.trace.TraceMetadata;
-import kieker.common.record.flow.trace.operation.AfterOperationEvent;
 import kieker.common.record.flow.trace.operation.AfterOperationFailedEvent;
-import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
 import kieker.monitoring.core.controller.IMonitoringController;
 import kieker.monitoring.core.controller.MonitoringController;
 import kieker.monitoring.core.registry.TraceRegistry;
 import kieker.monitoring.probe.aspectj.AbstractAspectJProbe;
+import kieker.monitoring.probe.aspectj.JoinPointSignature;
 import kieker.monitoring.timer.ITimeSource;
 
 /**
@@ -55,10 +53,11 @@ public abstract class AbstractAspect extends AbstractAspectJProbe {
 		if (!CTRLINST.isMonitoringEnabled()) {
 			return thisJoinPoint.proceed();
 		}
-		final String operationSignature = this.signatureToLongString(thisJoinPoint.getSignature());
-		if (!CTRLINST.isProbeActivated(operationSignature)) {
+		final JoinPointSignature joinPointSignature = this.getJoinPointSignature(thisJoinPoint.getStaticPart());
+		if (!joinPointSignature.isProbeActivated(CTRLINST)) {
 			return thisJoinPoint.proceed();
 		}
+		final String operationSignature = joinPointSignature.getOperationSignature();
 		// common fields
 		TraceMetadata trace = TRACEREGISTRY.getTrace();
 		final boolean newTrace = trace == null;
@@ -68,8 +67,11 @@ public abstract class AbstractAspect extends AbstractAspectJProbe {
 		}
 		final long traceId = trace.getTraceId();
 		final String clazz = thisObject.getClass().getName();
+		// the interned ids spare the writer the lookup of the strings
+		final int operationSignatureId = joinPointSignature.getOperationSignatureId();
+		final int clazzId = joinPointSignature.getClassNameId(thisObject.getClass());
 		// measure before execution
-		CTRLINST.newMonitoringRecord(new BeforeOperationEvent(TIME.getTime(), traceId, trace.getNextOrderId(), operationSignature, clazz));
+		CTRLINST.newBeforeOperationEvent(TIME.getTime(), traceId, trace.getNextOrderId(), operationSignatureId, clazzId);
 		// execution of the called method
 		final Object retval;
 		try {
@@ -84,7 +86,7 @@ public abstract class AbstractAspect extends AbstractAspectJProbe {
 			}
 		}
 		// measure after successful execution
-		CTRLINST.newMonitoringRecord(new AfterOperationEvent(TIME.getTime(), traceId, trace.getNextOrderId(), operationSignature, clazz));
+		CTRLINST.newAfterOperationEvent(TIME.getTime(), traceId, trace.getNextOrderId(), operationSignatureId, clazzId);
 		return retval;
 	}
 
@@ -93,11 +95,11 @@ public abstract class AbstractAspect extends AbstractAspectJProbe {
 		if (!CTRLINST.isMonitoringEnabled()) {
 			return thisJoinPoint.proceed();
 		}
-		final Signature sig = thisJoinPoint.getSignature();
-		final String operationSignature = this.signatureToLongString(sig);
-		if (!CTRLINST.isProbeActivated(operationSignature)) {
+		final JoinPointSignature joinPointSignature = this.getJoinPointSignature(thisJoinPoint.getStaticPart());
+		if (!joinPointSignature.isProbeActivated(CTRLINST)) {
 			return thisJoinPoint.proceed();
 		}
+		final String operationSignature = joinPointSignature.getOperationSignature();
 		// common fields
 		TraceMetadata trace = TRACEREGISTRY.getTrace();
 		final boolean newTrace = trace == null;
@@ -106,9 +108,11 @@ public abstract class AbstractAspect extends AbstractAspectJProbe {
 			CTRLINST.newMonitoringRecord(trace);
 		}
 		final long traceId = trace.getTraceId();
-		final String clazz = sig.getDeclaringTypeName();
+		final String clazz = joinPointSignature.getDeclaringTypeName();
+		final int operationSignatureId = joinPointSignature.getOperationSignatureId();
+		final int clazzId = joinPointSignature.getDeclaringTypeNameId();
 		// measure before execution
-		CTRLINST.newMonitoringRecord(new BeforeOperationEvent(TIME.getTime(), traceId, trace.getNextOrderId(), operationSignature, clazz));
+		CTRLINST.newBeforeOperationEvent(TIME.getTime(), traceId, trace.getNextOrderId(), operationSignatureId, clazzId);
 		// execution of the called method
 		final Object retval;
 		try {
@@ -123,7 +127,7 @@ public abstract class AbstractAspect extends AbstractAspectJProbe {
 			}
 		}
 		// measure after successful execution
-		CTRLINST.newMonitoringRecord(new AfterOperationEvent(TIME.getTime(), traceId, trace.getNextOrderId(), operationSignature, clazz));
+		CTRLINST.newAfterOperationEvent(TIME.getTime(), traceId, trace.getNextOrderId(), operationSignatureId, clazzId);
 		return retval;
 	}
 }
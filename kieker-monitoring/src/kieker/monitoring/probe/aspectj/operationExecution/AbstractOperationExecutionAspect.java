@@ -29,6 +29,7 @@ import kieker.monitoring.core.controller.MonitoringController;
 import kieker.monitoring.core.registry.ControlFlowRegistry;
 import kieker.monitoring.core.registry.SessionRegistry;
 import kieker.monitoring.probe.aspectj.AbstractAspectJProbe;
+import kieker.monitoring.probe.aspectj.JoinPointSignature;
 import kieker.monitoring.timer.ITimeSource;
 
 /**
@@ -58,10 +59,11 @@ public abstract class AbstractOperationExecutionAspect extends AbstractAspectJPr
 		if (!CTRLINST.isMonitoringEnabled()) {
 			return thisJoinPoint.proceed();
 		}
-		final String signature = this.signatureToLongString(thisJoinPoint.getSignature());
-		if (!CTRLINST.isProbeActivated(signature)) {
+		final JoinPointSignature joinPointSignature = this.getJoinPointSignature(thisJoinPoint.getStaticPart());
+		if (!joinPointSignature.isProbeActivated(CTRLINST)) {
 			return thisJoinPoint.proceed();
 		}
+		final String signature = joinPointSignature.getOperationSignature();
 		// collect data
 		final boolean entrypoint;
 		final String hostname = VMNAME;
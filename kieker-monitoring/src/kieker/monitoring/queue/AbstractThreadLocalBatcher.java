@@ -0,0 +1,239 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.queue;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Manages one batch per thread and hands over a whole batch at once. A batch is handed over if it is full, if it is
+ * older than the configured timeout (see {@link #publishExpiredBatches()}), or if the thread calls
+ * {@link #publishBatch()}, e.g., at the end of a trace, or {@link #publishBatchIfDue()}.
+ *
+ * <p>
+ * Subclasses add their elements to the content of {@link #getBatch()} while holding the lock of the batch and call
+ * {@link #added(Batch, boolean)} afterwards. The lock is uncontended except for the rare case of a concurrent
+ * timeout.
+ * </p>
+ *
+ * @param <C>
+ *            the type of the content of a batch
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public abstract class AbstractThreadLocalBatcher<C> {
+
+	private final long timeoutInNs;
+
+	/** all batches created so far; used to publish the batches of idle and of terminated threads. */
+	private final Queue<Batch<C>> batches = new ConcurrentLinkedQueue<Batch<C>>();
+	private final ThreadLocal<Batch<C>> threadLocalBatch = new ThreadLocal<Batch<C>>() {
+		@Override
+		protected Batch<C> initialValue() {
+			final Batch<C> batch = new Batch<C>(AbstractThreadLocalBatcher.this.newContent());
+			AbstractThreadLocalBatcher.this.batches.add(batch);
+			return batch;
+		}
+	};
+
+	/**
+	 * @param timeoutInNs
+	 *            the maximal time in nanoseconds an element stays in a batch (if {@link #publishExpiredBatches()} is
+	 *            called regularly)
+	 */
+	protected AbstractThreadLocalBatcher(final long timeoutInNs) {
+		this.timeoutInNs = timeoutInNs;
+	}
+
+	/**
+	 * @return a new, empty content for a batch
+	 */
+	protected abstract C newContent();
+
+	/**
+	 * @return the number of elements in the given content
+	 */
+	protected abstract int size(C content);
+
+	/**
+	 * Hands over the given non-empty content.
+	 *
+	 * @return <code>false</code> if the content could not be handed over, otherwise <code>true</code>
+	 */
+	protected abstract boolean handOver(C content);
+
+	/**
+	 * Called after the given content has been handed over, whether successfully or not.
+	 *
+	 * @return the empty content to be filled next; either the cleared given content or a new one
+	 */
+	protected abstract C reset(C content);
+
+	/**
+	 * @return the batch of the calling thread
+	 */
+	protected final Batch<C> getBatch() {
+		return this.threadLocalBatch.get();
+	}
+
+	/**
+	 * Must be called while holding the lock of the given batch after an element has been added to its content.
+	 *
+	 * @param batch
+	 *            the batch of the calling thread
+	 * @param full
+	 *            whether the content is full
+	 * @return <code>false</code> if the batch had to be handed over and failed, otherwise <code>true</code>
+	 */
+	protected final boolean added(final Batch<C> batch, final boolean full) {
+		if (this.size(batch.content) == 1) {
+			batch.creationTime = System.nanoTime();
+		}
+		if (full || batch.publishNext) {
+			return this.publish(batch);
+		}
+		return true;
+	}
+
+	/**
+	 * Hands over the batch of the calling thread. Moreover, the next element added by the calling thread is handed over
+	 * immediately. This allows probes to publish a batch at the end of a trace, even though the last record of the trace
+	 * is created after the trace has been closed.
+	 *
+	 * @return <code>false</code> if the batch could not be handed over, otherwise <code>true</code>
+	 */
+	public boolean publishBatch() {
+		final Batch<C> batch = this.threadLocalBatch.get();
+		synchronized (batch) {
+			final boolean published = this.publish(batch);
+			batch.publishNext = true;
+			return published;
+		}
+	}
+
+	/**
+	 * Marks the batch of the calling thread to be handed over together with the next element of the thread if the
+	 * batch contains elements older than the timeout. Unlike {@link #publishBatch()}, the last record of a trace, which
+	 * is created after the trace has been closed, is thus not handed over on its own. A batch which is not due is kept
+	 * until it is full or expires, so that short traces do not cause a hand-over each.
+	 */
+	public void publishBatchIfDue() {
+		final Batch<C> batch = this.threadLocalBatch.get();
+		synchronized (batch) {
+			if ((this.size(batch.content) > 0) && ((System.nanoTime() - batch.creationTime) >= this.timeoutInNs)) {
+				batch.publishNext = true;
+			}
+		}
+	}
+
+	/**
+	 * Hands over the batch of the calling thread if it is not empty. Unlike {@link #publishBatch()}, the next element is
+	 * collected as usual. Used before the calling thread passes an element to the writer by another way so that the
+	 * order of its elements is retained.
+	 *
+	 * @return <code>false</code> if the batch could not be handed over, otherwise <code>true</code>
+	 */
+	public boolean publishPendingBatch() {
+		final Batch<C> batch = this.threadLocalBatch.get();
+		synchronized (batch) {
+			if (this.size(batch.content) == 0) {
+				return true;
+			}
+			return this.publish(batch);
+		}
+	}
+
+	/**
+	 * Hands over all batches which contain elements older than the timeout. The batches of terminated threads are
+	 * handed over regardless of their age and removed once they are empty.
+	 *
+	 * @return <code>false</code> if at least one batch could not be handed over, otherwise <code>true</code>
+	 */
+	public boolean publishExpiredBatches() {
+		return this.publishBatches(false);
+	}
+
+	/**
+	 * Hands over all non-empty batches regardless of their age.
+	 *
+	 * @return <code>false</code> if at least one batch could not be handed over, otherwise <code>true</code>
+	 */
+	public boolean publishAllBatches() {
+		return this.publishBatches(true);
+	}
+
+	private boolean publishBatches(final boolean all) {
+		boolean published = true;
+		final long now = System.nanoTime();
+		final Iterator<Batch<C>> iterator = this.batches.iterator();
+		while (iterator.hasNext()) {
+			final Batch<C> batch = iterator.next();
+			synchronized (batch) {
+				final boolean ownerTerminated = !batch.owner.isAlive();
+				boolean batchPublished = true;
+				if ((this.size(batch.content) > 0) && (all || ownerTerminated || ((now - batch.creationTime) >= this.timeoutInNs))) {
+					batchPublished = this.publish(batch);
+					published &= batchPublished;
+				}
+				if (ownerTerminated && batchPublished) {
+					iterator.remove();
+				}
+			}
+		}
+		return published;
+	}
+
+	/**
+	 * Must be called while holding the lock of the given batch.
+	 */
+	private boolean publish(final Batch<C> batch) {
+		batch.publishNext = false;
+		final C content = batch.content;
+		if (this.size(content) == 0) {
+			return true;
+		}
+		try {
+			return this.handOver(content);
+		} finally {
+			batch.content = this.reset(content);
+		}
+	}
+
+	/**
+	 * The elements collected by a single thread.
+	 *
+	 * @param <C>
+	 *            the type of the content
+	 */
+	protected static final class Batch<C> {
+		final Thread owner = Thread.currentThread(); // NOCS NOPMD (package-private for the enclosing class only)
+		C content; // NOCS NOPMD
+		long creationTime; // NOCS NOPMD
+		boolean publishNext; // NOCS NOPMD
+
+		Batch(final C content) {
+			this.content = content;
+		}
+
+		public C getContent() {
+			return this.content;
+		}
+	}
+}
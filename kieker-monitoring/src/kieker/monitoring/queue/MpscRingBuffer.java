@@ -0,0 +1,288 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.queue;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import kieker.monitoring.queue.putstrategy.PutStrategy;
+import kieker.monitoring.queue.putstrategy.YieldPutStrategy;
+import kieker.monitoring.queue.takestrategy.SCBlockingTakeStrategy;
+import kieker.monitoring.queue.takestrategy.TakeStrategy;
+
+/**
+ * A bounded, lock-free multi-producer/single-consumer ring buffer. All slots are allocated upfront. Each slot carries a
+ * sequence number so that producers only compete on a single CAS of the producer index and never on a lock. The
+ * single consumer (i.e., the monitoring writer thread) can remove all available elements with one call of
+ * {@link #drainTo(Collection, int)} and signals waiting producers only once per batch.
+ *
+ * <p>
+ * The ring buffer can be used as {@link kieker.monitoring.core.controller.WriterController#RECORD_QUEUE_FQN}. It
+ * provides the blocking operations itself by means of a {@link PutStrategy} and a {@link TakeStrategy} so that it need
+ * not be wrapped by a {@link BlockingQueueDecorator}.
+ * </p>
+ *
+ * @param <E>
+ *            the type of the elements in this ring buffer
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class MpscRingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<E> slots;
+	/** sequence number per slot: equals the producer index if the slot is free, and the producer index + 1 if the slot is filled. */
+	private final AtomicLongArray sequences;
+
+	private final AtomicLong producerIndex = new AtomicLong();
+	private final AtomicLong consumerIndex = new AtomicLong();
+
+	private final PutStrategy putStrategy;
+	private final TakeStrategy takeStrategy;
+
+	/**
+	 * Creates a new ring buffer with a yielding put strategy and a blocking take strategy. In contrast to the
+	 * {@link kieker.monitoring.queue.putstrategy.SPBlockingPutStrategy}, the yielding put strategy is safe for multiple
+	 * producers.
+	 *
+	 * @param requestedCapacity
+	 *            the minimal capacity of this ring buffer; it is rounded up to the next power of two
+	 */
+	public MpscRingBuffer(final int requestedCapacity) {
+		this(requestedCapacity, new YieldPutStrategy(), new SCBlockingTakeStrategy());
+	}
+
+	/**
+	 * Creates a new ring buffer.
+	 *
+	 * @param requestedCapacity
+	 *            the minimal capacity of this ring buffer; it is rounded up to the next power of two
+	 * @param putStrategy
+	 *            the strategy used by {@link #put(Object)} if the ring buffer is full
+	 * @param takeStrategy
+	 *            the strategy used by {@link #take()} if the ring buffer is empty
+	 */
+	public MpscRingBuffer(final int requestedCapacity, final PutStrategy putStrategy, final TakeStrategy takeStrategy) {
+		super();
+		if (requestedCapacity < 1) {
+			throw new IllegalArgumentException("The capacity must be positive, but was " + requestedCapacity);
+		}
+		this.capacity = MpscRingBuffer.roundToPowerOfTwo(requestedCapacity);
+		this.mask = this.capacity - 1;
+		this.slots = new AtomicReferenceArray<E>(this.capacity);
+		this.sequences = new AtomicLongArray(this.capacity);
+		for (int i = 0; i < this.capacity; i++) {
+			this.sequences.lazySet(i, i);
+		}
+		this.putStrategy = putStrategy;
+		this.takeStrategy = takeStrategy;
+	}
+
+	private static int roundToPowerOfTwo(final int value) {
+		if (value > (1 << 30)) {
+			throw new IllegalArgumentException("The capacity must not exceed 2^30, but was " + value);
+		}
+		return 1 << (32 - Integer.numberOfLeadingZeros(value - 1));
+	}
+
+	@Override
+	public boolean offer(final E e) {
+		if (e == null) {
+			throw new NullPointerException("The given element may not be null.");
+		}
+
+		long index = this.producerIndex.get();
+		int slot;
+		while (true) {
+			slot = (int) index & this.mask;
+			final long difference = this.sequences.get(slot) - index;
+			if (difference == 0) {
+				if (this.producerIndex.compareAndSet(index, index + 1)) {
+					break;
+				}
+				index = this.producerIndex.get();
+			} else if (difference < 0) {
+				return false; // full: the consumer has not yet released the slot of the previous round
+			} else {
+				index = this.producerIndex.get(); // another producer has claimed this slot in the meantime
+			}
+		}
+
+		this.slots.lazySet(slot, e);
+		this.sequences.lazySet(slot, index + 1); // publishes the element
+		this.takeStrategy.signal();
+		return true;
+	}
+
+	/**
+	 * Inserts all given elements in one operation, i.e., by claiming all necessary slots with a single CAS. Either all
+	 * or none of the elements are inserted. The elements of a batch are not interleaved with elements of other
+	 * producers.
+	 *
+	 * @param elements
+	 *            the elements to insert (none of them may be <code>null</code>)
+	 * @return <code>true</code> if all elements have been inserted, <code>false</code> if there is not enough free space
+	 *
+	 * @since 1.14
+	 */
+	public boolean offerAll(final Collection<? extends E> elements) {
+		final int numElements = elements.size();
+		if (numElements == 0) {
+			return true;
+		}
+		if (numElements > this.capacity) {
+			return false;
+		}
+
+		long index = this.producerIndex.get();
+		while (true) {
+			// the consumer releases the slots in order, so all slots are free if the last one is free
+			final long lastIndex = (index + numElements) - 1;
+			final long difference = this.sequences.get((int) lastIndex & this.mask) - lastIndex;
+			if (difference == 0) {
+				if (this.producerIndex.compareAndSet(index, index + numElements)) {
+					break;
+				}
+				index = this.producerIndex.get();
+			} else if (difference < 0) {
+				return false;
+			} else {
+				index = this.producerIndex.get();
+			}
+		}
+
+		for (final E e : elements) {
+			final int slot = (int) index & this.mask;
+			this.slots.lazySet(slot, e);
+			this.sequences.lazySet(slot, index + 1);
+			index++;
+		}
+		this.takeStrategy.signal();
+		return true;
+	}
+
+	@Override
+	public void put(final E e) throws InterruptedException {
+		this.putStrategy.backoffOffer(this, e); // internally calls "offer(e)"
+	}
+
+	@Override
+	public boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public E poll() {
+		final E e = this.pollWithoutSignal();
+		if (e != null) {
+			this.putStrategy.signal();
+		}
+		return e;
+	}
+
+	private E pollWithoutSignal() {
+		final long index = this.consumerIndex.get();
+		final int slot = (int) index & this.mask;
+		if (this.sequences.get(slot) != (index + 1)) {
+			return null; // empty or the producer has not yet published its element
+		}
+
+		final E e = this.slots.get(slot);
+		this.slots.lazySet(slot, null);
+		this.sequences.lazySet(slot, index + this.capacity); // releases the slot for the next round
+		this.consumerIndex.lazySet(index + 1);
+		return e;
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		return this.takeStrategy.waitPoll(this); // internally calls "poll()"
+	}
+
+	@Override
+	public E poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int drainTo(final Collection<? super E> c) {
+		return this.drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(final Collection<? super E> c, final int maxElements) {
+		int count = 0;
+		while (count < maxElements) {
+			final E e = this.pollWithoutSignal();
+			if (e == null) {
+				break;
+			}
+			c.add(e);
+			count++;
+		}
+		if (count > 0) {
+			this.putStrategy.signal();
+		}
+		return count;
+	}
+
+	@Override
+	public E peek() {
+		final long index = this.consumerIndex.get();
+		final int slot = (int) index & this.mask;
+		if (this.sequences.get(slot) != (index + 1)) {
+			return null;
+		}
+		return this.slots.get(slot);
+	}
+
+	@Override
+	public int size() {
+		// read the consumer index first so that the size is never negative
+		final long consumed = this.consumerIndex.get();
+		final long produced = this.producerIndex.get();
+		return (int) Math.min(produced - consumed, this.capacity);
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return this.capacity - this.size();
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public String toString() {
+		return this.getClass().getName() + " (capacity: " + this.capacity + ", size: " + this.size() + ")";
+	}
+}
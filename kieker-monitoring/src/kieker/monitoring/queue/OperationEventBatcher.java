@@ -0,0 +1,105 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.queue;
+
+import java.util.Queue;
+
+import kieker.monitoring.queue.behavior.InsertBehavior;
+import kieker.monitoring.writer.OperationEventBuffer;
+
+/**
+ * Collects the operation events of each thread in a thread-local {@link OperationEventBuffer} (see
+ * {@link AbstractThreadLocalBatcher} for the conditions of a hand-over). A full buffer is handed over as a whole and
+ * the thread continues with a recycled buffer so that, in the steady state, no objects are allocated per event.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class OperationEventBatcher extends AbstractThreadLocalBatcher<OperationEventBuffer> {
+
+	private final InsertBehavior<OperationEventBuffer> publisher;
+	private final Queue<OperationEventBuffer> recycledBuffers;
+	private final int bufferSize;
+
+	/**
+	 * Creates a new batcher.
+	 *
+	 * @param publisher
+	 *            hands over a full buffer to the writer
+	 * @param recycledBuffers
+	 *            the buffers the writer has already processed
+	 * @param bufferSize
+	 *            the number of events per buffer
+	 * @param timeoutInNs
+	 *            the maximal time in nanoseconds an event stays in a buffer (if {@link #publishExpiredBatches()} is
+	 *            called regularly)
+	 */
+	public OperationEventBatcher(final InsertBehavior<OperationEventBuffer> publisher, final Queue<OperationEventBuffer> recycledBuffers,
+			final int bufferSize, final long timeoutInNs) {
+		super(timeoutInNs);
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("The buffer size must be positive, but was " + bufferSize);
+		}
+		this.publisher = publisher;
+		this.recycledBuffers = recycledBuffers;
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Adds an event to the buffer of the calling thread.
+	 *
+	 * @param operationSignatureId
+	 *            the id of the operation signature in the {@link kieker.monitoring.registry.SignatureRegistry}
+	 * @param classSignatureId
+	 *            the id of the class signature in the {@link kieker.monitoring.registry.SignatureRegistry}
+	 * @return <code>false</code> if the buffer had to be handed over and failed, otherwise <code>true</code>
+	 */
+	public boolean insert(final byte type, final long loggingTimestamp, final long timestamp, final long traceId, final int orderIndex,
+			final int operationSignatureId, final int classSignatureId) {
+		final Batch<OperationEventBuffer> batch = this.getBatch();
+		synchronized (batch) {
+			final boolean full = batch.getContent().add(type, loggingTimestamp, timestamp, traceId, orderIndex, operationSignatureId, classSignatureId);
+			return this.added(batch, full);
+		}
+	}
+
+	@Override
+	protected OperationEventBuffer newContent() {
+		final OperationEventBuffer buffer = this.recycledBuffers.poll();
+		if (buffer != null) {
+			return buffer;
+		}
+		return new OperationEventBuffer(this.bufferSize);
+	}
+
+	@Override
+	protected int size(final OperationEventBuffer content) {
+		return content.size();
+	}
+
+	@Override
+	protected boolean handOver(final OperationEventBuffer content) {
+		return this.publisher.insert(content);
+	}
+
+	@Override
+	protected OperationEventBuffer reset(final OperationEventBuffer content) {
+		// the given buffer is owned by the writer now
+		return this.newContent();
+	}
+}
@@ -0,0 +1,117 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import kieker.monitoring.queue.behavior.InsertBehavior;
+
+/**
+ * Collects the elements of each thread in a thread-local batch and hands over a whole batch to the writer queue at
+ * once (see {@link AbstractThreadLocalBatcher} for the conditions).
+ *
+ * <p>
+ * If the queue is a {@link MpscRingBuffer}, a batch is inserted by a single {@link MpscRingBuffer#offerAll} call.
+ * Otherwise, or if the ring buffer has not enough free slots, the elements are inserted one by one by means of the
+ * configured {@link InsertBehavior} so that its semantics (block, drop, terminate) are retained.
+ * </p>
+ *
+ * @param <E>
+ *            the type of the elements
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class ThreadLocalBatcher<E> extends AbstractThreadLocalBatcher<List<E>> {
+
+	private final MpscRingBuffer<E> ringBuffer;
+	private final InsertBehavior<E> insertBehavior;
+	private final int batchSize;
+
+	/**
+	 * Creates a new batcher.
+	 *
+	 * @param queue
+	 *            the queue which is filled by the given insert behavior
+	 * @param insertBehavior
+	 *            the behavior used to insert elements one by one
+	 * @param batchSize
+	 *            the maximal number of elements per batch
+	 * @param timeoutInNs
+	 *            the maximal time in nanoseconds an element stays in a batch (if {@link #publishExpiredBatches()} is
+	 *            called regularly)
+	 */
+	@SuppressWarnings("unchecked")
+	public ThreadLocalBatcher(final Queue<E> queue, final InsertBehavior<E> insertBehavior, final int batchSize, final long timeoutInNs) {
+		super(timeoutInNs);
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size must be positive, but was " + batchSize);
+		}
+		this.ringBuffer = (queue instanceof MpscRingBuffer) ? (MpscRingBuffer<E>) queue : null; // NOPMD (null)
+		this.insertBehavior = insertBehavior;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Adds the given element to the batch of the calling thread.
+	 *
+	 * @param element
+	 *            the element to add
+	 * @return <code>false</code> if the batch had to be handed over and the insert behavior failed, otherwise
+	 *         <code>true</code>
+	 */
+	public boolean insert(final E element) {
+		final Batch<List<E>> batch = this.getBatch();
+		synchronized (batch) {
+			final List<E> elements = batch.getContent();
+			elements.add(element);
+			return this.added(batch, elements.size() >= this.batchSize);
+		}
+	}
+
+	@Override
+	protected List<E> newContent() {
+		return new ArrayList<E>(this.batchSize);
+	}
+
+	@Override
+	protected int size(final List<E> content) {
+		return content.size();
+	}
+
+	@Override
+	protected boolean handOver(final List<E> content) {
+		if ((this.ringBuffer != null) && this.ringBuffer.offerAll(content)) {
+			return true;
+		}
+		for (final E element : content) {
+			if (!this.insertBehavior.insert(element)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	protected List<E> reset(final List<E> content) {
+		content.clear();
+		return content;
+	}
+}
@@ -0,0 +1,140 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.registry;
+
+import java.util.Arrays;
+
+/**
+ * An unsynchronized hash map from objects to primitive <code>int</code> values. It uses open addressing with linear
+ * probing in a single array of keys and a parallel array of values, so that a lookup neither boxes the value nor
+ * allocates an entry object. As in a {@link java.util.HashMap}, a <code>null</code> key is permitted; it is kept outside
+ * of the table. Keys cannot be removed.
+ *
+ * @param <K>
+ *            the type of the keys
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+final class ObjectIntMap<K> {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private Object[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+	private int resizeThreshold;
+	private boolean containsNullKey;
+	private int nullKeyValue;
+
+	/**
+	 * Creates a new empty map.
+	 */
+	public ObjectIntMap() {
+		this.allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(final int capacity) {
+		this.keys = new Object[capacity];
+		this.values = new int[capacity];
+		this.mask = capacity - 1;
+		this.resizeThreshold = capacity / 2; // load factor of 0.5 keeps the probe sequences short
+	}
+
+	/**
+	 * @return the value of the given key or the given default value if the key is not contained
+	 */
+	public int get(final K key, final int defaultValue) {
+		if (key == null) {
+			return this.containsNullKey ? this.nullKeyValue : defaultValue; // NOCS (inline conditional)
+		}
+		final Object[] localKeys = this.keys;
+		int index = ObjectIntMap.hash(key) & this.mask;
+		Object candidate;
+		while ((candidate = localKeys[index]) != null) { // NOPMD (assignment in operand)
+			if (key.equals(candidate)) {
+				return this.values[index];
+			}
+			index = (index + 1) & this.mask;
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Associates the given value with the given key if the key is not already contained.
+	 *
+	 * @return <code>true</code> if the key has been added, <code>false</code> if it had been contained before
+	 */
+	public boolean putIfAbsent(final K key, final int value) {
+		if (key == null) {
+			if (this.containsNullKey) {
+				return false;
+			}
+			this.containsNullKey = true;
+			this.nullKeyValue = value;
+			this.size++;
+			return true;
+		}
+		int index = ObjectIntMap.hash(key) & this.mask;
+		Object candidate;
+		while ((candidate = this.keys[index]) != null) { // NOPMD (assignment in operand)
+			if (key.equals(candidate)) {
+				return false;
+			}
+			index = (index + 1) & this.mask;
+		}
+		this.keys[index] = key;
+		this.values[index] = value;
+		if (++this.size > this.resizeThreshold) {
+			this.rehash();
+		}
+		return true;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	private void rehash() {
+		final Object[] oldKeys = this.keys;
+		final int[] oldValues = this.values;
+		this.allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			final Object key = oldKeys[i];
+			if (key != null) {
+				int index = ObjectIntMap.hash(key) & this.mask;
+				while (this.keys[index] != null) {
+					index = (index + 1) & this.mask;
+				}
+				this.keys[index] = key;
+				this.values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private static int hash(final Object key) {
+		final int h = key.hashCode();
+		return h ^ (h >>> 16); // spread the higher bits since only the lower ones select the slot
+	}
+
+	@Override
+	public String toString() {
+		return "ObjectIntMap [size=" + this.size + ", keys=" + Arrays.toString(this.keys) + "]";
+	}
+}
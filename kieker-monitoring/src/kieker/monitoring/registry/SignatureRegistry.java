@@ -0,0 +1,81 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.registry;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns process-wide, dense ids to the operation and class signatures of the probes. A probe interns the signatures
+ * of a join point once and passes their ids on, so that a writer maps them to the ids of its own {@link WriterRegistry}
+ * by an array access instead of hashing the strings (see {@link WriterRegistry#registerSignature(int)}). Signatures
+ * are never removed, since the set of signatures of the monitored code is bounded.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public enum SignatureRegistry { // Singleton (Effective Java #3)
+	/** The singleton instance. */
+	INSTANCE;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	/** the signatures by their id; replaced by a larger copy if full. The volatile write publishes a new signature. */
+	private volatile String[] signatures = new String[INITIAL_CAPACITY];
+	/** guarded by this. */
+	private int numSignatures;
+
+	/**
+	 * @param signature
+	 *            the signature; <code>null</code> is interned as the empty string like in the records
+	 * @return the id of the given signature, which is registered if necessary
+	 */
+	public int intern(final String signature) {
+		final String nonNullSignature = (signature == null) ? "" : signature; // NOCS (?:)
+		final Integer id = this.ids.get(nonNullSignature);
+		if (id != null) {
+			return id;
+		}
+		synchronized (this) {
+			final Integer existingId = this.ids.get(nonNullSignature);
+			if (existingId != null) {
+				return existingId;
+			}
+			final int newId = this.numSignatures++;
+			String[] currentSignatures = this.signatures;
+			if (newId == currentSignatures.length) {
+				currentSignatures = Arrays.copyOf(currentSignatures, 2 * currentSignatures.length);
+			}
+			currentSignatures[newId] = nonNullSignature;
+			this.signatures = currentSignatures;
+			this.ids.put(nonNullSignature, newId);
+			return newId;
+		}
+	}
+
+	/**
+	 * @param id
+	 *            an id returned by {@link #intern(String)}
+	 * @return the signature with the given id
+	 */
+	public String get(final int id) {
+		return this.signatures[id];
+	}
+}
@@ -16,8 +16,7 @@
 
 package kieker.monitoring.registry;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  *
@@ -27,14 +26,17 @@ import java.util.Map;
  */
 public class WriterRegistry implements IWriterRegistry<String> {
 
-	// TODO introduce faster, non-boxing ObjectIntMap
-	private final Map<String, Integer> storage = new HashMap<String, Integer>(); // NOPMD (synchronization is not necessary)
+	private static final int NOT_REGISTERED = -1;
+
+	private final ObjectIntMap<String> storage = new ObjectIntMap<String>(); // synchronization is not necessary
 	/** id of the next value which will be registered */
 	private int nextId;
 	/** the listener of this registry which is notified upon a newly registered value */
 	private final IRegistryListener<String> registryListener;
 	/** ID of this registry to distinguish multiple ones */
 	private final long id;
+	/** the ids of the signatures in this registry by their ids in the {@link SignatureRegistry}; NOT_REGISTERED if unknown */
+	private int[] idsBySignatureId = new int[0];
 
 	public WriterRegistry(final IRegistryListener<String> registryListener) {
 		this.registryListener = registryListener;
@@ -43,8 +45,8 @@ public class WriterRegistry implements IWriterRegistry<String> {
 
 	@Override
 	public int getId(final String value) {
-		final Integer valueId = this.storage.get(value);
-		if (valueId == null) {
+		final int valueId = this.storage.get(value, NOT_REGISTERED);
+		if (valueId == NOT_REGISTERED) {
 			throw new IllegalArgumentException(
 					"The given value '" + value + "' is not registered. Thus, there is no identifier for this value.");
 		}
@@ -53,13 +55,41 @@ public class WriterRegistry implements IWriterRegistry<String> {
 
 	@Override
 	public void register(final String value) {
-		if (!this.storage.containsKey(value)) {
-			final int valueId = this.nextId++;
-			this.storage.put(value, valueId);
+		final int valueId = this.nextId;
+		if (this.storage.putIfAbsent(value, valueId)) {
+			this.nextId++;
 			this.registryListener.onNewRegistryEntry(value, valueId);
 		}
 	}
 
+	/**
+	 * Registers the signature with the given id in the {@link SignatureRegistry} if necessary.
+	 *
+	 * @param signatureId
+	 *            the id of the signature in the {@link SignatureRegistry}
+	 * @return the id of the signature in this registry, which is looked up by an array access instead of the hash code
+	 *         of the signature after the first call
+	 *
+	 * @since 1.14
+	 */
+	public int registerSignature(final int signatureId) {
+		final int numKnownSignatures = this.idsBySignatureId.length;
+		if (signatureId < numKnownSignatures) {
+			final int valueId = this.idsBySignatureId[signatureId];
+			if (valueId != NOT_REGISTERED) {
+				return valueId;
+			}
+		} else {
+			this.idsBySignatureId = Arrays.copyOf(this.idsBySignatureId, Math.max(signatureId + 1, 2 * numKnownSignatures));
+			Arrays.fill(this.idsBySignatureId, numKnownSignatures, this.idsBySignatureId.length, NOT_REGISTERED);
+		}
+		final String signature = SignatureRegistry.INSTANCE.get(signatureId);
+		this.register(signature);
+		final int valueId = this.getId(signature);
+		this.idsBySignatureId[signatureId] = valueId;
+		return valueId;
+	}
+
 	@Override
 	public long getId() {
 		return this.id;
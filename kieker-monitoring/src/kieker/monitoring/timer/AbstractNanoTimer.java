@@ -0,0 +1,100 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.timer;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import kieker.common.configuration.Configuration;
+import kieker.common.logging.Log;
+import kieker.common.logging.LogFactory;
+
+/**
+ * The base of the timers which count the nanoseconds of {@link System#nanoTime()} since a configured offset and
+ * convert them to a configured time unit.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public abstract class AbstractNanoTimer extends AbstractTimeSource {
+
+	private static final Log LOG = LogFactory.getLog(AbstractNanoTimer.class);
+
+	/** the value of {@link System#nanoTime()} at the offset. */
+	protected final long offset;
+	/** the difference between {@link System#nanoTime()} and the wall-clock time in nanoseconds. */
+	protected final long clockdifference;
+	protected final TimeUnit timeunit;
+
+	/**
+	 * Creates a new instance of this class using the given parameters.
+	 *
+	 * @param configuration
+	 *            The configuration for this timer.
+	 * @param configOffset
+	 *            the name of the configuration determining the used offset (in nanoseconds); the current time if empty
+	 * @param configUnit
+	 *            the name of the configuration determining the used time unit (0 = nanoseconds, 1 = microseconds,
+	 *            2 = milliseconds, 3 = seconds)
+	 */
+	protected AbstractNanoTimer(final Configuration configuration, final String configOffset, final String configUnit) {
+		super(configuration);
+		this.clockdifference = System.nanoTime() - (TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()));
+		if (configuration.getStringProperty(configOffset).length() == 0) {
+			this.offset = System.nanoTime();
+		} else {
+			this.offset = this.clockdifference + configuration.getLongProperty(configOffset);
+		}
+		final int timeunitval = configuration.getIntProperty(configUnit);
+		switch (timeunitval) {
+		case 0:
+			this.timeunit = TimeUnit.NANOSECONDS;
+			break;
+		case 1:
+			this.timeunit = TimeUnit.MICROSECONDS;
+			break;
+		case 2:
+			this.timeunit = TimeUnit.MILLISECONDS;
+			break;
+		case 3:
+			this.timeunit = TimeUnit.SECONDS;
+			break;
+		default:
+			LOG.warn("Failed to determine value of " + configUnit + " (0, 1, 2, or 3 expected). Setting to 0=nanoseconds");
+			this.timeunit = TimeUnit.NANOSECONDS;
+			break;
+		}
+	}
+
+	@Override
+	public long getOffset() {
+		return this.timeunit.convert(this.offset - this.clockdifference, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public final TimeUnit getTimeUnit() {
+		return this.timeunit;
+	}
+
+	/**
+	 * @return the wall-clock time of the offset
+	 */
+	protected final Date getOffsetDate() {
+		return new Date(TimeUnit.NANOSECONDS.toMillis(this.offset - this.clockdifference));
+	}
+}
@@ -49,6 +49,26 @@ public abstract class AbstractTimeSource implements ITimeSource {
 		return null;
 	}
 
+	/**
+	 * This method is called once the monitoring controller has been initialized and starts the services of this time source, e.g., its threads.
+	 * Until then, the time source must already be usable. The default implementation does nothing.
+	 *
+	 * @since 1.14
+	 */
+	public void start() { // NOPMD (default implementation)
+		// nothing to start
+	}
+
+	/**
+	 * This method is called once the monitoring controller terminates and releases the resources of this time source, e.g., its threads. The time
+	 * source must remain usable afterwards. The default implementation does nothing.
+	 *
+	 * @since 1.14
+	 */
+	public void terminate() { // NOPMD (default implementation)
+		// nothing to release
+	}
+
 	@Override
 	public abstract String toString(); // findbugs: This has to be declared here to make this method abstract!
 }
@@ -0,0 +1,154 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import kieker.common.configuration.Configuration;
+import kieker.common.logging.Log;
+import kieker.common.logging.LogFactory;
+
+/**
+ * A timer implementation for coarse-grained monitoring, counting since a specified offset, as the
+ * {@link SystemNanoTimer}. A background thread takes the time once per configured resolution, so that reading the
+ * time only reads a cached value. Consequently, timestamps lag behind by up to the resolution (plus the scheduling
+ * latency of the thread) and durations shorter than the resolution are mostly measured as zero. The thread is started
+ * once the monitoring controller is initialized (see {@link #start()}); before and after it runs, the time is taken on
+ * each call.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class CachedNanoTimer extends AbstractNanoTimer {
+	/** This is the name of the configuration determining the used offset (in nanoseconds). */
+	public static final String CONFIG_OFFSET = CachedNanoTimer.class.getName() + ".offset";
+	/** This is the name of the configuration determining the used time unit (0 = nanoseconds, 1 = microseconds, 2 = milliseconds, 3 = seconds). */
+	public static final String CONFIG_UNIT = CachedNanoTimer.class.getName() + ".unit";
+	/** This is the name of the configuration determining the interval between two updates of the time (in microseconds). */
+	public static final String CONFIG_RESOLUTION = CachedNanoTimer.class.getName() + ".resolution";
+
+	private static final Log LOG = LogFactory.getLog(CachedNanoTimer.class);
+
+	private static final long DEFAULT_RESOLUTION = 1000;
+	/** The cached time while the updating thread is not running. */
+	private static final long UNCACHED = Long.MIN_VALUE;
+
+	private final long resolutionInNs;
+
+	private Thread tickThread; // guarded by this
+	private volatile boolean terminated;
+	private volatile long time = UNCACHED;
+
+	/**
+	 * Creates a new instance of this class using the given parameters.
+	 *
+	 * @param configuration
+	 *            The configuration for this timer.
+	 */
+	public CachedNanoTimer(final Configuration configuration) {
+		super(configuration, CONFIG_OFFSET, CONFIG_UNIT);
+		long resolution = configuration.getLongProperty(CONFIG_RESOLUTION, DEFAULT_RESOLUTION);
+		if (resolution <= 0) {
+			LOG.warn("Failed to determine value of " + CONFIG_RESOLUTION + " (positive value expected). Setting to " + DEFAULT_RESOLUTION);
+			resolution = DEFAULT_RESOLUTION;
+		}
+		this.resolutionInNs = TimeUnit.MICROSECONDS.toNanos(resolution);
+	}
+
+	/**
+	 * Starts the thread updating the time unless it has been started or the timer has been terminated already.
+	 */
+	@Override
+	public synchronized void start() {
+		if ((this.tickThread != null) || this.terminated) {
+			return;
+		}
+		this.tickThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				CachedNanoTimer.this.tick();
+			}
+		}, "Kieker-" + CachedNanoTimer.class.getSimpleName());
+		// All Kieker threads must be daemon threads. Otherwise the monitored application can never terminate.
+		this.tickThread.setDaemon(true);
+		this.tickThread.start();
+	}
+
+	private void tick() {
+		while (!this.terminated) {
+			this.time = this.currentTime();
+			LockSupport.parkNanos(this.resolutionInNs);
+		}
+		// only this thread writes the time, so no update can follow
+		this.time = UNCACHED;
+	}
+
+	private long currentTime() {
+		return this.timeunit.convert(System.nanoTime() - this.offset, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public final long getTime() {
+		final long cachedTime = this.time;
+		if (cachedTime != UNCACHED) {
+			return cachedTime;
+		}
+		return this.currentTime();
+	}
+
+	/**
+	 * Stops the thread updating the time, if it has been started, and waits for it to end.
+	 */
+	@Override
+	public void terminate() {
+		final Thread thread;
+		synchronized (this) {
+			this.terminated = true;
+			thread = this.tickThread;
+		}
+		if (thread == null) {
+			return;
+		}
+		LockSupport.unpark(thread);
+		try {
+			thread.join();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted while waiting for " + thread.getName() + " to terminate.", e);
+		}
+	}
+
+	/**
+	 * @return the interval between two updates of the time in nanoseconds
+	 */
+	public long getResolution() {
+		return this.resolutionInNs;
+	}
+
+	@Override
+	public final String toString() {
+		final StringBuilder sb = new StringBuilder(64);
+		sb.append("Time in " + this.timeunit.toString().toLowerCase(Locale.ENGLISH) + " (with a resolution of " + this.resolutionInNs
+				+ " nanoseconds) since ");
+		sb.append(this.getOffsetDate());
+		return sb.toString();
+	}
+
+}
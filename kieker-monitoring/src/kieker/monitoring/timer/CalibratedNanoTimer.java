@@ -0,0 +1,116 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import kieker.common.configuration.Configuration;
+
+/**
+ * A timer implementation with nanosecond precision, counting since a specified offset, as the {@link SystemNanoTimer}.
+ * Instead of dividing each timestamp by the length of the time unit, the division is replaced by a multiplication with a
+ * precomputed reciprocal and a shift, which yields the exact quotient for elapsed times below 2<sup>31</sup>
+ * nanoseconds. Therefore, timestamps are taken relative to a base, which is aligned to the time unit and moved forward
+ * (by means of a regular division) about every two seconds.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class CalibratedNanoTimer extends AbstractNanoTimer {
+	/** This is the name of the configuration determining the used offset (in nanoseconds). */
+	public static final String CONFIG_OFFSET = CalibratedNanoTimer.class.getName() + ".offset";
+	/** This is the name of the configuration determining the used time unit (0 = nanoseconds, 1 = microseconds, 2 = milliseconds, 3 = seconds). */
+	public static final String CONFIG_UNIT = CalibratedNanoTimer.class.getName() + ".unit";
+
+	/** elapsed times below this bound are converted by multiplication and shift. */
+	private static final int MAX_ELAPSED_BITS = 31;
+
+	/** the length of the time unit in nanoseconds. */
+	private final long unitLength;
+	/** the reciprocal of the unit length, scaled by 2^{@link #shift}. */
+	private final long multiplier;
+	private final int shift;
+
+	private volatile Base base;
+
+	/**
+	 * Creates a new instance of this class using the given parameters.
+	 *
+	 * @param configuration
+	 *            The configuration for this timer.
+	 */
+	public CalibratedNanoTimer(final Configuration configuration) {
+		super(configuration, CONFIG_OFFSET, CONFIG_UNIT);
+
+		// For x < 2^N and s = N + ceil(log2(d)), m = ceil(2^s / d) yields floor(x / d) = (x * m) >>> s without overflow.
+		this.unitLength = this.timeunit.toNanos(1);
+		this.shift = MAX_ELAPSED_BITS + (64 - Long.numberOfLeadingZeros(this.unitLength - 1));
+		this.multiplier = ((1L << this.shift) + this.unitLength - 1) / this.unitLength;
+		this.base = this.createBase(System.nanoTime());
+	}
+
+	@Override
+	public final long getTime() {
+		final Base currentBase = this.base;
+		final long now = System.nanoTime();
+		final long elapsed = now - currentBase.nanoTime;
+		if ((elapsed >>> MAX_ELAPSED_BITS) == 0) {
+			return currentBase.time + ((elapsed * this.multiplier) >>> this.shift);
+		}
+		// the base is too old or has been created by another thread after now has been taken
+		final Base newBase = this.createBase(now);
+		if (newBase.nanoTime > currentBase.nanoTime) {
+			this.base = newBase;
+		}
+		return this.timeunit.convert(now - this.offset, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return a base at or before the given time which lies on a boundary of the time unit
+	 */
+	private Base createBase(final long now) {
+		final long sinceOffset = now - this.offset;
+		long time = sinceOffset / this.unitLength;
+		if ((sinceOffset % this.unitLength) < 0) { // round towards negative infinity
+			time--;
+		}
+		return new Base(this.offset + (time * this.unitLength), time);
+	}
+
+	@Override
+	public final String toString() {
+		final StringBuilder sb = new StringBuilder(64);
+		sb.append("Time in " + this.timeunit.toString().toLowerCase(Locale.ENGLISH) + " (with nanoseconds precision, calibrated conversion) since ");
+		sb.append(this.getOffsetDate());
+		return sb.toString();
+	}
+
+	/**
+	 * A point in time both in nanoseconds of {@link System#nanoTime()} and in the time unit of the timer.
+	 */
+	private static final class Base {
+		final long nanoTime; // NOCS NOPMD (package-private for the enclosing class only)
+		final long time; // NOCS NOPMD
+
+		Base(final long nanoTime, final long time) {
+			this.nanoTime = nanoTime;
+			this.time = time;
+		}
+	}
+}
@@ -16,13 +16,10 @@
 
 package kieker.monitoring.timer;
 
-import java.util.Date;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 import kieker.common.configuration.Configuration;
-import kieker.common.logging.Log;
-import kieker.common.logging.LogFactory;
 
 /**
  * A timer implementation, counting in nanoseconds since a specified offset.
@@ -31,18 +28,12 @@ import kieker.common.logging.LogFactory;
  * 
  * @since 1.5
  */
-public final class SystemNanoTimer extends AbstractTimeSource {
+public final class SystemNanoTimer extends AbstractNanoTimer {
 	/** This is the name of the configuration determining the used offset (in nanoseconds). */
 	public static final String CONFIG_OFFSET = SystemNanoTimer.class.getName() + ".offset";
 	/** This is the name of the configuration determining the used time unit (0 = nanoseconds, 1 = microseconds, 2 = milliseconds, 3 = seconds). */
 	public static final String CONFIG_UNIT = SystemNanoTimer.class.getName() + ".unit";
 
-	private static final Log LOG = LogFactory.getLog(SystemNanoTimer.class);
-
-	private final long offset;
-	private final long clockdifference;
-	private final TimeUnit timeunit;
-
 	/**
 	 * 
 	 * Creates a new instance of this class using the given parameters.
@@ -51,32 +42,7 @@ public final class SystemNanoTimer extends AbstractTimeSource {
 	 *            The configuration for this timer.
 	 */
 	public SystemNanoTimer(final Configuration configuration) {
-		super(configuration);
-		this.clockdifference = System.nanoTime() - (TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()));
-		if (configuration.getStringProperty(CONFIG_OFFSET).length() == 0) {
-			this.offset = System.nanoTime();
-		} else {
-			this.offset = this.clockdifference + configuration.getLongProperty(CONFIG_OFFSET);
-		}
-		final int timeunitval = configuration.getIntProperty(CONFIG_UNIT);
-		switch (timeunitval) {
-		case 0:
-			this.timeunit = TimeUnit.NANOSECONDS;
-			break;
-		case 1:
-			this.timeunit = TimeUnit.MICROSECONDS;
-			break;
-		case 2:
-			this.timeunit = TimeUnit.MILLISECONDS;
-			break;
-		case 3:
-			this.timeunit = TimeUnit.SECONDS;
-			break;
-		default:
-			LOG.warn("Failed to determine value of " + CONFIG_UNIT + " (0, 1, 2, or 3 expected). Setting to 0=nanoseconds");
-			this.timeunit = TimeUnit.NANOSECONDS;
-			break;
-		}
+		super(configuration, CONFIG_OFFSET, CONFIG_UNIT);
 	}
 
 	@Override
@@ -84,21 +50,11 @@ public final class SystemNanoTimer extends AbstractTimeSource {
 		return this.timeunit.convert(System.nanoTime() - this.offset, TimeUnit.NANOSECONDS);
 	}
 
-	@Override
-	public long getOffset() {
-		return this.timeunit.convert(this.offset - this.clockdifference, TimeUnit.NANOSECONDS);
-	}
-
-	@Override
-	public final TimeUnit getTimeUnit() {
-		return this.timeunit;
-	}
-
 	@Override
 	public final String toString() {
 		final StringBuilder sb = new StringBuilder(64);
 		sb.append("Time in " + this.timeunit.toString().toLowerCase(Locale.ENGLISH) + " (with nanoseconds precision) since ");
-		sb.append(new Date(TimeUnit.NANOSECONDS.toMillis(this.offset - this.clockdifference)));
+		sb.append(this.getOffsetDate());
 		return sb.toString();
 	}
 
@@ -16,6 +16,7 @@
 
 package kieker.monitoring.writer;
 
+import java.util.List;
 import java.util.Set;
 
 import kieker.common.configuration.Configuration;
@@ -49,6 +50,54 @@ public abstract class AbstractMonitoringWriter {
 	 */
 	public abstract void writeMonitoringRecord(IMonitoringRecord record);
 
+	/**
+	 * This event fires when Kieker has received several records at once, e.g., a batch of records from the writer queue.
+	 * By default, each record is passed to {@link #writeMonitoringRecord(IMonitoringRecord)}. Writers which benefit from
+	 * processing several records at once should override this method.
+	 *
+	 * @param records
+	 *            the records in the order of their insertion; the list must not be retained after the call
+	 *
+	 * @since 1.14
+	 */
+	public void writeMonitoringRecords(final List<IMonitoringRecord> records) {
+		for (final IMonitoringRecord record : records) {
+			this.writeMonitoringRecord(record);
+		}
+	}
+
+	/**
+	 * This event fires when Kieker has received a buffer of operation events which have been collected without creating
+	 * record objects (see {@link kieker.monitoring.core.controller.WriterController#OPERATION_EVENT_BUFFER_SIZE}).
+	 * By default, each event is materialized as a record and passed to {@link #writeMonitoringRecord(IMonitoringRecord)}.
+	 * Writers which are able to serialize the events directly should override this method together with
+	 * {@link #isOperationEventBufferSupported()}.
+	 *
+	 * @param buffer
+	 *            the events in the order of their occurrence; the buffer must not be retained after the call
+	 *
+	 * @since 1.14
+	 */
+	public void writeOperationEvents(final OperationEventBuffer buffer) {
+		final int numEvents = buffer.size();
+		for (int i = 0; i < numEvents; i++) {
+			this.writeMonitoringRecord(buffer.createRecord(i));
+		}
+	}
+
+	/**
+	 * Returns whether this writer serializes buffered operation events directly, i.e., without the records which the
+	 * default implementation of {@link #writeOperationEvents(OperationEventBuffer)} creates. The operation event buffers
+	 * are only enabled for such writers.
+	 *
+	 * @return <code>false</code> by default
+	 *
+	 * @since 1.14
+	 */
+	public boolean isOperationEventBufferSupported() {
+		return false;
+	}
+
 	/**
 	 * This event fires when Kieker has been notified to terminate.
 	 * It is executed by the {@link MonitoringWriterThread} just after finishing the writer queue.
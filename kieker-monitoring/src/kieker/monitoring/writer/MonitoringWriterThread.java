@@ -16,12 +16,17 @@
 
 package kieker.monitoring.writer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import kieker.common.logging.Log;
 import kieker.common.logging.LogFactory;
 import kieker.common.record.IMonitoringRecord;
 import kieker.common.record.misc.EmptyRecord;
+import kieker.monitoring.queue.behavior.InsertBehavior;
 
 /**
  * @author Christian Wulf
@@ -34,9 +39,15 @@ public class MonitoringWriterThread extends Thread {
 
 	private static final IMonitoringRecord END_OF_MONITORING_RECORD = new EmptyRecord();
 
+	/** the maximal number of records removed from the queue at once after the writer thread has been woken up. */
+	private static final int MAX_BATCH_SIZE = 1024;
+
 	private final BlockingQueue<IMonitoringRecord> writerQueue;
 	private final AbstractMonitoringWriter writer;
 
+	/** the buffers which have been written and can be reused by the probes. */
+	private final Queue<OperationEventBuffer> recycledOperationEventBuffers = new ConcurrentLinkedQueue<OperationEventBuffer>();
+
 	// private int numWrittenRecords;
 
 	public MonitoringWriterThread(final AbstractMonitoringWriter writer, final BlockingQueue<IMonitoringRecord> writerQueue) {
@@ -60,10 +71,15 @@ public class MonitoringWriterThread extends Thread {
 
 		this.writer.onStarting();
 
+		final List<IMonitoringRecord> batch = new ArrayList<IMonitoringRecord>(MAX_BATCH_SIZE);
 		try {
 			IMonitoringRecord record = this.writerQueue.take();
 			while (record != END_OF_MONITORING_RECORD) { // NOPMD (compare references by == not by equals())
-				this.writer.writeMonitoringRecord(record);
+				batch.add(record);
+				// drain all further available records at once to reduce the synchronization cost per record
+				if (this.writeBatch(batch)) {
+					break;
+				}
 				record = this.writerQueue.take();
 			}
 		} catch (final InterruptedException e) {
@@ -72,7 +88,6 @@ public class MonitoringWriterThread extends Thread {
 			}
 			// do nothing; the thread terminates itself
 		}
-
 		this.writer.onTerminating();
 
 		if (LOG.isDebugEnabled()) {
@@ -80,6 +95,84 @@ public class MonitoringWriterThread extends Thread {
 		}
 	}
 
+	/**
+	 * Writes the given batch together with all further records available in the queue.
+	 *
+	 * @return <code>true</code> if the end of monitoring has been reached, otherwise <code>false</code>.
+	 */
+	private boolean writeBatch(final List<IMonitoringRecord> batch) {
+		this.writerQueue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+		final int numRecords = batch.size();
+		try {
+			int start = 0;
+			for (int i = 0; i < numRecords; i++) {
+				final IMonitoringRecord record = batch.get(i);
+				if (record == END_OF_MONITORING_RECORD) { // NOPMD (compare references by == not by equals())
+					this.writeMonitoringRecords(batch, start, i);
+					return true;
+				}
+				if (record instanceof OperationEventsRecord) {
+					this.writeMonitoringRecords(batch, start, i);
+					this.writeOperationEvents(((OperationEventsRecord) record).buffer);
+					start = i + 1;
+				}
+			}
+			this.writeMonitoringRecords(batch, start, numRecords);
+			return false;
+		} finally {
+			batch.clear();
+		}
+	}
+
+	private void writeMonitoringRecords(final List<IMonitoringRecord> batch, final int fromIndex, final int toIndex) {
+		if (fromIndex < toIndex) {
+			this.writer.writeMonitoringRecords(batch.subList(fromIndex, toIndex));
+		}
+	}
+
+	private void writeOperationEvents(final OperationEventBuffer buffer) {
+		try {
+			this.writer.writeOperationEvents(buffer);
+		} finally {
+			this.recycle(buffer);
+		}
+	}
+
+	private void recycle(final OperationEventBuffer buffer) {
+		buffer.clear();
+		this.recycledOperationEventBuffers.add(buffer);
+	}
+
+	/**
+	 * Hands over a full buffer of operation events to this thread. The buffer is inserted into the writer queue by
+	 * means of the given insert behavior so that the events are written in between the records inserted before and
+	 * after. If the insert behavior drops the buffer, its events are dropped as well.
+	 *
+	 * @param buffer
+	 *            the buffer which must not be modified anymore by the caller
+	 * @param insertBehavior
+	 *            the insert behavior of the writer queue
+	 * @return the result of the insert behavior
+	 *
+	 * @since 1.14
+	 */
+	public boolean addOperationEvents(final OperationEventBuffer buffer, final InsertBehavior<IMonitoringRecord> insertBehavior) {
+		final boolean inserted = insertBehavior.insert(new OperationEventsRecord(buffer));
+		if (!inserted) {
+			this.recycle(buffer);
+		}
+		return inserted;
+	}
+
+	/**
+	 * @return the buffers which have already been written and can be filled again
+	 *
+	 * @since 1.14
+	 */
+	public Queue<OperationEventBuffer> getRecycledOperationEventBuffers() {
+		return this.recycledOperationEventBuffers;
+	}
+
 	/**
 	 * Initiates the termination of this thread.
 	 */
@@ -95,4 +188,17 @@ public class MonitoringWriterThread extends Thread {
 		}
 	}
 
+	/**
+	 * Carries a buffer of operation events through the writer queue. It is never passed to the writer itself.
+	 */
+	private static final class OperationEventsRecord extends EmptyRecord {
+		private static final long serialVersionUID = 1L;
+
+		final transient OperationEventBuffer buffer; // NOCS NOPMD (package-private for the enclosing class only)
+
+		OperationEventsRecord(final OperationEventBuffer buffer) {
+			super();
+			this.buffer = buffer;
+		}
+	}
 }
@@ -0,0 +1,224 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer;
+
+import java.nio.BufferOverflowException;
+
+import kieker.common.record.flow.trace.operation.AbstractOperationEvent;
+import kieker.common.record.flow.trace.operation.AfterOperationEvent;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
+import kieker.common.record.io.IValueSerializer;
+import kieker.monitoring.registry.SignatureRegistry;
+
+/**
+ * A pre-allocated, column-oriented buffer for {@link BeforeOperationEvent}s and {@link AfterOperationEvent}s. Probes
+ * store the primitive fields of the events in the buffer so that no record objects need to be created. The signatures
+ * are stored as their ids in the {@link SignatureRegistry}. Writers either serialize the events directly by means of
+ * {@link #serialize(int, IValueSerializer)}, which uses the same field order as the corresponding records, or
+ * materialize them on demand by means of {@link #createRecord(int)}.
+ *
+ * <p>
+ * A buffer is filled by a single thread and is handed over to the writer thread when it is full. It must not be
+ * modified until the writer has processed it.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class OperationEventBuffer {
+
+	/** The type of a {@link BeforeOperationEvent}. */
+	public static final byte BEFORE_OPERATION_EVENT = 0;
+	/** The type of an {@link AfterOperationEvent}. */
+	public static final byte AFTER_OPERATION_EVENT = 1;
+
+	private final byte[] types;
+	private final long[] loggingTimestamps;
+	private final long[] timestamps;
+	private final long[] traceIds;
+	private final int[] orderIndices;
+	private final int[] operationSignatureIds;
+	private final int[] classSignatureIds;
+
+	private int size;
+
+	/**
+	 * Creates a new buffer.
+	 *
+	 * @param capacity
+	 *            the number of events this buffer can hold
+	 */
+	public OperationEventBuffer(final int capacity) {
+		this.types = new byte[capacity];
+		this.loggingTimestamps = new long[capacity];
+		this.timestamps = new long[capacity];
+		this.traceIds = new long[capacity];
+		this.orderIndices = new int[capacity];
+		this.operationSignatureIds = new int[capacity];
+		this.classSignatureIds = new int[capacity];
+	}
+
+	/**
+	 * Appends an event to this buffer.
+	 *
+	 * @param operationSignatureId
+	 *            the id of the operation signature in the {@link SignatureRegistry}
+	 * @param classSignatureId
+	 *            the id of the class signature in the {@link SignatureRegistry}
+	 * @return <code>true</code> if the buffer is full after this event has been appended, otherwise <code>false</code>.
+	 */
+	public boolean add(final byte type, final long loggingTimestamp, final long timestamp, final long traceId, final int orderIndex,
+			final int operationSignatureId, final int classSignatureId) {
+		final int index = this.size++;
+		this.types[index] = type;
+		this.loggingTimestamps[index] = loggingTimestamp;
+		this.timestamps[index] = timestamp;
+		this.traceIds[index] = traceId;
+		this.orderIndices[index] = orderIndex;
+		this.operationSignatureIds[index] = operationSignatureId;
+		this.classSignatureIds[index] = classSignatureId;
+		return this.size == this.types.length;
+	}
+
+	/**
+	 * Appends an event to this buffer after interning its signatures in the {@link SignatureRegistry}.
+	 *
+	 * @return <code>true</code> if the buffer is full after this event has been appended, otherwise <code>false</code>.
+	 */
+	public boolean add(final byte type, final long loggingTimestamp, final long timestamp, final long traceId, final int orderIndex,
+			final String operationSignature, final String classSignature) {
+		return this.add(type, loggingTimestamp, timestamp, traceId, orderIndex, SignatureRegistry.INSTANCE.intern(operationSignature),
+				SignatureRegistry.INSTANCE.intern(classSignature));
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Removes all events.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+	public byte getType(final int index) {
+		return this.types[index];
+	}
+
+	public long getLoggingTimestamp(final int index) {
+		return this.loggingTimestamps[index];
+	}
+
+	public int getOperationSignatureId(final int index) {
+		return this.operationSignatureIds[index];
+	}
+
+	public int getClassSignatureId(final int index) {
+		return this.classSignatureIds[index];
+	}
+
+	public String getOperationSignature(final int index) {
+		return SignatureRegistry.INSTANCE.get(this.operationSignatureIds[index]);
+	}
+
+	public String getClassSignature(final int index) {
+		return SignatureRegistry.INSTANCE.get(this.classSignatureIds[index]);
+	}
+
+	/**
+	 * @return the name of the record class corresponding to the event at the given index.
+	 */
+	public String getRecordClassName(final int index) {
+		return getRecordClassName(this.types[index]);
+	}
+
+	/**
+	 * @return the name of the record class corresponding to the given event type.
+	 */
+	public static String getRecordClassName(final byte type) {
+		if (type == BEFORE_OPERATION_EVENT) {
+			return BeforeOperationEvent.class.getName();
+		} else {
+			return AfterOperationEvent.class.getName();
+		}
+	}
+
+	/**
+	 * Serializes the fields of the event at the given index in the same order as
+	 * {@link BeforeOperationEvent#serialize(IValueSerializer)} and {@link AfterOperationEvent#serialize(IValueSerializer)}.
+	 *
+	 * @throws BufferOverflowException
+	 *             if the underlying buffer of the serializer has not enough space
+	 */
+	public void serialize(final int index, final IValueSerializer serializer) throws BufferOverflowException {
+		serializer.putLong(this.timestamps[index]);
+		serializer.putLong(this.traceIds[index]);
+		serializer.putInt(this.orderIndices[index]);
+		serializer.putString(this.getOperationSignature(index));
+		serializer.putString(this.getClassSignature(index));
+	}
+
+	/**
+	 * Serializes the fields of the event at the given index like {@link #serialize(int, IValueSerializer)}, but writes
+	 * the given string ids instead of looking up the signatures. Only valid for serializers which write a string as its
+	 * id, such as the {@link kieker.common.record.io.DefaultValueSerializer}.
+	 *
+	 * @param operationSignatureStringId
+	 *            the id of the operation signature in the string registry of the writer
+	 * @param classSignatureStringId
+	 *            the id of the class signature in the string registry of the writer
+	 * @throws BufferOverflowException
+	 *             if the underlying buffer of the serializer has not enough space
+	 */
+	public void serialize(final int index, final IValueSerializer serializer, final int operationSignatureStringId, final int classSignatureStringId)
+			throws BufferOverflowException {
+		serializer.putLong(this.timestamps[index]);
+		serializer.putLong(this.traceIds[index]);
+		serializer.putInt(this.orderIndices[index]);
+		serializer.putInt(operationSignatureStringId);
+		serializer.putInt(classSignatureStringId);
+	}
+
+	/**
+	 * Materializes the event at the given index. This method is used by writers which do not support buffered
+	 * operation events natively.
+	 */
+	public AbstractOperationEvent createRecord(final int index) {
+		final AbstractOperationEvent record = createRecord(this.types[index], this.timestamps[index], this.traceIds[index], this.orderIndices[index],
+				this.getOperationSignature(index), this.getClassSignature(index));
+		record.setLoggingTimestamp(this.loggingTimestamps[index]);
+		return record;
+	}
+
+	/**
+	 * Creates the record corresponding to the given event type and fields.
+	 */
+	public static AbstractOperationEvent createRecord(final byte type, final long timestamp, final long traceId, final int orderIndex,
+			final String operationSignature, final String classSignature) {
+		if (type == BEFORE_OPERATION_EVENT) {
+			return new BeforeOperationEvent(timestamp, traceId, orderIndex, operationSignature, classSignature);
+		} else {
+			return new AfterOperationEvent(timestamp, traceId, orderIndex, operationSignature, classSignature);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.collector;
+
+/**
+ * Determines the chunk size and the deferred write delay of the {@link ChunkingCollector}. If adaptive, both are
+ * derived from the observed arrival rate of records and the observed duration of writing a chunk: a chunk should hold
+ * about as many records as arrive while writing two chunks, and pending records are written after about twice the time
+ * it takes to fill a chunk. The configured values are the upper bounds.
+ *
+ * <p>
+ * The arrival rate is observed by the consumer thread only; the write durations may be reported by several workers.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+class ChunkSizing {
+
+	/** the weight of a new observation in the moving averages. */
+	private static final double SMOOTHING_FACTOR = 0.2;
+	/** the minimal time between two observations of the arrival rate. */
+	private static final long MIN_OBSERVATION_INTERVAL_NS = 1000000L;
+	private static final long MIN_DEFERRED_WRITE_DELAY_NS = 1000000L;
+
+	private final boolean adaptive;
+	private final int maxChunkSize;
+	private final long maxDeferredWriteDelayNs;
+
+	private volatile int chunkSize;
+	private volatile long deferredWriteDelayNs;
+
+	// moving averages
+	private double recordsPerNs; // only accessed by the consumer thread
+	private double writeDurationNs; // guarded by this
+	private volatile double bytesPerSecond;
+
+	// the previous observation; only accessed by the consumer thread
+	private long lastObservationTime;
+	private long lastNumArrivedRecords;
+	private long lastNumBytesWritten;
+
+	/**
+	 * @param adaptive
+	 *            whether the chunk size and the deferred write delay adapt to the load
+	 * @param maxChunkSize
+	 *            the (maximal) chunk size in records
+	 * @param maxDeferredWriteDelayNs
+	 *            the (maximal) deferred write delay in nanoseconds
+	 */
+	public ChunkSizing(final boolean adaptive, final int maxChunkSize, final long maxDeferredWriteDelayNs) {
+		this.adaptive = adaptive;
+		this.maxChunkSize = maxChunkSize;
+		this.maxDeferredWriteDelayNs = maxDeferredWriteDelayNs;
+		this.chunkSize = maxChunkSize;
+		this.deferredWriteDelayNs = maxDeferredWriteDelayNs;
+		this.lastObservationTime = System.nanoTime();
+	}
+
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	public long getDeferredWriteDelayNs() {
+		return this.deferredWriteDelayNs;
+	}
+
+	public double getBytesPerSecond() {
+		return this.bytesPerSecond;
+	}
+
+	/**
+	 * Observes the arrival rate and the throughput; invoked by the consumer thread.
+	 *
+	 * @param currentTime
+	 *            the current time in nanoseconds
+	 * @param numArrivedRecords
+	 *            the number of records which have arrived so far
+	 * @param numBytesWritten
+	 *            the number of bytes which have been written so far
+	 */
+	public void observe(final long currentTime, final long numArrivedRecords, final long numBytesWritten) {
+		final long elapsedTime = currentTime - this.lastObservationTime;
+		if (elapsedTime < MIN_OBSERVATION_INTERVAL_NS) {
+			return;
+		}
+		final double currentRecordsPerNs = (double) (numArrivedRecords - this.lastNumArrivedRecords) / elapsedTime;
+		this.recordsPerNs = ChunkSizing.average(this.recordsPerNs, currentRecordsPerNs);
+		final double currentBytesPerSecond = ((numBytesWritten - this.lastNumBytesWritten) * 1e9) / elapsedTime;
+		this.bytesPerSecond = ChunkSizing.average(this.bytesPerSecond, currentBytesPerSecond);
+		this.lastObservationTime = currentTime;
+		this.lastNumArrivedRecords = numArrivedRecords;
+		this.lastNumBytesWritten = numBytesWritten;
+
+		if (this.adaptive) {
+			this.adapt();
+		}
+	}
+
+	/**
+	 * Observes the duration of writing a chunk.
+	 *
+	 * @param durationNs
+	 *            the duration of serializing and writing a chunk in nanoseconds
+	 */
+	public synchronized void observeWriteDuration(final long durationNs) {
+		this.writeDurationNs = ChunkSizing.average(this.writeDurationNs, durationNs);
+	}
+
+	private void adapt() {
+		final double currentWriteDurationNs;
+		synchronized (this) {
+			currentWriteDurationNs = this.writeDurationNs;
+		}
+		final double recordsPerWrite = this.recordsPerNs * currentWriteDurationNs;
+		final int newChunkSize = (int) Math.max(1, Math.min(this.maxChunkSize, Math.ceil(2 * recordsPerWrite)));
+		this.chunkSize = newChunkSize;
+
+		if (this.recordsPerNs > 0) {
+			final double fillDurationNs = newChunkSize / this.recordsPerNs;
+			this.deferredWriteDelayNs = (long) Math.max(MIN_DEFERRED_WRITE_DELAY_NS, Math.min(this.maxDeferredWriteDelayNs, 2 * fillDurationNs));
+		} else {
+			this.deferredWriteDelayNs = this.maxDeferredWriteDelayNs;
+		}
+	}
+
+	private static double average(final double average, final double observation) {
+		return ((1 - SMOOTHING_FACTOR) * average) + (SMOOTHING_FACTOR * observation);
+	}
+}
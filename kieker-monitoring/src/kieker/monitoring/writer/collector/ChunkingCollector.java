@@ -23,30 +23,45 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import kieker.common.configuration.Configuration;
 import kieker.common.logging.Log;
 import kieker.common.logging.LogFactory;
 import kieker.common.record.IMonitoringRecord;
-import kieker.common.util.thread.DaemonThreadFactory;
 import kieker.monitoring.core.controller.ControllerFactory;
 import kieker.monitoring.core.controller.ReceiveUnfilteredConfiguration;
 import kieker.monitoring.writer.AbstractMonitoringWriter;
+import kieker.monitoring.writer.raw.BufferPool;
+import kieker.monitoring.writer.raw.IPooledRawDataWriter;
 import kieker.monitoring.writer.raw.IRawDataWriter;
+import kieker.monitoring.writer.raw.PooledBuffer;
+import kieker.monitoring.writer.serializer.BinarySerializer;
 import kieker.monitoring.writer.serializer.IMonitoringRecordSerializer;
 
 /**
  * Chunking collector for monitoring records. The collected records are written if a chunk is
  * "full", or if no records have been written for some time (see 'deferred write delay'). This
- * collector employs a writer task, which runs regularly and writes chunks if enough records have
- * been collected or the deferred write delay has expired.
+ * collector employs a consumer thread, which is signalled if a chunk can be filled and otherwise
+ * waits until the deferred write delay has expired.
+ * <p/>
+ * Optionally, the chunk size and the deferred write delay adapt to the observed arrival rate of
+ * records and the observed duration of writing a chunk (see {@link #CONFIG_ADAPTIVE}); the
+ * configured values are the upper bounds then. Moreover, several workers may serialize chunks in
+ * parallel (see {@link #CONFIG_NUMBER_OF_WORKERS}). The chunks are passed to the raw data writer
+ * in the order of their creation nevertheless. Each worker uses its own serializer instance, so
+ * serializers keeping state across chunks must not be used with several workers.
+ * <p/>
+ * The chunks are serialized into buffers of a pool. If the raw data writer takes over these
+ * buffers (see {@link IPooledRawDataWriter}), a chunk is sent without copying it while the next
+ * chunks are serialized into other buffers (see {@link #CONFIG_NUMBER_OF_BUFFERS}); a buffer
+ * returns to the pool once the writer has released it.
  * <p/>
  * <b>Configuration hints:</b> The collector has several configuration parameters which depend
  * on one another. In particular, the queue size should be chosen large enough so that the queue
- * does not fill up in a single task run interval. In addition, the output buffer needs to be
+ * does not fill up while a chunk is written. In addition, the output buffer needs to be
  * large enough to hold a completely serialized chunk, and therefore depends on the chunk size.
  *
  * @author Holger Knoche
@@ -56,9 +71,8 @@ import kieker.monitoring.writer.serializer.IMonitoringRecordSerializer;
 @ReceiveUnfilteredConfiguration
 public class ChunkingCollector extends AbstractMonitoringWriter {
 
-	// If multiple workers are required, synchronization between writer tasks has
-	// to be considered.
-	private static final int NUMBER_OF_WORKERS = 1;
+	// Default number of workers serializing chunks
+	private static final int DEFAULT_NUMBER_OF_WORKERS = 1;
 
 	// Default size for the input queue (in records)
 	private static final int DEFAULT_QUEUE_SIZE = 16384;
@@ -72,8 +86,11 @@ public class ChunkingCollector extends AbstractMonitoringWriter {
 	// Default output buffer size (in bytes)
 	private static final int DEFAULT_OUTPUT_BUFFER_SIZE = 65536;
 
-	// Default run task run interval (in milliseconds)
-	private static final int DEFAULT_TASK_RUN_INTERVAL = 20;
+	// Number of buffers in flight per worker if the writer takes over the buffers
+	private static final int DEFAULT_NUMBER_OF_BUFFERS_PER_WORKER = 2;
+
+	// Number of attempts to enqueue a record before it is dropped
+	private static final int MAX_ENQUEUE_ATTEMPTS = 10;
 
 	private static final String PREFIX = ChunkingCollector.class.getName() + ".";
 
@@ -95,55 +112,105 @@ public class ChunkingCollector extends AbstractMonitoringWriter {
 	/** The name of the configuration property for the output buffer size. */
 	public static final String CONFIG_OUTPUT_BUFFER_SIZE = PREFIX + "outputBufferSize"; // NOCS (afterPREFIX)
 
-	/** The name of the configuration property for the writer task interval. */
+	/**
+	 * The name of the configuration property for the writer task interval. Since 1.14, it is ignored, because the
+	 * collector is signalled instead of polling its queue.
+	 */
 	public static final String CONFIG_TASK_RUN_INTERVAL = PREFIX + "taskRunInterval"; // NOCS (afterPREFIX)
-	
+
 	/** The type of queue to use. */
 	public static final String CONFIG_QUEUE_TYPE = PREFIX + "queueType"; // NOCS (afterPREFIX)
 
-	/** The time unit for the writer task interval. */
-	private static final TimeUnit TASK_RUN_INTERVAL_TIME_UNIT = TimeUnit.MILLISECONDS;
-	
+	/** The name of the configuration property for the number of workers which serialize chunks in parallel. */
+	public static final String CONFIG_NUMBER_OF_WORKERS = PREFIX + "numberOfWorkers"; // NOCS (afterPREFIX)
+
+	/** The name of the configuration property which enables the adaption of the chunk size and the deferred write delay to the load. */
+	public static final String CONFIG_ADAPTIVE = PREFIX + "adaptive"; // NOCS (afterPREFIX)
+
+	/** The name of the configuration property for the number of output buffers if the writer takes over the buffers; at least the number of workers. */
+	public static final String CONFIG_NUMBER_OF_BUFFERS = PREFIX + "numberOfBuffers"; // NOCS (afterPREFIX)
+
+	/** The name of the configuration property which determines whether the output buffers are direct buffers if the writer takes over the buffers. */
+	public static final String CONFIG_DIRECT_BUFFERS = PREFIX + "directBuffers"; // NOCS (afterPREFIX)
+
 	private static final Log LOG = LogFactory.getLog(ChunkingCollector.class);
 
 	private final Queue<IMonitoringRecord> recordQueue;
 
-	private final ScheduledExecutorService scheduledExecutor;
-	private final int taskRunInterval;
+	private final ChunkSizing chunkSizing;
 	private final ChunkWriterTask writerTask;
+	private final Thread consumerThread;
+
+	/** whether the consumer thread waits for records; it is signalled once a chunk can be filled. */
+	private volatile boolean consumerWaiting;
+	private volatile boolean terminated;
+
+	// statistics
+	private final AtomicLong numDroppedRecords = new AtomicLong();
+	private final AtomicLong numBytesWritten = new AtomicLong();
 
 	public ChunkingCollector(final Configuration configuration) {
 		super(configuration);
 
-		// Initialize the queue and the executor service
+		// Initialize the queue
 		final int queueSize = configuration.getIntProperty(CONFIG_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
 		final String queueType = configuration.getStringProperty(CONFIG_QUEUE_TYPE, "");
-		this.taskRunInterval = configuration.getIntProperty(CONFIG_TASK_RUN_INTERVAL, DEFAULT_TASK_RUN_INTERVAL);
-
 		this.recordQueue = this.createQueue(queueType, queueSize);
-		this.scheduledExecutor = Executors.newScheduledThreadPool(NUMBER_OF_WORKERS, new DaemonThreadFactory());
 
-		// Instantiate serializer and writer
+		// Instantiate serializers and writer
 		final ControllerFactory controllerFactory = ControllerFactory.getInstance(configuration);
 		final String serializerName = configuration.getStringProperty(CONFIG_SERIALIZER_CLASSNAME);
-		final IMonitoringRecordSerializer serializer = controllerFactory.createAndInitialize(IMonitoringRecordSerializer.class, serializerName, configuration);
+		final int numberOfWorkers = this.getNumberOfWorkers(configuration);
+		final List<IMonitoringRecordSerializer> serializers = new ArrayList<IMonitoringRecordSerializer>(numberOfWorkers);
+		for (int i = 0; i < numberOfWorkers; i++) {
+			serializers.add(controllerFactory.createAndInitialize(IMonitoringRecordSerializer.class, serializerName, configuration));
+		}
 		final String writerName = configuration.getStringProperty(CONFIG_WRITER_CLASSNAME);
 		final IRawDataWriter writer = controllerFactory.createAndInitialize(IRawDataWriter.class, writerName, configuration);
-				
+
 		// Instantiate the writer task
 		final int deferredWriteDelayMs = configuration.getIntProperty(CONFIG_DEFERRED_WRITE_DELAY, DEFAULT_DEFERRED_WRITE_DELAY);
 		final int chunkSize = configuration.getIntProperty(CONFIG_CHUNK_SIZE, DEFAULT_CHUNK_SIZE);
 		final int outputBufferSize = configuration.getIntProperty(CONFIG_OUTPUT_BUFFER_SIZE, DEFAULT_OUTPUT_BUFFER_SIZE);
+		final boolean adaptive = configuration.getBooleanProperty(CONFIG_ADAPTIVE, false);
+
+		// Buffers stay in flight only if the writer takes them over; otherwise, each worker needs a single one
+		final BufferPool bufferPool;
+		if (writer instanceof IPooledRawDataWriter) {
+			final int numberOfBuffers = configuration.getIntProperty(CONFIG_NUMBER_OF_BUFFERS, DEFAULT_NUMBER_OF_BUFFERS_PER_WORKER * numberOfWorkers);
+			final boolean directBuffers = configuration.getBooleanProperty(CONFIG_DIRECT_BUFFERS, false);
+			// each worker may hold a buffer while waiting for the previous chunks to be written
+			if (numberOfBuffers < numberOfWorkers) {
+				LOG.warn(CONFIG_NUMBER_OF_BUFFERS + "=" + numberOfBuffers + " is smaller than the number of workers. Using " + numberOfWorkers + " buffers.");
+			}
+			bufferPool = new BufferPool(Math.max(numberOfWorkers, numberOfBuffers), outputBufferSize, directBuffers);
+		} else {
+			bufferPool = new BufferPool(numberOfWorkers, outputBufferSize, false);
+		}
 
-		this.writerTask = new ChunkWriterTask(chunkSize, deferredWriteDelayMs, outputBufferSize, serializer, writer);
+		this.chunkSizing = new ChunkSizing(adaptive, chunkSize, deferredWriteDelayMs * 1000000L);
+		this.writerTask = new ChunkWriterTask(bufferPool, serializers, writer);
+		this.consumerThread = new Thread(this.writerTask, "Kieker-" + ChunkingCollector.class.getSimpleName());
+		// All Kieker threads must be daemon threads. Otherwise the monitored application can never terminate.
+		this.consumerThread.setDaemon(true);
 	}
-	
+
+	private int getNumberOfWorkers(final Configuration configuration) {
+		final int numberOfWorkers = Math.max(1, configuration.getIntProperty(CONFIG_NUMBER_OF_WORKERS, DEFAULT_NUMBER_OF_WORKERS));
+		// The string IDs of a dictionary spanning several chunks are only valid if all chunks are serialized in order by the same serializer
+		if ((numberOfWorkers > 1) && configuration.getBooleanProperty(BinarySerializer.CONFIG_STRING_DICTIONARY, false)) {
+			LOG.warn("The string dictionary of the binary serializer requires a single worker. Ignoring " + CONFIG_NUMBER_OF_WORKERS + "=" + numberOfWorkers);
+			return 1;
+		}
+		return numberOfWorkers;
+	}
+
 	@SuppressWarnings("unchecked")
 	private Queue<IMonitoringRecord> createQueue(final String queueTypeName, final int queueSize) {
-		if (queueTypeName == null) {
+		if ((queueTypeName == null) || queueTypeName.isEmpty()) {
 			return this.createDefaultQueue(queueSize);
 		}
-		
+
 		try {
 			// Instantiate the queue of the given type. We assume that the queue has a constructor that takes the size as its only parameter.
 			final Class<?> queueClass = Class.forName(queueTypeName);
@@ -155,41 +222,47 @@ public class ChunkingCollector extends AbstractMonitoringWriter {
 			return this.createDefaultQueue(queueSize);
 		}
 	}
-	
+
 	private Queue<IMonitoringRecord> createDefaultQueue(final int queueSize) {
 		return new ArrayBlockingQueue<>(queueSize);
 	}
 
 	@Override
 	public void onStarting() {
-		this.scheduledExecutor.scheduleAtFixedRate(this.writerTask, 0, this.taskRunInterval, TASK_RUN_INTERVAL_TIME_UNIT);		
 		this.writerTask.initialize();
+		this.consumerThread.start();
 	}
 
 	@Override
 	public void onTerminating() {
-		// Terminate scheduled execution and write remaining chunks, if any
-		this.scheduledExecutor.shutdown();
-		
+		// Let the consumer thread write the remaining chunks, if any, and wait for its termination
+		this.terminated = true;
+		LockSupport.unpark(this.consumerThread);
+
 		try {
-			// Wait for the executor to shut down
-			this.scheduledExecutor.awaitTermination(Long.MAX_VALUE, TASK_RUN_INTERVAL_TIME_UNIT);
+			this.consumerThread.join();
 		} catch (final InterruptedException e) {
-			LOG.warn("Awaiting termination of the scheduled executor was interrupted.", e);
+			LOG.warn("Awaiting termination of the consumer thread was interrupted.", e);
 		}
-		
+
 		this.writerTask.terminate();
 	}
 
 	private boolean enqueueRecord(final IMonitoringRecord record) {
-		for (int tryNumber = 0; tryNumber < 10; tryNumber++) { // try up to 10 times to enqueue a record
-			final boolean recordEnqueued = this.recordQueue.offer(record);
-			
-			if (recordEnqueued) {
+		final Queue<IMonitoringRecord> queue = this.recordQueue;
+		for (int tryNumber = 0; tryNumber < MAX_ENQUEUE_ATTEMPTS; tryNumber++) {
+			if (queue.offer(record)) {
+				if (this.consumerWaiting && (queue.size() >= this.chunkSizing.getChunkSize())) {
+					LockSupport.unpark(this.consumerThread);
+				}
 				return true;
 			}
+			// the queue is full; make sure that the consumer thread is draining it
+			LockSupport.unpark(this.consumerThread);
+			Thread.yield();
 		}
-		
+
+		this.numDroppedRecords.incrementAndGet();
 		LOG.error("Failed to add new monitoring record to queue (maximum number of attempts reached).");
 		return false;
 	}
@@ -200,82 +273,204 @@ public class ChunkingCollector extends AbstractMonitoringWriter {
 	}
 
 	/**
-	 * Writer task to write records collected by the collector.
+	 * @return the number of records which wait for being written
+	 *
+	 * @since 1.14
+	 */
+	public int getQueueDepth() {
+		return this.recordQueue.size();
+	}
+
+	/**
+	 * @return the current chunk size in records
+	 *
+	 * @since 1.14
+	 */
+	public int getChunkSize() {
+		return this.chunkSizing.getChunkSize();
+	}
+
+	/**
+	 * @return the current deferred write delay in milliseconds
+	 *
+	 * @since 1.14
+	 */
+	public long getDeferredWriteDelay() {
+		return this.chunkSizing.getDeferredWriteDelayNs() / 1000000L;
+	}
+
+	/**
+	 * @return the recent average number of bytes written per second
+	 *
+	 * @since 1.14
+	 */
+	public double getBytesPerSecond() {
+		return this.chunkSizing.getBytesPerSecond();
+	}
+
+	/**
+	 * @return the number of bytes written so far
+	 *
+	 * @since 1.14
+	 */
+	public long getNumberOfBytesWritten() {
+		return this.numBytesWritten.get();
+	}
+
+	/**
+	 * @return the number of output buffers which are neither being serialized into nor in flight
+	 *
+	 * @since 1.14
+	 */
+	public int getNumberOfAvailableBuffers() {
+		return this.writerTask.bufferPool.getNumAvailableBuffers();
+	}
+
+	/**
+	 * @return the number of records which have been dropped because the queue was full or because their chunk could
+	 *         not be serialized or written
+	 *
+	 * @since 1.14
+	 */
+	public long getNumberOfDroppedRecords() {
+		return this.numDroppedRecords.get();
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + "\n\tQueue depth: " + this.getQueueDepth() + "\n\tChunk size: " + this.getChunkSize() + "\n\tBytes per second: "
+				+ (long) this.getBytesPerSecond() + "\n\tDropped records: " + this.getNumberOfDroppedRecords();
+	}
+
+	/**
+	 * Writer task to write records collected by the collector. It is run by the consumer thread, which forms the chunks.
+	 * If there are several workers, the chunks are serialized by the worker threads and the raw data writer is invoked
+	 * in the order of the chunks' sequence numbers.
+	 *
 	 * @author Holger Knoche
 	 * @since 1.13
 	 *
 	 */
 	class ChunkWriterTask implements Runnable {
 
-		private final ByteBuffer buffer;
-
-		private final IMonitoringRecordSerializer serializer;
-
 		private final IRawDataWriter writer;
+		/** the writer if it takes over the buffers, otherwise <code>null</code>. */
+		private final IPooledRawDataWriter pooledWriter;
+		final BufferPool bufferPool; // NOCS NOPMD (package-private for the enclosing class only)
 
-		private final int outputChunkSize;
+		private final List<IMonitoringRecordSerializer> serializers;
 
-		private final long deferredWriteDelayNs;
+		/** the worker serializing the chunks in the consumer thread if there is a single worker. */
+		private final ChunkWorker inlineWorker;
+		private final List<Thread> workerThreads;
+		private final BlockingQueue<Chunk> chunkQueue;
 
-		private volatile long nextWriteTime;
+		private final Object writeLock = new Object();
+		private long nextSequenceNumberToWrite; // guarded by writeLock
 
-		public ChunkWriterTask(final int outputChunkSize, final int deferredWriteDelayMs, final int outputBufferSize, final IMonitoringRecordSerializer serializer,
-				final IRawDataWriter writer) {
-			this.serializer = serializer;
-			this.writer = writer;
-			this.outputChunkSize = outputChunkSize;
-			this.deferredWriteDelayNs = deferredWriteDelayMs * 1000000L;
-			this.buffer = ByteBuffer.allocate(outputBufferSize);
+		// only accessed by the consumer thread
+		private long nextSequenceNumber;
+		private long numTakenRecords;
+		private long nextWriteTime;
 
-			this.updateNextWriteTime();
+		public ChunkWriterTask(final BufferPool bufferPool, final List<IMonitoringRecordSerializer> serializers, final IRawDataWriter writer) {
+			this.bufferPool = bufferPool;
+			this.serializers = serializers;
+			this.writer = writer;
+			this.pooledWriter = (writer instanceof IPooledRawDataWriter) ? (IPooledRawDataWriter) writer : null; // NOCS (?:)
+
+			if (serializers.size() == 1) {
+				this.inlineWorker = new ChunkWorker(serializers.get(0));
+				this.workerThreads = new ArrayList<Thread>(0);
+				this.chunkQueue = null;
+			} else {
+				this.inlineWorker = null;
+				this.workerThreads = new ArrayList<Thread>(serializers.size());
+				this.chunkQueue = new ArrayBlockingQueue<Chunk>(2 * serializers.size());
+				for (int i = 0; i < serializers.size(); i++) {
+					final ChunkWorker worker = new ChunkWorker(serializers.get(i));
+					final Thread workerThread = new Thread(worker, "Kieker-" + ChunkingCollector.class.getSimpleName() + "-Worker-" + i);
+					workerThread.setDaemon(true);
+					this.workerThreads.add(workerThread);
+				}
+			}
 		}
 
 		@Override
 		@SuppressWarnings("synthetic-access")
 		public void run() {
-			final Queue<IMonitoringRecord> queue = ChunkingCollector.this.recordQueue;
-			int numberOfPendingRecords = queue.size();
-			final int chunkSize = this.outputChunkSize;
-
-			// Write records if at least one chunk can be filled completely
-			if (numberOfPendingRecords >= chunkSize) {
-				// Write as many chunks as possible
-				do {
-					this.writeChunk(queue, chunkSize);
-					numberOfPendingRecords = queue.size();
-				} while (numberOfPendingRecords >= chunkSize);
-
-				// Update the last-write time and return
-				this.updateNextWriteTime();
-				return;
-			}
+			final ChunkingCollector collector = ChunkingCollector.this;
+			final Queue<IMonitoringRecord> queue = collector.recordQueue;
+			final ChunkSizing sizing = collector.chunkSizing;
+			this.updateNextWriteTime(System.nanoTime());
 
-			// If no chunk can be filled, check whether the deferred write interval has expired
-			final long currentTime = System.nanoTime();
+			while (true) {
+				int numberOfPendingRecords = queue.size();
+				final long currentTime = System.nanoTime();
+				sizing.observe(currentTime, this.numTakenRecords + numberOfPendingRecords, collector.numBytesWritten.get());
+				final int chunkSize = sizing.getChunkSize();
+
+				// Write records if at least one chunk can be filled completely
+				if (numberOfPendingRecords >= chunkSize) {
+					// Write as many chunks as possible
+					do {
+						this.writeChunk(queue, chunkSize);
+						numberOfPendingRecords = queue.size();
+					} while (numberOfPendingRecords >= chunkSize);
+
+					// Update the last-write time
+					this.updateNextWriteTime(System.nanoTime());
+					continue;
+				}
 
-			if ((numberOfPendingRecords > 0) && (currentTime >= this.nextWriteTime)) {
-				// Write the pending records
-				this.writeChunk(queue, numberOfPendingRecords);
-				this.updateNextWriteTime(currentTime);
+				if (collector.terminated) {
+					this.flush(queue, chunkSize);
+					break;
+				}
+
+				// If no chunk can be filled, check whether the deferred write interval has expired
+				if ((numberOfPendingRecords > 0) && (currentTime >= this.nextWriteTime)) {
+					// Write the pending records
+					this.writeChunk(queue, numberOfPendingRecords);
+					this.updateNextWriteTime(currentTime);
+					continue;
+				}
+
+				// The consumer thread terminates only via onTerminating(); a pending interrupt would end each wait at once
+				if (Thread.interrupted()) {
+					LOG.warn("The consumer thread was interrupted. Continuing to write the records.");
+				}
+
+				// Wait until a chunk can be filled or the deferred write delay expires
+				collector.consumerWaiting = true;
+				if ((queue.size() < chunkSize) && !collector.terminated) { // re-check after announcing the wait
+					final long waitTime = (numberOfPendingRecords > 0) ? (this.nextWriteTime - currentTime) : sizing.getDeferredWriteDelayNs(); // NOCS (?:)
+					LockSupport.parkNanos(this, waitTime);
+				}
+				collector.consumerWaiting = false;
 			}
+
+			this.terminateWorkers();
 		}
 
 		public void initialize() {
 			this.writer.onInitialization();
-			this.serializer.onInitialization();		
+			for (final IMonitoringRecordSerializer serializer : this.serializers) {
+				serializer.onInitialization();
+			}
+			for (final Thread workerThread : this.workerThreads) {
+				workerThread.start();
+			}
 		}
 
 		public void terminate() {
-			this.flush();
-			
-			this.serializer.onTermination();
+			for (final IMonitoringRecordSerializer serializer : this.serializers) {
+				serializer.onTermination();
+			}
 			this.writer.onTermination();
 		}
 
-		@SuppressWarnings("synthetic-access")
-		public void flush() {
-			final Queue<IMonitoringRecord> queue = ChunkingCollector.this.recordQueue;
-			final int chunkSize = this.outputChunkSize;
+		private void flush(final Queue<IMonitoringRecord> queue, final int chunkSize) {
 			int numberOfPendingRecords = queue.size();
 
 			// Put the remaining records into chunks and write them
@@ -293,31 +488,248 @@ public class ChunkingCollector extends AbstractMonitoringWriter {
 			}
 		}
 
+		private void terminateWorkers() {
+			if (this.chunkQueue == null) {
+				return;
+			}
+			for (int i = 0; i < this.workerThreads.size(); i++) {
+				this.handOver(Chunk.END_OF_CHUNKS);
+			}
+			// the writer must not be terminated while a worker still writes, so the workers are awaited in any case
+			boolean interrupted = false;
+			for (final Thread workerThread : this.workerThreads) {
+				while (workerThread.isAlive()) {
+					try {
+						workerThread.join();
+					} catch (final InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
 		private void writeChunk(final Queue<IMonitoringRecord> queue, final int chunkSize) {
-			final List<IMonitoringRecord> chunk = new ArrayList<IMonitoringRecord>(chunkSize);
+			final List<IMonitoringRecord> records;
+			if (this.inlineWorker != null) {
+				records = this.inlineWorker.records;
+				records.clear();
+			} else {
+				records = new ArrayList<IMonitoringRecord>(chunkSize);
+			}
 
 			for (int recordIndex = 0; recordIndex < chunkSize; recordIndex++) {
 				// Due to checks at the call sites, writeChunk is only called with a chunk size
 				// not smaller than the queue's length to avoid poll() returning null values.
 				final IMonitoringRecord record = queue.poll();
-				chunk.add(record);
+				records.add(record);
 			}
+			this.numTakenRecords += chunkSize;
 
-			// Serialize and write the data
-			final ByteBuffer outputBuffer = this.buffer;
-			outputBuffer.rewind();
-			final int bytesWritten = this.serializer.serializeRecords(chunk, outputBuffer);
-			this.writer.writeData(outputBuffer, 0, bytesWritten);
+			final long sequenceNumber = this.nextSequenceNumber++;
+			if (this.inlineWorker != null) {
+				this.inlineWorker.write(sequenceNumber, records);
+			} else {
+				this.handOver(new Chunk(sequenceNumber, records));
+			}
 		}
 
-		private void updateNextWriteTime() {
-			this.updateNextWriteTime(System.nanoTime());
+		/**
+		 * Passes the chunk to the workers, waiting uninterruptibly while the chunk queue is full. Dropping the chunk
+		 * instead would lose its records and, unless its sequence number were skipped, stall all following chunks.
+		 */
+		private void handOver(final Chunk chunk) {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					this.chunkQueue.put(chunk);
+					break;
+				} catch (final InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Passes the serialized chunk with the given sequence number to the writer once all previous chunks have been
+		 * written. The reference to the buffer is either passed to the writer as well or released afterwards. If the
+		 * buffer is <code>null</code>, the chunk has been dropped and only its sequence number is skipped. Whatever
+		 * happens, the sequence number is skipped eventually, since otherwise the writing of all following chunks would
+		 * wait forever.
+		 *
+		 * @return <code>true</code> if the chunk has been passed to the writer, otherwise <code>false</code>
+		 */
+		@SuppressWarnings("synthetic-access")
+		private boolean writeInOrder(final long sequenceNumber, final PooledBuffer data, final int numRecords) {
+			synchronized (this.writeLock) {
+				boolean interrupted = false;
+				while (this.nextSequenceNumberToWrite != sequenceNumber) {
+					try {
+						this.writeLock.wait();
+					} catch (final InterruptedException e) {
+						// the previous chunks are written or skipped in any case, so the wait ends
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+					if (data != null) {
+						LOG.error("Interrupted while waiting for the previous chunks to be written. Dropping " + numRecords + " records.");
+						data.release();
+						ChunkingCollector.this.numDroppedRecords.addAndGet(numRecords);
+					}
+					this.skip();
+					return false;
+				}
+				if (data == null) {
+					this.skip();
+					return false;
+				}
+				final int length = data.getBuffer().remaining();
+				try {
+					if (this.pooledWriter != null) {
+						boolean handedOver = false;
+						try {
+							this.pooledWriter.writeData(data);
+							handedOver = true;
+						} finally {
+							if (!handedOver) { // the reference remains with the collector if the writer fails
+								data.release();
+							}
+						}
+					} else {
+						try {
+							this.writer.writeData(data.getBuffer(), 0, length);
+						} finally {
+							data.release();
+						}
+					}
+					ChunkingCollector.this.numBytesWritten.addAndGet(length);
+					return true;
+				} catch (final RuntimeException e) { // NOPMD (the chunk is dropped, but the following chunks must still be written)
+					// e.g., a timeout of a Kafka producer; letting it escape would kill the worker
+					LOG.error("Error writing a chunk. Dropping " + numRecords + " records.", e);
+					ChunkingCollector.this.numDroppedRecords.addAndGet(numRecords);
+					return false;
+				} finally {
+					this.skip();
+				}
+			}
+		}
+
+		/**
+		 * Must be called while holding the write lock.
+		 */
+		private void skip() {
+			this.nextSequenceNumberToWrite++;
+			this.writeLock.notifyAll();
 		}
 
 		private void updateNextWriteTime(final long currentTime) {
-			this.nextWriteTime = (currentTime + this.deferredWriteDelayNs);
+			this.nextWriteTime = currentTime + ChunkingCollector.this.chunkSizing.getDeferredWriteDelayNs();
+		}
+
+		/**
+		 * Serializes chunks with its own serializer into buffers of the pool, either in the consumer thread or in a
+		 * worker thread.
+		 */
+		private final class ChunkWorker implements Runnable {
+			final List<IMonitoringRecord> records = new ArrayList<IMonitoringRecord>(); // NOCS NOPMD (reused by the consumer thread if inline)
+			private final IMonitoringRecordSerializer serializer;
+
+			ChunkWorker(final IMonitoringRecordSerializer serializer) {
+				this.serializer = serializer;
+			}
+
+			@Override
+			@SuppressWarnings("synthetic-access")
+			public void run() {
+				try {
+					while (true) {
+						final Chunk chunk = ChunkWriterTask.this.chunkQueue.take();
+						if (chunk == Chunk.END_OF_CHUNKS) { // NOPMD (compare references by == not by equals())
+							return;
+						}
+						this.write(chunk.sequenceNumber, chunk.records);
+					}
+				} catch (final InterruptedException e) {
+					LOG.warn(Thread.currentThread().getName() + " was interrupted.", e);
+				}
+			}
+
+			@SuppressWarnings("synthetic-access")
+			void write(final long sequenceNumber, final List<IMonitoringRecord> chunk) {
+				final long startTime = System.nanoTime();
+
+				// Serialize the data into a free buffer; this waits if all buffers are still in flight
+				final PooledBuffer data;
+				try {
+					data = ChunkWriterTask.this.bufferPool.acquire();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					LOG.error("Interrupted while waiting for a free buffer. Dropping " + chunk.size() + " records.", e);
+					ChunkingCollector.this.numDroppedRecords.addAndGet(chunk.size());
+					ChunkWriterTask.this.writeInOrder(sequenceNumber, null, chunk.size());
+					return;
+				}
+				final ByteBuffer outputBuffer = data.getBuffer();
+				boolean serialized = false;
+				try {
+					final int bytesWritten = this.serializer.serializeRecords(chunk, outputBuffer);
+					outputBuffer.position(0);
+					outputBuffer.limit(bytesWritten);
+					serialized = true;
+				} catch (final RuntimeException e) { // NOPMD (the chunk is dropped, but the following chunks must still be written)
+					LOG.error("Error serializing a chunk. Dropping " + chunk.size() + " records.", e);
+				} finally {
+					if (!serialized) {
+						// skip the sequence number, otherwise the writing of all following chunks waits forever
+						data.release();
+						ChunkingCollector.this.numDroppedRecords.addAndGet(chunk.size());
+						ChunkWriterTask.this.writeInOrder(sequenceNumber, null, chunk.size());
+						this.onChunkDropped();
+					}
+				}
+				if (!serialized) {
+					return;
+				}
+				if (!ChunkWriterTask.this.writeInOrder(sequenceNumber, data, chunk.size())) {
+					this.onChunkDropped();
+				}
+
+				ChunkingCollector.this.chunkSizing.observeWriteDuration(System.nanoTime() - startTime);
+			}
+
+			/**
+			 * Called if a chunk passed to the serializer of this worker has not been written. The string dictionary of a
+			 * {@link BinarySerializer} is reset, since the following chunks would refer to strings the reader has missed.
+			 */
+			private void onChunkDropped() {
+				if (this.serializer instanceof BinarySerializer) {
+					((BinarySerializer) this.serializer).resetDictionary();
+				}
+			}
 		}
+	}
+
+	/**
+	 * A chunk of records with its sequence number.
+	 */
+	private static final class Chunk {
+		static final Chunk END_OF_CHUNKS = new Chunk(-1, new ArrayList<IMonitoringRecord>(0)); // NOCS NOPMD (package-private for the enclosing class only)
 
+		final long sequenceNumber; // NOCS NOPMD (package-private for the enclosing class only)
+		final List<IMonitoringRecord> records; // NOCS NOPMD
+
+		Chunk(final long sequenceNumber, final List<IMonitoringRecord> records) {
+			this.sequenceNumber = sequenceNumber;
+			this.records = records;
+		}
 	}
 
 }
@@ -0,0 +1,279 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.filesystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import kieker.common.logging.Log;
+import kieker.monitoring.writer.WriterUtil;
+
+/**
+ * Writes buffers to channels in a dedicated I/O thread so that the writer thread can continue to serialize records
+ * while the previous buffers are written. A flushed buffer is handed over as a whole and the writer continues with one
+ * of a fixed number of free buffers; the writer thread only blocks if all of them are still being written. Consecutive
+ * buffers for the same channel are written by a single gathering write if the channel supports it.
+ *
+ * <p>
+ * All write and close requests are processed in the order of their submission. Optionally, the I/O thread runs a task
+ * periodically, e.g., to flush a buffer which has not been filled for some time.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+class AsyncChannelFlusher {
+
+	private static final Request END_OF_REQUESTS = new Request(null, null);
+
+	private final Log writerLog; // NOPMD (logger passed by caller)
+	private final BlockingQueue<ByteBuffer> freeBuffers;
+	private final BlockingQueue<Request> requests = new LinkedBlockingQueue<Request>();
+	private final Thread ioThread;
+	/** the task run periodically by the I/O thread; null if there is no such task. */
+	private final Runnable intervalTask;
+	private final long intervalInNs;
+
+	// statistics; written by the I/O thread only
+	private volatile long bytesWritten;
+	private volatile long numWrites;
+	private volatile long writeDurationInNs;
+
+	/**
+	 * @param writerLog
+	 *            the log of the writer
+	 * @param numBuffers
+	 *            the number of buffers which may be written concurrently to the serialization
+	 * @param bufferSize
+	 *            the size of each buffer in bytes; must be the size of the writer's buffer
+	 */
+	public AsyncChannelFlusher(final Log writerLog, final int numBuffers, final int bufferSize) {
+		this(writerLog, numBuffers, bufferSize, 0, null);
+	}
+
+	/**
+	 * @param writerLog
+	 *            the log of the writer
+	 * @param numBuffers
+	 *            the number of buffers which may be written concurrently to the serialization
+	 * @param bufferSize
+	 *            the size of each buffer in bytes; must be the size of the writer's buffer
+	 * @param intervalInNs
+	 *            the interval in which the I/O thread runs the given task
+	 * @param intervalTask
+	 *            the task to run periodically or <code>null</code>
+	 */
+	public AsyncChannelFlusher(final Log writerLog, final int numBuffers, final int bufferSize, final long intervalInNs, final Runnable intervalTask) {
+		this.writerLog = writerLog;
+		this.intervalInNs = intervalInNs;
+		this.intervalTask = intervalTask;
+		this.freeBuffers = new ArrayBlockingQueue<ByteBuffer>(Math.max(1, numBuffers));
+		for (int i = 0; i < numBuffers; i++) {
+			this.freeBuffers.add(ByteBuffer.allocateDirect(bufferSize));
+		}
+		this.ioThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				AsyncChannelFlusher.this.processRequests();
+			}
+		}, "Kieker-" + AsyncChannelFlusher.class.getSimpleName());
+		// All Kieker threads must be daemon threads. Otherwise the monitored application can never terminate.
+		this.ioThread.setDaemon(true);
+		this.ioThread.start();
+	}
+
+	/**
+	 * Hands the given buffer over to the I/O thread.
+	 *
+	 * @return the empty buffer to continue with; the given buffer if nothing has been handed over
+	 */
+	public ByteBuffer flush(final ByteBuffer buffer, final WritableByteChannel channel) {
+		if (buffer.position() == 0) {
+			return buffer;
+		}
+		final ByteBuffer freeBuffer;
+		if (Thread.currentThread() == this.ioThread) { // NOPMD (compare references by == not by equals())
+			// the I/O thread must not wait for itself; the interval task is run while no buffer is being written
+			freeBuffer = this.freeBuffers.poll();
+			if (freeBuffer == null) {
+				return buffer;
+			}
+		} else {
+			try {
+				freeBuffer = this.freeBuffers.take();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.writerLog.error("Interrupted while waiting for a free buffer. Dropping " + buffer.position() + " bytes.", e);
+				buffer.clear();
+				return buffer;
+			}
+		}
+		buffer.flip();
+		this.requests.add(new Request(channel, buffer));
+		return freeBuffer;
+	}
+
+	/**
+	 * Closes the given channel after all previously handed over buffers have been written.
+	 */
+	public void close(final WritableByteChannel channel) {
+		this.requests.add(new Request(channel, null));
+	}
+
+	/**
+	 * Writes all pending buffers and terminates the I/O thread.
+	 */
+	public void terminate() {
+		this.requests.add(END_OF_REQUESTS);
+		try {
+			this.ioThread.join();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.writerLog.warn("Interrupted while waiting for the pending buffers to be written.", e);
+		}
+	}
+
+	public long getBytesWritten() {
+		return this.bytesWritten;
+	}
+
+	public long getNumWrites() {
+		return this.numWrites;
+	}
+
+	public long getWriteDurationInNs() {
+		return this.writeDurationInNs;
+	}
+
+	private void processRequests() {
+		final List<Request> batch = new ArrayList<Request>();
+		long lastIntervalTaskTime = System.nanoTime();
+		try {
+			while (true) {
+				final Request request;
+				if (this.intervalTask == null) {
+					request = this.requests.take();
+				} else {
+					request = this.requests.poll(this.intervalInNs, TimeUnit.NANOSECONDS);
+				}
+				if (request != null) {
+					batch.add(request);
+					this.requests.drainTo(batch);
+					if (this.processBatch(batch)) {
+						return;
+					}
+					batch.clear();
+				}
+				if (this.intervalTask != null) {
+					final long now = System.nanoTime();
+					if ((now - lastIntervalTaskTime) >= this.intervalInNs) {
+						this.intervalTask.run();
+						lastIntervalTaskTime = now;
+					}
+				}
+			}
+		} catch (final InterruptedException e) {
+			this.writerLog.warn(Thread.currentThread().getName() + " was interrupted.", e);
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the end of the requests has been reached, otherwise <code>false</code>.
+	 */
+	private boolean processBatch(final List<Request> batch) {
+		final int numRequests = batch.size();
+		int start = 0;
+		while (start < numRequests) {
+			final Request request = batch.get(start);
+			if (request == END_OF_REQUESTS) { // NOPMD (compare references by == not by equals())
+				return true;
+			}
+			if (request.buffer == null) {
+				WriterUtil.close(request.channel, this.writerLog);
+				start++;
+				continue;
+			}
+			// collect consecutive writes to the same channel
+			int end = start + 1;
+			while ((end < numRequests) && (batch.get(end).channel == request.channel) && (batch.get(end).buffer != null)) {
+				end++;
+			}
+			this.write(request.channel, batch.subList(start, end));
+			start = end;
+		}
+		return false;
+	}
+
+	private void write(final WritableByteChannel channel, final List<Request> writeRequests) {
+		final ByteBuffer[] buffers = new ByteBuffer[writeRequests.size()];
+		long numBytes = 0;
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = writeRequests.get(i).buffer;
+			numBytes += buffers[i].remaining();
+		}
+
+		final long startTime = System.nanoTime();
+		try {
+			if ((buffers.length > 1) && (channel instanceof GatheringByteChannel)) {
+				final GatheringByteChannel gatheringChannel = (GatheringByteChannel) channel;
+				long remaining = numBytes;
+				while (remaining > 0) {
+					remaining -= gatheringChannel.write(buffers);
+				}
+			} else {
+				for (final ByteBuffer buffer : buffers) {
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+				}
+			}
+			this.bytesWritten += numBytes; // NOPMD NOCS (only written by the I/O thread)
+			this.numWrites++; // NOPMD NOCS (only written by the I/O thread)
+		} catch (final IOException e) {
+			this.writerLog.error("Caught exception while writing to the channel.", e);
+			WriterUtil.close(channel, this.writerLog);
+		} finally {
+			this.writeDurationInNs += System.nanoTime() - startTime; // NOPMD NOCS (only written by the I/O thread)
+			for (final ByteBuffer buffer : buffers) {
+				buffer.clear();
+				this.freeBuffers.add(buffer);
+			}
+		}
+	}
+
+	/**
+	 * A buffer to write to a channel or, if the buffer is <code>null</code>, a request to close the channel.
+	 */
+	private static final class Request {
+		final WritableByteChannel channel; // NOCS NOPMD (package-private for the enclosing class only)
+		final ByteBuffer buffer; // NOCS NOPMD
+
+		Request(final WritableByteChannel channel, final ByteBuffer buffer) {
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+	}
+}
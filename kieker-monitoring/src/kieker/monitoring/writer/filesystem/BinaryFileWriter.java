@@ -23,12 +23,18 @@ import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
 
 import kieker.common.configuration.Configuration;
 import kieker.common.logging.Log;
 import kieker.common.logging.LogFactory;
 import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
 import kieker.common.record.io.DefaultValueSerializer;
+import kieker.common.record.io.IValueSerializer;
 import kieker.common.util.filesystem.FileExtensionFilter;
 import kieker.monitoring.core.controller.ReceiveUnfilteredConfiguration;
 import kieker.monitoring.registry.GetIdAdapter;
@@ -36,6 +42,7 @@ import kieker.monitoring.registry.IRegistryListener;
 import kieker.monitoring.registry.RegisterAdapter;
 import kieker.monitoring.registry.WriterRegistry;
 import kieker.monitoring.writer.AbstractMonitoringWriter;
+import kieker.monitoring.writer.OperationEventBuffer;
 
 /**
  * @author Jan Waller, Christian Wulf
@@ -64,11 +71,21 @@ public class BinaryFileWriter extends AbstractMonitoringWriter implements IRegis
 	public static final String CONFIG_FLUSH = PREFIX + "flush";
 	/** The name of the configuration determining whether to flush upon each incoming registry entry. */
 	public static final String CONFIG_FLUSH_MAPFILE = PREFIX + "flushMapfile";
+	/** The name of the configuration key determining the number of buffers written asynchronously by a dedicated I/O thread (1 writes synchronously). */
+	public static final String CONFIG_NUM_BUFFERS = PREFIX + "numBuffers";
+	/**
+	 * The name of the configuration key determining the maximal time in milliseconds records are kept in the buffer (0 flushes only full buffers). The
+	 * buffer is flushed by the I/O thread of the asynchronous flushing, which is started for this purpose if necessary.
+	 */
+	public static final String CONFIG_FLUSH_INTERVAL = PREFIX + "flushInterval";
+	/** The name of the configuration key determining the maximal number of records per independently compressed block (0 disables block compression). */
+	public static final String CONFIG_BLOCK_SIZE = PREFIX + "blockSize";
+	/** The name of the configuration key determining the compression level of the blocks (-1 to 9). */
+	public static final String CONFIG_COMPRESSION_LEVEL = PREFIX + "compressionLevel";
 
 	private static final Log LOG = LogFactory.getLog(BinaryFileWriter.class);
 
 	private final Path logFolder;
-	private final ByteBuffer buffer;
 	private final MappingFileWriter mappingFileWriter;
 	private final BinaryFileWriterPool fileWriterPool;
 	private final WriterRegistry writerRegistry;
@@ -76,6 +93,14 @@ public class BinaryFileWriter extends AbstractMonitoringWriter implements IRegis
 	private final GetIdAdapter<String> writeBytesAdapter;
 	private final boolean flush;
 	private final boolean flushMapfile;
+	/** writes the buffers asynchronously; null if the buffers are written synchronously. */
+	private final AsyncChannelFlusher flusher;
+	private final boolean blockCompressed;
+	/**
+	 * guards the buffer and the files against the periodic flush of the I/O thread; null without periodic flush, since the
+	 * writer thread is the only one accessing them then.
+	 */
+	private final ReentrantLock lock;
 
 	public BinaryFileWriter(final Configuration configuration) {
 		super(configuration);
@@ -111,10 +136,34 @@ public class BinaryFileWriter extends AbstractMonitoringWriter implements IRegis
 		final boolean shouldCompress = configuration.getBooleanProperty(CONFIG_SHOULD_COMPRESS);
 		this.flush = configuration.getBooleanProperty(CONFIG_FLUSH, false);
 		this.flushMapfile = configuration.getBooleanProperty(CONFIG_FLUSH_MAPFILE, true);
+		final int numBuffers = configuration.getIntProperty(CONFIG_NUM_BUFFERS, 1);
+		final long flushIntervalInNs = TimeUnit.MILLISECONDS.toNanos(Math.max(0, configuration.getLongProperty(CONFIG_FLUSH_INTERVAL, 0)));
+		final int blockSize = Math.max(0, configuration.getIntProperty(CONFIG_BLOCK_SIZE, 0));
+		final int compressionLevel = configuration.getIntProperty(CONFIG_COMPRESSION_LEVEL, Deflater.BEST_SPEED);
+		this.blockCompressed = blockSize > 0;
 
-		this.buffer = ByteBuffer.allocateDirect(bufferSize);
 		this.mappingFileWriter = new MappingFileWriter(this.logFolder, charsetName);
-		this.fileWriterPool = new BinaryFileWriterPool(LOG, this.logFolder, maxEntriesPerFile, shouldCompress, maxAmountOfFiles, maxMegaBytesPerFile);
+		// the buffer being serialized counts as one of the buffers
+		// the blocks are compressed synchronously
+		final int numIoBuffers = this.blockCompressed ? 0 : numBuffers - 1; // NOCS (?:)
+		if (flushIntervalInNs > 0) {
+			this.lock = new ReentrantLock();
+			// the I/O thread flushes the buffer periodically
+			this.flusher = new AsyncChannelFlusher(LOG, numIoBuffers, bufferSize, flushIntervalInNs, new Runnable() {
+				@Override
+				public void run() {
+					BinaryFileWriter.this.flushIfIdle();
+				}
+			});
+		} else if (numIoBuffers > 0) {
+			this.lock = null; // NOPMD (null)
+			this.flusher = new AsyncChannelFlusher(LOG, numIoBuffers, bufferSize);
+		} else {
+			this.lock = null; // NOPMD (null)
+			this.flusher = null; // NOPMD (null)
+		}
+		this.fileWriterPool = new BinaryFileWriterPool(LOG, this.logFolder, maxEntriesPerFile, shouldCompress, maxAmountOfFiles, maxMegaBytesPerFile,
+				(numIoBuffers > 0) ? this.flusher : null, blockSize, compressionLevel, ByteBuffer.allocateDirect(bufferSize)); // NOCS NOPMD (null)
 
 		this.writerRegistry = new WriterRegistry(this);
 		this.registerStringsAdapter = new RegisterAdapter<String>(this.writerRegistry);
@@ -126,26 +175,120 @@ public class BinaryFileWriter extends AbstractMonitoringWriter implements IRegis
 		// do nothing
 	}
 
+	@Override
+	public void writeMonitoringRecords(final List<IMonitoringRecord> records) {
+		this.lock();
+		try {
+			super.writeMonitoringRecords(records);
+		} finally {
+			this.unlock();
+		}
+	}
+
 	@Override
 	public void writeMonitoringRecord(final IMonitoringRecord monitoringRecord) {
-		final PooledFileChannel channel = this.fileWriterPool.getFileWriter(this.buffer);
+		this.lock();
+		try {
+			this.fileWriterPool.getFileWriter();
+
+			monitoringRecord.registerStrings(this.registerStringsAdapter);
+
+			if ((4 + 8 + monitoringRecord.getSize()) > this.fileWriterPool.getBuffer().remaining()) {
+				this.fileWriterPool.flush();
+			}
+
+			final String recordClassName = monitoringRecord.getClass().getName();
+			this.writerRegistry.register(recordClassName);
+
+			final ByteBuffer recordBuffer = this.fileWriterPool.getBuffer();
+			recordBuffer.putInt(this.writerRegistry.getId(recordClassName));
+			recordBuffer.putLong(monitoringRecord.getLoggingTimestamp());
+			monitoringRecord.serialize(DefaultValueSerializer.create(recordBuffer, this.writeBytesAdapter));
+			this.fileWriterPool.onRecordWritten(monitoringRecord.getLoggingTimestamp());
+
+			if (this.flush) {
+				this.fileWriterPool.flush();
+			}
+		} finally {
+			this.unlock();
+		}
+	}
+
+	@Override
+	public boolean isOperationEventBufferSupported() {
+		return true;
+	}
+
+	/**
+	 * Serializes the events directly from the given buffer so that no record objects are created. The output is identical
+	 * to the one of {@link #writeMonitoringRecord(IMonitoringRecord)} for the corresponding records.
+	 */
+	@Override
+	public void writeOperationEvents(final OperationEventBuffer events) {
+		this.lock();
+		try {
+			ByteBuffer recordBuffer = this.fileWriterPool.getBuffer();
+			IValueSerializer serializer = DefaultValueSerializer.create(recordBuffer, this.writeBytesAdapter);
+			final int numEvents = events.size();
+			for (int i = 0; i < numEvents; i++) {
+				this.fileWriterPool.getFileWriter();
 
-		monitoringRecord.registerStrings(this.registerStringsAdapter);
+				final int operationSignatureId = this.writerRegistry.registerSignature(events.getOperationSignatureId(i));
+				final int classSignatureId = this.writerRegistry.registerSignature(events.getClassSignatureId(i));
 
-		final ByteBuffer recordBuffer = this.buffer;
-		if ((4 + 8 + monitoringRecord.getSize()) > recordBuffer.remaining()) {
-			channel.flush(recordBuffer, LOG);
+				// before and after events have the same size
+				if ((4 + 8 + BeforeOperationEvent.SIZE) > this.fileWriterPool.getBuffer().remaining()) {
+					this.fileWriterPool.flush();
+				}
+
+				final String recordClassName = events.getRecordClassName(i);
+				this.writerRegistry.register(recordClassName);
+
+				// the buffer changes with each asynchronous flush
+				if (recordBuffer != this.fileWriterPool.getBuffer()) { // NOPMD (compare references by == not by equals())
+					recordBuffer = this.fileWriterPool.getBuffer();
+					serializer = DefaultValueSerializer.create(recordBuffer, this.writeBytesAdapter);
+				}
+				recordBuffer.putInt(this.writerRegistry.getId(recordClassName));
+				recordBuffer.putLong(events.getLoggingTimestamp(i));
+				events.serialize(i, serializer, operationSignatureId, classSignatureId);
+				this.fileWriterPool.onRecordWritten(events.getLoggingTimestamp(i));
+
+				if (this.flush) {
+					this.fileWriterPool.flush();
+				}
+			}
+		} finally {
+			this.unlock();
 		}
+	}
 
-		final String recordClassName = monitoringRecord.getClass().getName();
-		this.writerRegistry.register(recordClassName);
+	/**
+	 * Flushes the buffer unless the writer thread is currently writing. Called periodically by the I/O thread, so that
+	 * records are written in time even if no further records arrive.
+	 */
+	void flushIfIdle() {
+		// the writer thread may wait for the I/O thread while holding the lock
+		if (this.lock.tryLock()) {
+			try {
+				if (this.fileWriterPool.getBuffer().position() > 0) {
+					this.fileWriterPool.flush();
+				}
+			} finally {
+				this.lock.unlock();
+			}
+		}
+	}
 
-		recordBuffer.putInt(this.writerRegistry.getId(recordClassName));
-		recordBuffer.putLong(monitoringRecord.getLoggingTimestamp());
-		monitoringRecord.serialize(DefaultValueSerializer.create(recordBuffer, this.writeBytesAdapter));
+	private void lock() {
+		if (this.lock != null) {
+			this.lock.lock();
+		}
+	}
 
-		if (this.flush) {
-			channel.flush(recordBuffer, LOG);
+	private void unlock() {
+		if (this.lock != null) {
+			this.lock.unlock();
 		}
 	}
 
@@ -166,7 +309,18 @@ public class BinaryFileWriter extends AbstractMonitoringWriter implements IRegis
 
 	@Override
 	public void onTerminating() {
-		this.fileWriterPool.close(this.buffer);
+		this.lock();
+		try {
+			this.fileWriterPool.close();
+		} finally {
+			this.unlock();
+		}
+		if (this.flusher != null) {
+			this.flusher.terminate();
+			final long durationInMs = TimeUnit.NANOSECONDS.toMillis(this.flusher.getWriteDurationInNs());
+			LOG.info("Wrote " + this.flusher.getBytesWritten() + " bytes in " + this.flusher.getNumWrites() + " writes taking " + durationInMs
+					+ " ms in total");
+		}
 		this.mappingFileWriter.close();
 	}
 
@@ -177,7 +331,7 @@ public class BinaryFileWriter extends AbstractMonitoringWriter implements IRegis
 
 	@Override
 	public FilenameFilter getFileNameFilter() {
-		return FileExtensionFilter.BIN;
+		return (this.blockCompressed) ? FileExtensionFilter.BLOCK : FileExtensionFilter.BIN; // NOCS
 	}
 
 	@Override
@@ -189,7 +343,10 @@ public class BinaryFileWriter extends AbstractMonitoringWriter implements IRegis
 			.append("Internal properties:")
 			.append("\n\t\t")
 			.append("Log location: ")
-			.append(this.logFolder);
+			.append(this.logFolder)
+			.append("\n\t\t")
+			.append("Asynchronous flush: ")
+			.append(this.flusher != null);
 		return builder.toString();
 	}
 }
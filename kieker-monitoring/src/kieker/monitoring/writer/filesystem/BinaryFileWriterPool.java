@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -46,12 +48,39 @@ class BinaryFileWriterPool extends WriterPool {
 	private final String fileExtensionWithDot;
 	private final int maxAmountOfFiles;
 
+	private final AsyncChannelFlusher flusher;
+	/** the maximal number of records per compressed block; 0 if the files are not block-compressed. */
+	private final int blockSize;
+	private final int compressionLevel;
+
+	private ByteBuffer buffer;
 	private PooledFileChannel currentChannel;
+	/** the channel compressing the blocks of the current file; null if the files are not block-compressed. */
+	private BlockCompressingChannel currentBlockChannel;
 	private int currentFileNumber;
 
+	/**
+	 * @param flusher
+	 *            writes the buffers asynchronously; <code>null</code> to write the buffers synchronously
+	 * @param blockSize
+	 *            the maximal number of records per independently compressed block or 0 to not write block-compressed
+	 *            files; if greater than 0, <code>shouldCompress</code> and <code>flusher</code> are ignored
+	 * @param compressionLevel
+	 *            the compression level of the blocks
+	 * @param buffer
+	 *            the buffer to serialize the records into; replaced by a free buffer of the flusher on each
+	 *            asynchronous flush
+	 *
+	 * @since 1.14
+	 */
 	public BinaryFileWriterPool(final Log writerLog, final Path folder, final int maxEntriesPerFile, final boolean shouldCompress, final int maxAmountOfFiles,
-			final int maxMegaBytesPerFile) {
+			final int maxMegaBytesPerFile, final AsyncChannelFlusher flusher, final int blockSize, final int compressionLevel, final ByteBuffer buffer) {
 		super(writerLog, folder);
+		this.buffer = buffer;
+		this.blockSize = blockSize;
+		this.compressionLevel = compressionLevel;
+		// the statistics of a block are collected synchronously to the serialization
+		this.flusher = (blockSize > 0) ? null : flusher; // NOCS NOPMD (null)
 		this.maxEntriesPerFile = maxEntriesPerFile;
 		this.numEntriesInCurrentFile = maxEntriesPerFile; // triggers file creation
 		this.shouldCompress = shouldCompress;
@@ -59,19 +88,32 @@ class BinaryFileWriterPool extends WriterPool {
 		this.maxBytesPerFile = maxMegaBytesPerFile * 1024L * 1024L; // conversion from MB to Bytes
 
 		this.currentChannel = new PooledFileChannel(Channels.newChannel(new ByteArrayOutputStream())); // NullObject design pattern
-		this.fileExtensionWithDot = (shouldCompress) ? FSUtil.ZIP_FILE_EXTENSION : FSUtil.BINARY_FILE_EXTENSION; // NOCS
+		if (blockSize > 0) {
+			this.fileExtensionWithDot = FSUtil.BLOCK_FILE_EXTENSION;
+		} else {
+			this.fileExtensionWithDot = (shouldCompress) ? FSUtil.ZIP_FILE_EXTENSION : FSUtil.BINARY_FILE_EXTENSION; // NOCS
+		}
 	}
 
-	public PooledFileChannel getFileWriter(final ByteBuffer buffer) {
+	/**
+	 * @return the buffer to serialize the records into; changes with each flush
+	 *
+	 * @since 1.14
+	 */
+	public ByteBuffer getBuffer() {
+		return this.buffer;
+	}
+
+	public PooledFileChannel getFileWriter() {
 		this.numEntriesInCurrentFile++;
 
 		// (buffer overflow aware comparison) means: numEntriesInCurrentFile > maxEntriesPerFile
 		if ((this.numEntriesInCurrentFile - this.maxEntriesPerFile) > 0) {
-			this.onThresholdExceeded(buffer);
+			this.onThresholdExceeded();
 		}
 
 		if (this.currentChannel.getBytesWritten() > this.maxBytesPerFile) {
-			this.onThresholdExceeded(buffer);
+			this.onThresholdExceeded();
 		}
 
 		if (this.logFiles.size() > this.maxAmountOfFiles) {
@@ -81,27 +123,35 @@ class BinaryFileWriterPool extends WriterPool {
 		return this.currentChannel;
 	}
 
-	private void onThresholdExceeded(final ByteBuffer buffer) {
-		this.currentChannel.close(buffer, this.writerLog);
+	private void onThresholdExceeded() {
+		this.buffer = this.currentChannel.close(this.buffer, this.writerLog);
 		// we expect this.folder to exist
 
 		this.currentFileNumber++;
 
 		final Path newFile = this.getNextFileName(this.currentFileNumber, this.fileExtensionWithDot);
 		try {
-			// use CREATE_NEW to fail if the file already exists
-			OutputStream outputStream = Files.newOutputStream(newFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
-			// stream is not buffered, since the byte buffer itself is the buffer
+			final WritableByteChannel channel;
+			if (this.blockSize > 0) {
+				this.currentBlockChannel = new BlockCompressingChannel(
+						FileChannel.open(newFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), this.compressionLevel);
+				channel = this.currentBlockChannel;
+			} else if (this.shouldCompress) {
+				// use CREATE_NEW to fail if the file already exists
+				final OutputStream outputStream = Files.newOutputStream(newFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+				// stream is not buffered, since the byte buffer itself is the buffer
 
-			if (this.shouldCompress) {
 				// final GZIPOutputStream compressedOutputStream = new GZIPOutputStream(outputStream);
 				final ZipOutputStream compressedOutputStream = new ZipOutputStream(outputStream);
 				final ZipEntry newZipEntry = new ZipEntry(newFile.toString() + FSUtil.NORMAL_FILE_EXTENSION);
 				compressedOutputStream.putNextEntry(newZipEntry);
-				outputStream = compressedOutputStream;
+				channel = Channels.newChannel(compressedOutputStream);
+			} else {
+				// a file channel supports gathering writes of several buffers at once
+				channel = FileChannel.open(newFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
 			}
 
-			this.currentChannel = new PooledFileChannel(Channels.newChannel(outputStream));
+			this.currentChannel = new PooledFileChannel(channel, this.flusher);
 		} catch (final IOException e) {
 			throw new IllegalStateException("This exception should not have been thrown.", e);
 		}
@@ -109,8 +159,29 @@ class BinaryFileWriterPool extends WriterPool {
 		this.numEntriesInCurrentFile = 1;
 	}
 
-	public void close(final ByteBuffer buffer) {
-		this.currentChannel.close(buffer, this.writerLog);
+	/**
+	 * Announces a record which has just been serialized into the buffer. If block compression is enabled and the buffer
+	 * contains the maximal number of records per block, the buffer is flushed as a block.
+	 *
+	 * @since 1.14
+	 */
+	public void onRecordWritten(final long loggingTimestamp) {
+		if ((this.currentBlockChannel != null) && (this.currentBlockChannel.onRecord(loggingTimestamp) >= this.blockSize)) {
+			this.flush();
+		}
+	}
+
+	/**
+	 * Flushes the buffer to the current file.
+	 *
+	 * @since 1.14
+	 */
+	public void flush() {
+		this.buffer = this.currentChannel.flush(this.buffer, this.writerLog);
+	}
+
+	public void close() {
+		this.buffer = this.currentChannel.close(this.buffer, this.writerLog);
 	}
 
 }
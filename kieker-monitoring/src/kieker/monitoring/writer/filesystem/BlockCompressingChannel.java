@@ -0,0 +1,182 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.filesystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.Deflater;
+
+import kieker.common.util.filesystem.BlockLogFormat;
+
+/**
+ * Writes Kieker's block-compressed binary format (see {@link BlockLogFormat}). Each call of {@link #write(ByteBuffer)}
+ * compresses the remaining bytes of the given buffer into a single block. Hence, the buffer must contain complete
+ * records only, and each of them must have been announced by {@link #onRecord(long)} beforehand. The index of the
+ * written blocks is appended when the channel is closed.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+class BlockCompressingChannel implements WritableByteChannel {
+
+	private static final int INITIAL_INDEX_CAPACITY = 64 * BlockLogFormat.INDEX_ENTRY_SIZE;
+
+	private final WritableByteChannel channel;
+	private final Deflater deflater;
+	private final ByteBuffer blockHeader = ByteBuffer.allocate(BlockLogFormat.BLOCK_HEADER_SIZE);
+
+	private byte[] uncompressedBlock = new byte[0];
+	private byte[] compressedBlock = new byte[0];
+	private ByteBuffer index = ByteBuffer.allocate(INITIAL_INDEX_CAPACITY);
+	private int numBlocks;
+	/** the number of bytes written to the underlying channel. */
+	private long position;
+
+	// statistics of the current block
+	private int numRecords;
+	private long minLoggingTimestamp = Long.MAX_VALUE;
+	private long maxLoggingTimestamp = Long.MIN_VALUE;
+
+	/**
+	 * @param channel
+	 *            the channel to write the compressed blocks to
+	 * @param compressionLevel
+	 *            the compression level of the deflate format (see {@link Deflater#setLevel(int)})
+	 */
+	public BlockCompressingChannel(final WritableByteChannel channel, final int compressionLevel) throws IOException {
+		this.channel = channel;
+		this.deflater = new Deflater(compressionLevel, true);
+
+		final ByteBuffer fileHeader = ByteBuffer.allocate(BlockLogFormat.FILE_HEADER_SIZE);
+		fileHeader.putInt(BlockLogFormat.FILE_MAGIC);
+		fileHeader.putInt(BlockLogFormat.VERSION);
+		fileHeader.flip();
+		this.writeFully(fileHeader);
+	}
+
+	/**
+	 * Announces a record which is contained in the next block.
+	 *
+	 * @return the number of records of the next block
+	 */
+	public int onRecord(final long loggingTimestamp) {
+		if (loggingTimestamp < this.minLoggingTimestamp) {
+			this.minLoggingTimestamp = loggingTimestamp;
+		}
+		if (loggingTimestamp > this.maxLoggingTimestamp) {
+			this.maxLoggingTimestamp = loggingTimestamp;
+		}
+		return ++this.numRecords;
+	}
+
+	@Override
+	public int write(final ByteBuffer src) throws IOException {
+		final int uncompressedSize = src.remaining();
+		if (uncompressedSize == 0) {
+			return 0;
+		}
+
+		if (this.uncompressedBlock.length < uncompressedSize) {
+			this.uncompressedBlock = new byte[uncompressedSize];
+		}
+		src.get(this.uncompressedBlock, 0, uncompressedSize);
+
+		this.deflater.reset();
+		this.deflater.setInput(this.uncompressedBlock, 0, uncompressedSize);
+		this.deflater.finish();
+		int compressedSize = 0;
+		while (!this.deflater.finished()) {
+			if (compressedSize == this.compressedBlock.length) {
+				this.compressedBlock = this.grow(this.compressedBlock, uncompressedSize);
+			}
+			compressedSize += this.deflater.deflate(this.compressedBlock, compressedSize, this.compressedBlock.length - compressedSize);
+		}
+
+		this.appendIndexEntry();
+
+		this.blockHeader.clear();
+		this.blockHeader.putInt(compressedSize);
+		this.blockHeader.putInt(uncompressedSize);
+		this.blockHeader.putInt(this.numRecords);
+		this.blockHeader.putLong(this.minLoggingTimestamp);
+		this.blockHeader.putLong(this.maxLoggingTimestamp);
+		this.blockHeader.flip();
+		this.writeFully(this.blockHeader);
+		this.writeFully(ByteBuffer.wrap(this.compressedBlock, 0, compressedSize));
+
+		this.numRecords = 0;
+		this.minLoggingTimestamp = Long.MAX_VALUE;
+		this.maxLoggingTimestamp = Long.MIN_VALUE;
+
+		return uncompressedSize;
+	}
+
+	private byte[] grow(final byte[] array, final int minLength) {
+		final byte[] newArray = new byte[Math.max(minLength, array.length * 2)];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	private void appendIndexEntry() {
+		if (this.index.remaining() < BlockLogFormat.INDEX_ENTRY_SIZE) {
+			final ByteBuffer newIndex = ByteBuffer.allocate(this.index.capacity() * 2);
+			this.index.flip();
+			newIndex.put(this.index);
+			this.index = newIndex;
+		}
+		this.index.putLong(this.position);
+		this.index.putInt(this.numRecords);
+		this.index.putLong(this.minLoggingTimestamp);
+		this.index.putLong(this.maxLoggingTimestamp);
+		this.numBlocks++;
+	}
+
+	private void writeFully(final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			this.position += this.channel.write(buffer);
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return this.channel.isOpen();
+	}
+
+	/**
+	 * Appends the index and the footer and closes the underlying channel.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			final long indexOffset = this.position;
+			this.index.flip();
+			this.writeFully(this.index);
+
+			final ByteBuffer footer = ByteBuffer.allocate(BlockLogFormat.FOOTER_SIZE);
+			footer.putLong(indexOffset);
+			footer.putInt(this.numBlocks);
+			footer.putInt(BlockLogFormat.FOOTER_MAGIC);
+			footer.flip();
+			this.writeFully(footer);
+		} finally {
+			this.deflater.end();
+			this.channel.close();
+		}
+	}
+}
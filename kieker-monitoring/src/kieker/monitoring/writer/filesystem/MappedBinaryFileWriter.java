@@ -0,0 +1,288 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.filesystem;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.BufferOverflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import kieker.common.configuration.Configuration;
+import kieker.common.logging.Log;
+import kieker.common.logging.LogFactory;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
+import kieker.common.record.io.DefaultValueSerializer;
+import kieker.common.record.io.IValueSerializer;
+import kieker.common.util.filesystem.FileExtensionFilter;
+import kieker.monitoring.core.controller.ReceiveUnfilteredConfiguration;
+import kieker.monitoring.registry.GetIdAdapter;
+import kieker.monitoring.registry.IRegistryListener;
+import kieker.monitoring.registry.WriterRegistry;
+import kieker.monitoring.writer.AbstractMonitoringWriter;
+import kieker.monitoring.writer.OperationEventBuffer;
+
+/**
+ * Writes the records in the binary format of the {@link BinaryFileWriter}, but serializes them directly into
+ * memory-mapped segment files of a fixed size instead of copying them from a buffer to a stream. A new segment file is
+ * started if the next record does not fit into the current one or if the current one contains the maximal number of
+ * entries. Since the operating system writes the mapped content back to the files, the writer only forces it to the
+ * storage device at a configurable interval.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+@ReceiveUnfilteredConfiguration // required for using class KiekerLogFolder
+public class MappedBinaryFileWriter extends AbstractMonitoringWriter implements IRegistryListener<String>, IFileWriter {
+
+	public static final String PREFIX = MappedBinaryFileWriter.class.getName() + ".";
+	/** The name of the configuration for the custom storage path if the writer is advised not to store in the temporary directory. */
+	public static final String CONFIG_PATH = PREFIX + "customStoragePath";
+	/** The name of the configuration determining the maximal number of entries in a file. */
+	public static final String CONFIG_MAXENTRIESINFILE = PREFIX + "maxEntriesInFile";
+	/** The name of the configuration determining the size of the pre-allocated segment files in MiB. */
+	public static final String CONFIG_MAXLOGSIZE = PREFIX + "maxLogSize"; // in MiB
+	/** The name of the configuration determining the maximal number of log files. */
+	public static final String CONFIG_MAXLOGFILES = PREFIX + "maxLogFiles";
+	/** The name of the configuration key for the charset name of the mapping file */
+	public static final String CONFIG_CHARSET_NAME = PREFIX + "charsetName";
+	/** The name of the configuration determining whether to flush upon each incoming registry entry. */
+	public static final String CONFIG_FLUSH_MAPFILE = PREFIX + "flushMapfile";
+	/** The name of the configuration key determining the minimal time in milliseconds between forcing the segment to the storage device (0 never forces). */
+	public static final String CONFIG_FORCE_INTERVAL = PREFIX + "forceInterval";
+
+	private static final Log LOG = LogFactory.getLog(MappedBinaryFileWriter.class);
+
+	/** the segment size if none is configured. */
+	private static final int DEFAULT_SEGMENT_SIZE_IN_MB = 64;
+	/** a mapping must not exceed 2 GiB. */
+	private static final int MAX_SEGMENT_SIZE_IN_MB = 1024;
+
+	private final Path logFolder;
+	private final MappingFileWriter mappingFileWriter;
+	private final MappedSegmentPool segmentPool;
+	private final WriterRegistry writerRegistry;
+	private final GetIdAdapter<String> writeBytesAdapter;
+	private final boolean flushMapfile;
+	private final long forceIntervalInNs;
+	private long lastForceTime;
+
+	/** the segment the serializer writes to. */
+	private MappedByteBuffer segment;
+	private IValueSerializer serializer;
+
+	public MappedBinaryFileWriter(final Configuration configuration) {
+		super(configuration);
+
+		String configPathName = configuration.getStringProperty(CONFIG_PATH);
+		if (configPathName.isEmpty()) { // if the property does not exist or if the path is empty
+			configPathName = System.getProperty("java.io.tmpdir");
+		}
+
+		if (!(new File(configPathName)).isDirectory()) {
+			throw new IllegalArgumentException("'" + configPathName + "' is not a directory.");
+		}
+
+		this.logFolder = KiekerLogFolder.buildKiekerLogFolder(configPathName, configuration);
+
+		try {
+			Files.createDirectories(this.logFolder);
+		} catch (final IOException e) {
+			throw new IllegalStateException("Error on creating Kieker's log directory.", e);
+		}
+
+		int maxEntriesPerFile = configuration.getIntProperty(CONFIG_MAXENTRIESINFILE);
+		int segmentSizeInMegaBytes = configuration.getIntProperty(CONFIG_MAXLOGSIZE);
+		int maxAmountOfFiles = configuration.getIntProperty(CONFIG_MAXLOGFILES);
+
+		maxEntriesPerFile = (maxEntriesPerFile <= 0) ? Integer.MAX_VALUE : maxEntriesPerFile;// NOCS
+		segmentSizeInMegaBytes = (segmentSizeInMegaBytes <= 0) ? DEFAULT_SEGMENT_SIZE_IN_MB : Math.min(segmentSizeInMegaBytes, MAX_SEGMENT_SIZE_IN_MB);// NOCS
+		maxAmountOfFiles = (maxAmountOfFiles <= 0) ? Integer.MAX_VALUE : maxAmountOfFiles;// NOCS
+
+		final String charsetName = configuration.getStringProperty(CONFIG_CHARSET_NAME, "UTF-8");
+		this.flushMapfile = configuration.getBooleanProperty(CONFIG_FLUSH_MAPFILE, true);
+		this.forceIntervalInNs = TimeUnit.MILLISECONDS.toNanos(Math.max(0, configuration.getLongProperty(CONFIG_FORCE_INTERVAL, 0)));
+
+		this.mappingFileWriter = new MappingFileWriter(this.logFolder, charsetName);
+		this.segmentPool = new MappedSegmentPool(LOG, this.logFolder, segmentSizeInMegaBytes * 1024 * 1024, maxEntriesPerFile, maxAmountOfFiles);
+
+		this.writerRegistry = new WriterRegistry(this);
+		this.writeBytesAdapter = new GetIdAdapter<String>(this.writerRegistry);
+	}
+
+	@Override
+	public void onStarting() {
+		this.lastForceTime = System.nanoTime();
+	}
+
+	@Override
+	public void writeMonitoringRecords(final List<IMonitoringRecord> records) {
+		super.writeMonitoringRecords(records);
+		this.forceIfIntervalElapsed();
+	}
+
+	@Override
+	public void writeMonitoringRecord(final IMonitoringRecord monitoringRecord) {
+		final MappedByteBuffer currentSegment = this.segmentPool.getSegment(4 + 8);
+		if (!this.serializeRecord(monitoringRecord, currentSegment)) {
+			// the record does not fit into the remainder of the segment; try again with a new one unless it is empty already
+			if ((currentSegment.position() == 0) || !this.serializeRecord(monitoringRecord, this.segmentPool.getNewSegment())) {
+				LOG.error("Dropping record of type " + monitoringRecord.getClass().getName() + " since its size exceeds the segment size.");
+				return;
+			}
+		}
+		this.segmentPool.markEnd();
+	}
+
+	/**
+	 * @return <code>true</code> if the record has been serialized, <code>false</code> if the remainder of the segment is
+	 *         too small; in this case, the position of the segment is left unchanged
+	 */
+	private boolean serializeRecord(final IMonitoringRecord monitoringRecord, final MappedByteBuffer currentSegment) {
+		final IValueSerializer recordSerializer = this.getSerializer(currentSegment);
+		final int startPosition = currentSegment.position();
+		try {
+			// the class id is written last, so that the serializer registers the strings of the record before its class
+			// name, as the BinaryFileWriter does (the segment has at least 4 + 8 bytes left)
+			currentSegment.position(startPosition + 4);
+			currentSegment.putLong(monitoringRecord.getLoggingTimestamp());
+			monitoringRecord.serialize(recordSerializer);
+		} catch (final BufferOverflowException e) {
+			// the end marker at the start position has not been overwritten
+			currentSegment.position(startPosition);
+			return false;
+		}
+		final String recordClassName = monitoringRecord.getClass().getName();
+		this.writerRegistry.register(recordClassName);
+		currentSegment.putInt(startPosition, this.writerRegistry.getId(recordClassName));
+		return true;
+	}
+
+	@Override
+	public boolean isOperationEventBufferSupported() {
+		return true;
+	}
+
+	/**
+	 * Serializes the events directly from the given buffer so that no record objects are created. The output is identical
+	 * to the one of {@link #writeMonitoringRecord(IMonitoringRecord)} for the corresponding records.
+	 */
+	@Override
+	public void writeOperationEvents(final OperationEventBuffer events) {
+		final int numEvents = events.size();
+		for (int i = 0; i < numEvents; i++) {
+			final int operationSignatureId = this.writerRegistry.registerSignature(events.getOperationSignatureId(i));
+			final int classSignatureId = this.writerRegistry.registerSignature(events.getClassSignatureId(i));
+
+			final String recordClassName = events.getRecordClassName(i);
+			this.writerRegistry.register(recordClassName);
+
+			// before and after events have the same size
+			final IValueSerializer eventSerializer = this.getSerializer(this.segmentPool.getSegment(4 + 8 + BeforeOperationEvent.SIZE));
+			this.segment.putInt(this.writerRegistry.getId(recordClassName));
+			this.segment.putLong(events.getLoggingTimestamp(i));
+			events.serialize(i, eventSerializer, operationSignatureId, classSignatureId);
+			this.segmentPool.markEnd();
+		}
+		this.forceIfIntervalElapsed();
+	}
+
+	/**
+	 * @return a serializer writing to the given segment
+	 */
+	private IValueSerializer getSerializer(final MappedByteBuffer currentSegment) {
+		if (currentSegment != this.segment) { // NOPMD (compare references by == not by equals())
+			this.segment = currentSegment;
+			this.serializer = DefaultValueSerializer.create(currentSegment, this.writeBytesAdapter);
+		}
+		return this.serializer;
+	}
+
+	/**
+	 * Forces the current segment to the storage device if the configured interval has elapsed since the last check. The
+	 * interval is checked after each batch of records since the writer thread is idle otherwise.
+	 */
+	private void forceIfIntervalElapsed() {
+		if (this.forceIntervalInNs > 0) {
+			final long now = System.nanoTime();
+			if ((now - this.lastForceTime) >= this.forceIntervalInNs) {
+				this.segmentPool.force();
+				this.lastForceTime = now;
+			}
+		}
+	}
+
+	@Override
+	public void onNewRegistryEntry(final String recordClassName, final int id) {
+		final PrintWriter mappingPrintWriter = this.mappingFileWriter.getFileWriter();
+
+		mappingPrintWriter.print('$');
+		mappingPrintWriter.print(id);
+		mappingPrintWriter.print('=');
+		mappingPrintWriter.print(recordClassName);
+		mappingPrintWriter.println();
+
+		if (this.flushMapfile) {
+			mappingPrintWriter.flush();
+		}
+	}
+
+	@Override
+	public void onTerminating() {
+		if (this.forceIntervalInNs > 0) {
+			this.segmentPool.force();
+		}
+		// the segment is unmapped on closing and must not be accessed afterwards
+		this.segment = null; // NOPMD (null)
+		this.serializer = null; // NOPMD (null)
+		this.segmentPool.close();
+		this.mappingFileWriter.close();
+	}
+
+	@Override
+	public Path getLogFolder() {
+		return this.logFolder;
+	}
+
+	@Override
+	public FilenameFilter getFileNameFilter() {
+		return FileExtensionFilter.BIN;
+	}
+
+	@Override
+	public String toString() {
+		final String configInfo = super.toString();
+		final StringBuilder builder = new StringBuilder()
+			.append(configInfo)
+			.append("\n\t")
+			.append("Internal properties:")
+			.append("\n\t\t")
+			.append("Log location: ")
+			.append(this.logFolder)
+			.append("\n\t\t")
+			.append("Maximal entry size: ")
+			.append(this.segmentPool.getMaxEntrySize());
+		return builder.toString();
+	}
+}
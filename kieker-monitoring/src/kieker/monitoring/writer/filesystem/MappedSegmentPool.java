@@ -0,0 +1,211 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.filesystem;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import kieker.common.logging.Log;
+import kieker.common.util.filesystem.FSUtil;
+import kieker.monitoring.writer.WriterUtil;
+
+/**
+ * Manages the segment files of the {@link MappedBinaryFileWriter}. Each segment file is pre-allocated with a fixed size
+ * and mapped into memory as a whole. The last entry of a segment is always followed by an end marker (see
+ * {@link FSUtil#END_OF_RECORDS_CLASS_ID}), so that readers ignore the unused part of a segment which has not been
+ * closed, e.g., after a crash. When a segment is closed, it is unmapped and its file is truncated to the number of bytes
+ * actually written so that readers see the same content as written by the {@link BinaryFileWriter}.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+class MappedSegmentPool extends WriterPool {
+
+	private static final int END_MARKER_SIZE = 4;
+
+	private final int segmentSize;
+	private final int maxEntriesPerFile;
+	private final int maxAmountOfFiles;
+
+	private FileChannel currentChannel;
+	/** the mapping of the current segment file; its limit excludes the space for the end marker. */
+	private MappedByteBuffer currentSegment;
+	private int numEntriesInCurrentFile;
+	private int currentFileNumber;
+
+	/**
+	 * @param segmentSize
+	 *            the size of each segment file in bytes
+	 */
+	public MappedSegmentPool(final Log writerLog, final Path folder, final int segmentSize, final int maxEntriesPerFile, final int maxAmountOfFiles) {
+		super(writerLog, folder);
+		this.segmentSize = segmentSize;
+		this.maxEntriesPerFile = maxEntriesPerFile;
+		this.maxAmountOfFiles = maxAmountOfFiles;
+	}
+
+	/**
+	 * @return the maximal size of an entry
+	 */
+	public int getMaxEntrySize() {
+		return this.segmentSize - END_MARKER_SIZE;
+	}
+
+	/**
+	 * Returns the current segment for the next entry. A new segment is started if the current one does not have the
+	 * given number of bytes left or if it already contains the maximal number of entries.
+	 *
+	 * @param numBytes
+	 *            the number of bytes of the next entry; must not be greater than the maximal entry size
+	 * @return the segment whose position is the start of the next entry
+	 */
+	public MappedByteBuffer getSegment(final int numBytes) {
+		this.numEntriesInCurrentFile++;
+
+		// (buffer overflow aware comparison) means: numEntriesInCurrentFile > maxEntriesPerFile
+		if ((this.currentSegment == null) || ((this.numEntriesInCurrentFile - this.maxEntriesPerFile) > 0)
+				|| (this.currentSegment.remaining() < numBytes)) {
+			this.onThresholdExceeded();
+		}
+
+		if (this.logFiles.size() > this.maxAmountOfFiles) {
+			this.onMaxLogFilesExceeded();
+		}
+
+		return this.currentSegment;
+	}
+
+	/**
+	 * Starts a new segment for an entry which did not fit into the remainder of the current one.
+	 *
+	 * @return the new segment
+	 */
+	public MappedByteBuffer getNewSegment() {
+		this.onThresholdExceeded();
+
+		if (this.logFiles.size() > this.maxAmountOfFiles) {
+			this.onMaxLogFilesExceeded();
+		}
+
+		return this.currentSegment;
+	}
+
+	/**
+	 * Marks the current position of the current segment as the end of its entries. This must be called after each
+	 * entry.
+	 */
+	public void markEnd() {
+		final MappedByteBuffer segment = this.currentSegment;
+		// the limit reserves the space of the end marker
+		segment.limit(this.segmentSize);
+		segment.putInt(segment.position(), FSUtil.END_OF_RECORDS_CLASS_ID);
+		segment.limit(this.segmentSize - END_MARKER_SIZE);
+	}
+
+	private void onThresholdExceeded() {
+		this.close();
+		// we expect this.folder to exist
+
+		this.currentFileNumber++;
+
+		final Path newFile = this.getNextFileName(this.currentFileNumber, FSUtil.BINARY_FILE_EXTENSION);
+		try {
+			// use CREATE_NEW to fail if the file already exists; mapping a region beyond the end enlarges the file
+			this.currentChannel = FileChannel.open(newFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.currentSegment = this.currentChannel.map(MapMode.READ_WRITE, 0, this.segmentSize);
+		} catch (final IOException e) {
+			throw new IllegalStateException("Error on creating the segment file '" + newFile + "'.", e);
+		}
+		this.markEnd();
+
+		this.numEntriesInCurrentFile = 1;
+	}
+
+	/**
+	 * Forces the content of the current segment to be written to the storage device.
+	 */
+	public void force() {
+		if (this.currentSegment != null) {
+			this.currentSegment.force();
+		}
+	}
+
+	/**
+	 * Closes the current segment. It is unmapped and its file is truncated to the written content. If either fails, the
+	 * file keeps its size and the end marker delimits the written content.
+	 */
+	public void close() {
+		if (this.currentSegment == null) {
+			return;
+		}
+		final MappedByteBuffer segment = this.currentSegment;
+		final int length = segment.position();
+		this.currentSegment = null; // NOPMD (null)
+		// some platforms, e.g., Windows, do not allow truncating a file which is still mapped
+		if (this.unmap(segment)) {
+			try {
+				this.currentChannel.truncate(length);
+			} catch (final IOException e) {
+				this.writerLog.warn("Cannot truncate the segment file. Its remainder is ignored by readers.", e);
+			}
+		}
+		WriterUtil.close(this.currentChannel, this.writerLog);
+		this.currentChannel = null; // NOPMD (null)
+	}
+
+	/**
+	 * Releases the given mapping immediately instead of when it is garbage collected. There is no public API for this,
+	 * thus the cleaner of the buffer is invoked by reflection. The buffer must not be accessed afterwards.
+	 *
+	 * @return <code>true</code> if the mapping has been released, otherwise <code>false</code>
+	 */
+	private boolean unmap(final MappedByteBuffer segment) {
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner;
+			try {
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			} catch (final NoSuchMethodException e) { // NOPMD (up to Java 8)
+				invokeCleaner = null; // NOPMD (null)
+			}
+			if (invokeCleaner != null) { // since Java 9
+				final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				invokeCleaner.invoke(theUnsafe.get(null), segment);
+			} else {
+				final Method cleanerMethod = segment.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				final Object cleaner = cleanerMethod.invoke(segment);
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+			return true;
+		} catch (final ClassNotFoundException | NoSuchMethodException | NoSuchFieldException | IllegalAccessException | InvocationTargetException
+				| RuntimeException e) {
+			this.writerLog.warn("Cannot unmap the segment file. Its remainder is ignored by readers.", e);
+			return false;
+		}
+	}
+}
@@ -30,27 +30,65 @@ import kieker.monitoring.writer.WriterUtil;
 class PooledFileChannel {
 
 	private final WritableByteChannel channel;
+	/** writes the buffers asynchronously; null if the buffers are written synchronously. */
+	private final AsyncChannelFlusher flusher;
 
 	private long bytesWritten;
 
 	public PooledFileChannel(final WritableByteChannel channel) {
+		this(channel, null);
+	}
+
+	/**
+	 * @param channel
+	 *            the channel to write to
+	 * @param flusher
+	 *            the flusher writing the buffers asynchronously or <code>null</code> to write the buffers synchronously
+	 *
+	 * @since 1.14
+	 */
+	public PooledFileChannel(final WritableByteChannel channel, final AsyncChannelFlusher flusher) {
 		super();
 		this.channel = channel;
+		this.flusher = flusher;
 	}
 
 	public long getBytesWritten() {
 		return this.bytesWritten;
 	}
 
-	public void flush(final ByteBuffer buffer, final Log log) {
-		this.bytesWritten += WriterUtil.flushBuffer(buffer, this.channel, log);
+	/**
+	 * Flushes the buffer.
+	 *
+	 * @return the empty buffer to continue with, which is another one than the given buffer if the given buffer is
+	 *         written asynchronously
+	 */
+	public ByteBuffer flush(final ByteBuffer buffer, final Log log) {
+		if (this.flusher != null) {
+			final int numBytes = buffer.position();
+			final ByteBuffer nextBuffer = this.flusher.flush(buffer, this.channel);
+			if (nextBuffer != buffer) { // NOPMD (compare references by == not by equals())
+				this.bytesWritten += numBytes;
+			}
+			return nextBuffer;
+		} else {
+			this.bytesWritten += WriterUtil.flushBuffer(buffer, this.channel, log);
+			return buffer;
+		}
 	}
 
 	/**
 	 * Flushes the buffer and closes the channel afterwards.
+	 *
+	 * @return the empty buffer to continue with
 	 */
-	public void close(final ByteBuffer buffer, final Log log) {
-		this.bytesWritten += WriterUtil.flushBuffer(buffer, this.channel, log);
-		WriterUtil.close(this.channel, log);
+	public ByteBuffer close(final ByteBuffer buffer, final Log log) {
+		final ByteBuffer nextBuffer = this.flush(buffer, log);
+		if (this.flusher != null) {
+			this.flusher.close(this.channel);
+		} else {
+			WriterUtil.close(this.channel, log);
+		}
+		return nextBuffer;
 	}
 }
@@ -0,0 +1,83 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.raw;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A fixed number of equally sized buffers which are handed out as {@link PooledBuffer}s. If all buffers are in use,
+ * {@link #acquire()} blocks until one is released; this limits the amount of data in flight.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class BufferPool {
+
+	private final BlockingQueue<PooledBuffer> availableBuffers;
+	private final int bufferSize;
+
+	/**
+	 * Creates a new pool and allocates all of its buffers.
+	 *
+	 * @param numBuffers
+	 *            the number of buffers
+	 * @param bufferSize
+	 *            the capacity of each buffer in bytes
+	 * @param direct
+	 *            whether the buffers are allocated outside of the heap (see {@link ByteBuffer#allocateDirect(int)})
+	 */
+	public BufferPool(final int numBuffers, final int bufferSize, final boolean direct) {
+		this.bufferSize = bufferSize;
+		this.availableBuffers = new ArrayBlockingQueue<PooledBuffer>(numBuffers);
+		for (int i = 0; i < numBuffers; i++) {
+			final ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize); // NOCS (?:)
+			this.availableBuffers.add(new PooledBuffer(buffer, this));
+		}
+	}
+
+	/**
+	 * Takes a buffer out of the pool and waits for one to be released if necessary.
+	 *
+	 * @return a cleared buffer with a single reference
+	 *
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public PooledBuffer acquire() throws InterruptedException {
+		final PooledBuffer pooledBuffer = this.availableBuffers.take();
+		pooledBuffer.acquired();
+		return pooledBuffer;
+	}
+
+	/**
+	 * @return the number of buffers which are not in use
+	 */
+	public int getNumAvailableBuffers() {
+		return this.availableBuffers.size();
+	}
+
+	public int getBufferSize() {
+		return this.bufferSize;
+	}
+
+	void recycle(final PooledBuffer pooledBuffer) {
+		this.availableBuffers.add(pooledBuffer);
+	}
+}
@@ -0,0 +1,42 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.raw;
+
+/**
+ * Interface for raw data writers which take over the buffer containing the data instead of copying it, so that the data
+ * can be sent asynchronously while the collector serializes the next chunk into another buffer.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public interface IPooledRawDataWriter extends IRawDataWriter {
+
+	/**
+	 * Writes the data between the position and the limit of the given buffer. The writer takes over the reference of
+	 * the caller and must release it (see {@link PooledBuffer#release()}) once the data has been sent, possibly in
+	 * another thread. Until then, the buffer must not be modified. If this method throws an exception, the reference
+	 * remains with the caller, i.e., the writer must not have released it and must not use the buffer afterwards.
+	 *
+	 * @param data
+	 *            The buffer containing the data
+	 *
+	 * @since 1.14
+	 */
+	public void writeData(PooledBuffer data);
+
+}
@@ -0,0 +1,160 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.raw;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import kieker.common.configuration.Configuration;
+import kieker.common.logging.Log;
+import kieker.common.logging.LogFactory;
+
+/**
+ * A stand-in for a network transport which delivers the data within the JVM. A sender thread consumes the written
+ * buffers, optionally waits for a fixed latency per send to emulate the network, and releases the buffers afterwards.
+ * The data itself is discarded. This writer is intended to measure the collector and the serialization without an
+ * external broker, both with pooled buffers (see {@link IPooledRawDataWriter}) and with copied ones.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class InJvmTransportWriter implements IPooledRawDataWriter {
+
+	private static final Log LOG = LogFactory.getLog(InJvmTransportWriter.class);
+
+	private static final String PREFIX = InJvmTransportWriter.class.getName() + ".";
+
+	/** The name of the configuration property for the emulated latency of a send in microseconds. */
+	public static final String CONFIG_SEND_LATENCY = PREFIX + "sendLatency"; // NOCS (afterPREFIX)
+	/** The name of the configuration property which determines whether copied data is transmitted. */
+	public static final String CONFIG_COPY_DATA = PREFIX + "copyData"; // NOCS (afterPREFIX)
+
+	private static final Object END_OF_DATA = new Object();
+
+	private final long sendLatencyInNs;
+	private final boolean copyData;
+	private final BlockingQueue<Object> inFlight = new LinkedBlockingQueue<Object>();
+	private final Thread senderThread;
+
+	// statistics; written by the sender thread only
+	private volatile long numBytesSent;
+	private volatile long numSends;
+
+	/**
+	 * Creates a new writer using the given configuration.
+	 *
+	 * @param configuration
+	 *            The configuration to use
+	 */
+	public InJvmTransportWriter(final Configuration configuration) {
+		this.sendLatencyInNs = TimeUnit.MICROSECONDS.toNanos(configuration.getLongProperty(CONFIG_SEND_LATENCY, 0));
+		this.copyData = configuration.getBooleanProperty(CONFIG_COPY_DATA, false);
+		this.senderThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				InJvmTransportWriter.this.send();
+			}
+		}, "Kieker-" + InJvmTransportWriter.class.getSimpleName());
+		// All Kieker threads must be daemon threads. Otherwise the monitored application can never terminate.
+		this.senderThread.setDaemon(true);
+	}
+
+	@Override
+	public void onInitialization() {
+		this.senderThread.start();
+	}
+
+	@Override
+	public void writeData(final ByteBuffer buffer, final int offset, final int length) {
+		// as transports accepting byte arrays only
+		buffer.position(offset);
+		final byte[] data = new byte[length];
+		buffer.get(data);
+		this.inFlight.add(data);
+	}
+
+	@Override
+	public void writeData(final PooledBuffer data) {
+		if (this.copyData) {
+			final ByteBuffer buffer = data.getBuffer();
+			this.writeData(buffer, buffer.position(), buffer.remaining());
+			data.release();
+		} else {
+			this.inFlight.add(data);
+		}
+	}
+
+	@Override
+	public void onTermination() {
+		this.inFlight.add(END_OF_DATA);
+		try {
+			this.senderThread.join();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted while waiting for the pending data to be sent.", e);
+		}
+	}
+
+	private void send() {
+		try {
+			while (true) {
+				final Object data = this.inFlight.take();
+				if (data == END_OF_DATA) { // NOPMD (compare references by == not by equals())
+					return;
+				}
+				if (this.sendLatencyInNs > 0) {
+					LockSupport.parkNanos(this.sendLatencyInNs);
+				}
+				if (data instanceof PooledBuffer) {
+					final PooledBuffer pooledBuffer = (PooledBuffer) data;
+					this.numBytesSent += pooledBuffer.getBuffer().remaining(); // NOPMD NOCS (only written by the sender thread)
+					pooledBuffer.release();
+				} else {
+					this.numBytesSent += ((byte[]) data).length; // NOPMD NOCS (only written by the sender thread)
+				}
+				this.numSends++; // NOPMD NOCS (only written by the sender thread)
+			}
+		} catch (final InterruptedException e) {
+			LOG.warn(this.senderThread.getName() + " was interrupted.", e);
+		}
+	}
+
+	/**
+	 * @return the number of bytes which have been sent
+	 */
+	public long getNumBytesSent() {
+		return this.numBytesSent;
+	}
+
+	/**
+	 * @return the number of sends, i.e., of written chunks, which have been completed
+	 */
+	public long getNumSends() {
+		return this.numSends;
+	}
+
+	/**
+	 * @return the number of written chunks which have not been sent yet
+	 */
+	public int getNumChunksInFlight() {
+		return this.inFlight.size();
+	}
+}
@@ -0,0 +1,86 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.raw;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A reference-counted buffer of a {@link BufferPool}. The buffer returns to its pool once the last reference has been
+ * released, so it must not be accessed after calling {@link #release()}.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class PooledBuffer {
+
+	private final ByteBuffer buffer;
+	private final BufferPool pool;
+	private final AtomicInteger referenceCount = new AtomicInteger();
+
+	PooledBuffer(final ByteBuffer buffer, final BufferPool pool) {
+		this.buffer = buffer;
+		this.pool = pool;
+	}
+
+	/**
+	 * @return the underlying buffer; while it is passed to a writer, its data lies between its position and its limit
+	 */
+	public ByteBuffer getBuffer() {
+		return this.buffer;
+	}
+
+	/**
+	 * Adds a reference, e.g., for an additional asynchronous consumer of the data.
+	 *
+	 * @return this buffer
+	 */
+	public PooledBuffer retain() {
+		final int previousCount = this.referenceCount.getAndIncrement();
+		if (previousCount <= 0) {
+			this.referenceCount.getAndDecrement();
+			throw new IllegalStateException("The buffer has already been released.");
+		}
+		return this;
+	}
+
+	/**
+	 * Releases a reference and returns the buffer to its pool if it was the last one.
+	 */
+	public void release() {
+		final int count = this.referenceCount.decrementAndGet();
+		if (count == 0) {
+			this.pool.recycle(this);
+		} else if (count < 0) {
+			this.referenceCount.getAndIncrement();
+			throw new IllegalStateException("The buffer has already been released.");
+		}
+	}
+
+	/**
+	 * @return the number of references which have not been released yet
+	 */
+	public int getReferenceCount() {
+		return this.referenceCount.get();
+	}
+
+	void acquired() {
+		this.buffer.clear();
+		this.referenceCount.set(1);
+	}
+}
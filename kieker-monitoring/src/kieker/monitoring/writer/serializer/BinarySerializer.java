@@ -20,6 +20,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 import kieker.common.configuration.Configuration;
 import kieker.common.record.IMonitoringRecord;
@@ -31,6 +32,15 @@ import kieker.common.util.registry.IRegistry;
 /**
  * Serializer for the default Kieker binary record format.
  *
+ * <p>
+ * By default, each chunk contains all strings used by its records. If the string dictionary is enabled (see
+ * {@link #CONFIG_STRING_DICTIONARY}), the string IDs are valid for the whole stream instead and each chunk only
+ * contains the strings which have not been sent before. The dictionary is reset periodically (see
+ * {@link #CONFIG_DICTIONARY_RESET_INTERVAL}) so that a reader which has missed a chunk, e.g., because it connected
+ * later, can resume decoding after the next reset. Each chunk carries a random ID of the serializer's stream, so that a
+ * reader receiving the chunks of several serializers keeps a dictionary per stream.
+ * </p>
+ *
  * @author Holger Knoche
  *
  * @since 1.13
@@ -46,6 +56,30 @@ public class BinarySerializer extends AbstractContainerFormatSerializer {
 	/** Charset to use for Strings. */
 	private static final Charset CHARSET = Charset.forName(ENCODING_NAME);
 
+	private static final String PREFIX = BinarySerializer.class.getName() + ".";
+
+	/** The name of the configuration property which enables the string dictionary spanning several chunks. */
+	public static final String CONFIG_STRING_DICTIONARY = PREFIX + "stringDictionary"; // NOCS (afterPREFIX)
+
+	/** The name of the configuration property for the number of chunks after which the string dictionary is reset; 0 for never. */
+	public static final String CONFIG_DICTIONARY_RESET_INTERVAL = PREFIX + "dictionaryResetInterval"; // NOCS (afterPREFIX)
+
+	/** Format identifier if the string dictionary is enabled. */
+	private static final int DICTIONARY_FORMAT_IDENTIFIER = FormatIdentifier.DICTIONARY_BINARY_FORMAT.getIdentifierValue();
+
+	private static final int DEFAULT_DICTIONARY_RESET_INTERVAL = 1024;
+
+	private final boolean useDictionary;
+	private final int dictionaryResetInterval;
+
+	/** the random ID of the stream of this serializer; distinguishes the dictionaries of several serializers. */
+	private final long streamId = UUID.randomUUID().getMostSignificantBits();
+	/** the strings of the stream if the string dictionary is enabled. */
+	private final SerializerStringRegistry dictionary = new SerializerStringRegistry();
+	/** the number of strings of the dictionary which have been written. */
+	private int numWrittenStrings;
+	private int numChunksSinceReset;
+
 	/**
 	 * Creates a new serializer using the given configuration.
 	 *
@@ -54,15 +88,21 @@ public class BinarySerializer extends AbstractContainerFormatSerializer {
 	 */
 	public BinarySerializer(final Configuration configuration) {
 		super(configuration);
+		this.useDictionary = configuration.getBooleanProperty(CONFIG_STRING_DICTIONARY, false);
+		this.dictionaryResetInterval = configuration.getIntProperty(CONFIG_DICTIONARY_RESET_INTERVAL, DEFAULT_DICTIONARY_RESET_INTERVAL);
 	}
 
 	@Override
 	protected int getFormatIdentifier() {
-		return FORMAT_IDENTIFIER;
+		return this.useDictionary ? DICTIONARY_FORMAT_IDENTIFIER : FORMAT_IDENTIFIER; // NOCS (?:)
 	}
 
 	@Override
 	protected int writeRecords(final Collection<IMonitoringRecord> records, final ByteBuffer buffer) {
+		if (this.useDictionary) {
+			return this.writeRecordsWithDictionary(records, buffer);
+		}
+
 		final SerializerStringRegistry stringRegistry = new SerializerStringRegistry();
 
 		// Write the record data into the buffer and collect the strings in the
@@ -79,8 +119,46 @@ public class BinarySerializer extends AbstractContainerFormatSerializer {
 		return (recordDataSize + stringDataSize) + 4;
 	}
 
+	private int writeRecordsWithDictionary(final Collection<IMonitoringRecord> records, final ByteBuffer buffer) {
+		if ((this.dictionaryResetInterval > 0) && (this.numChunksSinceReset >= this.dictionaryResetInterval)) {
+			this.resetDictionary();
+		}
+		this.numChunksSinceReset++;
+
+		final int recordDataSize = this.encodeRecords(records, buffer, this.dictionary);
+
+		// Encode the strings added to the dictionary by this chunk; the ID of the first string tells the reader
+		// whether it knows all previous strings of the stream, an ID of 0 resets the reader's dictionary
+		final int offsetBefore = buffer.position();
+		final List<String> allStrings = this.dictionary.getValues();
+		buffer.putLong(this.streamId);
+		VariableLengthEncoding.encodeInt(this.numWrittenStrings, buffer);
+		this.encodeStrings(allStrings.subList(this.numWrittenStrings, allStrings.size()), buffer);
+		final int stringDataSize = buffer.position() - offsetBefore;
+		this.numWrittenStrings = allStrings.size();
+
+		buffer.putInt(recordDataSize);
+
+		return (recordDataSize + stringDataSize) + 4;
+	}
+
+	/**
+	 * Resets the string dictionary, so that the next chunk contains all of its strings again. Must be called by the
+	 * thread serializing the chunks if a serialized chunk has not reached the reader, since the reader could not decode
+	 * the following chunks until the next periodic reset otherwise.
+	 *
+	 * @since 1.14
+	 */
+	public void resetDictionary() {
+		this.dictionary.clear();
+		this.numWrittenStrings = 0;
+		this.numChunksSinceReset = 0;
+	}
+
 	private int encodeRecords(final Collection<IMonitoringRecord> records, final ByteBuffer buffer, final IRegistry<String> stringRegistry) {
 		final int offsetBefore = buffer.position();
+		// all records of the chunk are written to the same buffer and registry
+		final DefaultValueSerializer serializer = DefaultValueSerializer.create(buffer, stringRegistry);
 
 		for (final IMonitoringRecord record : records) {
 			// Since writeBytes does not contain the type name and the logging timestamp,
@@ -91,7 +169,7 @@ public class BinarySerializer extends AbstractContainerFormatSerializer {
 			buffer.putInt(typeNameId);
 			buffer.putLong(record.getLoggingTimestamp());
 
-			record.serialize(DefaultValueSerializer.create(buffer, stringRegistry));
+			record.serialize(serializer);
 		}
 
 		final int offsetAfter = buffer.position();
@@ -99,14 +177,18 @@ public class BinarySerializer extends AbstractContainerFormatSerializer {
 	}
 
 	private int encodeStringRegistry(final SerializerStringRegistry registry, final ByteBuffer buffer) {
-		final List<String> allStrings = registry.getValues();
-
 		final int offsetBefore = buffer.position();
+		this.encodeStrings(registry.getValues(), buffer);
+		final int offsetAfter = buffer.position();
+
+		return (offsetAfter - offsetBefore);
+	}
 
+	private void encodeStrings(final List<String> strings, final ByteBuffer buffer) {
 		// Write the number of strings before the actual data
-		VariableLengthEncoding.encodeInt(allStrings.size(), buffer);
+		VariableLengthEncoding.encodeInt(strings.size(), buffer);
 
-		for (final String string : allStrings) {
+		for (final String string : strings) {
 			final byte[] stringBytes = string.getBytes(CHARSET);
 			final int length = stringBytes.length;
 
@@ -115,9 +197,6 @@ public class BinarySerializer extends AbstractContainerFormatSerializer {
 			VariableLengthEncoding.encodeInt(length, buffer);
 			buffer.put(stringBytes);
 		}
-		final int offsetAfter = buffer.position();
-
-		return (offsetAfter - offsetBefore);
 	}
 
 	@Override
@@ -26,7 +26,7 @@ import kieker.common.util.registry.IRegistryRecordReceiver;
 
 /**
  * Rudimentary string registry for use by the binary format serializer. This registry is meant for
- * per-chunk usage and is <b>not</b> thread-safe. It hands out only sequential IDs, and
+ * per-chunk usage or, as a dictionary, for the usage by a single serializer and is <b>not</b> thread-safe. It hands out only sequential IDs, and
  * allows to retrieve the data required for serialization easily. All methods not required for
  * serialization are not supported by this implementation.
  *
@@ -72,6 +72,16 @@ class SerializerStringRegistry implements IRegistry<String> {
 		return this.values;
 	}
 
+	/**
+	 * Removes all values, so that the IDs are handed out from zero again.
+	 *
+	 * @since 1.14
+	 */
+	public void clear() {
+		this.values.clear();
+		this.valueToIdMap.clear();
+	}
+
 	@Override
 	public String get(final int id) {
 		throw new UnsupportedOperationException();
@@ -84,7 +94,7 @@ class SerializerStringRegistry implements IRegistry<String> {
 
 	@Override
 	public int getSize() {
-		throw new UnsupportedOperationException();
+		return this.values.size();
 	}
 
 	@Override
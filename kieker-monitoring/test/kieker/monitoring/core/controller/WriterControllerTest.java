@@ -17,6 +17,7 @@
 package kieker.monitoring.core.controller;
 
 import java.lang.Thread.State;
+import java.util.List;
 
 import org.hamcrest.CoreMatchers;
 import org.jctools.queues.MpscArrayQueue;
@@ -25,10 +26,17 @@ import org.junit.Test;
 
 import kieker.Await;
 import kieker.common.configuration.Configuration;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.flow.trace.operation.AfterOperationEvent;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
 import kieker.common.record.misc.EmptyRecord;
+import kieker.common.record.misc.TimestampRecord;
 import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.queue.MpscRingBuffer;
 import kieker.monitoring.writer.dump.DumpWriter;
 
+import kieker.test.monitoring.util.NamedListWriter;
+
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
@@ -93,4 +101,169 @@ public class WriterControllerTest {
 		Assert.assertThat(writerController.getStateOfMonitoringWriterThread(), CoreMatchers.is(State.TERMINATED));
 	}
 
+	@Test
+	public void testOperationEventsAndRecordsOfAThreadKeepTheirOrder() throws Exception {
+		final String listName = "testOperationEventsAndRecordsOfAThreadKeepTheirOrder";
+		final List<IMonitoringRecord> records = NamedListWriter.createNamedList(listName);
+
+		final Configuration configuration = this.createOperationEventBufferConfiguration(listName, OperationEventListWriter.class);
+		final WriterController writerController = new WriterController(configuration);
+		Assert.assertTrue(writerController.isOperationEventBufferEnabled());
+		writerController.init();
+
+		writerController.newBeforeOperationEvent(1, 42, 0, "op()", "Clazz");
+		writerController.newMonitoringRecord(new TimestampRecord(2));
+		writerController.newAfterOperationEvent(3, 42, 1, "op()", "Clazz");
+		writerController.newMonitoringRecord(new TimestampRecord(4));
+
+		writerController.cleanup();
+		writerController.waitForTermination(CONTROLLER_TIMEOUT_IN_MS);
+
+		Assert.assertThat(records.size(), CoreMatchers.is(4));
+		Assert.assertEquals(new BeforeOperationEvent(1, 42, 0, "op()", "Clazz"), records.get(0));
+		Assert.assertEquals(new TimestampRecord(2), records.get(1));
+		Assert.assertEquals(new AfterOperationEvent(3, 42, 1, "op()", "Clazz"), records.get(2));
+		Assert.assertEquals(new TimestampRecord(4), records.get(3));
+	}
+
+	@Test
+	public void testDoNotInsertBehaviorDropsBatchedRecords() throws Exception {
+		final String listName = "testDoNotInsertBehaviorDropsBatchedRecords";
+		final List<IMonitoringRecord> records = NamedListWriter.createNamedList(listName);
+
+		final WriterController writerController = new WriterController(this.createBatchingConfiguration(listName, "3"));
+		writerController.init();
+
+		writerController.newMonitoringRecord(new TimestampRecord(1));
+		writerController.newMonitoringRecord(new TimestampRecord(2));
+
+		writerController.cleanup();
+		writerController.waitForTermination(CONTROLLER_TIMEOUT_IN_MS);
+
+		Assert.assertThat(records.size(), CoreMatchers.is(0));
+	}
+
+	@Test
+	public void testBypassQueueBehaviorWritesBatchedRecordsInTheCallingThread() throws Exception {
+		final String listName = "testBypassQueueBehaviorWritesBatchedRecordsInTheCallingThread";
+		final List<IMonitoringRecord> records = NamedListWriter.createNamedList(listName);
+
+		final WriterController writerController = new WriterController(this.createBatchingConfiguration(listName, "5"));
+		writerController.init();
+
+		writerController.newMonitoringRecord(new TimestampRecord(1));
+		// the record is not held back in a batch, but written before the call returns
+		Assert.assertThat(records.size(), CoreMatchers.is(1));
+		writerController.newMonitoringRecord(new TimestampRecord(2));
+		Assert.assertThat(records.size(), CoreMatchers.is(2));
+
+		writerController.cleanup();
+		writerController.waitForTermination(CONTROLLER_TIMEOUT_IN_MS);
+
+		Assert.assertEquals(new TimestampRecord(1), records.get(0));
+		Assert.assertEquals(new TimestampRecord(2), records.get(1));
+	}
+
+	@Test
+	public void testBatchIsHandedOverWhenATraceIsClosed() throws Exception {
+		final String listName = "testBatchIsHandedOverWhenATraceIsClosed";
+		final List<IMonitoringRecord> records = NamedListWriter.createNamedList(listName);
+
+		final WriterController writerController = new WriterController(this.createBatchingConfiguration(listName, "1"));
+		writerController.init();
+
+		writerController.newMonitoringRecord(new TimestampRecord(1));
+		Assert.assertTrue(writerController.publishRecordBatch());
+		final long deadline = System.currentTimeMillis() + CONTROLLER_TIMEOUT_IN_MS;
+		while (records.isEmpty() && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(1);
+		}
+		// the batch is neither full nor expired
+		Assert.assertThat(records.size(), CoreMatchers.is(1));
+
+		writerController.cleanup();
+		writerController.waitForTermination(CONTROLLER_TIMEOUT_IN_MS);
+	}
+
+	@Test
+	public void testBatchIsKeptWhenATraceIsClosedIfOnlyDueBatchesAreHandedOver() throws Exception {
+		final String listName = "testBatchIsKeptWhenATraceIsClosedIfOnlyDueBatchesAreHandedOver";
+		final List<IMonitoringRecord> records = NamedListWriter.createNamedList(listName);
+
+		final Configuration configuration = this.createBatchingConfiguration(listName, "1");
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_BATCH_PUBLISH_ON_TRACE_END, "false");
+		final WriterController writerController = new WriterController(configuration);
+		writerController.init();
+
+		writerController.newMonitoringRecord(new TimestampRecord(1));
+		Assert.assertTrue(writerController.publishRecordBatch());
+		writerController.newMonitoringRecord(new TimestampRecord(2));
+		Assert.assertThat(records.size(), CoreMatchers.is(0));
+
+		writerController.cleanup();
+		writerController.waitForTermination(CONTROLLER_TIMEOUT_IN_MS);
+
+		Assert.assertThat(records.size(), CoreMatchers.is(2));
+	}
+
+	@Test
+	public void testOperationEventBuffersAreIgnoredForWritersWithoutSupport() throws Exception {
+		final String listName = "testOperationEventBuffersAreIgnoredForWritersWithoutSupport";
+		final List<IMonitoringRecord> records = NamedListWriter.createNamedList(listName);
+
+		final WriterController writerController = new WriterController(this.createOperationEventBufferConfiguration(listName, NamedListWriter.class));
+		Assert.assertFalse(writerController.isOperationEventBufferEnabled());
+		writerController.init();
+
+		writerController.newBeforeOperationEvent(1, 42, 0, "op()", "Clazz");
+
+		writerController.cleanup();
+		writerController.waitForTermination(CONTROLLER_TIMEOUT_IN_MS);
+
+		Assert.assertThat(records.size(), CoreMatchers.is(1));
+		Assert.assertEquals(new BeforeOperationEvent(1, 42, 0, "op()", "Clazz"), records.get(0));
+	}
+
+	private Configuration createOperationEventBufferConfiguration(final String listName, final Class<? extends NamedListWriter> writerClass) {
+		final Configuration configuration = new Configuration();
+		configuration.setProperty(ConfigurationFactory.WRITER_CLASSNAME, writerClass.getName());
+		configuration.setProperty(NamedListWriter.CONFIG_PROPERTY_NAME_LIST_NAME, listName);
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_QUEUE_FQN, MpscArrayQueue.class.getName());
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_QUEUE_SIZE, "100");
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_QUEUE_INSERT_BEHAVIOR, "1");
+		// the events and the records are collected in separate thread-local batches which are not full at the end
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_BATCH_SIZE, "100");
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_BATCH_TIMEOUT, "60000");
+		configuration.setProperty(WriterController.PREFIX + WriterController.OPERATION_EVENT_BUFFER_SIZE, "100");
+		return configuration;
+	}
+
+	private Configuration createBatchingConfiguration(final String listName, final String insertBehavior) {
+		final Configuration configuration = new Configuration();
+		configuration.setProperty(ConfigurationFactory.WRITER_CLASSNAME, NamedListWriter.class.getName());
+		configuration.setProperty(NamedListWriter.CONFIG_PROPERTY_NAME_LIST_NAME, listName);
+		// a ring buffer inserts a batch at once without consulting the insert behavior
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_QUEUE_FQN, MpscRingBuffer.class.getName());
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_QUEUE_SIZE, "100");
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_QUEUE_INSERT_BEHAVIOR, insertBehavior);
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_BATCH_SIZE, "100");
+		configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_BATCH_TIMEOUT, "60000");
+		return configuration;
+	}
+
+	/**
+	 * A list writer which accepts the operation event buffers and materializes the events by the default implementation.
+	 */
+	@ReceiveUnfilteredConfiguration
+	public static final class OperationEventListWriter extends NamedListWriter {
+
+		public OperationEventListWriter(final Configuration configuration) {
+			super(configuration);
+		}
+
+		@Override
+		public boolean isOperationEventBufferSupported() {
+			return true;
+		}
+	}
 }
@@ -0,0 +1,92 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.core.signaturePattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class SignatureMatcherTest {
+
+	private static final String[] SIGNATURES = {
+		"public void pkg.Clazz.op()",
+		"public void pkg.Clazz.op(int, java.lang.String)",
+		"private static int pkg.sub.Other.op(long)",
+		"protected java.lang.String pkg.Clazz.getName()",
+		"public pkg.Clazz.<init>()",
+		"public pkg.Clazz.<init>(int)",
+		"void pkg.Clazz.run()",
+		"weird(signature) with(two) parentheses",
+	};
+
+	public SignatureMatcherTest() {
+		super();
+	}
+
+	@Test
+	public void testLiteralMethodName() {
+		Assert.assertEquals("op", PatternParser.getLiteralMethodName("public void pkg.Clazz.op(..)"));
+		Assert.assertEquals("op", PatternParser.getLiteralMethodName(" * ..*.op(int) "));
+		Assert.assertNull(PatternParser.getLiteralMethodName("* pkg.Clazz.get*(..)"));
+		Assert.assertNull(PatternParser.getLiteralMethodName("*"));
+		Assert.assertNull(PatternParser.getLiteralMethodName("%.*op\\(.*"));
+	}
+
+	@Test
+	public void testMatcherAgreesWithSequentialEvaluation() throws InvalidPatternException {
+		final List<PatternEntry> entries = new ArrayList<PatternEntry>();
+		entries.add(new PatternEntry("*", false));
+		entries.add(new PatternEntry("public void pkg.Clazz.op(..)", true));
+		entries.add(new PatternEntry("* pkg..*.get*(..)", true));
+		entries.add(new PatternEntry("* ..*.op(long)", true));
+		entries.add(new PatternEntry("void pkg.Clazz.op(int, ..)", false));
+		entries.add(new PatternEntry("%.*<init>.*", true));
+		entries.add(new PatternEntry("new pkg.Clazz.*(int)", false));
+		entries.add(new PatternEntry("%weird.*", true));
+
+		for (int numEntries = 0; numEntries <= entries.size(); numEntries++) {
+			final List<PatternEntry> subList = entries.subList(0, numEntries);
+			final SignatureMatcher matcher = new SignatureMatcher(subList);
+			for (final String signature : SIGNATURES) {
+				Assert.assertEquals(numEntries + " entries, " + signature, SignatureMatcherTest.isActivated(subList, signature),
+						matcher.isActivated(signature));
+			}
+		}
+	}
+
+	/**
+	 * The former evaluation of ProbeController.
+	 */
+	private static boolean isActivated(final List<PatternEntry> entries, final String signature) {
+		final ListIterator<PatternEntry> iterator = entries.listIterator(entries.size());
+		while (iterator.hasPrevious()) {
+			final PatternEntry entry = iterator.previous();
+			if (entry.getPattern().matcher(signature).matches()) {
+				return entry.isActivated();
+			}
+		}
+		return true;
+	}
+}
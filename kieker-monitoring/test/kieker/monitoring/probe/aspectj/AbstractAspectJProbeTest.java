@@ -0,0 +1,86 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.probe.aspectj;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.runtime.reflect.Factory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class AbstractAspectJProbeTest {
+
+	private static final String CLAZZ = AbstractAspectJProbeTest.class.getName();
+
+	private final AbstractAspectJProbe probe = new AbstractAspectJProbe() {
+		// no pointcuts needed
+	};
+
+	public AbstractAspectJProbeTest() {
+		super();
+	}
+
+	@Test
+	public void testStaticPartsOfATypeHaveTheirOwnEntries() {
+		final Factory factory = new Factory("AbstractAspectJProbeTest.java", AbstractAspectJProbeTest.class);
+		final JoinPoint.StaticPart first = factory.makeSJP(JoinPoint.METHOD_EXECUTION, factory.makeMethodSig("1", "first", CLAZZ, "", "", "", "void"), 1);
+		final JoinPoint.StaticPart second = factory.makeSJP(JoinPoint.METHOD_EXECUTION,
+				factory.makeMethodSig("1", "second", CLAZZ, "int", "value", "", "void"), 2);
+
+		final JoinPointSignature firstSignature = this.probe.getJoinPointSignature(first);
+		final JoinPointSignature secondSignature = this.probe.getJoinPointSignature(second);
+
+		Assert.assertEquals("public void " + CLAZZ + ".first()", firstSignature.getOperationSignature());
+		Assert.assertEquals("public void " + CLAZZ + ".second(int)", secondSignature.getOperationSignature());
+		Assert.assertSame(firstSignature, this.probe.getJoinPointSignature(first));
+		Assert.assertSame(secondSignature, this.probe.getJoinPointSignature(second));
+		// both caches share the entries
+		Assert.assertSame(firstSignature, this.probe.getJoinPointSignature(first.getSignature()));
+	}
+
+	@Test
+	public void testStaticPartsWithTheSameIdAreDistinguishedBySignature() {
+		// join points of different factories are numbered independently
+		final Factory firstFactory = new Factory("AbstractAspectJProbeTest.java", AbstractAspectJProbeTest.class);
+		final Factory secondFactory = new Factory("AbstractAspectJProbeTest.java", AbstractAspectJProbeTest.class);
+		final JoinPoint.StaticPart first = firstFactory.makeSJP(JoinPoint.METHOD_EXECUTION,
+				firstFactory.makeMethodSig("1", "third", CLAZZ, "", "", "", "void"), 1);
+		final JoinPoint.StaticPart second = secondFactory.makeSJP(JoinPoint.METHOD_EXECUTION,
+				secondFactory.makeMethodSig("1", "fourth", CLAZZ, "", "", "", "void"), 1);
+		Assert.assertEquals(first.getId(), second.getId());
+
+		Assert.assertEquals("public void " + CLAZZ + ".third()", this.probe.getJoinPointSignature(first).getOperationSignature());
+		Assert.assertEquals("public void " + CLAZZ + ".fourth()", this.probe.getJoinPointSignature(second).getOperationSignature());
+		Assert.assertEquals("public void " + CLAZZ + ".third()", this.probe.getJoinPointSignature(first).getOperationSignature());
+	}
+
+	@Test
+	public void testStaticPartWithoutSourceLocation() {
+		final Factory factory = new Factory("AbstractAspectJProbeTest.java", AbstractAspectJProbeTest.class);
+		final JoinPoint.StaticPart staticPart = factory.makeSJP(JoinPoint.METHOD_EXECUTION,
+				factory.makeMethodSig("1", "fifth", CLAZZ, "", "", "", "void"), null);
+
+		final JoinPointSignature joinPointSignature = this.probe.getJoinPointSignature(staticPart);
+
+		Assert.assertEquals("public void " + CLAZZ + ".fifth()", joinPointSignature.getOperationSignature());
+		Assert.assertSame(joinPointSignature, this.probe.getJoinPointSignature(staticPart));
+	}
+}
@@ -0,0 +1,113 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.probe.aspectj;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.monitoring.core.controller.IProbeController;
+import kieker.monitoring.core.sampler.AdaptiveTraceSampler;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class JoinPointSignatureTest {
+
+	private static final String SIGNATURE = "public void pkg.Clazz.op()";
+
+	public JoinPointSignatureTest() {
+		super();
+	}
+
+	@Test
+	public void testActivationIsCachedUntilPatternsChange() {
+		final CountingProbeController probeController = new CountingProbeController();
+		final JoinPointSignature joinPointSignature = new JoinPointSignature(SIGNATURE, "pkg.Clazz");
+
+		Assert.assertTrue(joinPointSignature.isProbeActivated(probeController));
+		Assert.assertTrue(joinPointSignature.isProbeActivated(probeController));
+		Assert.assertThat(probeController.numQueries, CoreMatchers.is(1));
+
+		probeController.deactivateProbe(SIGNATURE);
+		Assert.assertFalse(joinPointSignature.isProbeActivated(probeController));
+		Assert.assertFalse(joinPointSignature.isProbeActivated(probeController));
+		Assert.assertThat(probeController.numQueries, CoreMatchers.is(2));
+
+		probeController.activateProbe(SIGNATURE);
+		Assert.assertTrue(joinPointSignature.isProbeActivated(probeController));
+		Assert.assertThat(probeController.numQueries, CoreMatchers.is(3));
+	}
+
+	/**
+	 * Activates or deactivates a single signature and counts the queries.
+	 */
+	private static class CountingProbeController implements IProbeController {
+		int numQueries; // NOCS NOPMD (package-private for the test)
+		private boolean activated = true;
+		private int generation;
+
+		public CountingProbeController() {
+			super();
+		}
+
+		@Override
+		public boolean activateProbe(final String pattern) {
+			this.activated = true;
+			this.generation++;
+			return true;
+		}
+
+		@Override
+		public boolean deactivateProbe(final String pattern) {
+			this.activated = false;
+			this.generation++;
+			return true;
+		}
+
+		@Override
+		public boolean isProbeActivated(final String signature) {
+			this.numQueries++;
+			return this.activated;
+		}
+
+		@Override
+		public void setProbePatternList(final List<String> patternList) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<String> getProbePatternList() {
+			return new ArrayList<String>(0);
+		}
+
+		@Override
+		public int getProbePatternGeneration() {
+			return this.generation;
+		}
+
+		@Override
+		public AdaptiveTraceSampler getTraceSampler() {
+			return null;
+		}
+	}
+}
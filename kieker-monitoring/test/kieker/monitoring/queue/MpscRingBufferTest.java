@@ -0,0 +1,145 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.queue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class MpscRingBufferTest {
+
+	private static final int NUM_PRODUCERS = 4;
+	private static final int NUM_ELEMENTS_PER_PRODUCER = 100000;
+
+	public MpscRingBufferTest() {
+		super();
+	}
+
+	@Test
+	public void testCapacityIsRoundedToPowerOfTwo() {
+		Assert.assertThat(new MpscRingBuffer<Integer>(1).getCapacity(), CoreMatchers.is(1));
+		Assert.assertThat(new MpscRingBuffer<Integer>(3).getCapacity(), CoreMatchers.is(4));
+		Assert.assertThat(new MpscRingBuffer<Integer>(1024).getCapacity(), CoreMatchers.is(1024));
+	}
+
+	@Test
+	public void testOfferFailsIfFull() {
+		final MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<Integer>(2);
+
+		Assert.assertTrue(ringBuffer.offer(1));
+		Assert.assertTrue(ringBuffer.offer(2));
+		Assert.assertFalse(ringBuffer.offer(3));
+		Assert.assertThat(ringBuffer.size(), CoreMatchers.is(2));
+		Assert.assertThat(ringBuffer.remainingCapacity(), CoreMatchers.is(0));
+
+		Assert.assertThat(ringBuffer.poll(), CoreMatchers.is(1));
+		Assert.assertTrue(ringBuffer.offer(3));
+		Assert.assertThat(ringBuffer.poll(), CoreMatchers.is(2));
+		Assert.assertThat(ringBuffer.poll(), CoreMatchers.is(3));
+		Assert.assertNull(ringBuffer.poll());
+	}
+
+	@Test
+	public void testDrainToRespectsMaxElements() {
+		final MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<Integer>(8);
+		for (int i = 0; i < 5; i++) {
+			ringBuffer.offer(i);
+		}
+
+		final List<Integer> batch = new ArrayList<Integer>();
+		Assert.assertThat(ringBuffer.drainTo(batch, 3), CoreMatchers.is(3));
+		Assert.assertThat(batch.toString(), CoreMatchers.is("[0, 1, 2]"));
+		Assert.assertThat(ringBuffer.peek(), CoreMatchers.is(3));
+
+		batch.clear();
+		Assert.assertThat(ringBuffer.drainTo(batch), CoreMatchers.is(2));
+		Assert.assertThat(batch.toString(), CoreMatchers.is("[3, 4]"));
+		Assert.assertTrue(ringBuffer.isEmpty());
+	}
+
+	@Test
+	public void testOfferAllInsertsAllOrNothing() {
+		final MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<Integer>(4);
+		ringBuffer.offer(0);
+
+		Assert.assertFalse(ringBuffer.offerAll(Arrays.asList(1, 2, 3, 4)));
+		Assert.assertThat(ringBuffer.size(), CoreMatchers.is(1));
+
+		Assert.assertTrue(ringBuffer.offerAll(Arrays.asList(1, 2, 3)));
+		final List<Integer> batch = new ArrayList<Integer>();
+		ringBuffer.drainTo(batch);
+		Assert.assertThat(batch.toString(), CoreMatchers.is("[0, 1, 2, 3]"));
+
+		// wraps around the end of the slot array
+		Assert.assertTrue(ringBuffer.offerAll(Arrays.asList(4, 5, 6)));
+		batch.clear();
+		ringBuffer.drainTo(batch);
+		Assert.assertThat(batch.toString(), CoreMatchers.is("[4, 5, 6]"));
+	}
+
+	@Test
+	public void testConcurrentProducersPreserveOrderPerProducer() throws Exception {
+		final MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<Integer>(64);
+
+		final Thread[] producers = new Thread[NUM_PRODUCERS];
+		for (int p = 0; p < NUM_PRODUCERS; p++) {
+			final int producerId = p;
+			producers[p] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < NUM_ELEMENTS_PER_PRODUCER; i++) {
+						try {
+							ringBuffer.put((i * NUM_PRODUCERS) + producerId);
+						} catch (final InterruptedException e) {
+							return;
+						}
+					}
+				}
+			});
+			producers[p].start();
+		}
+
+		final int[] nextExpectedPerProducer = new int[NUM_PRODUCERS];
+		final List<Integer> batch = new ArrayList<Integer>();
+		int numReceived = 0;
+		while (numReceived < (NUM_PRODUCERS * NUM_ELEMENTS_PER_PRODUCER)) {
+			batch.add(ringBuffer.take());
+			ringBuffer.drainTo(batch, 16);
+			for (final Integer element : batch) {
+				final int producerId = element % NUM_PRODUCERS;
+				Assert.assertThat(element / NUM_PRODUCERS, CoreMatchers.is(nextExpectedPerProducer[producerId]));
+				nextExpectedPerProducer[producerId]++;
+			}
+			numReceived += batch.size();
+			batch.clear();
+		}
+
+		for (final Thread producer : producers) {
+			producer.join();
+		}
+		Assert.assertTrue(ringBuffer.isEmpty());
+	}
+}
@@ -0,0 +1,124 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.common.record.flow.trace.operation.AfterOperationEvent;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
+import kieker.monitoring.queue.behavior.InsertBehavior;
+import kieker.monitoring.registry.SignatureRegistry;
+import kieker.monitoring.writer.OperationEventBuffer;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class OperationEventBatcherTest {
+
+	private static final int OPERATION_SIGNATURE_ID = SignatureRegistry.INSTANCE.intern("op()");
+	private static final int CLASS_SIGNATURE_ID = SignatureRegistry.INSTANCE.intern("Clazz");
+
+	private final List<OperationEventBuffer> publishedBuffers = new ArrayList<OperationEventBuffer>();
+	private final Queue<OperationEventBuffer> recycledBuffers = new ConcurrentLinkedQueue<OperationEventBuffer>();
+	private final InsertBehavior<OperationEventBuffer> publisher = new InsertBehavior<OperationEventBuffer>() {
+		@Override
+		public boolean insert(final OperationEventBuffer element) {
+			return OperationEventBatcherTest.this.publishedBuffers.add(element);
+		}
+	};
+
+	public OperationEventBatcherTest() {
+		super();
+	}
+
+	@Test
+	public void testFullBufferIsHandedOverAndRecycledBufferIsReused() {
+		final OperationEventBatcher batcher = new OperationEventBatcher(this.publisher, this.recycledBuffers, 2, TimeUnit.SECONDS.toNanos(60));
+
+		batcher.insert(OperationEventBuffer.BEFORE_OPERATION_EVENT, -1, 1, 42, 0, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		Assert.assertThat(this.publishedBuffers.size(), CoreMatchers.is(0));
+		batcher.insert(OperationEventBuffer.AFTER_OPERATION_EVENT, -1, 2, 42, 1, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		Assert.assertThat(this.publishedBuffers.size(), CoreMatchers.is(1));
+
+		final OperationEventBuffer buffer = this.publishedBuffers.get(0);
+		Assert.assertThat(buffer.size(), CoreMatchers.is(2));
+		Assert.assertEquals(new BeforeOperationEvent(1, 42, 0, "op()", "Clazz"), buffer.createRecord(0));
+		Assert.assertEquals(new AfterOperationEvent(2, 42, 1, "op()", "Clazz"), buffer.createRecord(1));
+
+		// the writer recycles the buffer; the batcher takes it after the next hand-over
+		buffer.clear();
+		this.recycledBuffers.add(buffer);
+		batcher.insert(OperationEventBuffer.BEFORE_OPERATION_EVENT, -1, 3, 43, 0, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		batcher.insert(OperationEventBuffer.AFTER_OPERATION_EVENT, -1, 4, 43, 1, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		batcher.insert(OperationEventBuffer.BEFORE_OPERATION_EVENT, -1, 5, 44, 0, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		batcher.insert(OperationEventBuffer.AFTER_OPERATION_EVENT, -1, 6, 44, 1, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+
+		Assert.assertThat(this.publishedBuffers.size(), CoreMatchers.is(3));
+		Assert.assertSame(buffer, this.publishedBuffers.get(2));
+		Assert.assertThat(buffer.getLoggingTimestamp(0), CoreMatchers.is(-1L));
+		Assert.assertEquals(new BeforeOperationEvent(5, 44, 0, "op()", "Clazz"), buffer.createRecord(0));
+	}
+
+	@Test
+	public void testPublishBatchAlsoHandsOverNextEvent() {
+		final OperationEventBatcher batcher = new OperationEventBatcher(this.publisher, this.recycledBuffers, 100, TimeUnit.SECONDS.toNanos(60));
+
+		batcher.insert(OperationEventBuffer.BEFORE_OPERATION_EVENT, -1, 1, 42, 0, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		Assert.assertTrue(batcher.publishBatch());
+		Assert.assertThat(this.publishedBuffers.size(), CoreMatchers.is(1));
+
+		batcher.insert(OperationEventBuffer.AFTER_OPERATION_EVENT, -1, 2, 42, 1, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		Assert.assertThat(this.publishedBuffers.size(), CoreMatchers.is(2));
+		Assert.assertThat(this.publishedBuffers.get(1).getRecordClassName(0), CoreMatchers.is(AfterOperationEvent.class.getName()));
+	}
+
+	@Test
+	public void testEventsOfShortTracesStayInTheBuffer() {
+		final OperationEventBatcher batcher = new OperationEventBatcher(this.publisher, this.recycledBuffers, 100, TimeUnit.SECONDS.toNanos(60));
+
+		for (int traceId = 0; traceId < 10; traceId++) {
+			batcher.insert(OperationEventBuffer.BEFORE_OPERATION_EVENT, -1, 1, traceId, 0, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+			batcher.publishBatchIfDue(); // the trace is closed before its after event is created
+			batcher.insert(OperationEventBuffer.AFTER_OPERATION_EVENT, -1, 2, traceId, 1, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		}
+
+		Assert.assertThat(this.publishedBuffers.size(), CoreMatchers.is(0));
+	}
+
+	@Test
+	public void testDueBufferIsHandedOverWithTheLastEventOfTheTrace() {
+		final OperationEventBatcher batcher = new OperationEventBatcher(this.publisher, this.recycledBuffers, 100, 0);
+
+		batcher.insert(OperationEventBuffer.BEFORE_OPERATION_EVENT, -1, 1, 42, 0, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		batcher.publishBatchIfDue();
+		Assert.assertThat(this.publishedBuffers.size(), CoreMatchers.is(0));
+
+		batcher.insert(OperationEventBuffer.AFTER_OPERATION_EVENT, -1, 2, 42, 1, OPERATION_SIGNATURE_ID, CLASS_SIGNATURE_ID);
+		Assert.assertThat(this.publishedBuffers.size(), CoreMatchers.is(1));
+		Assert.assertThat(this.publishedBuffers.get(0).size(), CoreMatchers.is(2));
+	}
+}
@@ -0,0 +1,155 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.queue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.monitoring.queue.behavior.CountOnFailedInsertBehavior;
+import kieker.monitoring.queue.behavior.TerminateOnFailedInsertBehavior;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class ThreadLocalBatcherTest {
+
+	public ThreadLocalBatcherTest() {
+		super();
+	}
+
+	@Test
+	public void testBatchIsHandedOverWhenFull() {
+		final MpscRingBuffer<Integer> queue = new MpscRingBuffer<Integer>(16);
+		final ThreadLocalBatcher<Integer> batcher = new ThreadLocalBatcher<Integer>(queue,
+				new TerminateOnFailedInsertBehavior<Integer>(queue), 3, TimeUnit.SECONDS.toNanos(60));
+
+		Assert.assertTrue(batcher.insert(1));
+		Assert.assertTrue(batcher.insert(2));
+		Assert.assertThat(queue.size(), CoreMatchers.is(0));
+
+		Assert.assertTrue(batcher.insert(3));
+		Assert.assertThat(queue.size(), CoreMatchers.is(3));
+	}
+
+	@Test
+	public void testPublishBatchAlsoHandsOverNextElement() {
+		final MpscRingBuffer<Integer> queue = new MpscRingBuffer<Integer>(16);
+		final ThreadLocalBatcher<Integer> batcher = new ThreadLocalBatcher<Integer>(queue,
+				new TerminateOnFailedInsertBehavior<Integer>(queue), 10, TimeUnit.SECONDS.toNanos(60));
+
+		batcher.insert(1);
+		batcher.insert(2);
+		Assert.assertTrue(batcher.publishBatch());
+		Assert.assertThat(queue.size(), CoreMatchers.is(2));
+
+		batcher.insert(3); // e.g., the last record of a trace which has been closed already
+		Assert.assertThat(queue.size(), CoreMatchers.is(3));
+
+		batcher.insert(4);
+		Assert.assertThat(queue.size(), CoreMatchers.is(3));
+	}
+
+	@Test
+	public void testPublishBatchIfDueKeepsYoungBatch() {
+		final MpscRingBuffer<Integer> queue = new MpscRingBuffer<Integer>(16);
+		final ThreadLocalBatcher<Integer> batcher = new ThreadLocalBatcher<Integer>(queue,
+				new TerminateOnFailedInsertBehavior<Integer>(queue), 10, TimeUnit.SECONDS.toNanos(60));
+
+		batcher.insert(1);
+		batcher.publishBatchIfDue();
+		batcher.insert(2);
+		Assert.assertThat(queue.size(), CoreMatchers.is(0));
+	}
+
+	@Test
+	public void testPublishBatchIfDueHandsOverExpiredBatchWithTheNextElement() {
+		final MpscRingBuffer<Integer> queue = new MpscRingBuffer<Integer>(16);
+		final ThreadLocalBatcher<Integer> batcher = new ThreadLocalBatcher<Integer>(queue,
+				new TerminateOnFailedInsertBehavior<Integer>(queue), 10, 0);
+
+		batcher.insert(1);
+		batcher.publishBatchIfDue();
+		Assert.assertThat(queue.size(), CoreMatchers.is(0));
+
+		batcher.insert(2); // e.g., the last record of a trace which has been closed already
+		Assert.assertThat(queue.size(), CoreMatchers.is(2));
+	}
+
+	@Test
+	public void testExpiredBatchesOfOtherThreadsAreHandedOver() throws Exception {
+		final MpscRingBuffer<Integer> queue = new MpscRingBuffer<Integer>(16);
+		final ThreadLocalBatcher<Integer> batcher = new ThreadLocalBatcher<Integer>(queue,
+				new TerminateOnFailedInsertBehavior<Integer>(queue), 10, 0);
+
+		final Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				batcher.insert(1);
+				batcher.insert(2);
+			}
+		});
+		producer.start();
+		producer.join();
+		Assert.assertThat(queue.size(), CoreMatchers.is(0));
+
+		Assert.assertTrue(batcher.publishExpiredBatches());
+		Assert.assertThat(queue.poll(), CoreMatchers.is(1));
+		Assert.assertThat(queue.poll(), CoreMatchers.is(2));
+	}
+
+	@Test
+	public void testBatchesOfTerminatedThreadsAreHandedOverBeforeTheTimeout() throws Exception {
+		final MpscRingBuffer<Integer> queue = new MpscRingBuffer<Integer>(16);
+		final ThreadLocalBatcher<Integer> batcher = new ThreadLocalBatcher<Integer>(queue,
+				new TerminateOnFailedInsertBehavior<Integer>(queue), 10, TimeUnit.SECONDS.toNanos(60));
+
+		final Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				batcher.insert(1);
+				batcher.insert(2);
+			}
+		});
+		producer.start();
+		producer.join();
+
+		Assert.assertTrue(batcher.publishExpiredBatches());
+		Assert.assertThat(queue.poll(), CoreMatchers.is(1));
+		Assert.assertThat(queue.poll(), CoreMatchers.is(2));
+	}
+
+	@Test
+	public void testInsertBehaviorIsUsedIfQueueIsFull() {
+		final BlockingQueue<Integer> queue = new ArrayBlockingQueue<Integer>(2);
+		final CountOnFailedInsertBehavior<Integer> insertBehavior = new CountOnFailedInsertBehavior<Integer>(queue);
+		final ThreadLocalBatcher<Integer> batcher = new ThreadLocalBatcher<Integer>(queue, insertBehavior, 3, TimeUnit.SECONDS.toNanos(60));
+
+		batcher.insert(1);
+		batcher.insert(2);
+		Assert.assertTrue(batcher.insert(3));
+
+		Assert.assertThat(queue.size(), CoreMatchers.is(2));
+		Assert.assertThat(insertBehavior.getNumFailedInserts(), CoreMatchers.is(1L));
+	}
+}
@@ -0,0 +1,117 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class WriterRegistryTest {
+
+	private static final int NUM_VALUES = 10000;
+
+	public WriterRegistryTest() {
+		super();
+	}
+
+	@Test
+	public void testValuesAreRegisteredOnceWithConsecutiveIds() {
+		final List<String> newEntries = new ArrayList<String>();
+		final WriterRegistry registry = new WriterRegistry(new IRegistryListener<String>() {
+			@Override
+			public void onNewRegistryEntry(final String value, final int id) {
+				Assert.assertEquals(newEntries.size(), id);
+				newEntries.add(value);
+			}
+		});
+
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < NUM_VALUES; i++) {
+				registry.register("value" + i);
+			}
+		}
+
+		Assert.assertEquals(NUM_VALUES, newEntries.size());
+		for (int i = 0; i < NUM_VALUES; i++) {
+			Assert.assertEquals("value" + i, newEntries.get(i));
+			Assert.assertEquals(i, registry.getId("value" + i));
+		}
+	}
+
+	@Test
+	public void testNullIsRegisteredLikeAnyOtherValue() {
+		final List<String> newEntries = new ArrayList<String>();
+		final WriterRegistry registry = new WriterRegistry(new IRegistryListener<String>() {
+			@Override
+			public void onNewRegistryEntry(final String value, final int id) {
+				Assert.assertEquals(newEntries.size(), id);
+				newEntries.add(value);
+			}
+		});
+
+		registry.register("first");
+		registry.register(null);
+		registry.register("second");
+		registry.register(null);
+
+		Assert.assertEquals(3, newEntries.size());
+		Assert.assertNull(newEntries.get(1));
+		Assert.assertEquals(1, registry.getId(null));
+		Assert.assertEquals(2, registry.getId("second"));
+	}
+
+	@Test
+	public void testSignaturesShareTheIdsOfTheirStrings() {
+		final List<String> newEntries = new ArrayList<String>();
+		final WriterRegistry registry = new WriterRegistry(new IRegistryListener<String>() {
+			@Override
+			public void onNewRegistryEntry(final String value, final int id) {
+				Assert.assertEquals(newEntries.size(), id);
+				newEntries.add(value);
+			}
+		});
+		final int firstSignatureId = SignatureRegistry.INSTANCE.intern("public void pkg.Clazz.first()");
+		final int secondSignatureId = SignatureRegistry.INSTANCE.intern("public void pkg.Clazz.second()");
+
+		registry.register("public void pkg.Clazz.second()");
+		Assert.assertEquals(1, registry.registerSignature(firstSignatureId));
+		Assert.assertEquals(0, registry.registerSignature(secondSignatureId));
+		Assert.assertEquals(1, registry.registerSignature(firstSignatureId));
+
+		Assert.assertEquals(2, newEntries.size());
+		Assert.assertEquals(1, registry.getId("public void pkg.Clazz.first()"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnregisteredValueHasNoId() {
+		final WriterRegistry registry = new WriterRegistry(new IRegistryListener<String>() {
+			@Override
+			public void onNewRegistryEntry(final String value, final int id) {
+				// nothing to do
+			}
+		});
+		registry.register("registered");
+		registry.getId("unregistered");
+	}
+}
@@ -17,7 +17,10 @@
 package kieker.monitoring.writer;
 
 import java.lang.Thread.State;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import org.hamcrest.CoreMatchers;
@@ -27,9 +30,14 @@ import org.junit.Test;
 import kieker.Await;
 import kieker.common.configuration.Configuration;
 import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
 import kieker.common.record.misc.EmptyRecord;
+import kieker.common.record.misc.TimestampRecord;
+import kieker.monitoring.queue.behavior.InsertBehavior;
 import kieker.monitoring.writer.dump.DumpWriter;
 
+import kieker.test.monitoring.util.NamedListWriter;
+
 /**
  *
  * @author Christian Wulf
@@ -95,4 +103,111 @@ public class MonitoringWriterThreadTest {
 
 		Assert.assertThat(thread.getState(), CoreMatchers.is(State.TERMINATED));
 	}
+
+	@Test
+	public void testOperationEventsOfConcurrentThreadsAreWrittenAtTheirPositions() throws Exception {
+		final List<IMonitoringRecord> records = NamedListWriter.createNamedList("testOperationEventsOfConcurrentThreadsAreWrittenAtTheirPositions");
+		final BlockingQueue<IMonitoringRecord> writerQueue = new LinkedBlockingQueue<IMonitoringRecord>();
+		final MonitoringWriterThread thread = this.createWriterThread("testOperationEventsOfConcurrentThreadsAreWrittenAtTheirPositions", writerQueue);
+
+		// thread A hands over its buffer first, but is delayed before its buffer reaches the writer queue
+		final CountDownLatch delayA = new CountDownLatch(1);
+		final Thread threadA = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				thread.addOperationEvents(MonitoringWriterThreadTest.createBuffer(1), new InsertBehavior<IMonitoringRecord>() {
+					@Override
+					public boolean insert(final IMonitoringRecord element) {
+						try {
+							delayA.await();
+						} catch (final InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						return writerQueue.add(element);
+					}
+				});
+			}
+		});
+		threadA.start();
+		Await.awaitThreadState(threadA, State.WAITING, THREAD_STATE_CHANGE_TIMEOUT_IN_MS);
+
+		// thread B hands over its buffer and writes a record afterwards
+		final Thread threadB = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				thread.addOperationEvents(MonitoringWriterThreadTest.createBuffer(2), new QueueInsertBehavior(writerQueue));
+				writerQueue.add(new TimestampRecord(2));
+			}
+		});
+		threadB.start();
+		threadB.join();
+		delayA.countDown();
+		threadA.join();
+
+		thread.start();
+		thread.terminate();
+		thread.join(THREAD_STATE_CHANGE_TIMEOUT_IN_MS);
+
+		Assert.assertEquals(Arrays.asList(MonitoringWriterThreadTest.createEvent(2), new TimestampRecord(2), MonitoringWriterThreadTest.createEvent(1)),
+				records);
+	}
+
+	@Test
+	public void testDroppedOperationEventsDoNotDelayLaterOnes() throws Exception {
+		final List<IMonitoringRecord> records = NamedListWriter.createNamedList("testDroppedOperationEventsDoNotDelayLaterOnes");
+		final BlockingQueue<IMonitoringRecord> writerQueue = new LinkedBlockingQueue<IMonitoringRecord>();
+		final MonitoringWriterThread thread = this.createWriterThread("testDroppedOperationEventsDoNotDelayLaterOnes", writerQueue);
+
+		final OperationEventBuffer droppedBuffer = MonitoringWriterThreadTest.createBuffer(1);
+		final boolean inserted = thread.addOperationEvents(droppedBuffer, new InsertBehavior<IMonitoringRecord>() {
+			@Override
+			public boolean insert(final IMonitoringRecord element) {
+				return false;
+			}
+		});
+		Assert.assertFalse(inserted);
+		Assert.assertTrue("The dropped buffer has not been recycled", thread.getRecycledOperationEventBuffers().contains(droppedBuffer));
+
+		writerQueue.add(new TimestampRecord(1));
+		thread.addOperationEvents(MonitoringWriterThreadTest.createBuffer(2), new QueueInsertBehavior(writerQueue));
+		writerQueue.add(new TimestampRecord(2));
+
+		thread.start();
+		thread.terminate();
+		thread.join(THREAD_STATE_CHANGE_TIMEOUT_IN_MS);
+
+		Assert.assertEquals(Arrays.asList(new TimestampRecord(1), MonitoringWriterThreadTest.createEvent(2), new TimestampRecord(2)), records);
+	}
+
+	private MonitoringWriterThread createWriterThread(final String listName, final BlockingQueue<IMonitoringRecord> writerQueue) {
+		final Configuration configuration = new Configuration();
+		configuration.setProperty(NamedListWriter.CONFIG_PROPERTY_NAME_LIST_NAME, listName);
+		return new MonitoringWriterThread(new NamedListWriter(configuration), writerQueue);
+	}
+
+	private static OperationEventBuffer createBuffer(final long traceId) {
+		final OperationEventBuffer buffer = new OperationEventBuffer(1);
+		buffer.add(OperationEventBuffer.BEFORE_OPERATION_EVENT, -1, traceId, traceId, 0, "op()", "Clazz");
+		return buffer;
+	}
+
+	private static IMonitoringRecord createEvent(final long traceId) {
+		return new BeforeOperationEvent(traceId, traceId, 0, "op()", "Clazz");
+	}
+
+	/**
+	 * Inserts into the writer queue without blocking.
+	 */
+	private static final class QueueInsertBehavior implements InsertBehavior<IMonitoringRecord> {
+		private final BlockingQueue<IMonitoringRecord> queue;
+
+		QueueInsertBehavior(final BlockingQueue<IMonitoringRecord> queue) {
+			this.queue = queue;
+		}
+
+		@Override
+		public boolean insert(final IMonitoringRecord element) {
+			return this.queue.offer(element);
+		}
+	}
 }
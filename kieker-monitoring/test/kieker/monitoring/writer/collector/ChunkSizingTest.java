@@ -0,0 +1,114 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.collector;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class ChunkSizingTest {
+
+	private static final int MAX_CHUNK_SIZE = 100;
+	private static final long MAX_DEFERRED_WRITE_DELAY_NS = TimeUnit.SECONDS.toNanos(1);
+	private static final long OBSERVATION_INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(10);
+	/** enough observations for the moving averages to converge. */
+	private static final int NUM_OBSERVATIONS = 100;
+
+	private long currentTime;
+	private long numArrivedRecords;
+
+	public ChunkSizingTest() {
+		super();
+	}
+
+	@Before
+	public void setUp() {
+		this.currentTime = System.nanoTime();
+		this.numArrivedRecords = 0;
+	}
+
+	@Test
+	public void testNonAdaptiveSizingKeepsTheConfiguredValues() {
+		final ChunkSizing chunkSizing = new ChunkSizing(false, MAX_CHUNK_SIZE, MAX_DEFERRED_WRITE_DELAY_NS);
+
+		this.observe(chunkSizing, 1000, TimeUnit.MILLISECONDS.toNanos(1));
+
+		Assert.assertEquals(MAX_CHUNK_SIZE, chunkSizing.getChunkSize());
+		Assert.assertEquals(MAX_DEFERRED_WRITE_DELAY_NS, chunkSizing.getDeferredWriteDelayNs());
+	}
+
+	@Test
+	public void testChunkSizeAndDelayFollowTheLoad() {
+		final ChunkSizing chunkSizing = new ChunkSizing(true, MAX_CHUNK_SIZE, MAX_DEFERRED_WRITE_DELAY_NS);
+
+		// 10 records per millisecond and 1 ms per write: 20 records per chunk, filled within 2 ms, written after 4 ms
+		this.observe(chunkSizing, 10, TimeUnit.MILLISECONDS.toNanos(1));
+		Assert.assertEquals(20, chunkSizing.getChunkSize(), 1);
+		Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(4), chunkSizing.getDeferredWriteDelayNs(), TimeUnit.MICROSECONDS.toNanos(200));
+
+		// 1000 records per millisecond: the chunk size is limited by the maximum and filled quickly
+		this.observe(chunkSizing, 1000, TimeUnit.MILLISECONDS.toNanos(1));
+		Assert.assertEquals(MAX_CHUNK_SIZE, chunkSizing.getChunkSize());
+		Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(1), chunkSizing.getDeferredWriteDelayNs());
+
+		// back to 10 records per millisecond
+		this.observe(chunkSizing, 10, TimeUnit.MILLISECONDS.toNanos(1));
+		Assert.assertEquals(20, chunkSizing.getChunkSize(), 1);
+		Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(4), chunkSizing.getDeferredWriteDelayNs(), TimeUnit.MICROSECONDS.toNanos(200));
+	}
+
+	@Test
+	public void testSlowerWritesLeadToLargerChunks() {
+		final ChunkSizing chunkSizing = new ChunkSizing(true, MAX_CHUNK_SIZE, MAX_DEFERRED_WRITE_DELAY_NS);
+
+		this.observe(chunkSizing, 10, TimeUnit.MILLISECONDS.toNanos(1));
+		final int chunkSizeOfFastWrites = chunkSizing.getChunkSize();
+
+		this.observe(chunkSizing, 10, TimeUnit.MILLISECONDS.toNanos(3));
+		Assert.assertEquals(60, chunkSizing.getChunkSize(), 1);
+		Assert.assertTrue(chunkSizing.getChunkSize() > chunkSizeOfFastWrites);
+	}
+
+	@Test
+	public void testWithoutArrivalsTheMaximalDelayIsUsed() {
+		final ChunkSizing chunkSizing = new ChunkSizing(true, MAX_CHUNK_SIZE, MAX_DEFERRED_WRITE_DELAY_NS);
+
+		this.observe(chunkSizing, 0, TimeUnit.MILLISECONDS.toNanos(1));
+
+		Assert.assertEquals(1, chunkSizing.getChunkSize());
+		Assert.assertEquals(MAX_DEFERRED_WRITE_DELAY_NS, chunkSizing.getDeferredWriteDelayNs());
+	}
+
+	/**
+	 * Feeds the given load into the given sizing, one observation per observation interval.
+	 */
+	private void observe(final ChunkSizing chunkSizing, final int recordsPerMs, final long writeDurationNs) {
+		for (int i = 0; i < NUM_OBSERVATIONS; i++) {
+			this.currentTime += OBSERVATION_INTERVAL_NS;
+			this.numArrivedRecords += recordsPerMs * TimeUnit.NANOSECONDS.toMillis(OBSERVATION_INTERVAL_NS);
+			chunkSizing.observeWriteDuration(writeDurationNs);
+			chunkSizing.observe(this.currentTime, this.numArrivedRecords, 0);
+		}
+	}
+}
@@ -16,9 +16,13 @@
 
 package kieker.monitoring.writer.filesystem;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.Inflater;
 
 import org.hamcrest.CoreMatchers;
 import org.junit.Assert;
@@ -29,9 +33,11 @@ import org.junit.rules.TemporaryFolder;
 
 import kieker.common.configuration.Configuration;
 import kieker.common.record.misc.EmptyRecord;
+import kieker.common.util.filesystem.BlockLogFormat;
 import kieker.common.util.filesystem.FSUtil;
 import kieker.common.util.filesystem.FileExtensionFilter;
 import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.writer.OperationEventBuffer;
 
 /**
  * @author Christian Wulf
@@ -254,4 +260,144 @@ public class BinaryFileWriterTest {
 		Assert.assertThat(writer.getLogFolder().getFileName().toString(), CoreMatchers.startsWith(FSUtil.FILE_PREFIX));
 		Assert.assertThat(writer.getLogFolder().getFileName().toString(), CoreMatchers.endsWith(hostName + "-" + controllerName));
 	}
+
+	@Test
+	public void shouldWriteOperationEventsLikeTheCorrespondingRecords() throws IOException {
+		// test preparation
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_SHOULD_COMPRESS, "false");
+		final OperationEventBuffer events = new OperationEventBuffer(3);
+		events.add(OperationEventBuffer.BEFORE_OPERATION_EVENT, 10, 1, 42, 0, "op()", "Clazz");
+		events.add(OperationEventBuffer.BEFORE_OPERATION_EVENT, 11, 2, 42, 1, "op2()", "Clazz");
+		events.add(OperationEventBuffer.AFTER_OPERATION_EVENT, 12, 3, 42, 2, "op2()", "Clazz");
+
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		final BinaryFileWriter recordWriter = new BinaryFileWriter(this.configuration);
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		final BinaryFileWriter eventWriter = new BinaryFileWriter(this.configuration);
+
+		// test execution
+		recordWriter.onStarting();
+		for (int i = 0; i < events.size(); i++) {
+			recordWriter.writeMonitoringRecord(events.createRecord(i));
+		}
+		recordWriter.onTerminating();
+
+		eventWriter.onStarting();
+		eventWriter.writeOperationEvents(events);
+		eventWriter.onTerminating();
+
+		// test assertion
+		final File[] expectedFiles = recordWriter.getLogFolder().toFile().listFiles(FileExtensionFilter.BIN);
+		final File[] actualFiles = eventWriter.getLogFolder().toFile().listFiles(FileExtensionFilter.BIN);
+		Assert.assertThat(actualFiles.length, CoreMatchers.is(1));
+		Assert.assertArrayEquals(Files.readAllBytes(expectedFiles[0].toPath()), Files.readAllBytes(actualFiles[0].toPath()));
+
+		final File[] expectedMapFiles = recordWriter.getLogFolder().toFile().listFiles(FileExtensionFilter.MAP);
+		final File[] actualMapFiles = eventWriter.getLogFolder().toFile().listFiles(FileExtensionFilter.MAP);
+		Assert.assertArrayEquals(Files.readAllBytes(expectedMapFiles[0].toPath()), Files.readAllBytes(actualMapFiles[0].toPath()));
+	}
+
+	@Test
+	public void shouldWriteAsynchronouslyLikeSynchronously() throws IOException {
+		// test preparation
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_SHOULD_COMPRESS, "false");
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_BUFFERSIZE, "64");
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_MAXENTRIESINFILE, "100");
+
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		final BinaryFileWriter syncWriter = new BinaryFileWriter(this.configuration);
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_NUM_BUFFERS, "3");
+		final BinaryFileWriter asyncWriter = new BinaryFileWriter(this.configuration);
+
+		// test execution
+		final File syncStorePath = FilesystemTestUtil.executeFileWriterTest(250, syncWriter);
+		final File asyncStorePath = FilesystemTestUtil.executeFileWriterTest(250, asyncWriter);
+
+		// test assertion
+		final File[] expectedFiles = syncStorePath.listFiles(FileExtensionFilter.BIN);
+		final File[] actualFiles = asyncStorePath.listFiles(FileExtensionFilter.BIN);
+		Arrays.sort(expectedFiles);
+		Arrays.sort(actualFiles);
+		Assert.assertThat(actualFiles.length, CoreMatchers.is(3));
+		Assert.assertThat(actualFiles.length, CoreMatchers.is(expectedFiles.length));
+		for (int i = 0; i < actualFiles.length; i++) {
+			Assert.assertArrayEquals(Files.readAllBytes(expectedFiles[i].toPath()), Files.readAllBytes(actualFiles[i].toPath()));
+		}
+	}
+
+	@Test
+	public void shouldFlushAfterTheFlushIntervalWithoutFurtherRecords() throws Exception {
+		// test preparation
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_SHOULD_COMPRESS, "false");
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_FLUSH_INTERVAL, "10");
+		final BinaryFileWriter writer = new BinaryFileWriter(this.configuration);
+
+		// test execution
+		writer.onStarting();
+		FilesystemTestUtil.writeMonitoringRecords(writer, 3);
+
+		// test assertion
+		final File[] files = writer.getLogFolder().toFile().listFiles(FileExtensionFilter.BIN);
+		Assert.assertThat(files.length, CoreMatchers.is(1));
+		final long expectedSize = 3 * (4 + 8 + new EmptyRecord().getSize());
+		final long deadline = System.currentTimeMillis() + 10000;
+		while ((files[0].length() < expectedSize) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10);
+		}
+		Assert.assertThat(files[0].length(), CoreMatchers.is(expectedSize));
+
+		writer.onTerminating();
+	}
+
+	@Test
+	public void shouldWriteBlockCompressedFilesContainingTheUncompressedContent() throws Exception {
+		// test preparation
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_SHOULD_COMPRESS, "false");
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		final BinaryFileWriter uncompressedWriter = new BinaryFileWriter(this.configuration);
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		this.configuration.setProperty(BinaryFileWriter.CONFIG_BLOCK_SIZE, "100");
+		final BinaryFileWriter blockWriter = new BinaryFileWriter(this.configuration);
+
+		// test execution
+		final File uncompressedStorePath = FilesystemTestUtil.executeFileWriterTest(250, uncompressedWriter);
+		final File blockStorePath = FilesystemTestUtil.executeFileWriterTest(250, blockWriter);
+
+		// test assertion
+		final File[] blockFiles = blockStorePath.listFiles(blockWriter.getFileNameFilter());
+		Assert.assertThat(blockFiles.length, CoreMatchers.is(1));
+		final ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(blockFiles[0].toPath()));
+		Assert.assertThat(file.getInt(), CoreMatchers.is(BlockLogFormat.FILE_MAGIC));
+		Assert.assertThat(file.getInt(), CoreMatchers.is(BlockLogFormat.VERSION));
+
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		final int[] expectedNumRecords = { 100, 100, 50 };
+		for (final int numRecords : expectedNumRecords) {
+			final int compressedSize = file.getInt();
+			final int uncompressedSize = file.getInt();
+			Assert.assertThat(file.getInt(), CoreMatchers.is(numRecords));
+			file.getLong(); // min logging timestamp
+			file.getLong(); // max logging timestamp
+
+			final Inflater inflater = new Inflater(true);
+			inflater.setInput(file.array(), file.position(), compressedSize);
+			final byte[] block = new byte[uncompressedSize];
+			Assert.assertThat(inflater.inflate(block), CoreMatchers.is(uncompressedSize));
+			inflater.end();
+			content.write(block);
+			file.position(file.position() + compressedSize);
+		}
+
+		// index and footer
+		file.position(file.limit() - BlockLogFormat.FOOTER_SIZE);
+		final long indexOffset = file.getLong();
+		Assert.assertThat(file.getInt(), CoreMatchers.is(expectedNumRecords.length));
+		Assert.assertThat(file.getInt(), CoreMatchers.is(BlockLogFormat.FOOTER_MAGIC));
+		Assert.assertThat(indexOffset, CoreMatchers.is((long) (file.limit() - BlockLogFormat.FOOTER_SIZE - (3 * BlockLogFormat.INDEX_ENTRY_SIZE))));
+		Assert.assertThat(file.getLong((int) indexOffset), CoreMatchers.is((long) BlockLogFormat.FILE_HEADER_SIZE));
+
+		final File[] uncompressedFiles = uncompressedStorePath.listFiles(FileExtensionFilter.BIN);
+		Assert.assertArrayEquals(Files.readAllBytes(uncompressedFiles[0].toPath()), content.toByteArray());
+	}
 }
@@ -0,0 +1,192 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.monitoring.writer.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import kieker.common.configuration.Configuration;
+import kieker.common.record.misc.EmptyRecord;
+import kieker.common.util.filesystem.FSUtil;
+import kieker.common.util.filesystem.FileExtensionFilter;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.writer.OperationEventBuffer;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class MappedBinaryFileWriterTest {
+
+	@Rule
+	public final TemporaryFolder tmpFolder = new TemporaryFolder(); // NOCS recommends that this is private. JUnit test wants this public.
+
+	private Configuration configuration;
+
+	public MappedBinaryFileWriterTest() {
+		super();
+	}
+
+	@Before
+	public void before() {
+		this.configuration = new Configuration();
+		this.configuration.setProperty(ConfigurationFactory.HOST_NAME, "testHostName");
+		this.configuration.setProperty(ConfigurationFactory.CONTROLLER_NAME, "testControllerName");
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_CHARSET_NAME, "UTF-8");
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_MAXENTRIESINFILE, "-1");
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_MAXLOGFILES, "-1");
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_MAXLOGSIZE, "1");
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_PATH, this.tmpFolder.getRoot().getAbsolutePath());
+	}
+
+	@Test
+	public void shouldWriteLikeBinaryFileWriter() throws IOException {
+		// test preparation
+		final Configuration binaryConfiguration = new Configuration();
+		binaryConfiguration.setProperty(ConfigurationFactory.HOST_NAME, "testHostName");
+		binaryConfiguration.setProperty(ConfigurationFactory.CONTROLLER_NAME, "testControllerName");
+		binaryConfiguration.setProperty(BinaryFileWriter.CONFIG_BUFFERSIZE, "8192");
+		binaryConfiguration.setProperty(BinaryFileWriter.CONFIG_MAXENTRIESINFILE, "100");
+		binaryConfiguration.setProperty(BinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		final BinaryFileWriter binaryWriter = new BinaryFileWriter(binaryConfiguration);
+
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_MAXENTRIESINFILE, "100");
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_FORCE_INTERVAL, "1");
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		final MappedBinaryFileWriter mappedWriter = new MappedBinaryFileWriter(this.configuration);
+
+		// test execution
+		final File expectedStorePath = FilesystemTestUtil.executeFileWriterTest(250, binaryWriter);
+		final File actualStorePath = FilesystemTestUtil.executeFileWriterTest(250, mappedWriter);
+
+		// test assertion
+		final File[] expectedFiles = expectedStorePath.listFiles(FileExtensionFilter.BIN);
+		final File[] actualFiles = actualStorePath.listFiles(FileExtensionFilter.BIN);
+		Arrays.sort(expectedFiles);
+		Arrays.sort(actualFiles);
+		Assert.assertThat(actualFiles.length, CoreMatchers.is(3));
+		Assert.assertThat(actualFiles.length, CoreMatchers.is(expectedFiles.length));
+		for (int i = 0; i < actualFiles.length; i++) {
+			Assert.assertArrayEquals(Files.readAllBytes(expectedFiles[i].toPath()), Files.readAllBytes(actualFiles[i].toPath()));
+		}
+
+		final File[] expectedMapFiles = expectedStorePath.listFiles(FileExtensionFilter.MAP);
+		final File[] actualMapFiles = actualStorePath.listFiles(FileExtensionFilter.MAP);
+		Assert.assertArrayEquals(Files.readAllBytes(expectedMapFiles[0].toPath()), Files.readAllBytes(actualMapFiles[0].toPath()));
+	}
+
+	@Test
+	public void shouldRollOverAtSegmentBoundaryAndTruncateFiles() {
+		final int recordSizeInBytes = 4 + 8 + EmptyRecord.SIZE; // 12
+		final int recordsPerSegment = ((1024 * 1024) - 4) / recordSizeInBytes; // the end marker requires 4 bytes
+
+		// test preparation
+		final MappedBinaryFileWriter writer = new MappedBinaryFileWriter(this.configuration);
+
+		// test execution
+		final File storePath = FilesystemTestUtil.executeFileWriterTest(recordsPerSegment + 1, writer);
+
+		// test assertion
+		final File[] recordFiles = storePath.listFiles(writer.getFileNameFilter());
+		Arrays.sort(recordFiles);
+		Assert.assertThat(recordFiles.length, CoreMatchers.is(2));
+		Assert.assertThat(recordFiles[0].length(), CoreMatchers.is((long) recordsPerSegment * recordSizeInBytes));
+		Assert.assertThat(recordFiles[1].length(), CoreMatchers.is((long) recordSizeInBytes));
+	}
+
+	@Test
+	public void shouldMarkTheEndOfTheRecordsOfAnUnclosedSegment() throws IOException {
+		final int recordSizeInBytes = 4 + 8 + EmptyRecord.SIZE;
+		final int numRecords = 5;
+
+		// test preparation
+		final MappedBinaryFileWriter writer = new MappedBinaryFileWriter(this.configuration);
+
+		// test execution
+		writer.onStarting();
+		for (int i = 0; i < numRecords; i++) {
+			writer.writeMonitoringRecord(new EmptyRecord());
+		}
+
+		// test assertion: e.g., after a crash, the segment file has its pre-allocated size
+		final File[] recordFiles = writer.getLogFolder().toFile().listFiles(writer.getFileNameFilter());
+		Assert.assertThat(recordFiles.length, CoreMatchers.is(1));
+		final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(recordFiles[0].toPath()));
+		Assert.assertThat(content.capacity(), CoreMatchers.is(1024 * 1024));
+		Assert.assertThat(content.getInt(numRecords * recordSizeInBytes), CoreMatchers.is(FSUtil.END_OF_RECORDS_CLASS_ID));
+
+		writer.onTerminating();
+		Assert.assertThat(recordFiles[0].length(), CoreMatchers.is((long) numRecords * recordSizeInBytes));
+	}
+
+	@Test
+	public final void testMaxLogFiles() {
+		// test preparation
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_MAXENTRIESINFILE, "2");
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_MAXLOGFILES, "2");
+		final MappedBinaryFileWriter writer = new MappedBinaryFileWriter(this.configuration);
+
+		// test execution
+		final File storePath = FilesystemTestUtil.executeFileWriterTest(10, writer);
+
+		// test assertion
+		final File[] recordFiles = storePath.listFiles(writer.getFileNameFilter());
+		Assert.assertThat(recordFiles.length, CoreMatchers.is(2));
+	}
+
+	@Test
+	public void shouldWriteOperationEventsLikeTheCorrespondingRecords() throws IOException {
+		// test preparation
+		final OperationEventBuffer events = new OperationEventBuffer(3);
+		events.add(OperationEventBuffer.BEFORE_OPERATION_EVENT, 10, 1, 42, 0, "op()", "Clazz");
+		events.add(OperationEventBuffer.BEFORE_OPERATION_EVENT, 11, 2, 42, 1, "op2()", "Clazz");
+		events.add(OperationEventBuffer.AFTER_OPERATION_EVENT, 12, 3, 42, 2, "op2()", "Clazz");
+
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		final MappedBinaryFileWriter recordWriter = new MappedBinaryFileWriter(this.configuration);
+		this.configuration.setProperty(MappedBinaryFileWriter.CONFIG_PATH, this.tmpFolder.newFolder().getAbsolutePath());
+		final MappedBinaryFileWriter eventWriter = new MappedBinaryFileWriter(this.configuration);
+
+		// test execution
+		recordWriter.onStarting();
+		for (int i = 0; i < events.size(); i++) {
+			recordWriter.writeMonitoringRecord(events.createRecord(i));
+		}
+		recordWriter.onTerminating();
+
+		eventWriter.onStarting();
+		eventWriter.writeOperationEvents(events);
+		eventWriter.onTerminating();
+
+		// test assertion
+		final File[] expectedFiles = recordWriter.getLogFolder().toFile().listFiles(FileExtensionFilter.BIN);
+		final File[] actualFiles = eventWriter.getLogFolder().toFile().listFiles(FileExtensionFilter.BIN);
+		Assert.assertThat(actualFiles.length, CoreMatchers.is(1));
+		Assert.assertArrayEquals(Files.readAllBytes(expectedFiles[0].toPath()), Files.readAllBytes(actualFiles[0].toPath()));
+	}
+}
@@ -0,0 +1,113 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.monitoring.junit.core.sampler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.monitoring.core.sampler.AdaptiveTraceSampler;
+
+import kieker.test.common.junit.AbstractKiekerTest;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class TestAdaptiveTraceSampler extends AbstractKiekerTest {
+
+	private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	public TestAdaptiveTraceSampler() {
+		// empty default constructor
+	}
+
+	@Test
+	public void testAllTracesAreSampledWithinBudget() {
+		final AdaptiveTraceSampler sampler = new AdaptiveTraceSampler(1000);
+		final long startTime = System.nanoTime();
+
+		TestAdaptiveTraceSampler.acceptRecords(sampler, 500);
+		sampler.adapt(startTime + ONE_SECOND);
+
+		Assert.assertEquals(1, sampler.getSamplingInterval());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(1, sampler.sampleTrace());
+		}
+	}
+
+	@Test
+	public void testUnsampledFlagIsOutsideTheTraceCounter() {
+		// the trace counter uses the full lower 32 bits of a trace id
+		Assert.assertFalse(AdaptiveTraceSampler.isSampledOut(0xFFFFFFFFL));
+		Assert.assertTrue(AdaptiveTraceSampler.isSampledOut(0xFFFFFFFFL | AdaptiveTraceSampler.UNSAMPLED_TRACE_ID_BIT));
+	}
+
+	@Test
+	public void testSamplingIntervalAdaptsToRecordRate() {
+		final AdaptiveTraceSampler sampler = new AdaptiveTraceSampler(1000);
+		final long startTime = System.nanoTime();
+
+		// 10000 records per second exceed the budget tenfold
+		TestAdaptiveTraceSampler.acceptRecords(sampler, 10000);
+		sampler.adapt(startTime + ONE_SECOND);
+		Assert.assertEquals(10, sampler.getSamplingInterval());
+
+		// the sampled 1000 records per second correspond to 10000 records per second without sampling
+		TestAdaptiveTraceSampler.acceptRecords(sampler, 1000);
+		sampler.adapt(startTime + (2 * ONE_SECOND));
+		Assert.assertEquals(10, sampler.getSamplingInterval());
+
+		// the load decreases; the interval follows smoothly
+		sampler.adapt(startTime + (3 * ONE_SECOND));
+		Assert.assertEquals(5, sampler.getSamplingInterval());
+		sampler.adapt(startTime + (4 * ONE_SECOND));
+		sampler.adapt(startTime + (5 * ONE_SECOND));
+		sampler.adapt(startTime + (6 * ONE_SECOND));
+		Assert.assertEquals(1, sampler.getSamplingInterval());
+	}
+
+	@Test
+	public void testSampledTracesCarryTheSamplingInterval() {
+		final AdaptiveTraceSampler sampler = new AdaptiveTraceSampler(100);
+		TestAdaptiveTraceSampler.acceptRecords(sampler, 1000);
+		sampler.adapt(System.nanoTime() + ONE_SECOND);
+		final int interval = sampler.getSamplingInterval();
+		Assert.assertTrue("Unexpected interval " + interval, interval >= 10);
+
+		int numSampled = 0;
+		final int numTraces = 100000;
+		for (int i = 0; i < numTraces; i++) {
+			final int decision = sampler.sampleTrace();
+			if (decision != AdaptiveTraceSampler.NOT_SAMPLED) {
+				Assert.assertEquals(interval, decision);
+				numSampled++;
+			}
+		}
+		// about 1 in interval traces is sampled
+		final int expected = numTraces / interval;
+		Assert.assertTrue("Sampled " + numSampled + " traces, expected about " + expected, Math.abs(numSampled - expected) < (expected / 5));
+	}
+
+	private static void acceptRecords(final AdaptiveTraceSampler sampler, final int numRecords) {
+		for (int i = 0; i < numRecords; i++) {
+			sampler.recordAccepted();
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.monitoring.junit.probe.aspectj;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.aspectj.runtime.reflect.Factory;
+import org.hamcrest.CoreMatchers;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.flow.ITraceRecord;
+import kieker.common.record.flow.trace.SampledTraceMetadata;
+import kieker.common.record.flow.trace.TraceMetadata;
+import kieker.common.record.flow.trace.operation.AfterOperationEvent;
+import kieker.common.record.flow.trace.operation.AfterOperationFailedEvent;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.core.controller.IMonitoringController;
+import kieker.monitoring.core.controller.MonitoringController;
+import kieker.monitoring.core.sampler.AdaptiveTraceSampler;
+import kieker.monitoring.probe.aspectj.flow.operationExecution.AbstractAspect;
+
+import kieker.test.common.junit.AbstractKiekerTest;
+import kieker.test.monitoring.util.NamedListWriter;
+
+/**
+ * Drives the flow aspect with trace sampling and checks that the records of unmonitored traces do not reach the writer.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class TestTraceSamplingAspect extends AbstractKiekerTest {
+
+	private static final String CTRLNAME = "MonitoringController-TestTraceSamplingAspect";
+	private static final int NUM_TRACES = 500;
+
+	private final TestAspect aspect = new TestAspect();
+	private final Factory factory = new Factory("TestTraceSamplingAspect.java", TestTraceSamplingAspect.class);
+	private final JoinPoint.StaticPart outerOperation = this.createStaticPart("outer");
+	private final JoinPoint.StaticPart innerOperation = this.createStaticPart("inner");
+
+	private List<IMonitoringRecord> recordListFilledByListWriter;
+
+	public TestTraceSamplingAspect() {
+		// empty default constructor
+	}
+
+	/**
+	 * The properties must be set before the aspect class, and thus the singleton monitoring controller, is initialized.
+	 */
+	@BeforeClass
+	public static void setUpClass() {
+		// The aspect uses the singleton instance of the monitoring controller which reads its properties from system properties
+		System.setProperty(ConfigurationFactory.METADATA, "false");
+		System.setProperty(ConfigurationFactory.CONTROLLER_NAME, CTRLNAME);
+		System.setProperty(ConfigurationFactory.WRITER_CLASSNAME, NamedListWriter.class.getName());
+		System.setProperty(ConfigurationFactory.ADAPTIVE_MONITORING_MAX_TRACE_RECORD_RATE, "1");
+		// the interval is adapted by the test only
+		System.setProperty(ConfigurationFactory.ADAPTIVE_MONITORING_TRACE_SAMPLING_PERIOD, "3600000");
+	}
+
+	@AfterClass
+	public static void tearDownClass() {
+		System.clearProperty(ConfigurationFactory.METADATA);
+		System.clearProperty(ConfigurationFactory.CONTROLLER_NAME);
+		System.clearProperty(ConfigurationFactory.WRITER_CLASSNAME);
+		System.clearProperty(ConfigurationFactory.ADAPTIVE_MONITORING_MAX_TRACE_RECORD_RATE);
+		System.clearProperty(ConfigurationFactory.ADAPTIVE_MONITORING_TRACE_SAMPLING_PERIOD);
+	}
+
+	@Before
+	public void setUp() {
+		this.recordListFilledByListWriter = NamedListWriter.createNamedList(NamedListWriter.FALLBACK_LIST_NAME);
+	}
+
+	@Test
+	public void testNoRecordsOfUnsampledTracesReachTheWriter() throws Throwable { // NOCS (Throwable)
+		final IMonitoringController monitoringController = MonitoringController.getInstance();
+		Assume.assumeThat(monitoringController.getName(), CoreMatchers.is(CTRLNAME));
+		final AdaptiveTraceSampler traceSampler = monitoringController.getTraceSampler();
+		Assert.assertNotNull(traceSampler);
+
+		// all traces are monitored until the first adaption
+		for (int i = 0; i < 10; i++) {
+			this.executeTrace(false);
+		}
+		traceSampler.adapt(System.nanoTime());
+		Assert.assertThat(traceSampler.getSamplingInterval(), CoreMatchers.is(CoreMatchers.not(1)));
+
+		for (int i = 0; i < NUM_TRACES; i++) {
+			this.executeTrace((i % 3) == 0);
+		}
+		monitoringController.terminateMonitoring();
+		monitoringController.waitForTermination(5000);
+
+		final Set<Long> traces = new HashSet<Long>();
+		final Map<Long, List<IMonitoringRecord>> recordsByTrace = new HashMap<Long, List<IMonitoringRecord>>();
+		synchronized (this.recordListFilledByListWriter) {
+			for (final IMonitoringRecord record : this.recordListFilledByListWriter) {
+				final long traceId;
+				if (record instanceof TraceMetadata) {
+					Assert.assertTrue("Trace without sampling interval: " + record, record instanceof SampledTraceMetadata);
+					traceId = ((TraceMetadata) record).getTraceId();
+					Assert.assertTrue("Duplicate trace: " + record, traces.add(traceId));
+				} else {
+					traceId = ((ITraceRecord) record).getTraceId();
+				}
+				List<IMonitoringRecord> records = recordsByTrace.get(traceId);
+				if (records == null) {
+					records = new ArrayList<IMonitoringRecord>();
+					recordsByTrace.put(traceId, records);
+				}
+				records.add(record);
+			}
+		}
+		Assert.assertEquals("Records of unknown traces", traces, recordsByTrace.keySet());
+		Assert.assertThat("All traces monitored", traces.size(), CoreMatchers.is(CoreMatchers.not(10 + NUM_TRACES)));
+		for (final List<IMonitoringRecord> records : recordsByTrace.values()) {
+			// metadata, outer before, inner before, inner after, outer after
+			Assert.assertEquals("Incomplete trace: " + records, 5, records.size());
+			Assert.assertThat(records.get(0), CoreMatchers.instanceOf(TraceMetadata.class));
+			Assert.assertThat(records.get(1), CoreMatchers.instanceOf(BeforeOperationEvent.class));
+			Assert.assertThat(records.get(2), CoreMatchers.instanceOf(BeforeOperationEvent.class));
+			Assert.assertThat(records.get(3), CoreMatchers.instanceOf(AfterOperationEvent.class));
+			Assert.assertThat(records.get(4), CoreMatchers.anyOf(CoreMatchers.instanceOf(AfterOperationEvent.class),
+					CoreMatchers.instanceOf(AfterOperationFailedEvent.class)));
+		}
+	}
+
+	private void executeTrace(final boolean fail) throws Throwable { // NOCS (Throwable)
+		try {
+			this.execute(this.outerOperation, new IOperation() {
+				@Override
+				public void run() throws Throwable { // NOCS (Throwable)
+					TestTraceSamplingAspect.this.execute(TestTraceSamplingAspect.this.innerOperation, new IOperation() {
+						@Override
+						public void run() {
+							// nothing to do
+						}
+					});
+					if (fail) {
+						throw new IllegalStateException("failed operation");
+					}
+				}
+			});
+		} catch (final IllegalStateException ex) { // NOPMD (expected)
+			Assert.assertTrue(fail);
+		}
+	}
+
+	private Object execute(final JoinPoint.StaticPart staticPart, final IOperation operation) throws Throwable { // NOCS (Throwable)
+		final JoinPoint joinPoint = Factory.makeJP(staticPart, this, this);
+		// the closure represents the body of the advised operation
+		final ProceedingJoinPoint proceedingJoinPoint = new AroundClosure(new Object[] { joinPoint }) {
+			@Override
+			public Object run(final Object[] args) throws Throwable { // NOCS (Throwable)
+				operation.run();
+				return null;
+			}
+		}.linkClosureAndJoinPoint();
+		return this.aspect.operation(this, proceedingJoinPoint);
+	}
+
+	private JoinPoint.StaticPart createStaticPart(final String operationName) {
+		return this.factory.makeSJP(JoinPoint.METHOD_EXECUTION,
+				this.factory.makeMethodSig(Modifier.PUBLIC, operationName, TestTraceSamplingAspect.class, new Class<?>[0], new String[0], new Class<?>[0],
+						void.class),
+				0);
+	}
+
+	/**
+	 * The body of an operation.
+	 */
+	private interface IOperation {
+		void run() throws Throwable; // NOCS (Throwable)
+	}
+
+	/**
+	 * The flow aspect for the operations of this test.
+	 */
+	private static final class TestAspect extends AbstractAspect {
+
+		public TestAspect() {
+			// empty default constructor
+		}
+
+		// no @Override: the woven abstract pointcut method is synthetic
+		public void monitoredOperation() {
+			// the join points are created by the test
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.monitoring.junit.timer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.common.configuration.Configuration;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.timer.CachedNanoTimer;
+
+/**
+ * This class is a JUnit test for the {@link CachedNanoTimer}.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class TestCachedNanoTimer extends AbstractTestTimeSource {
+
+	/**
+	 * Default constructor.
+	 */
+	public TestCachedNanoTimer() {
+		// empty default constructor
+	}
+
+	/**
+	 * This method tests the {@link CachedNanoTimer} with milliseconds as time unit and a resolution below a millisecond.
+	 */
+	@Test
+	public final void testMilliseconds() {
+		final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+		configuration.setProperty(CachedNanoTimer.CONFIG_UNIT, "2");
+		configuration.setProperty(CachedNanoTimer.CONFIG_RESOLUTION, "100");
+		final CachedNanoTimer ts = new CachedNanoTimer(configuration);
+		ts.start();
+
+		final long before = System.currentTimeMillis();
+		final long measured = ts.getTime();
+		final long after = System.currentTimeMillis();
+		ts.terminate();
+
+		// the cached time may lag behind by the resolution and the scheduling latency of the updating thread
+		Assert.assertTrue("Measured time (" + measured + ") has to be >= " + (before - 20), (before - 20) <= measured);
+		Assert.assertTrue("Measured time (" + measured + ") has to be <= " + (after + 2), measured <= (after + 2));
+	}
+
+	/**
+	 * This method tests that the time advances in the background.
+	 *
+	 * @throws InterruptedException
+	 *             If interrupted
+	 */
+	@Test
+	public final void testTimeAdvances() throws InterruptedException {
+		final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+		configuration.setProperty(CachedNanoTimer.CONFIG_RESOLUTION, "1000");
+		final CachedNanoTimer ts = new CachedNanoTimer(configuration);
+		ts.start();
+
+		final long before = ts.getTime();
+		Thread.sleep(50);
+		final long after = ts.getTime();
+		ts.terminate();
+		Assert.assertTrue("The time has not advanced", (after - before) >= TimeUnit.MILLISECONDS.toNanos(20));
+	}
+
+	/**
+	 * This method tests that the thread is started by {@link CachedNanoTimer#start()} only, that terminating the timer
+	 * stops it, and that the time still advances afterwards.
+	 *
+	 * @throws InterruptedException
+	 *             If interrupted
+	 */
+	@Test
+	public final void testTerminate() throws InterruptedException {
+		final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+		final int numThreadsBefore = this.countTickThreads();
+		final CachedNanoTimer ts = new CachedNanoTimer(configuration);
+		Assert.assertEquals(numThreadsBefore, this.countTickThreads());
+		ts.start();
+		Assert.assertEquals(numThreadsBefore + 1, this.countTickThreads());
+
+		ts.terminate();
+		Assert.assertEquals(numThreadsBefore, this.countTickThreads());
+
+		final long before = ts.getTime();
+		Thread.sleep(50);
+		final long after = ts.getTime();
+		Assert.assertTrue("The time has not advanced", (after - before) >= TimeUnit.MILLISECONDS.toNanos(20));
+	}
+
+	/**
+	 * This method tests that the time advances before the thread is started.
+	 *
+	 * @throws InterruptedException
+	 *             If interrupted
+	 */
+	@Test
+	public final void testTimeAdvancesBeforeStart() throws InterruptedException {
+		final CachedNanoTimer ts = new CachedNanoTimer(ConfigurationFactory.createDefaultConfiguration());
+
+		final long before = ts.getTime();
+		Thread.sleep(50);
+		final long after = ts.getTime();
+		ts.terminate();
+		Assert.assertTrue("The time has not advanced", (after - before) >= TimeUnit.MILLISECONDS.toNanos(20));
+	}
+
+	private int countTickThreads() {
+		int count = 0;
+		for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && ("Kieker-" + CachedNanoTimer.class.getSimpleName()).equals(thread.getName())) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
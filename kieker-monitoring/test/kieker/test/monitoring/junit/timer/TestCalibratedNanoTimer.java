@@ -0,0 +1,83 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.monitoring.junit.timer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.common.configuration.Configuration;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.timer.CalibratedNanoTimer;
+import kieker.monitoring.timer.ITimeSource;
+
+/**
+ * This class is a JUnit test for the {@link CalibratedNanoTimer}, testing the timer with different configurations.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class TestCalibratedNanoTimer extends AbstractTestTimeSource {
+
+	/**
+	 * Default constructor.
+	 */
+	public TestCalibratedNanoTimer() {
+		// empty default constructor
+	}
+
+	/**
+	 * This method tests the {@link CalibratedNanoTimer} with all time units.
+	 */
+	@Test
+	public final void testTimeUnits() { // NOPMD (assert in superclass)
+		final TimeUnit[] timeunits = { TimeUnit.NANOSECONDS, TimeUnit.MICROSECONDS, TimeUnit.MILLISECONDS, TimeUnit.SECONDS, };
+		for (int unit = 0; unit < timeunits.length; unit++) {
+			final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+			configuration.setProperty(CalibratedNanoTimer.CONFIG_UNIT, Integer.toString(unit));
+			final ITimeSource ts = new CalibratedNanoTimer(configuration);
+			super.testTime(ts, timeunits[unit]);
+		}
+	}
+
+	/**
+	 * This method tests that the differences of the timestamps match the ones of a division.
+	 */
+	@Test
+	public final void testConversionMatchesDivision() {
+		final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+		configuration.setProperty(CalibratedNanoTimer.CONFIG_UNIT, "1");
+		final ITimeSource ts = new CalibratedNanoTimer(configuration);
+
+		final long firstBefore = System.nanoTime();
+		final long first = ts.getTime();
+		final long firstAfter = System.nanoTime();
+		long previous = first;
+		for (int i = 0; i < 100000; i++) {
+			final long before = System.nanoTime();
+			final long measured = ts.getTime();
+			final long after = System.nanoTime();
+
+			Assert.assertTrue("Timestamps must not decrease", previous <= measured);
+			Assert.assertTrue(measured - first >= (TimeUnit.NANOSECONDS.toMicros(before - firstAfter) - 1));
+			Assert.assertTrue(measured - first <= (TimeUnit.NANOSECONDS.toMicros(after - firstBefore) + 1));
+			previous = measured;
+		}
+	}
+}
@@ -20,19 +20,26 @@ import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import kieker.common.configuration.Configuration;
+import kieker.common.record.IMonitoringRecord;
 import kieker.common.record.controlflow.OperationExecutionRecord;
 import kieker.monitoring.core.configuration.ConfigurationFactory;
 import kieker.monitoring.core.controller.IMonitoringController;
 import kieker.monitoring.core.controller.MonitoringController;
+import kieker.monitoring.core.controller.ReceiveUnfilteredConfiguration;
 import kieker.monitoring.writer.collector.ChunkingCollector;
+import kieker.monitoring.writer.raw.InJvmTransportWriter;
 import kieker.monitoring.writer.serializer.StringSerializer;
 
 /**
@@ -88,6 +95,204 @@ public final class TestChunkingCollector {
 		Assert.assertEquals(recordCount + 1, numberOfLines);
 	}
 
+	/**
+	 * Tests that chunks serialized by several workers with adaptive chunk sizes are written completely and in order.
+	 *
+	 * @throws IOException
+	 *             Not expected
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testAdaptiveChunkingWithSeveralWorkers() throws IOException, InterruptedException {
+		final String testId = "testAdaptiveChunkingWithSeveralWorkers";
+		final int recordCount = 2000;
+
+		final Configuration configuration = this.createConfiguration(testId, 100);
+		configuration.setProperty(ChunkingCollector.CONFIG_NUMBER_OF_WORKERS, 3);
+		configuration.setProperty(ChunkingCollector.CONFIG_ADAPTIVE, "true");
+		final IMonitoringController controller = MonitoringController.createInstance(configuration);
+
+		for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+			final OperationExecutionRecord record = new OperationExecutionRecord("op()", "SESS-" + recordIndex, 0, recordIndex,
+					recordIndex, "host", recordIndex, 1);
+			controller.newMonitoringRecord(record);
+		}
+
+		controller.terminateMonitoring();
+		controller.waitForTermination(5000);
+
+		final byte[] data = TestRawDataStorage.getInstance().getData(testId);
+		final List<String> lines = TestChunkingCollector.linesFromData(data);
+
+		// +1 due to one more line for the metadata record
+		Assert.assertEquals(recordCount + 1, lines.size());
+		for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+			Assert.assertTrue("Record " + recordIndex + " is out of order: " + lines.get(recordIndex + 1),
+					lines.get(recordIndex + 1).contains("SESS-" + recordIndex + ";"));
+		}
+	}
+
+	/**
+	 * Tests that the buffers taken over by a writer return to the pool once they have been sent.
+	 *
+	 * @throws IOException
+	 *             Not expected
+	 */
+	@Test
+	public void testPooledBuffersAreReturnedAfterSending() throws IOException {
+		final int recordCount = 1000;
+		final int numberOfBuffers = 3;
+
+		final Configuration configuration = this.createConfiguration("testPooledBuffersAreReturnedAfterSending", 100);
+		configuration.setProperty(ChunkingCollector.CONFIG_WRITER_CLASSNAME, InJvmTransportWriter.class.getName());
+		configuration.setProperty(ChunkingCollector.CONFIG_NUMBER_OF_BUFFERS, numberOfBuffers);
+		configuration.setProperty(InJvmTransportWriter.CONFIG_SEND_LATENCY, 100);
+		final ChunkingCollector collector = new ChunkingCollector(configuration);
+
+		collector.onStarting();
+		for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+			collector.writeMonitoringRecord(new OperationExecutionRecord("op()", "SESS-" + recordIndex, 0, recordIndex, recordIndex, "host", recordIndex, 1));
+		}
+		collector.onTerminating();
+
+		Assert.assertEquals(numberOfBuffers, collector.getNumberOfAvailableBuffers());
+		Assert.assertEquals(0, collector.getNumberOfDroppedRecords());
+		Assert.assertTrue(collector.getNumberOfBytesWritten() > 0);
+	}
+
+	/**
+	 * Tests that there are at least as many buffers as workers, since each worker may hold a buffer while waiting for the
+	 * previous chunks to be written.
+	 */
+	@Test
+	public void testFewerBuffersThanWorkers() {
+		final int recordCount = 1000;
+		final int numberOfWorkers = 3;
+
+		final Configuration configuration = this.createConfiguration("testFewerBuffersThanWorkers", 100);
+		configuration.setProperty(ChunkingCollector.CONFIG_WRITER_CLASSNAME, InJvmTransportWriter.class.getName());
+		configuration.setProperty(ChunkingCollector.CONFIG_NUMBER_OF_WORKERS, numberOfWorkers);
+		configuration.setProperty(ChunkingCollector.CONFIG_NUMBER_OF_BUFFERS, 1);
+		configuration.setProperty(ChunkingCollector.CONFIG_CHUNK_SIZE, 10);
+		configuration.setProperty(InJvmTransportWriter.CONFIG_SEND_LATENCY, 100);
+		final ChunkingCollector collector = new ChunkingCollector(configuration);
+
+		collector.onStarting();
+		for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+			collector.writeMonitoringRecord(new OperationExecutionRecord("op()", "SESS-" + recordIndex, 0, recordIndex, recordIndex, "host", recordIndex, 1));
+		}
+		collector.onTerminating();
+
+		Assert.assertEquals(numberOfWorkers, collector.getNumberOfAvailableBuffers());
+		Assert.assertEquals(0, collector.getNumberOfDroppedRecords());
+	}
+
+	/**
+	 * Tests that a chunk which cannot be serialized is dropped without blocking the chunks after it.
+	 */
+	@Test
+	public void testFailedSerializationDropsChunk() {
+		final int recordCount = 100;
+
+		final Configuration configuration = this.createConfiguration("testFailedSerializationDropsChunk", 100);
+		configuration.setProperty(ChunkingCollector.CONFIG_SERIALIZER_CLASSNAME, FailingSerializer.class.getName());
+		configuration.setProperty(ChunkingCollector.CONFIG_NUMBER_OF_WORKERS, 2);
+		configuration.setProperty(ChunkingCollector.CONFIG_CHUNK_SIZE, 10);
+		final ChunkingCollector collector = new ChunkingCollector(configuration);
+
+		collector.onStarting();
+		for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+			final String sessionId = (recordIndex == 5) ? FailingSerializer.FAILING_SESSION_ID : "SESS-" + recordIndex; // NOCS (?:)
+			collector.writeMonitoringRecord(new OperationExecutionRecord("op()", sessionId, 0, recordIndex, recordIndex, "host", recordIndex, 1));
+		}
+		collector.onTerminating();
+
+		Assert.assertEquals(10, collector.getNumberOfDroppedRecords());
+		Assert.assertTrue(collector.getNumberOfBytesWritten() > 0);
+		Assert.assertEquals(2, collector.getNumberOfAvailableBuffers());
+	}
+
+	/**
+	 * Tests that a chunk which the raw writer fails on is dropped without stopping the chunks after it.
+	 */
+	@Test
+	public void testFailedWriteDropsChunk() {
+		final int recordCount = 100;
+
+		final Configuration configuration = this.createConfiguration("testFailedWriteDropsChunk", 100);
+		configuration.setProperty(ChunkingCollector.CONFIG_WRITER_CLASSNAME, FailingWriter.class.getName());
+		configuration.setProperty(ChunkingCollector.CONFIG_NUMBER_OF_WORKERS, 2);
+		configuration.setProperty(ChunkingCollector.CONFIG_CHUNK_SIZE, 10);
+		final ChunkingCollector collector = new ChunkingCollector(configuration);
+
+		collector.onStarting();
+		for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+			collector.writeMonitoringRecord(new OperationExecutionRecord("op()", "SESS-" + recordIndex, 0, recordIndex, recordIndex, "host", recordIndex, 1));
+		}
+		collector.onTerminating();
+
+		Assert.assertEquals(10, collector.getNumberOfDroppedRecords());
+		Assert.assertTrue(collector.getNumberOfBytesWritten() > 0);
+		Assert.assertEquals(2, collector.getNumberOfAvailableBuffers());
+	}
+
+	/**
+	 * Tests that interrupting the consumer thread while the chunk queue is full neither drops a chunk nor stalls the
+	 * chunks after it.
+	 *
+	 * @throws IOException
+	 *             Not expected
+	 * @throws InterruptedException
+	 *             Not expected
+	 */
+	@Test(timeout = 10000)
+	public void testInterruptedHandOverKeepsChunks() throws IOException, InterruptedException {
+		final String testId = "testInterruptedHandOverKeepsChunks";
+		// 2 chunks at the workers, 4 in the chunk queue, and 1 being handed over, with some to spare
+		final int recordCount = 100;
+
+		final Configuration configuration = this.createConfiguration(testId, 100);
+		configuration.setProperty(ChunkingCollector.CONFIG_WRITER_CLASSNAME, BlockingWriter.class.getName());
+		configuration.setProperty(ChunkingCollector.CONFIG_NUMBER_OF_WORKERS, 2);
+		configuration.setProperty(ChunkingCollector.CONFIG_CHUNK_SIZE, 10);
+		BlockingWriter.release = new CountDownLatch(1);
+		final ChunkingCollector collector = new ChunkingCollector(configuration);
+
+		collector.onStarting();
+		for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+			collector.writeMonitoringRecord(new OperationExecutionRecord("op()", "SESS-" + recordIndex, 0, recordIndex, recordIndex, "host", recordIndex, 1));
+		}
+
+		// the consumer thread waits untimed only while handing over a chunk to the full chunk queue
+		final Thread consumerThread = TestChunkingCollector.findThread("Kieker-" + ChunkingCollector.class.getSimpleName());
+		while (consumerThread.getState() != Thread.State.WAITING) {
+			Thread.sleep(10);
+		}
+		consumerThread.interrupt();
+		Thread.sleep(100);
+		BlockingWriter.release.countDown();
+		collector.onTerminating();
+
+		Assert.assertEquals(0, collector.getNumberOfDroppedRecords());
+		final List<String> lines = TestChunkingCollector.linesFromData(TestRawDataStorage.getInstance().getData(testId));
+		int numberOfRecords = 0;
+		for (final String line : lines) {
+			if (line.contains("SESS-")) {
+				numberOfRecords++;
+			}
+		}
+		Assert.assertEquals(recordCount, numberOfRecords);
+	}
+
+	private static Thread findThread(final String name) {
+		for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (name.equals(thread.getName())) {
+				return thread;
+			}
+		}
+		throw new IllegalStateException("No thread named " + name);
+	}
+
 	private static List<String> linesFromData(final byte[] data) throws IOException {
 		final List<String> lines = new ArrayList<>();
 
@@ -108,6 +313,10 @@ public final class TestChunkingCollector {
 	}
 
 	private IMonitoringController createController(final String testId, final int deferredWriteDelay) {
+		return MonitoringController.createInstance(this.createConfiguration(testId, deferredWriteDelay));
+	}
+
+	private Configuration createConfiguration(final String testId, final int deferredWriteDelay) {
 		final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
 
 		configuration.setProperty(ConfigurationFactory.WRITER_CLASSNAME, ChunkingCollector.class.getName());
@@ -116,7 +325,73 @@ public final class TestChunkingCollector {
 		configuration.setProperty(ChunkingCollector.CONFIG_DEFERRED_WRITE_DELAY, deferredWriteDelay);
 		configuration.setProperty(TestRawDataWriter.CONFIG_TEST_ID, testId);
 
-		return MonitoringController.createInstance(configuration);
+		return configuration;
 	}
 
+	/**
+	 * A serializer which fails on chunks containing a record of a specific session.
+	 */
+	public static final class FailingSerializer extends StringSerializer {
+
+		static final String FAILING_SESSION_ID = "FAIL";
+
+		public FailingSerializer(final Configuration configuration) {
+			super(configuration);
+		}
+
+		@Override
+		public int serializeRecords(final Collection<IMonitoringRecord> records, final ByteBuffer buffer) {
+			for (final IMonitoringRecord record : records) {
+				if (FAILING_SESSION_ID.equals(((OperationExecutionRecord) record).getSessionId())) {
+					throw new IllegalStateException("Serialization failed");
+				}
+			}
+			return super.serializeRecords(records, buffer);
+		}
+	}
+
+	/**
+	 * A raw data writer which fails on the second chunk it is asked to write.
+	 */
+	public static final class FailingWriter extends TestRawDataWriter {
+
+		private static final int FAILING_WRITE = 2;
+
+		private final AtomicInteger numWrites = new AtomicInteger();
+
+		public FailingWriter(final Configuration configuration) {
+			super(configuration);
+		}
+
+		@Override
+		public void writeData(final ByteBuffer data, final int offset, final int length) {
+			if (this.numWrites.incrementAndGet() == FAILING_WRITE) {
+				throw new IllegalStateException("Write failed");
+			}
+			super.writeData(data, offset, length);
+		}
+	}
+
+	/**
+	 * A raw data writer which blocks until it is released.
+	 */
+	@ReceiveUnfilteredConfiguration
+	public static final class BlockingWriter extends TestRawDataWriter {
+
+		static volatile CountDownLatch release; // NOCS NOPMD (set by the test before the writer is created)
+
+		public BlockingWriter(final Configuration configuration) {
+			super(configuration);
+		}
+
+		@Override
+		public void writeData(final ByteBuffer data, final int offset, final int length) {
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			super.writeData(data, offset, length);
+		}
+	}
 }
@@ -0,0 +1,65 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.monitoring.junit.writer.raw;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.monitoring.writer.raw.BufferPool;
+import kieker.monitoring.writer.raw.PooledBuffer;
+
+/**
+ * Tests for the reference counting of pooled buffers.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class TestBufferPool {
+
+	public TestBufferPool() {
+		// Default Constructor
+	}
+
+	@Test
+	public void testBufferReturnsAfterLastRelease() throws InterruptedException {
+		final BufferPool pool = new BufferPool(2, 64, false);
+
+		final PooledBuffer buffer = pool.acquire();
+		buffer.getBuffer().putInt(42);
+		buffer.retain();
+		Assert.assertEquals(1, pool.getNumAvailableBuffers());
+
+		buffer.release();
+		Assert.assertEquals(1, pool.getNumAvailableBuffers());
+		buffer.release();
+		Assert.assertEquals(2, pool.getNumAvailableBuffers());
+
+		// a reacquired buffer is cleared
+		final PooledBuffer reacquired = pool.acquire();
+		Assert.assertEquals(0, reacquired.getBuffer().position());
+		Assert.assertEquals(64, reacquired.getBuffer().limit());
+		Assert.assertEquals(1, reacquired.getReferenceCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReleasedBufferCannotBeReleasedAgain() throws InterruptedException {
+		final PooledBuffer buffer = new BufferPool(1, 64, true).acquire();
+		buffer.release();
+		buffer.release();
+	}
+}
@@ -70,42 +70,68 @@ public abstract class AbstractTraceAnalysisFilter extends AbstractFilterPlugin {
 			final String executionContainerName, final String assemblyComponentTypeName, final String componentTypeName,
 			final Signature operationSignature, final long traceId, final String sessionId, final int eoi, final int ess,
 			final long tin, final long tout, final boolean assumed) {
-		final String allocationComponentName = new StringBuilder(executionContainerName).append("::").append(assemblyComponentTypeName).toString();
-		final String operationFactoryName = new StringBuilder(componentTypeName).append(".").append(operationSignature).toString();
-
+		// fast path: the model elements of known names are found without locking and without building the named identifiers
 		AllocationComponent allocInst = systemModelRepository.getAllocationFactory()
-				.lookupAllocationComponentInstanceByNamedIdentifier(allocationComponentName);
-		if (allocInst == null) { // Allocation component instance doesn't exist
-			AssemblyComponent assemblyComponent = systemModelRepository.getAssemblyFactory()
-					.lookupAssemblyComponentInstanceByNamedIdentifier(assemblyComponentTypeName);
-			if (assemblyComponent == null) { // assembly instance doesn't exist
-				ComponentType componentType = systemModelRepository.getTypeRepositoryFactory().lookupComponentTypeByNamedIdentifier(assemblyComponentTypeName);
-				if (componentType == null) { // NOPMD NOCS (NestedIf)
-					// Component type doesn't exist
-					componentType = systemModelRepository.getTypeRepositoryFactory().createAndRegisterComponentType(assemblyComponentTypeName,
-							assemblyComponentTypeName);
+				.lookupAllocationComponentInstanceByNames(executionContainerName, assemblyComponentTypeName);
+		if (allocInst == null) {
+			allocInst = AbstractTraceAnalysisFilter.lookupOrCreateAllocationComponent(systemModelRepository, executionContainerName, assemblyComponentTypeName);
+		}
+		Operation op = systemModelRepository.getOperationFactory().lookupOperation(componentTypeName, operationSignature);
+		if (op == null) {
+			op = AbstractTraceAnalysisFilter.lookupOrCreateOperation(systemModelRepository, componentTypeName, operationSignature, allocInst);
+		}
+
+		return new Execution(op, allocInst, traceId, sessionId, eoi, ess, tin, tout, assumed);
+	}
+
+	private static AllocationComponent lookupOrCreateAllocationComponent(final SystemModelRepository systemModelRepository,
+			final String executionContainerName, final String assemblyComponentTypeName) {
+		synchronized (systemModelRepository) {
+			final String allocationComponentName = new StringBuilder(executionContainerName).append("::").append(assemblyComponentTypeName).toString();
+
+			AllocationComponent allocInst = systemModelRepository.getAllocationFactory()
+					.lookupAllocationComponentInstanceByNamedIdentifier(allocationComponentName);
+			if (allocInst == null) { // Allocation component instance doesn't exist
+				AssemblyComponent assemblyComponent = systemModelRepository.getAssemblyFactory()
+						.lookupAssemblyComponentInstanceByNamedIdentifier(assemblyComponentTypeName);
+				if (assemblyComponent == null) { // assembly instance doesn't exist
+					ComponentType componentType = systemModelRepository.getTypeRepositoryFactory().lookupComponentTypeByNamedIdentifier(assemblyComponentTypeName);
+					if (componentType == null) { // NOPMD NOCS (NestedIf)
+						// Component type doesn't exist
+						componentType = systemModelRepository.getTypeRepositoryFactory().createAndRegisterComponentType(assemblyComponentTypeName,
+								assemblyComponentTypeName);
+					}
+					assemblyComponent = systemModelRepository.getAssemblyFactory()
+							.createAndRegisterAssemblyComponentInstance(assemblyComponentTypeName, componentType);
 				}
-				assemblyComponent = systemModelRepository.getAssemblyFactory()
-						.createAndRegisterAssemblyComponentInstance(assemblyComponentTypeName, componentType);
-			}
-			ExecutionContainer execContainer = systemModelRepository.getExecutionEnvironmentFactory()
-					.lookupExecutionContainerByNamedIdentifier(executionContainerName);
-			if (execContainer == null) { // doesn't exist, yet
-				execContainer = systemModelRepository.getExecutionEnvironmentFactory()
-						.createAndRegisterExecutionContainer(executionContainerName, executionContainerName);
+				ExecutionContainer execContainer = systemModelRepository.getExecutionEnvironmentFactory()
+						.lookupExecutionContainerByNamedIdentifier(executionContainerName);
+				if (execContainer == null) { // doesn't exist, yet
+					execContainer = systemModelRepository.getExecutionEnvironmentFactory()
+							.createAndRegisterExecutionContainer(executionContainerName, executionContainerName);
+				}
+				allocInst = systemModelRepository.getAllocationFactory()
+						.createAndRegisterAllocationComponentInstance(allocationComponentName, assemblyComponent, execContainer);
 			}
-			allocInst = systemModelRepository.getAllocationFactory()
-					.createAndRegisterAllocationComponentInstance(allocationComponentName, assemblyComponent, execContainer);
+			systemModelRepository.getAllocationFactory().registerAllocationComponentInstanceByNames(executionContainerName, assemblyComponentTypeName, allocInst);
+			return allocInst;
 		}
+	}
 
-		Operation op = systemModelRepository.getOperationFactory().lookupOperationByNamedIdentifier(operationFactoryName);
-		if (op == null) { // Operation doesn't exist
-			op = systemModelRepository.getOperationFactory()
-					.createAndRegisterOperation(operationFactoryName, allocInst.getAssemblyComponent().getType(), operationSignature);
-			allocInst.getAssemblyComponent().getType().addOperation(op);
-		}
+	private static Operation lookupOrCreateOperation(final SystemModelRepository systemModelRepository, final String componentTypeName,
+			final Signature operationSignature, final AllocationComponent allocInst) {
+		synchronized (systemModelRepository) {
+			final String operationFactoryName = new StringBuilder(componentTypeName).append(".").append(operationSignature).toString();
 
-		return new Execution(op, allocInst, traceId, sessionId, eoi, ess, tin, tout, assumed);
+			Operation op = systemModelRepository.getOperationFactory().lookupOperationByNamedIdentifier(operationFactoryName);
+			if (op == null) { // Operation doesn't exist
+				op = systemModelRepository.getOperationFactory()
+						.createAndRegisterOperation(operationFactoryName, allocInst.getAssemblyComponent().getType(), operationSignature);
+				allocInst.getAssemblyComponent().getType().addOperation(op);
+			}
+			systemModelRepository.getOperationFactory().registerOperation(componentTypeName, operationSignature, op);
+			return op;
+		}
 	}
 
 	public static final Execution createExecutionByEntityNames(final SystemModelRepository systemModelRepository,
@@ -38,6 +38,7 @@ import kieker.tools.traceAnalysis.systemModel.Execution;
 import kieker.tools.traceAnalysis.systemModel.ExecutionTrace;
 import kieker.tools.traceAnalysis.systemModel.InvalidExecutionTrace;
 import kieker.tools.traceAnalysis.systemModel.MessageTrace;
+import kieker.tools.traceAnalysis.systemModel.MessageTraceBuilder;
 import kieker.tools.traceAnalysis.systemModel.repository.SystemModelRepository;
 import kieker.tools.util.LoggingTimestampConverter;
 
@@ -62,7 +63,8 @@ import kieker.tools.util.LoggingTimestampConverter;
 			@Property(name = TraceReconstructionFilter.CONFIG_PROPERTY_NAME_TIMEUNIT, defaultValue = TraceReconstructionFilter.CONFIG_PROPERTY_VALUE_TIMEUNIT),
 			@Property(name = TraceReconstructionFilter.CONFIG_PROPERTY_NAME_MAX_TRACE_DURATION,
 					defaultValue = TraceReconstructionFilter.CONFIG_PROPERTY_VALUE_MAX_TRACE_DURATION),
-			@Property(name = TraceReconstructionFilter.CONFIG_PROPERTY_NAME_IGNORE_INVALID_TRACES, defaultValue = "true")
+			@Property(name = TraceReconstructionFilter.CONFIG_PROPERTY_NAME_IGNORE_INVALID_TRACES, defaultValue = "true"),
+			@Property(name = TraceReconstructionFilter.CONFIG_PROPERTY_NAME_FLYWEIGHT_MESSAGES, defaultValue = "false")
 		})
 public class TraceReconstructionFilter extends AbstractTraceProcessingFilter {
 
@@ -81,6 +83,8 @@ public class TraceReconstructionFilter extends AbstractTraceProcessingFilter {
 	public static final String CONFIG_PROPERTY_NAME_MAX_TRACE_DURATION = "maxTraceDuration";
 	/** This is the name of the property determining whether to ignore invalid traces or not. */
 	public static final String CONFIG_PROPERTY_NAME_IGNORE_INVALID_TRACES = "ignoreInvalidTraces";
+	/** This is the name of the property determining whether the messages of a message trace are created on first access. */
+	public static final String CONFIG_PROPERTY_NAME_FLYWEIGHT_MESSAGES = "flyweightMessages";
 	/** This is the default used time unit. */
 	public static final String CONFIG_PROPERTY_VALUE_TIMEUNIT = "NANOSECONDS"; // TimeUnit.NANOSECONDS.name()
 	/** This is the default value for the maximal duration of a trace. */
@@ -97,6 +101,9 @@ public class TraceReconstructionFilter extends AbstractTraceProcessingFilter {
 	private volatile boolean terminated;
 	private final boolean ignoreInvalidTraces; // false
 	private final long maxTraceDuration;
+	private final boolean flyweightMessages;
+	/** Reused for all traces; only used while holding the lock of the timeout map. */
+	private final MessageTraceBuilder messageTraceBuilder = new MessageTraceBuilder();
 
 	private boolean traceProcessingErrorOccured; // false
 
@@ -146,6 +153,8 @@ public class TraceReconstructionFilter extends AbstractTraceProcessingFilter {
 		// Load from the configuration.
 		this.maxTraceDuration = this.timeunit.convert(configuration.getLongProperty(CONFIG_PROPERTY_NAME_MAX_TRACE_DURATION), configTimeunit);
 		this.ignoreInvalidTraces = configuration.getBooleanProperty(CONFIG_PROPERTY_NAME_IGNORE_INVALID_TRACES);
+		this.flyweightMessages = configuration.getBooleanProperty(CONFIG_PROPERTY_NAME_FLYWEIGHT_MESSAGES);
+		this.messageTraceBuilder.setMaterializeMessages(!this.flyweightMessages);
 
 		if (this.maxTraceDuration < 0) {
 			throw new IllegalArgumentException("value maxTraceDurationMillis must not be negative (found: " + this.maxTraceDuration + ")");
@@ -250,7 +259,7 @@ public class TraceReconstructionFilter extends AbstractTraceProcessingFilter {
 		final long curTraceId = executionTrace.getTraceId();
 		try {
 			// If the polled trace is invalid, the following method toMessageTrace(..) throws an exception
-			final MessageTrace mt = executionTrace.toMessageTrace(SystemModelRepository.ROOT_EXECUTION);
+			final MessageTrace mt = executionTrace.toMessageTrace(SystemModelRepository.ROOT_EXECUTION, this.messageTraceBuilder);
 
 			// Transformation successful and the trace is for itself valid. However, this trace may actually contain the [0,0] execution and thus complete a trace
 			// that has timed out before and has thus been considered an invalid trace.
@@ -370,6 +379,7 @@ public class TraceReconstructionFilter extends AbstractTraceProcessingFilter {
 		configuration.setProperty(CONFIG_PROPERTY_NAME_TIMEUNIT, this.timeunit.name());
 		configuration.setProperty(CONFIG_PROPERTY_NAME_MAX_TRACE_DURATION, Long.toString(this.maxTraceDuration));
 		configuration.setProperty(CONFIG_PROPERTY_NAME_IGNORE_INVALID_TRACES, Boolean.toString(this.ignoreInvalidTraces));
+		configuration.setProperty(CONFIG_PROPERTY_NAME_FLYWEIGHT_MESSAGES, Boolean.toString(this.flyweightMessages));
 
 		return configuration;
 	}
@@ -17,13 +17,9 @@
 package kieker.tools.traceAnalysis.systemModel;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
 import java.util.SortedSet;
-import java.util.Stack;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -49,6 +45,8 @@ public class ExecutionTrace extends AbstractTrace {
 	private long minTin = -1;
 	private long maxTout = -1;
 	private int maxEss = -1;
+	/** the number of modifications of the executions, guarded by this. */
+	private int modCount;
 	private final SortedSet<Execution> set = new TreeSet<Execution>(ExecutionTrace.createExecutionTraceComparator());
 	private final SortedSet<Execution> unmodifiableExecutions = Collections.unmodifiableSortedSet(this.set);
 
@@ -104,8 +102,11 @@ public class ExecutionTrace extends AbstractTrace {
 				this.maxEss = execution.getEss();
 			}
 			this.set.add(execution);
+			this.modCount++;
 			// Invalidate the current message trace representation
-			this.messageTrace.set(null);
+			if (this.messageTrace.get() != null) {
+				this.messageTrace.set(null);
+			}
 		}
 	}
 
@@ -124,83 +125,43 @@ public class ExecutionTrace extends AbstractTrace {
 	 *             If the given execution is somehow inconsistent or invalid.
 	 */
 	public MessageTrace toMessageTrace(final Execution rootExecution) throws InvalidTraceException {
-		synchronized (this) {
-			MessageTrace mt = this.messageTrace.get();
-			if (mt != null) {
-				return mt;
-			}
+		return this.toMessageTrace(rootExecution, new MessageTraceBuilder());
+	}
 
-			final List<AbstractMessage> mSeq = new ArrayList<AbstractMessage>();
-			final Stack<AbstractMessage> curStack = new Stack<AbstractMessage>();
-			final Iterator<Execution> eSeqIt = this.set.iterator();
-
-			Execution prevE = rootExecution;
-			int prevEoi = -1;
-			boolean expectingEntryCall = true; // used to make that entry call found in first iteration
-			while (eSeqIt.hasNext()) {
-				final Execution curE = eSeqIt.next();
-				if (expectingEntryCall && (curE.getEss() != 0)) {
-					final InvalidTraceException ex = new InvalidTraceException("First execution must have ess " + "0 (found " + curE.getEss()
-							+ ")\n Causing execution: " + curE);
-					// don't log and throw
-					// LOG.error("Found invalid trace:" + ex.getMessage()); // don't need the stack trace here
-					throw ex;
-				}
-				expectingEntryCall = false; // now we're happy
-				if (prevEoi != (curE.getEoi() - 1)) {
-					final InvalidTraceException ex = new InvalidTraceException("Eois must increment by 1 --" + "but found sequence <" + prevEoi
-							+ "," + curE.getEoi() + ">" + "(Execution: " + curE + ")");
-					// don't log and throw
-					// LOG.error("Found invalid trace:" + ex.getMessage()); // don't need the stack trace here
-					throw ex;
-				}
-				prevEoi = curE.getEoi();
-
-				// First, we might need to clean up the stack for the next execution callMessage
-				if ((!prevE.equals(rootExecution)) && (prevE.getEss() >= curE.getEss())) {
-					Execution curReturnReceiver; // receiverComponentName of return message
-					while (curStack.size() > curE.getEss()) {
-						final AbstractMessage poppedCall = curStack.pop();
-						prevE = poppedCall.getReceivingExecution();
-						curReturnReceiver = poppedCall.getSendingExecution();
-						final AbstractMessage m = new SynchronousReplyMessage(prevE.getTout(), prevE, curReturnReceiver);
-						mSeq.add(m);
-						prevE = curReturnReceiver;
-					}
-				}
-				// Now, we handle the current execution callMessage
-				if (prevE.equals(rootExecution)) { // initial execution callMessage
-					final AbstractMessage m = new SynchronousCallMessage(curE.getTin(), rootExecution, curE);
-					mSeq.add(m);
-					curStack.push(m);
-				} else if ((prevE.getEss() + 1) == curE.getEss()) { // usual callMessage with senderComponentName and receiverComponentName
-					final AbstractMessage m = new SynchronousCallMessage(curE.getTin(), prevE, curE);
-					mSeq.add(m);
-					curStack.push(m);
-				} else if (prevE.getEss() < curE.getEss()) { // detect ess incrementation by > 1
-					final InvalidTraceException ex = new InvalidTraceException("Ess are only allowed to increment by 1 --"
-							+ "but found sequence <" + prevE.getEss() + "," + curE.getEss() + ">" + "(Execution: " + curE + ")");
-					// don't log and throw
-					// LOG.error("Found invalid trace:" + ex.getMessage()); // don't need the stack trace here
-					throw ex;
-				}
-				if (!eSeqIt.hasNext()) { // empty stack completely, since no more executions
-					Execution curReturnReceiver; // receiverComponentName of return message
-					while (!curStack.empty()) {
-						final AbstractMessage poppedCall = curStack.pop();
-						prevE = poppedCall.getReceivingExecution();
-						curReturnReceiver = poppedCall.getSendingExecution();
-						final AbstractMessage m = new SynchronousReplyMessage(prevE.getTout(), prevE, curReturnReceiver);
-						mSeq.add(m);
-						prevE = curReturnReceiver;
-					}
-				}
-				prevE = curE; // prepair next loop
+	/**
+	 * Returns the message trace representation for this trace like {@link #toMessageTrace(Execution)}, but builds it
+	 * with the given builder if it has not been computed yet.
+	 *
+	 * @param rootExecution
+	 *            The root execution object.
+	 * @param builder
+	 *            The builder to use; it must not be used by other threads concurrently.
+	 *
+	 * @return The resulting message trace.
+	 *
+	 * @throws InvalidTraceException
+	 *             If the given execution is somehow inconsistent or invalid.
+	 */
+	public MessageTrace toMessageTrace(final Execution rootExecution, final MessageTraceBuilder builder) throws InvalidTraceException {
+		final MessageTrace cachedMessageTrace = this.messageTrace.get();
+		if (cachedMessageTrace != null) {
+			return cachedMessageTrace;
+		}
+
+		final Execution[] executions;
+		final int snapshotModCount;
+		synchronized (this) {
+			executions = this.set.toArray(new Execution[this.set.size()]);
+			snapshotModCount = this.modCount;
+		}
+		// the trace is built without holding the lock, executions may be added concurrently
+		final MessageTrace mt = builder.build(this.getTraceId(), this.getSessionId(), executions, rootExecution);
+		synchronized (this) {
+			if (this.modCount == snapshotModCount) {
+				this.messageTrace.set(mt);
 			}
-			mt = new MessageTrace(this.getTraceId(), this.getSessionId(), mSeq);
-			this.messageTrace.set(mt);
-			return mt;
 		}
+		return mt;
 	}
 
 	/**
@@ -57,23 +57,48 @@ public class MessageTrace extends AbstractTrace {
 	 *            The list of messages this trace consists of.
 	 */
 	public MessageTrace(final long traceId, final String sessionId, final List<AbstractMessage> seq) {
+		this(traceId, sessionId, seq, MessageTrace.getMinTimestamp(seq), MessageTrace.getMaxTimestamp(seq));
+	}
+
+	/**
+	 * Creates a new message trace from the given data whose start and end timestamp are known already.
+	 * 
+	 * @param traceId
+	 *            The ID for this trace.
+	 * @param sessionId
+	 *            The ID of the current session.
+	 * @param seq
+	 *            The list of messages this trace consists of.
+	 * @param startTimestamp
+	 *            The minimal timestamp of the messages.
+	 * @param endTimestamp
+	 *            The maximal timestamp of the messages.
+	 */
+	MessageTrace(final long traceId, final String sessionId, final List<AbstractMessage> seq, final long startTimestamp, final long endTimestamp) {
 		super(traceId, sessionId);
 		this.messages = seq;
+		this.startTimestamp = startTimestamp;
+		this.endTimestamp = endTimestamp;
+	}
 
-		// Calculate start and end timestamp
+	private static long getMinTimestamp(final List<AbstractMessage> seq) {
 		long minTimestamp = Long.MAX_VALUE;
-		long maxTimestamp = Long.MIN_VALUE;
 		for (final AbstractMessage message : seq) {
 			if (message.getTimestamp() < minTimestamp) {
 				minTimestamp = message.getTimestamp();
 			}
+		}
+		return minTimestamp;
+	}
+
+	private static long getMaxTimestamp(final List<AbstractMessage> seq) {
+		long maxTimestamp = Long.MIN_VALUE;
+		for (final AbstractMessage message : seq) {
 			if (message.getTimestamp() > maxTimestamp) {
 				maxTimestamp = message.getTimestamp();
 			}
 		}
-
-		this.startTimestamp = minTimestamp;
-		this.endTimestamp = maxTimestamp;
+		return maxTimestamp;
 	}
 
 	/**
@@ -0,0 +1,216 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.tools.traceAnalysis.systemModel;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import kieker.tools.traceAnalysis.filter.traceReconstruction.InvalidTraceException;
+
+/**
+ * Builds the {@link MessageTrace} of a sequence of executions sorted by their eoi in a single pass. The call stack is
+ * tracked by the indices of the executions instead of message objects.
+ *
+ * <p>
+ * By default, all messages of the resulting trace are created when it is built. Alternatively, the messages can be a
+ * flyweight view on the executions which creates a message object only when it is accessed for the first time (see
+ * {@link #setMaterializeMessages(boolean)}).
+ * </p>
+ *
+ * <p>
+ * A builder can be reused for several traces, but must not be used by several threads concurrently.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class MessageTraceBuilder {
+
+	private static final int NO_EXECUTION = -1;
+	private static final int INITIAL_STACK_SIZE = 16;
+
+	private boolean materializeMessages = true;
+	private int[] stack = new int[INITIAL_STACK_SIZE];
+
+	/**
+	 * Creates a new builder producing message traces with materialized messages.
+	 */
+	public MessageTraceBuilder() {
+		// nothing to do
+	}
+
+	/**
+	 * @param materializeMessages
+	 *            whether the message objects are created eagerly when the trace is built (default) instead of on first
+	 *            access
+	 */
+	public void setMaterializeMessages(final boolean materializeMessages) {
+		this.materializeMessages = materializeMessages;
+	}
+
+	/**
+	 * Builds the message trace of the given executions.
+	 *
+	 * @param traceId
+	 *            The ID of the trace.
+	 * @param sessionId
+	 *            The ID of the session.
+	 * @param executions
+	 *            The executions of the trace in the order of their eoi; the array is kept by the resulting trace and must
+	 *            not be modified afterwards.
+	 * @param rootExecution
+	 *            The root execution object.
+	 *
+	 * @return The resulting message trace.
+	 *
+	 * @throws InvalidTraceException
+	 *             If the given executions are somehow inconsistent or invalid.
+	 */
+	public MessageTrace build(final long traceId, final String sessionId, final Execution[] executions, final Execution rootExecution)
+			throws InvalidTraceException {
+		final int numExecutions = executions.length;
+		// each execution has a call and a reply message
+		final int[] messageCodes = new int[2 * numExecutions];
+		final int[] senders = new int[numExecutions];
+		int numMessages = 0;
+		int stackSize = 0;
+		long minTimestamp = Long.MAX_VALUE;
+		long maxTimestamp = Long.MIN_VALUE;
+
+		int prevE = NO_EXECUTION; // the root execution
+		int prevEoi = -1;
+		for (int curE = 0; curE < numExecutions; curE++) {
+			final Execution execution = executions[curE];
+			if ((curE == 0) && (execution.getEss() != 0)) {
+				throw new InvalidTraceException("First execution must have ess " + "0 (found " + execution.getEss() + ")\n Causing execution: " + execution);
+			}
+			if (prevEoi != (execution.getEoi() - 1)) {
+				throw new InvalidTraceException("Eois must increment by 1 --" + "but found sequence <" + prevEoi + "," + execution.getEoi() + ">"
+						+ "(Execution: " + execution + ")");
+			}
+			prevEoi = execution.getEoi();
+
+			// First, we might need to clean up the stack for the next execution call
+			if ((prevE != NO_EXECUTION) && (executions[prevE].getEss() >= execution.getEss())) {
+				while (stackSize > execution.getEss()) {
+					final int returningE = this.stack[--stackSize];
+					messageCodes[numMessages++] = MessageTraceBuilder.replyCode(returningE);
+					minTimestamp = Math.min(minTimestamp, executions[returningE].getTout());
+					maxTimestamp = Math.max(maxTimestamp, executions[returningE].getTout());
+					prevE = senders[returningE];
+				}
+			}
+			// Now, we handle the current execution call
+			if ((prevE == NO_EXECUTION) || ((executions[prevE].getEss() + 1) == execution.getEss())) {
+				senders[curE] = prevE;
+				messageCodes[numMessages++] = MessageTraceBuilder.callCode(curE);
+				minTimestamp = Math.min(minTimestamp, execution.getTin());
+				maxTimestamp = Math.max(maxTimestamp, execution.getTin());
+				this.push(stackSize++, curE);
+			} else if (executions[prevE].getEss() < execution.getEss()) { // detect ess incrementation by > 1
+				throw new InvalidTraceException("Ess are only allowed to increment by 1 --" + "but found sequence <" + executions[prevE].getEss() + ","
+						+ execution.getEss() + ">" + "(Execution: " + execution + ")");
+			}
+			prevE = curE;
+		}
+		// empty stack completely, since no more executions
+		while (stackSize > 0) {
+			final int returningE = this.stack[--stackSize];
+			messageCodes[numMessages++] = MessageTraceBuilder.replyCode(returningE);
+			minTimestamp = Math.min(minTimestamp, executions[returningE].getTout());
+			maxTimestamp = Math.max(maxTimestamp, executions[returningE].getTout());
+		}
+
+		final MessageList messages = new MessageList(executions, senders, messageCodes, numMessages, rootExecution);
+		if (this.materializeMessages) {
+			return new MessageTrace(traceId, sessionId, new ArrayList<AbstractMessage>(messages), minTimestamp, maxTimestamp);
+		}
+		return new MessageTrace(traceId, sessionId, messages, minTimestamp, maxTimestamp);
+	}
+
+	private void push(final int index, final int execution) {
+		if (index == this.stack.length) {
+			this.stack = Arrays.copyOf(this.stack, this.stack.length * 2);
+		}
+		this.stack[index] = execution;
+	}
+
+	private static int callCode(final int execution) {
+		return execution << 1;
+	}
+
+	private static int replyCode(final int execution) {
+		return (execution << 1) | 1;
+	}
+
+	/**
+	 * The messages of a trace which are created on first access.
+	 */
+	private static final class MessageList extends AbstractList<AbstractMessage> implements RandomAccess {
+		private final Execution[] executions;
+		/** the index of the execution sending the call to each execution; {@link MessageTraceBuilder#NO_EXECUTION} for the root execution. */
+		private final int[] senders;
+		/** the index of the execution of each message, shifted left by one; the lowest bit is set for replies. */
+		private final int[] messageCodes;
+		private final int size;
+		private final Execution rootExecution;
+		private final AbstractMessage[] messages;
+
+		MessageList(final Execution[] executions, final int[] senders, final int[] messageCodes, final int size, final Execution rootExecution) {
+			this.executions = executions;
+			this.senders = senders;
+			this.messageCodes = messageCodes;
+			this.size = size;
+			this.rootExecution = rootExecution;
+			this.messages = new AbstractMessage[size];
+		}
+
+		@Override
+		public AbstractMessage get(final int index) {
+			if ((index < 0) || (index >= this.size)) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+			}
+			AbstractMessage message = this.messages[index];
+			if (message == null) {
+				// concurrent readers may create equal messages; either of them is kept
+				message = this.createMessage(this.messageCodes[index]);
+				this.messages[index] = message;
+			}
+			return message;
+		}
+
+		private AbstractMessage createMessage(final int messageCode) {
+			final int executionIndex = messageCode >>> 1;
+			final Execution execution = this.executions[executionIndex];
+			final int senderIndex = this.senders[executionIndex];
+			final Execution sender = (senderIndex == NO_EXECUTION) ? this.rootExecution : this.executions[senderIndex]; // NOCS (?:)
+			if ((messageCode & 1) == 0) {
+				return new SynchronousCallMessage(execution.getTin(), sender, execution);
+			} else {
+				return new SynchronousReplyMessage(execution.getTout(), execution, sender);
+			}
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+	}
+}
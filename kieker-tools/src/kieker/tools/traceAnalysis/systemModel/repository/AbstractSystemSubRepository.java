@@ -16,6 +16,10 @@
 
 package kieker.tools.traceAnalysis.systemModel.repository;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -55,4 +59,20 @@ public abstract class AbstractSystemSubRepository { // NOPMD (abstract without a
 	protected final SystemModelRepository getSystemFactory() {
 		return this.systemFactory;
 	}
+
+	/**
+	 * Delivers a snapshot of the given elements ordered by their IDs, i.e., in the order of their creation. The
+	 * concurrent maps of the repositories iterate in no particular order, whereas the outputs built from the elements
+	 * must not change from run to run.
+	 * 
+	 * @param elementsById
+	 *            The elements indexed by their IDs.
+	 * 
+	 * @return An unmodifiable collection containing the elements ordered by their IDs.
+	 * 
+	 * @since 1.14
+	 */
+	protected static <T> Collection<T> sortedById(final Map<Integer, T> elementsById) {
+		return Collections.unmodifiableCollection(new TreeMap<Integer, T>(elementsById).values());
+	}
 }
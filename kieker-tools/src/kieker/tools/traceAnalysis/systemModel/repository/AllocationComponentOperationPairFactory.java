@@ -17,8 +17,8 @@
 package kieker.tools.traceAnalysis.systemModel.repository;
 
 import java.util.Collection;
-import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import kieker.tools.traceAnalysis.systemModel.AllocationComponent;
 import kieker.tools.traceAnalysis.systemModel.Operation;
@@ -35,8 +35,9 @@ public class AllocationComponentOperationPairFactory extends AbstractSystemSubRe
 			new AllocationComponentOperationPair(AbstractSystemSubRepository.ROOT_ELEMENT_ID, OperationRepository.ROOT_OPERATION,
 					AllocationRepository.ROOT_ALLOCATION_COMPONENT);
 
-	private final Map<String, AllocationComponentOperationPair> pairsByName = new Hashtable<String, AllocationComponentOperationPair>(); // NOPMD
-	private final Map<Integer, AllocationComponentOperationPair> pairsById = new Hashtable<Integer, AllocationComponentOperationPair>(); // NOPMD
+	/** the pairs by the key combining the ids of both elements (see {@link ConcurrentLongMap#key(int, int)}). */
+	private final ConcurrentLongMap<AllocationComponentOperationPair> pairsByKey = new ConcurrentLongMap<AllocationComponentOperationPair>();
+	private final Map<Integer, AllocationComponentOperationPair> pairsById = new ConcurrentHashMap<Integer, AllocationComponentOperationPair>();
 
 	/**
 	 * 
@@ -60,7 +61,7 @@ public class AllocationComponentOperationPairFactory extends AbstractSystemSubRe
 	 * @return A (possible new) pair containing both elements.
 	 */
 	public final AllocationComponentOperationPair getPairInstanceByPair(final AllocationComponent allocationComponent, final Operation operation) {
-		final AllocationComponentOperationPair inst = this.getPairByNamedIdentifier(allocationComponent.getId() + "-" + operation.getId());
+		final AllocationComponentOperationPair inst = this.pairsByKey.get(ConcurrentLongMap.key(allocationComponent.getId(), operation.getId()));
 		if (inst == null) {
 			return this.createAndRegisterPair(operation, allocationComponent);
 		}
@@ -78,19 +79,18 @@ public class AllocationComponentOperationPairFactory extends AbstractSystemSubRe
 	 * @return The newly created pair.
 	 */
 	private final AllocationComponentOperationPair createAndRegisterPair(final Operation operation, final AllocationComponent allocationComponent) {
-		return this.createAndRegisterPair(allocationComponent.getId() + "-" + operation.getId(), operation, allocationComponent);
-	}
-
-	/**
-	 * Returns the instance for the passed factory name; null if no instance with this factory name exists.
-	 * 
-	 * @param namedIdentifier
-	 *            The identifier to search for.
-	 * 
-	 * @return The corresponding pair to the given identifier if it exists, null otherwise.
-	 */
-	private final AllocationComponentOperationPair getPairByNamedIdentifier(final String namedIdentifier) {
-		return this.pairsByName.get(namedIdentifier);
+		synchronized (this) {
+			final long key = ConcurrentLongMap.key(allocationComponent.getId(), operation.getId());
+			final AllocationComponentOperationPair existingInst = this.pairsByKey.get(key);
+			if (existingInst != null) {
+				return existingInst; // created concurrently
+			}
+			final int id = this.getAndIncrementNextId();
+			final AllocationComponentOperationPair newInst = new AllocationComponentOperationPair(id, operation, allocationComponent);
+			this.pairsById.put(id, newInst);
+			this.pairsByKey.putIfAbsent(key, newInst);
+			return newInst;
+		}
 	}
 
 	/**
@@ -105,24 +105,12 @@ public class AllocationComponentOperationPairFactory extends AbstractSystemSubRe
 		return this.pairsById.get(id);
 	}
 
-	private final AllocationComponentOperationPair createAndRegisterPair(final String namedIdentifier, final Operation operation,
-			final AllocationComponent allocationComponent) {
-		if (this.pairsByName.containsKey(namedIdentifier)) {
-			throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
-		}
-		final int id = this.getAndIncrementNextId();
-		final AllocationComponentOperationPair newInst = new AllocationComponentOperationPair(id, operation, allocationComponent);
-		this.pairsById.put(id, newInst);
-		this.pairsByName.put(namedIdentifier, newInst);
-		return newInst;
-	}
-
 	/**
 	 * Delivers all available allocation-component-operation pairs.
 	 * 
-	 * @return A collection containing all available pairs.
+	 * @return A collection containing all available pairs, ordered by their IDs.
 	 */
 	public final Collection<AllocationComponentOperationPair> getPairs() {
-		return this.pairsById.values();
+		return sortedById(this.pairsById);
 	}
 }
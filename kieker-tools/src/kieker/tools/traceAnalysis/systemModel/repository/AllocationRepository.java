@@ -17,8 +17,8 @@
 package kieker.tools.traceAnalysis.systemModel.repository;
 
 import java.util.Collection;
-import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import kieker.tools.traceAnalysis.systemModel.AllocationComponent;
 import kieker.tools.traceAnalysis.systemModel.AssemblyComponent;
@@ -35,8 +35,13 @@ public class AllocationRepository extends AbstractSystemSubRepository {
 			new AllocationComponent(AbstractSystemSubRepository.ROOT_ELEMENT_ID, AssemblyRepository.ROOT_ASSEMBLY_COMPONENT,
 					ExecutionEnvironmentRepository.ROOT_EXECUTION_CONTAINER);
 
-	private final Map<String, AllocationComponent> allocationComponentInstancesByName = new Hashtable<String, AllocationComponent>(); // NOPMD (UseConcurrentHashMap)
-	private final Map<Integer, AllocationComponent> allocationComponentInstancesById = new Hashtable<Integer, AllocationComponent>(); // NOPMD (UseConcurrentHashMap)
+	private final Map<String, AllocationComponent> allocationComponentInstancesByName = new ConcurrentHashMap<String, AllocationComponent>();
+	private final Map<Integer, AllocationComponent> allocationComponentInstancesById = new ConcurrentHashMap<Integer, AllocationComponent>();
+
+	// index by execution container name and assembly component type name which avoids building the named identifier
+	private final TokenTable executionContainerNameTokens = new TokenTable();
+	private final TokenTable assemblyComponentTypeNameTokens = new TokenTable();
+	private final ConcurrentLongMap<AllocationComponent> allocationComponentInstancesByNames = new ConcurrentLongMap<AllocationComponent>();
 
 	/**
 	 * Creates a new instance of this class using the given parameters.
@@ -60,19 +65,73 @@ public class AllocationRepository extends AbstractSystemSubRepository {
 		return this.allocationComponentInstancesByName.get(namedIdentifier);
 	}
 
+	/**
+	 * Returns the instance registered for the given names (see
+	 * {@link #registerAllocationComponentInstanceByNames(String, String, AllocationComponent)}) without locking and
+	 * without building the named identifier.
+	 * 
+	 * @param executionContainerName
+	 *            The name of the execution container.
+	 * @param assemblyComponentTypeName
+	 *            The name of the assembly component type.
+	 * 
+	 * @return The corresponding instance if it has been registered, null otherwise.
+	 * 
+	 * @since 1.14
+	 */
+	public final AllocationComponent lookupAllocationComponentInstanceByNames(final String executionContainerName, final String assemblyComponentTypeName) {
+		final int containerToken = this.executionContainerNameTokens.lookupToken(executionContainerName);
+		if (containerToken == TokenTable.NO_TOKEN) {
+			return null;
+		}
+		final int typeToken = this.assemblyComponentTypeNameTokens.lookupToken(assemblyComponentTypeName);
+		if (typeToken == TokenTable.NO_TOKEN) {
+			return null;
+		}
+		return this.allocationComponentInstancesByNames.get(ConcurrentLongMap.key(containerToken, typeToken));
+	}
+
+	/**
+	 * Registers the given instance for the given names so that it can be found by
+	 * {@link #lookupAllocationComponentInstanceByNames(String, String)}.
+	 * 
+	 * @param executionContainerName
+	 *            The name of the execution container.
+	 * @param assemblyComponentTypeName
+	 *            The name of the assembly component type.
+	 * @param allocationComponent
+	 *            The instance to register.
+	 * 
+	 * @since 1.14
+	 */
+	public final void registerAllocationComponentInstanceByNames(final String executionContainerName, final String assemblyComponentTypeName,
+			final AllocationComponent allocationComponent) {
+		final int containerToken = this.executionContainerNameTokens.getOrCreateToken(executionContainerName);
+		final int typeToken = this.assemblyComponentTypeNameTokens.getOrCreateToken(assemblyComponentTypeName);
+		this.allocationComponentInstancesByNames.putIfAbsent(ConcurrentLongMap.key(containerToken, typeToken), allocationComponent);
+	}
+
 	public final AllocationComponent createAndRegisterAllocationComponentInstance(final String namedIdentifier, final AssemblyComponent assemblyComponentInstance,
 			final ExecutionContainer executionContainer) {
-		if (this.allocationComponentInstancesByName.containsKey(namedIdentifier)) {
-			throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
+		final AllocationComponent newInst;
+		synchronized (this) {
+			if (this.allocationComponentInstancesByName.containsKey(namedIdentifier)) {
+				throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
+			}
+			final int id = this.getAndIncrementNextId();
+			newInst = new AllocationComponent(id, assemblyComponentInstance, executionContainer);
+			this.allocationComponentInstancesById.put(id, newInst);
+			this.allocationComponentInstancesByName.put(namedIdentifier, newInst);
 		}
-		final int id = this.getAndIncrementNextId();
-		final AllocationComponent newInst = new AllocationComponent(id, assemblyComponentInstance, executionContainer);
-		this.allocationComponentInstancesById.put(id, newInst);
-		this.allocationComponentInstancesByName.put(namedIdentifier, newInst);
 		return newInst;
 	}
 
+	/**
+	 * Delivers all available allocation component instances.
+	 * 
+	 * @return A collection containing all components, ordered by their IDs.
+	 */
 	public final Collection<AllocationComponent> getAllocationComponentInstances() {
-		return this.allocationComponentInstancesById.values();
+		return sortedById(this.allocationComponentInstancesById);
 	}
 }
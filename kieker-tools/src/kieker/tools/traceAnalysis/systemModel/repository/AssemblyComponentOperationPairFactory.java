@@ -17,8 +17,8 @@
 package kieker.tools.traceAnalysis.systemModel.repository;
 
 import java.util.Collection;
-import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import kieker.tools.traceAnalysis.systemModel.AssemblyComponent;
 import kieker.tools.traceAnalysis.systemModel.Operation;
@@ -35,8 +35,9 @@ public class AssemblyComponentOperationPairFactory extends AbstractSystemSubRepo
 			new AssemblyComponentOperationPair(AbstractSystemSubRepository.ROOT_ELEMENT_ID, OperationRepository.ROOT_OPERATION,
 					AssemblyRepository.ROOT_ASSEMBLY_COMPONENT);
 
-	private final Map<String, AssemblyComponentOperationPair> pairsByName = new Hashtable<String, AssemblyComponentOperationPair>(); // NOPMD (UseConcurrentHashMap)
-	private final Map<Integer, AssemblyComponentOperationPair> pairsById = new Hashtable<Integer, AssemblyComponentOperationPair>(); // NOPMD (UseConcurrentHashMap)
+	/** the pairs by the key combining the ids of both elements (see {@link ConcurrentLongMap#key(int, int)}). */
+	private final ConcurrentLongMap<AssemblyComponentOperationPair> pairsByKey = new ConcurrentLongMap<AssemblyComponentOperationPair>();
+	private final Map<Integer, AssemblyComponentOperationPair> pairsById = new ConcurrentHashMap<Integer, AssemblyComponentOperationPair>();
 
 	/**
 	 * Creates a new instance of this class using the given parameters.
@@ -59,7 +60,7 @@ public class AssemblyComponentOperationPairFactory extends AbstractSystemSubRepo
 	 * @return The corresponding pair instance if it exists, otherwise a new one.
 	 */
 	public final AssemblyComponentOperationPair getPairInstanceByPair(final AssemblyComponent assemblyComponent, final Operation operation) {
-		final AssemblyComponentOperationPair inst = this.getPairByNamedIdentifier(assemblyComponent.getId() + "-" + operation.getId());
+		final AssemblyComponentOperationPair inst = this.pairsByKey.get(ConcurrentLongMap.key(assemblyComponent.getId(), operation.getId()));
 		if (inst == null) {
 			return this.createAndRegisterPair(operation, assemblyComponent);
 		}
@@ -67,18 +68,18 @@ public class AssemblyComponentOperationPairFactory extends AbstractSystemSubRepo
 	}
 
 	private AssemblyComponentOperationPair createAndRegisterPair(final Operation operation, final AssemblyComponent assemblyComponent) {
-		return this.createAndRegisterPair(assemblyComponent.getId() + "-" + operation.getId(), operation, assemblyComponent);
-	}
-
-	/**
-	 * Returns the instance for the passed factory name; null if no instance
-	 * with this factory name.
-	 * 
-	 * @param namedIdentifier
-	 *            The identifier to search for.
-	 */
-	private AssemblyComponentOperationPair getPairByNamedIdentifier(final String namedIdentifier) {
-		return this.pairsByName.get(namedIdentifier);
+		synchronized (this) {
+			final long key = ConcurrentLongMap.key(assemblyComponent.getId(), operation.getId());
+			final AssemblyComponentOperationPair existingInst = this.pairsByKey.get(key);
+			if (existingInst != null) {
+				return existingInst; // created concurrently
+			}
+			final int id = this.getAndIncrementNextId();
+			final AssemblyComponentOperationPair newInst = new AssemblyComponentOperationPair(id, operation, assemblyComponent);
+			this.pairsById.put(id, newInst);
+			this.pairsByKey.putIfAbsent(key, newInst);
+			return newInst;
+		}
 	}
 
 	/**
@@ -91,20 +92,13 @@ public class AssemblyComponentOperationPairFactory extends AbstractSystemSubRepo
 		return this.pairsById.get(id);
 	}
 
-	private AssemblyComponentOperationPair createAndRegisterPair(final String namedIdentifier, final Operation operation,
-			final AssemblyComponent assemblyComponent) {
-		if (this.pairsByName.containsKey(namedIdentifier)) {
-			throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
-		}
-		final int id = this.getAndIncrementNextId();
-		final AssemblyComponentOperationPair newInst = new AssemblyComponentOperationPair(id, operation, assemblyComponent);
-		this.pairsById.put(id, newInst);
-		this.pairsByName.put(namedIdentifier, newInst);
-		return newInst;
-	}
-
+	/**
+	 * Delivers all available assembly-component-operation pairs.
+	 * 
+	 * @return A collection containing all available pairs, ordered by their IDs.
+	 */
 	public final Collection<AssemblyComponentOperationPair> getPairs() {
-		return this.pairsById.values();
+		return sortedById(this.pairsById);
 	}
 
 	public AssemblyComponentOperationPair getRootPair() {
@@ -17,8 +17,8 @@
 package kieker.tools.traceAnalysis.systemModel.repository;
 
 import java.util.Collection;
-import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import kieker.tools.traceAnalysis.systemModel.AssemblyComponent;
 import kieker.tools.traceAnalysis.systemModel.ComponentType;
@@ -35,8 +35,8 @@ public class AssemblyRepository extends AbstractSystemSubRepository {
 	/** This constant represents the root assembly component. */
 	public static final AssemblyComponent ROOT_ASSEMBLY_COMPONENT = new RootAssemblyComponent();
 
-	private final Map<String, AssemblyComponent> assemblyComponentInstancesByName = new Hashtable<String, AssemblyComponent>(); // NOPMD (UseConcurrentHashMap)
-	private final Map<Integer, AssemblyComponent> assemblyComponentInstancesById = new Hashtable<Integer, AssemblyComponent>(); // NOPMD (UseConcurrentHashMap)
+	private final Map<String, AssemblyComponent> assemblyComponentInstancesByName = new ConcurrentHashMap<String, AssemblyComponent>();
+	private final Map<Integer, AssemblyComponent> assemblyComponentInstancesById = new ConcurrentHashMap<Integer, AssemblyComponent>();
 
 	/**
 	 * Creates a new instance of this class using the given parameters.
@@ -84,22 +84,25 @@ public class AssemblyRepository extends AbstractSystemSubRepository {
 	 * @return The newly created assembly component.
 	 */
 	public final AssemblyComponent createAndRegisterAssemblyComponentInstance(final String namedIdentifier, final ComponentType componentType) {
-		if (this.assemblyComponentInstancesByName.containsKey(namedIdentifier)) {
-			throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
+		final AssemblyComponent newInst;
+		synchronized (this) {
+			if (this.assemblyComponentInstancesByName.containsKey(namedIdentifier)) {
+				throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
+			}
+			final int id = this.getAndIncrementNextId();
+			newInst = new AssemblyComponent(id, "@" + id, componentType);
+			this.assemblyComponentInstancesById.put(id, newInst);
+			this.assemblyComponentInstancesByName.put(namedIdentifier, newInst);
 		}
-		final int id = this.getAndIncrementNextId();
-		final AssemblyComponent newInst = new AssemblyComponent(id, "@" + id, componentType);
-		this.assemblyComponentInstancesById.put(id, newInst);
-		this.assemblyComponentInstancesByName.put(namedIdentifier, newInst);
 		return newInst;
 	}
 
 	/**
 	 * Delivers all available assembly component instances.
 	 * 
-	 * @return A collection containing all components.
+	 * @return A collection containing all components, ordered by their IDs.
 	 */
 	public final Collection<AssemblyComponent> getAssemblyComponentInstances() {
-		return this.assemblyComponentInstancesById.values();
+		return sortedById(this.assemblyComponentInstancesById);
 	}
 }
@@ -0,0 +1,128 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.tools.traceAnalysis.systemModel.repository;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A map from primitive <code>long</code> keys to values which can be read concurrently without locking and without
+ * allocating objects. Entries can only be added, never removed or replaced. The keys of pairs of model elements are
+ * built by {@link #key(int, int)}.
+ *
+ * @param <V>
+ *            the type of the values
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+final class ConcurrentLongMap<V> {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** replaced by a larger table when half of it is occupied; the old table is never modified afterwards. */
+	private volatile AtomicReferenceArray<Entry<V>> table = new AtomicReferenceArray<Entry<V>>(INITIAL_CAPACITY);
+	private int size; // guarded by this
+
+	/**
+	 * Creates a new empty map.
+	 */
+	public ConcurrentLongMap() {
+		// nothing to do
+	}
+
+	/**
+	 * @return the key combining both given identifiers
+	 */
+	public static long key(final int first, final int second) {
+		return ((long) first << 32) | (second & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @return the value of the given key or <code>null</code> if the key has not been added (yet)
+	 */
+	public V get(final long key) {
+		final AtomicReferenceArray<Entry<V>> tab = this.table; // volatile read
+		final int mask = tab.length() - 1;
+		int index = ConcurrentLongMap.hash(key) & mask;
+		Entry<V> entry;
+		while ((entry = tab.get(index)) != null) { // NOPMD (assignment in operand)
+			if (entry.key == key) {
+				return entry.value;
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the given value unless the key has already been added.
+	 *
+	 * @return the value added before for the given key, or <code>null</code> if the given value has been added
+	 */
+	public synchronized V putIfAbsent(final long key, final V value) {
+		final V existingValue = this.get(key);
+		if (existingValue != null) {
+			return existingValue;
+		}
+		AtomicReferenceArray<Entry<V>> tab = this.table;
+		if ((this.size + 1) > (tab.length() / 2)) {
+			final AtomicReferenceArray<Entry<V>> newTable = new AtomicReferenceArray<Entry<V>>(tab.length() * 2);
+			for (int i = 0; i < tab.length(); i++) {
+				final Entry<V> entry = tab.get(i);
+				if (entry != null) {
+					ConcurrentLongMap.insert(newTable, entry);
+				}
+			}
+			tab = newTable;
+			this.table = newTable; // volatile write
+		}
+		ConcurrentLongMap.insert(tab, new Entry<V>(key, value));
+		this.size++;
+		return null;
+	}
+
+	private static <V> void insert(final AtomicReferenceArray<Entry<V>> tab, final Entry<V> entry) {
+		final int mask = tab.length() - 1;
+		int index = ConcurrentLongMap.hash(entry.key) & mask;
+		while (tab.get(index) != null) {
+			index = (index + 1) & mask;
+		}
+		tab.set(index, entry); // volatile write publishes the completely initialized entry
+	}
+
+	private static int hash(final long key) {
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * An immutable key-value pair.
+	 *
+	 * @param <V>
+	 *            the type of the value
+	 */
+	private static final class Entry<V> {
+		final long key; // NOCS NOPMD (package-private for the enclosing class only)
+		final V value; // NOCS NOPMD
+
+		Entry(final long key, final V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
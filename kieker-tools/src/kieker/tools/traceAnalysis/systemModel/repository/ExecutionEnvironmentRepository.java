@@ -17,8 +17,8 @@
 package kieker.tools.traceAnalysis.systemModel.repository;
 
 import java.util.Collection;
-import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import kieker.tools.traceAnalysis.systemModel.ExecutionContainer;
 import kieker.tools.traceAnalysis.systemModel.RootExecutionContainer;
@@ -34,8 +34,8 @@ public class ExecutionEnvironmentRepository extends AbstractSystemSubRepository
 	/** The root execution container. */
 	public static final ExecutionContainer ROOT_EXECUTION_CONTAINER = new RootExecutionContainer();
 
-	private final Map<String, ExecutionContainer> executionContainersByName = new Hashtable<String, ExecutionContainer>(); // NOPMD (UseConcurrentHashMap)
-	private final Map<Integer, ExecutionContainer> executionContainersById = new Hashtable<Integer, ExecutionContainer>(); // NOPMD (UseConcurrentHashMap)
+	private final Map<String, ExecutionContainer> executionContainersByName = new ConcurrentHashMap<String, ExecutionContainer>();
+	private final Map<Integer, ExecutionContainer> executionContainersById = new ConcurrentHashMap<Integer, ExecutionContainer>();
 
 	/**
 	 * Creates a new instance of this class using the given parameters.
@@ -81,22 +81,25 @@ public class ExecutionEnvironmentRepository extends AbstractSystemSubRepository
 	 * @return The newly created execution container.
 	 */
 	public final ExecutionContainer createAndRegisterExecutionContainer(final String namedIdentifier, final String name) {
-		if (this.executionContainersByName.containsKey(namedIdentifier)) {
-			throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
+		final ExecutionContainer newInst;
+		synchronized (this) {
+			if (this.executionContainersByName.containsKey(namedIdentifier)) {
+				throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
+			}
+			final int id = this.getAndIncrementNextId();
+			newInst = new ExecutionContainer(id, null, name);
+			this.executionContainersById.put(id, newInst);
+			this.executionContainersByName.put(namedIdentifier, newInst);
 		}
-		final int id = this.getAndIncrementNextId();
-		final ExecutionContainer newInst = new ExecutionContainer(id, null, name);
-		this.executionContainersById.put(id, newInst);
-		this.executionContainersByName.put(namedIdentifier, newInst);
 		return newInst;
 	}
 
 	/**
 	 * Delivers all available execution containers.
 	 * 
-	 * @return A collection containing the available containers.
+	 * @return A collection containing the available containers, ordered by their IDs.
 	 */
 	public final Collection<ExecutionContainer> getExecutionContainers() {
-		return this.executionContainersById.values();
+		return sortedById(this.executionContainersById);
 	}
 }
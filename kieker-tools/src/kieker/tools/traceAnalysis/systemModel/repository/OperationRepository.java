@@ -17,8 +17,8 @@
 package kieker.tools.traceAnalysis.systemModel.repository;
 
 import java.util.Collection;
-import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import kieker.common.util.signature.Signature;
 import kieker.tools.traceAnalysis.systemModel.ComponentType;
@@ -36,8 +36,13 @@ public class OperationRepository extends AbstractSystemSubRepository {
 	public static final Operation ROOT_OPERATION = new Operation(AbstractSystemSubRepository.ROOT_ELEMENT_ID, TypeRepository.ROOT_COMPONENT,
 			ROOT_SIGNATURE);
 
-	private final Map<String, Operation> operationsByName = new Hashtable<String, Operation>(); // NOPMD (UseConcurrentHashMap)
-	private final Map<Integer, Operation> operationsById = new Hashtable<Integer, Operation>(); // NOPMD (UseConcurrentHashMap)
+	private final Map<String, Operation> operationsByName = new ConcurrentHashMap<String, Operation>();
+	private final Map<Integer, Operation> operationsById = new ConcurrentHashMap<Integer, Operation>();
+
+	// index by component type name and signature which avoids building the named identifier
+	private final TokenTable componentTypeNameTokens = new TokenTable();
+	private final TokenTable signatureTokens = new TokenTable();
+	private final ConcurrentLongMap<Operation> operationsByTypeAndSignature = new ConcurrentLongMap<Operation>();
 
 	/**
 	 * Creates a new instance of this class using the given parameters.
@@ -59,23 +64,71 @@ public class OperationRepository extends AbstractSystemSubRepository {
 		return this.operationsByName.get(namedIdentifier);
 	}
 
+	/**
+	 * Returns the operation registered for the given component type name and signature (see
+	 * {@link #registerOperation(String, Signature, Operation)}) without locking and without building the named
+	 * identifier.
+	 * 
+	 * @param componentTypeName
+	 *            The name of the component type.
+	 * @param signature
+	 *            The signature of the operation.
+	 * 
+	 * @return The corresponding operation if it has been registered, null otherwise.
+	 * 
+	 * @since 1.14
+	 */
+	public final Operation lookupOperation(final String componentTypeName, final Signature signature) {
+		final int typeToken = this.componentTypeNameTokens.lookupToken(componentTypeName);
+		if (typeToken == TokenTable.NO_TOKEN) {
+			return null;
+		}
+		final int signatureToken = this.signatureTokens.lookupToken(signature);
+		if (signatureToken == TokenTable.NO_TOKEN) {
+			return null;
+		}
+		return this.operationsByTypeAndSignature.get(ConcurrentLongMap.key(typeToken, signatureToken));
+	}
+
+	/**
+	 * Registers the given operation for the given component type name and signature so that it can be found by
+	 * {@link #lookupOperation(String, Signature)}.
+	 * 
+	 * @param componentTypeName
+	 *            The name of the component type.
+	 * @param signature
+	 *            The signature of the operation.
+	 * @param operation
+	 *            The operation to register.
+	 * 
+	 * @since 1.14
+	 */
+	public final void registerOperation(final String componentTypeName, final Signature signature, final Operation operation) {
+		final int typeToken = this.componentTypeNameTokens.getOrCreateToken(componentTypeName);
+		final int signatureToken = this.signatureTokens.getOrCreateToken(signature);
+		this.operationsByTypeAndSignature.putIfAbsent(ConcurrentLongMap.key(typeToken, signatureToken), operation);
+	}
+
 	public final Operation createAndRegisterOperation(final String namedIdentifier, final ComponentType componentType, final Signature signature) {
-		if (this.operationsByName.containsKey(namedIdentifier)) {
-			throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
+		final Operation newInst;
+		synchronized (this) {
+			if (this.operationsByName.containsKey(namedIdentifier)) {
+				throw new IllegalArgumentException("Element with name " + namedIdentifier + "exists already");
+			}
+			final int id = this.getAndIncrementNextId();
+			newInst = new Operation(id, componentType, signature);
+			this.operationsById.put(id, newInst);
+			this.operationsByName.put(namedIdentifier, newInst);
 		}
-		final int id = this.getAndIncrementNextId();
-		final Operation newInst = new Operation(id, componentType, signature);
-		this.operationsById.put(id, newInst);
-		this.operationsByName.put(namedIdentifier, newInst);
 		return newInst;
 	}
 
 	/**
 	 * Delivers a collection containing all available operations.
 	 * 
-	 * @return The already stored operations.
+	 * @return The already stored operations, ordered by their IDs.
 	 */
 	public final Collection<Operation> getOperations() {
-		return this.operationsById.values();
+		return sortedById(this.operationsById);
 	}
 }
@@ -0,0 +1,72 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.tools.traceAnalysis.systemModel.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns a small integer token to each distinct value, e.g., to the names and signatures of model elements, so that
+ * a combination of values can be looked up by a single <code>long</code> key (see {@link ConcurrentLongMap}) instead
+ * of a concatenated string. Looking up the token of a known value neither locks nor allocates.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+final class TokenTable {
+
+	/** the token of values which have not been assigned a token yet. */
+	public static final int NO_TOKEN = -1;
+
+	private final ConcurrentMap<Object, Integer> tokens = new ConcurrentHashMap<Object, Integer>();
+	private int nextToken; // guarded by this
+
+	/**
+	 * Creates a new empty token table.
+	 */
+	public TokenTable() {
+		// nothing to do
+	}
+
+	/**
+	 * @return the token of the given value or {@link #NO_TOKEN} if the value has no token yet
+	 */
+	public int lookupToken(final Object value) {
+		final Integer token = this.tokens.get(value);
+		return (token == null) ? NO_TOKEN : token; // NOCS (?:)
+	}
+
+	/**
+	 * @return the token of the given value; a new token is assigned if the value has no token yet
+	 */
+	public int getOrCreateToken(final Object value) {
+		final Integer token = this.tokens.get(value);
+		if (token != null) {
+			return token;
+		}
+		synchronized (this) {
+			final Integer existingToken = this.tokens.get(value);
+			if (existingToken != null) {
+				return existingToken;
+			}
+			final int newToken = this.nextToken++;
+			this.tokens.put(value, newToken);
+			return newToken;
+		}
+	}
+}
@@ -17,8 +17,8 @@
 package kieker.tools.traceAnalysis.systemModel.repository;
 
 import java.util.Collection;
-import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import kieker.tools.traceAnalysis.systemModel.ComponentType;
 
@@ -34,8 +34,8 @@ public class TypeRepository extends AbstractSystemSubRepository {
 	/** This constant represents the root component. */
 	public static final ComponentType ROOT_COMPONENT = new ComponentType(AbstractSystemSubRepository.ROOT_ELEMENT_ID, SystemModelRepository.ROOT_NODE_LABEL);
 
-	private final Map<String, ComponentType> componentTypesByName = new Hashtable<String, ComponentType>(); // NOPMD (UseConcurrentHashMap)
-	private final Map<Integer, ComponentType> componentTypesById = new Hashtable<Integer, ComponentType>(); // NOPMD (UseConcurrentHashMap)
+	private final Map<String, ComponentType> componentTypesByName = new ConcurrentHashMap<String, ComponentType>();
+	private final Map<Integer, ComponentType> componentTypesById = new ConcurrentHashMap<Integer, ComponentType>();
 
 	/**
 	 * Creates a new instance of this class using the given parameters.
@@ -57,9 +57,7 @@ public class TypeRepository extends AbstractSystemSubRepository {
 	 * @return The corresponding component type if available; null otherwise.
 	 */
 	public final ComponentType lookupComponentTypeByNamedIdentifier(final String namedIdentifier) {
-		synchronized (this) {
-			return this.componentTypesByName.get(namedIdentifier);
-		}
+		return this.componentTypesByName.get(namedIdentifier);
 	}
 
 	/**
@@ -89,11 +87,9 @@ public class TypeRepository extends AbstractSystemSubRepository {
 	/**
 	 * Returns a collection of all registered component types.
 	 * 
-	 * @return a collection of all registered component types.
+	 * @return a collection of all registered component types, ordered by their IDs.
 	 */
 	public final Collection<ComponentType> getComponentTypes() {
-		synchronized (this) {
-			return this.componentTypesById.values();
-		}
+		return sortedById(this.componentTypesById);
 	}
 }
@@ -110,6 +110,26 @@ public class TestTraceReconstructionFilter extends AbstractKiekerTest {
 	 */
 	@Test
 	public void testValidBookstoreTracePassed() throws InvalidTraceException, IllegalStateException, AnalysisConfigurationException {
+		this.assertValidBookstoreTracePassed(false);
+	}
+
+	/**
+	 * Like {@link #testValidBookstoreTracePassed()}, but with messages which are created on first access.
+	 *
+	 * @throws AnalysisConfigurationException
+	 *             If the internally assembled analysis configuration is somehow invalid.
+	 * @throws IllegalStateException
+	 *             If the internal analysis is in an invalid state.
+	 * @throws InvalidTraceException
+	 *             If the internally assembled execution trace is somehow invalid.
+	 */
+	@Test
+	public void testValidBookstoreTracePassedWithFlyweightMessages() throws InvalidTraceException, IllegalStateException, AnalysisConfigurationException {
+		this.assertValidBookstoreTracePassed(true);
+	}
+
+	private void assertValidBookstoreTracePassed(final boolean flyweightMessages)
+			throws InvalidTraceException, IllegalStateException, AnalysisConfigurationException {
 		// These are the trace representations we want to be reconstructed by the filter
 		final ExecutionTrace validExecutionTrace;
 		final MessageTrace validMessageTrace;
@@ -128,6 +148,7 @@ public class TestTraceReconstructionFilter extends AbstractKiekerTest {
 		configuration.setProperty(TraceReconstructionFilter.CONFIG_PROPERTY_NAME_IGNORE_INVALID_TRACES, "true");
 		configuration.setProperty(TraceReconstructionFilter.CONFIG_PROPERTY_NAME_MAX_TRACE_DURATION,
 				TraceReconstructionFilter.CONFIG_PROPERTY_VALUE_MAX_TRACE_DURATION);
+		configuration.setProperty(TraceReconstructionFilter.CONFIG_PROPERTY_NAME_FLYWEIGHT_MESSAGES, Boolean.toString(flyweightMessages));
 		final TraceReconstructionFilter filter = new TraceReconstructionFilter(configuration, controller);
 
 		Assert.assertTrue("Test invalid since trace length smaller than filter timeout", validExecutionTrace.getDuration() <= filter
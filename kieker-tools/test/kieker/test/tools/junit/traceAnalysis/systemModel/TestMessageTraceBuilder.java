@@ -0,0 +1,104 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.junit.traceAnalysis.systemModel;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.analysis.AnalysisController;
+import kieker.common.configuration.Configuration;
+import kieker.tools.traceAnalysis.filter.traceReconstruction.InvalidTraceException;
+import kieker.tools.traceAnalysis.systemModel.AbstractMessage;
+import kieker.tools.traceAnalysis.systemModel.Execution;
+import kieker.tools.traceAnalysis.systemModel.MessageTrace;
+import kieker.tools.traceAnalysis.systemModel.MessageTraceBuilder;
+import kieker.tools.traceAnalysis.systemModel.SynchronousCallMessage;
+import kieker.tools.traceAnalysis.systemModel.SynchronousReplyMessage;
+import kieker.tools.traceAnalysis.systemModel.repository.SystemModelRepository;
+
+import kieker.test.common.junit.AbstractKiekerTest;
+import kieker.test.tools.util.ExecutionFactory;
+
+/**
+ * @author Kieker Team
+ * 
+ * @since 1.14
+ */
+public class TestMessageTraceBuilder extends AbstractKiekerTest {
+	private static final long TRACE_ID = 4711L;
+	private static final String SESSION_ID = "session";
+
+	/**
+	 * Default constructor.
+	 */
+	public TestMessageTraceBuilder() {
+		// empty default constructor
+	}
+
+	private Execution[] createExecutions() {
+		final ExecutionFactory eFactory = new ExecutionFactory(new SystemModelRepository(new Configuration(), new AnalysisController()));
+		// a() { b() { c() } d() }
+		return new Execution[] {
+			eFactory.genExecution("A", "a", "a", TRACE_ID, SESSION_ID, 1, 10, 0, 0),
+			eFactory.genExecution("B", "b", "b", TRACE_ID, SESSION_ID, 2, 5, 1, 1),
+			eFactory.genExecution("C", "c", "c", TRACE_ID, SESSION_ID, 3, 4, 2, 2),
+			eFactory.genExecution("D", "d", "d", TRACE_ID, SESSION_ID, 6, 9, 3, 1),
+		};
+	}
+
+	@Test
+	public void testFlyweightAndMaterializedTracesAreEqual() throws InvalidTraceException {
+		final Execution[] executions = this.createExecutions();
+		final MessageTraceBuilder builder = new MessageTraceBuilder();
+		builder.setMaterializeMessages(false);
+		final MessageTrace flyweightTrace = builder.build(TRACE_ID, SESSION_ID, executions, SystemModelRepository.ROOT_EXECUTION);
+		builder.setMaterializeMessages(true);
+		final MessageTrace materializedTrace = builder.build(TRACE_ID, SESSION_ID, executions, SystemModelRepository.ROOT_EXECUTION);
+
+		Assert.assertEquals(materializedTrace, flyweightTrace);
+		Assert.assertEquals(1, flyweightTrace.getStartTimestamp());
+		Assert.assertEquals(10, flyweightTrace.getEndTimestamp());
+
+		final List<AbstractMessage> messages = flyweightTrace.getSequenceAsVector();
+		Assert.assertEquals(8, messages.size());
+		Assert.assertSame("Materialized messages must be reused", messages.get(0), messages.get(0));
+		this.assertMessage(messages.get(0), true, SystemModelRepository.ROOT_EXECUTION, executions[0], 1);
+		this.assertMessage(messages.get(1), true, executions[0], executions[1], 2);
+		this.assertMessage(messages.get(2), true, executions[1], executions[2], 3);
+		this.assertMessage(messages.get(3), false, executions[2], executions[1], 4);
+		this.assertMessage(messages.get(4), false, executions[1], executions[0], 5);
+		this.assertMessage(messages.get(5), true, executions[0], executions[3], 6);
+		this.assertMessage(messages.get(6), false, executions[3], executions[0], 9);
+		this.assertMessage(messages.get(7), false, executions[0], SystemModelRepository.ROOT_EXECUTION, 10);
+	}
+
+	@Test(expected = InvalidTraceException.class)
+	public void testNonConsecutiveEoisAreRejected() throws InvalidTraceException {
+		final Execution[] executions = this.createExecutions();
+		final Execution[] invalidExecutions = { executions[0], executions[2] };
+		new MessageTraceBuilder().build(TRACE_ID, SESSION_ID, invalidExecutions, SystemModelRepository.ROOT_EXECUTION);
+	}
+
+	private void assertMessage(final AbstractMessage message, final boolean call, final Execution sender, final Execution receiver, final long timestamp) {
+		Assert.assertEquals(call ? SynchronousCallMessage.class : SynchronousReplyMessage.class, message.getClass()); // NOCS (?:)
+		Assert.assertSame(sender, message.getSendingExecution());
+		Assert.assertSame(receiver, message.getReceivingExecution());
+		Assert.assertEquals(timestamp, message.getTimestamp());
+	}
+}
@@ -0,0 +1,136 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.junit.traceAnalysis.systemModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.analysis.AnalysisController;
+import kieker.common.configuration.Configuration;
+import kieker.common.util.signature.Signature;
+import kieker.tools.traceAnalysis.filter.AbstractTraceAnalysisFilter;
+import kieker.tools.traceAnalysis.systemModel.Execution;
+import kieker.tools.traceAnalysis.systemModel.Operation;
+import kieker.tools.traceAnalysis.systemModel.repository.SystemModelRepository;
+import kieker.tools.traceAnalysis.systemModel.util.AllocationComponentOperationPair;
+
+import kieker.test.common.junit.AbstractKiekerTest;
+
+/**
+ * Tests that concurrent lookups of the model elements by their names create each element exactly once.
+ * 
+ * @author Kieker Team
+ * 
+ * @since 1.14
+ */
+public class TestSystemModelRepositoryLookups extends AbstractKiekerTest {
+
+	private static final int NUM_THREADS = 4;
+	private static final int NUM_EXECUTIONS_PER_THREAD = 1000;
+	private static final String[] CONTAINER_NAMES = { "srv0", "srv1" };
+	private static final String[] COMPONENT_NAMES = { "pkg.Bookstore", "pkg.Catalog", "pkg.CRM" };
+	private static final Signature[] SIGNATURES = {
+		new Signature("searchBook", new String[] { "public" }, "void", new String[0]),
+		new Signature("getBook", new String[] { "public" }, "void", new String[] { "boolean" }),
+	};
+
+	/**
+	 * Default constructor.
+	 */
+	public TestSystemModelRepositoryLookups() {
+		// empty default constructor
+	}
+
+	@Test
+	public void testConcurrentCreationOfModelElements() throws Exception {
+		final SystemModelRepository systemModelRepository = new SystemModelRepository(new Configuration(), new AnalysisController());
+
+		final ExecutorService executorService = Executors.newFixedThreadPool(NUM_THREADS);
+		final List<Future<List<Execution>>> futures = new ArrayList<Future<List<Execution>>>();
+		for (int t = 0; t < NUM_THREADS; t++) {
+			futures.add(executorService.submit(new Callable<List<Execution>>() {
+				@Override
+				public List<Execution> call() {
+					final List<Execution> executions = new ArrayList<Execution>(NUM_EXECUTIONS_PER_THREAD);
+					for (int i = 0; i < NUM_EXECUTIONS_PER_THREAD; i++) {
+						final String containerName = CONTAINER_NAMES[i % CONTAINER_NAMES.length];
+						final String componentName = COMPONENT_NAMES[i % COMPONENT_NAMES.length];
+						final Signature signature = SIGNATURES[i % SIGNATURES.length];
+						final Execution execution = AbstractTraceAnalysisFilter.createExecutionByEntityNames(systemModelRepository, containerName,
+								componentName, signature, 1, "session", 0, 0, i, i + 1, false);
+						systemModelRepository.getAllocationPairFactory().getPairInstanceByPair(execution.getAllocationComponent(), execution.getOperation());
+						executions.add(execution);
+					}
+					return executions;
+				}
+			}));
+		}
+		final List<Execution> executions = new ArrayList<Execution>();
+		for (final Future<List<Execution>> future : futures) {
+			executions.addAll(future.get());
+		}
+		executorService.shutdown();
+
+		final int numAllocations = CONTAINER_NAMES.length * COMPONENT_NAMES.length;
+		final int numOperations = COMPONENT_NAMES.length * SIGNATURES.length;
+		Assert.assertEquals(COMPONENT_NAMES.length, systemModelRepository.getTypeRepositoryFactory().getComponentTypes().size());
+		Assert.assertEquals(COMPONENT_NAMES.length, systemModelRepository.getAssemblyFactory().getAssemblyComponentInstances().size());
+		Assert.assertEquals(CONTAINER_NAMES.length, systemModelRepository.getExecutionEnvironmentFactory().getExecutionContainers().size());
+		Assert.assertEquals(numAllocations, systemModelRepository.getAllocationFactory().getAllocationComponentInstances().size());
+		Assert.assertEquals(numOperations, systemModelRepository.getOperationFactory().getOperations().size());
+
+		// i % 6 determines container, component, and signature, hence at most 6 distinct pairs
+		Assert.assertEquals(6, systemModelRepository.getAllocationPairFactory().getPairs().size());
+		for (final Execution execution : executions) {
+			final AllocationComponentOperationPair pair = systemModelRepository.getAllocationPairFactory()
+					.getPairInstanceByPair(execution.getAllocationComponent(), execution.getOperation());
+			Assert.assertSame(execution.getAllocationComponent(), pair.getAllocationComponent());
+			Assert.assertSame(execution.getOperation(), pair.getOperation());
+			Assert.assertSame(pair, systemModelRepository.getAllocationPairFactory().getPairById(pair.getId()));
+		}
+	}
+
+	@Test
+	public void testElementsAreDeliveredInTheOrderOfTheirIds() {
+		final SystemModelRepository systemModelRepository = new SystemModelRepository(new Configuration(), new AnalysisController());
+		// enough elements to spread over the buckets of the maps
+		for (int i = 0; i < 100; i++) {
+			final Signature signature = new Signature("op" + i, new String[] { "public" }, "void", new String[0]);
+			final Execution execution = AbstractTraceAnalysisFilter.createExecutionByEntityNames(systemModelRepository, "srv",
+					COMPONENT_NAMES[i % COMPONENT_NAMES.length], signature, 1, "session", 0, 0, i, i + 1, false);
+			systemModelRepository.getAllocationPairFactory().getPairInstanceByPair(execution.getAllocationComponent(), execution.getOperation());
+		}
+
+		int lastId = Integer.MIN_VALUE;
+		for (final Operation operation : systemModelRepository.getOperationFactory().getOperations()) {
+			Assert.assertTrue("Operations not ordered by their IDs", operation.getId() > lastId);
+			lastId = operation.getId();
+		}
+		lastId = Integer.MIN_VALUE;
+		for (final AllocationComponentOperationPair pair : systemModelRepository.getAllocationPairFactory().getPairs()) {
+			Assert.assertTrue("Pairs not ordered by their IDs", pair.getId() > lastId);
+			lastId = pair.getId();
+		}
+	}
+}
@@ -16,6 +16,11 @@
 
 package kieker.test.tools.junit.writeRead.filesystem;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.hamcrest.CoreMatchers;
@@ -24,9 +29,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import kieker.analysis.AnalysisController;
 import kieker.analysis.plugin.reader.filesystem.BinaryLogReader;
 import kieker.common.configuration.Configuration;
 import kieker.common.record.IMonitoringRecord;
+import kieker.common.util.filesystem.BlockLogFormat;
+import kieker.common.util.filesystem.FileExtensionFilter;
 import kieker.monitoring.core.configuration.ConfigurationFactory;
 import kieker.monitoring.core.controller.MonitoringController;
 import kieker.monitoring.core.controller.WriterController;
@@ -75,8 +83,199 @@ public class BinaryWriterReaderTest {
 		Assert.assertThat(analyzedRecords, CoreMatchers.is(CoreMatchers.equalTo(records)));
 	}
 
+	@Test
+	public void testBlockCompressedBinaryCommunication() throws Exception {
+		// 1. define records to be triggered by the test probe
+		final List<IMonitoringRecord> records = TEST_DATA_REPOSITORY.newTestRecords();
+
+		final Configuration writerProperties = new Configuration();
+		writerProperties.setProperty(BinaryFileWriter.CONFIG_BLOCK_SIZE, "2");
+		final Configuration readerProperties = new Configuration();
+		readerProperties.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECOMPRESSION_THREADS, "2");
+		final List<IMonitoringRecord> analyzedRecords = this.testAsciiCommunication(records, false, writerProperties, readerProperties);
+
+		// 8. compare actual and expected records
+		Assert.assertThat(analyzedRecords, CoreMatchers.is(CoreMatchers.equalTo(records)));
+	}
+
+	@Test
+	public void testBlockCompressedBinaryCommunicationSkipsBlocksOutsideTimeWindow() throws Exception {
+		// 1. define records to be triggered by the test probe
+		final List<IMonitoringRecord> records = TEST_DATA_REPOSITORY.newTestRecords();
+
+		final Configuration writerProperties = new Configuration();
+		writerProperties.setProperty(BinaryFileWriter.CONFIG_BLOCK_SIZE, "2");
+		final Configuration readerProperties = new Configuration();
+		// all records are logged after timestamp 0
+		readerProperties.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_IGNORE_AFTER_TIMESTAMP, "0");
+		final List<IMonitoringRecord> analyzedRecords = this.testAsciiCommunication(records, false, writerProperties, readerProperties);
+
+		// 8. compare actual and expected records
+		Assert.assertThat(analyzedRecords.size(), CoreMatchers.is(0));
+	}
+
+	@Test
+	public void testConcurrentlyDecodedBinaryCommunication() throws Exception {
+		// 1. define records to be triggered by the test probe
+		final List<IMonitoringRecord> records = TEST_DATA_REPOSITORY.newTestRecords();
+
+		final Configuration writerProperties = new Configuration();
+		writerProperties.setProperty(BinaryFileWriter.CONFIG_MAXENTRIESINFILE, "5");
+		final Configuration readerProperties = new Configuration();
+		readerProperties.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECODING_THREADS, "2");
+		final List<IMonitoringRecord> analyzedRecords = this.testAsciiCommunication(records, false, writerProperties, readerProperties);
+
+		// 8. compare actual and expected records
+		Assert.assertThat(analyzedRecords, CoreMatchers.is(CoreMatchers.equalTo(records)));
+	}
+
+	@Test
+	public void testConcurrentlyDecodedBlockCompressedBinaryCommunication() throws Exception {
+		// 1. define records to be triggered by the test probe
+		final List<IMonitoringRecord> records = TEST_DATA_REPOSITORY.newTestRecords();
+
+		final Configuration writerProperties = new Configuration();
+		writerProperties.setProperty(BinaryFileWriter.CONFIG_MAXENTRIESINFILE, "5");
+		writerProperties.setProperty(BinaryFileWriter.CONFIG_BLOCK_SIZE, "2");
+		final Configuration readerProperties = new Configuration();
+		readerProperties.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECODING_THREADS, "3");
+		final List<IMonitoringRecord> analyzedRecords = this.testAsciiCommunication(records, false, writerProperties, readerProperties);
+
+		// 8. compare actual and expected records
+		Assert.assertThat(analyzedRecords, CoreMatchers.is(CoreMatchers.equalTo(records)));
+	}
+
+	@Test
+	public void testConcurrentlyDecodedBinaryCommunicationWithMoreFilesThanOpenedAhead() throws Exception {
+		// 1. define records to be triggered by the test probe
+		final List<IMonitoringRecord> records = TEST_DATA_REPOSITORY.newTestRecords();
+
+		// one file per record, so the files are opened one after another while the previous ones end
+		final Configuration writerProperties = new Configuration();
+		writerProperties.setProperty(BinaryFileWriter.CONFIG_MAXENTRIESINFILE, "1");
+		writerProperties.setProperty(BinaryFileWriter.CONFIG_BLOCK_SIZE, "1");
+		final Configuration readerProperties = new Configuration();
+		readerProperties.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECODING_THREADS, "2");
+		readerProperties.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECOMPRESSION_THREADS, "2");
+		final List<IMonitoringRecord> analyzedRecords = this.testAsciiCommunication(records, false, writerProperties, readerProperties);
+
+		// 8. compare actual and expected records
+		Assert.assertThat(analyzedRecords, CoreMatchers.is(CoreMatchers.equalTo(records)));
+	}
+
+	@Test
+	public void testBlockCompressedBinaryCommunicationWithInconsistentIndex() throws Exception {
+		// 1. define records to be triggered by the test probe
+		final List<IMonitoringRecord> records = TEST_DATA_REPOSITORY.newTestRecords();
+
+		final Configuration writerProperties = new Configuration();
+		writerProperties.setProperty(BinaryFileWriter.CONFIG_BLOCK_SIZE, "2");
+		final File logDir = this.writeRecords(records, false, writerProperties, this.tmpFolder.getRoot());
+
+		// let the first index entry point to the second block
+		final File[] blockFiles = logDir.listFiles(FileExtensionFilter.BLOCK);
+		Assert.assertThat(blockFiles.length, CoreMatchers.is(1));
+		final RandomAccessFile file = new RandomAccessFile(blockFiles[0], "rw");
+		try {
+			file.seek(file.length() - BlockLogFormat.FOOTER_SIZE);
+			final long indexOffset = file.readLong();
+			file.seek(indexOffset + BlockLogFormat.INDEX_ENTRY_SIZE);
+			final long secondBlockOffset = file.readLong();
+			file.seek(indexOffset);
+			file.writeLong(secondBlockOffset);
+		} finally {
+			file.close();
+		}
+
+		final List<IMonitoringRecord> analyzedRecords = this.readRecords(false, new Configuration());
+
+		// 8. compare actual and expected records
+		Assert.assertThat(analyzedRecords, CoreMatchers.is(CoreMatchers.equalTo(records)));
+	}
+
+	@Test
+	public void testBinaryCommunicationWithBlockCompressedAndUncompressedFiles() throws Exception {
+		// 1. define records to be triggered by the test probe
+		final List<IMonitoringRecord> records = TEST_DATA_REPOSITORY.newTestRecords();
+		final List<IMonitoringRecord> blockRecords = TEST_DATA_REPOSITORY.newTestRecords();
+
+		final File logDir = this.writeRecords(records, false, new Configuration(), this.tmpFolder.getRoot());
+		final Configuration writerProperties = new Configuration();
+		writerProperties.setProperty(BinaryFileWriter.CONFIG_BLOCK_SIZE, "2");
+		final File blockLogDir = this.writeRecords(blockRecords, false, writerProperties, this.tmpFolder.newFolder());
+		// both writers use the same ids since they register the same strings in the same order
+		for (final File blockFile : blockLogDir.listFiles(FileExtensionFilter.BLOCK)) {
+			Files.move(blockFile.toPath(), new File(logDir, blockFile.getName()).toPath());
+		}
+
+		final List<IMonitoringRecord> analyzedRecords = this.readRecords(false, new Configuration());
+		final Configuration readerProperties = new Configuration();
+		readerProperties.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECODING_THREADS, "2");
+		final List<IMonitoringRecord> concurrentlyAnalyzedRecords = this.readRecords(false, readerProperties);
+
+		// 8. compare actual and expected records
+		final List<IMonitoringRecord> expectedRecords = new ArrayList<IMonitoringRecord>(records);
+		expectedRecords.addAll(blockRecords);
+		Assert.assertThat(analyzedRecords, CoreMatchers.is(CoreMatchers.equalTo(expectedRecords)));
+		Assert.assertThat(concurrentlyAnalyzedRecords, CoreMatchers.is(CoreMatchers.equalTo(expectedRecords)));
+	}
+
+	@Test
+	public void testCurrentConfigurationKeepsTheConfiguredNumberOfDecompressionThreads() {
+		final Configuration readerConfiguration = new Configuration();
+		readerConfiguration.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_INPUTDIRS, this.tmpFolder.getRoot().getAbsolutePath());
+		readerConfiguration.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECOMPRESSION_THREADS, "0");
+		final BinaryLogReader reader = new BinaryLogReader(readerConfiguration, new AnalysisController());
+
+		// 0 selects the number of processors when reading; this choice must not be persisted for other machines
+		Assert.assertEquals(0, reader.getCurrentConfiguration().getIntProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECOMPRESSION_THREADS));
+	}
+
+	/**
+	 * @return the log directory of the writer
+	 */
+	private File writeRecords(final List<IMonitoringRecord> records, final boolean shouldCompress, final Configuration writerProperties,
+			final File storagePath) throws IOException, InterruptedException {
+		final Configuration config = ConfigurationFactory.createDefaultConfiguration();
+		config.setProperty(ConfigurationFactory.WRITER_CLASSNAME, BinaryFileWriter.class.getName());
+		config.setProperty(WriterController.RECORD_QUEUE_SIZE, "128");
+		config.setProperty(WriterController.RECORD_QUEUE_INSERT_BEHAVIOR, "1");
+		config.setProperty(BinaryFileWriter.CONFIG_PATH, storagePath.getCanonicalPath());
+		config.setProperty(BinaryFileWriter.CONFIG_SHOULD_COMPRESS, Boolean.toString(shouldCompress));
+		config.putAll(writerProperties);
+		final MonitoringController monitoringController = MonitoringController.createInstance(config);
+
+		final TestProbe testProbe = new TestProbe(monitoringController);
+		testProbe.triggerRecords(records);
+		monitoringController.terminateMonitoring();
+		monitoringController.waitForTermination(TIMEOUT_IN_MS);
+
+		final String[] monitoringLogDirs = TEST_DATA_REPOSITORY.getAbsoluteMonitoringLogDirNames(storagePath);
+		Assert.assertThat(monitoringLogDirs.length, CoreMatchers.is(1));
+		return new File(monitoringLogDirs[0]);
+	}
+
+	private List<IMonitoringRecord> readRecords(final boolean shouldDecompress, final Configuration readerProperties) throws Exception {
+		final String[] monitoringLogDirs = TEST_DATA_REPOSITORY.getAbsoluteMonitoringLogDirNames(this.tmpFolder.getRoot());
+
+		final Configuration readerConfiguration = new Configuration();
+		readerConfiguration.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_INPUTDIRS, Configuration.toProperty(monitoringLogDirs));
+		readerConfiguration.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_IGNORE_UNKNOWN_RECORD_TYPES, "false");
+		readerConfiguration.setProperty(BinaryLogReader.CONFIG_SHOULD_DECOMPRESS, Boolean.toString(shouldDecompress));
+		readerConfiguration.putAll(readerProperties);
+		final TestAnalysis analysis = new TestAnalysis(readerConfiguration, BinaryLogReader.class);
+		analysis.startAndWaitForTermination();
+		return analysis.getList();
+	}
+
 	@SuppressWarnings("PMD.JUnit4TestShouldUseTestAnnotation")
 	private List<IMonitoringRecord> testAsciiCommunication(final List<IMonitoringRecord> records, final boolean shouldDecompress) throws Exception {
+		return this.testAsciiCommunication(records, shouldDecompress, new Configuration(), new Configuration());
+	}
+
+	@SuppressWarnings("PMD.JUnit4TestShouldUseTestAnnotation")
+	private List<IMonitoringRecord> testAsciiCommunication(final List<IMonitoringRecord> records, final boolean shouldDecompress,
+			final Configuration writerProperties, final Configuration readerProperties) throws Exception {
 		// 2. define monitoring config
 		final Configuration config = ConfigurationFactory.createDefaultConfiguration();
 		config.setProperty(ConfigurationFactory.WRITER_CLASSNAME, BinaryFileWriter.class.getName());
@@ -84,6 +283,7 @@ public class BinaryWriterReaderTest {
 		config.setProperty(WriterController.RECORD_QUEUE_INSERT_BEHAVIOR, "1");
 		config.setProperty(BinaryFileWriter.CONFIG_PATH, this.tmpFolder.getRoot().getCanonicalPath());
 		config.setProperty(BinaryFileWriter.CONFIG_SHOULD_COMPRESS, Boolean.toString(shouldDecompress));
+		config.putAll(writerProperties);
 		final MonitoringController monitoringController = MonitoringController.createInstance(config);
 
 		// 3. define analysis config
@@ -93,6 +293,7 @@ public class BinaryWriterReaderTest {
 		readerConfiguration.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_INPUTDIRS, Configuration.toProperty(monitoringLogDirs));
 		readerConfiguration.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_IGNORE_UNKNOWN_RECORD_TYPES, "false");
 		readerConfiguration.setProperty(BinaryLogReader.CONFIG_SHOULD_DECOMPRESS, Boolean.toString(shouldDecompress));
+		readerConfiguration.putAll(readerProperties);
 		final TestAnalysis analysis = new TestAnalysis(readerConfiguration, BinaryLogReader.class);
 
 		// 4. trigger records
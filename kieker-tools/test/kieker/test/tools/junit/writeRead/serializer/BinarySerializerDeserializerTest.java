@@ -0,0 +1,226 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.junit.writeRead.serializer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.analysis.plugin.reader.newio.deserializer.BinaryDeserializer;
+import kieker.analysis.plugin.reader.newio.deserializer.InvalidFormatException;
+import kieker.common.configuration.Configuration;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.controlflow.OperationExecutionRecord;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.writer.collector.ChunkingCollector;
+import kieker.monitoring.writer.raw.IRawDataWriter;
+import kieker.monitoring.writer.serializer.BinarySerializer;
+
+import kieker.test.common.junit.AbstractKiekerTest;
+
+/**
+ * Tests the binary serializer together with the binary deserializer, in particular with the string dictionary
+ * spanning several chunks.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class BinarySerializerDeserializerTest extends AbstractKiekerTest {
+
+	private static final int CHUNK_SIZE = 16;
+
+	public BinarySerializerDeserializerTest() {
+		// empty default constructor
+	}
+
+	@Test
+	public void testChunksWithoutDictionary() {
+		final BinarySerializer serializer = new BinarySerializer(new Configuration());
+		final BinaryDeserializer deserializer = new BinaryDeserializer(null, null);
+
+		for (int chunk = 0; chunk < 3; chunk++) {
+			final List<IMonitoringRecord> records = this.createRecords(chunk);
+			Assert.assertEquals(records, this.roundTrip(serializer, deserializer, records));
+		}
+	}
+
+	@Test
+	public void testChunksWithDictionary() {
+		final BinarySerializer serializer = new BinarySerializer(this.createDictionaryConfiguration(0));
+		final BinarySerializer serializerWithoutDictionary = new BinarySerializer(new Configuration());
+		final BinaryDeserializer deserializer = new BinaryDeserializer(null, null);
+
+		for (int chunk = 0; chunk < 3; chunk++) {
+			final List<IMonitoringRecord> records = this.createRecords(chunk);
+			final ByteBuffer chunkData = this.serialize(serializer, records);
+			if (chunk > 0) {
+				// the strings have been sent with the first chunk
+				Assert.assertTrue(chunkData.remaining() < this.serialize(serializerWithoutDictionary, records).remaining());
+			}
+			Assert.assertEquals(records, deserializer.deserializeRecords(chunkData, chunkData.remaining()));
+		}
+	}
+
+	@Test
+	public void testLateReaderResumesAfterDictionaryReset() {
+		final BinarySerializer serializer = new BinarySerializer(this.createDictionaryConfiguration(2));
+		this.serialize(serializer, this.createRecords(0));
+
+		// the reader has missed the first chunk and thus the strings sent with it
+		final BinaryDeserializer lateDeserializer = new BinaryDeserializer(null, null);
+		final ByteBuffer secondChunk = this.serialize(serializer, this.createRecords(1));
+		try {
+			lateDeserializer.deserializeRecords(secondChunk, secondChunk.remaining());
+			Assert.fail("Expected an InvalidFormatException");
+		} catch (final InvalidFormatException e) { // NOPMD (expected)
+			// expected
+		}
+
+		// the third chunk resets the dictionary
+		final List<IMonitoringRecord> records = this.createRecords(2);
+		Assert.assertEquals(records, this.roundTrip(serializer, lateDeserializer, records));
+	}
+
+	@Test
+	public void testInterleavedChunksOfSeveralSerializers() {
+		final BinarySerializer firstSerializer = new BinarySerializer(this.createDictionaryConfiguration(0));
+		final BinarySerializer secondSerializer = new BinarySerializer(this.createDictionaryConfiguration(0));
+		final BinaryDeserializer deserializer = new BinaryDeserializer(null, null);
+
+		// the serializers assign the same string IDs to different host names
+		for (int chunk = 0; chunk < 3; chunk++) {
+			final List<IMonitoringRecord> records = this.createRecords(chunk);
+			Assert.assertEquals(records, this.roundTrip(firstSerializer, deserializer, records));
+			final List<IMonitoringRecord> otherRecords = this.createRecords(chunk, "otherhost");
+			Assert.assertEquals(otherRecords, this.roundTrip(secondSerializer, deserializer, otherRecords));
+		}
+	}
+
+	@Test
+	public void testChunksAfterFailedWriteCanBeDecoded() {
+		final int recordCount = 10 * CHUNK_SIZE;
+
+		// the dictionary is never reset periodically, so the chunks after the dropped one rely on the reset after the drop
+		final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+		configuration.setProperty(BinarySerializer.CONFIG_STRING_DICTIONARY, "true");
+		configuration.setProperty(BinarySerializer.CONFIG_DICTIONARY_RESET_INTERVAL, "0");
+		configuration.setProperty(ChunkingCollector.CONFIG_SERIALIZER_CLASSNAME, BinarySerializer.class.getName());
+		configuration.setProperty(ChunkingCollector.CONFIG_WRITER_CLASSNAME, FailingChunkWriter.class.getName());
+		configuration.setProperty(ChunkingCollector.CONFIG_CHUNK_SIZE, CHUNK_SIZE);
+		FailingChunkWriter.CHUNKS.clear();
+		final ChunkingCollector collector = new ChunkingCollector(configuration);
+
+		final List<IMonitoringRecord> records = new ArrayList<IMonitoringRecord>(recordCount);
+		collector.onStarting();
+		for (int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+			// each record adds a new host name to the dictionary
+			final IMonitoringRecord record = new OperationExecutionRecord("op()", "SESS-ID", 0, recordIndex, recordIndex, "host-" + recordIndex, recordIndex, 1);
+			records.add(record);
+			collector.writeMonitoringRecord(record);
+		}
+		collector.onTerminating();
+
+		Assert.assertTrue(collector.getNumberOfDroppedRecords() > 0);
+		final BinaryDeserializer deserializer = new BinaryDeserializer(null, null);
+		final List<IMonitoringRecord> decodedRecords = new ArrayList<IMonitoringRecord>(recordCount);
+		for (final byte[] chunk : FailingChunkWriter.CHUNKS) {
+			decodedRecords.addAll(deserializer.deserializeRecords(ByteBuffer.wrap(chunk), chunk.length));
+		}
+		Assert.assertEquals(recordCount - collector.getNumberOfDroppedRecords(), decodedRecords.size());
+		Assert.assertTrue(records.containsAll(decodedRecords));
+	}
+
+	private Configuration createDictionaryConfiguration(final int resetInterval) {
+		final Configuration configuration = new Configuration();
+		configuration.setProperty(BinarySerializer.CONFIG_STRING_DICTIONARY, "true");
+		configuration.setProperty(BinarySerializer.CONFIG_DICTIONARY_RESET_INTERVAL, Integer.toString(resetInterval));
+		return configuration;
+	}
+
+	private List<IMonitoringRecord> createRecords(final int chunk) {
+		return this.createRecords(chunk, "hostname");
+	}
+
+	private List<IMonitoringRecord> createRecords(final int chunk, final String hostname) {
+		final List<IMonitoringRecord> records = new ArrayList<IMonitoringRecord>(CHUNK_SIZE);
+		for (int i = 0; i < CHUNK_SIZE; i++) {
+			final int index = (chunk * CHUNK_SIZE) + i;
+			final IMonitoringRecord record = new OperationExecutionRecord("public void kieker.test.Clazz.operation" + (i % 4) + "()", "SESS-ID", chunk, index,
+					index + 1, hostname, i, i);
+			record.setLoggingTimestamp(index);
+			records.add(record);
+		}
+		return records;
+	}
+
+	private List<IMonitoringRecord> roundTrip(final BinarySerializer serializer, final BinaryDeserializer deserializer,
+			final Collection<IMonitoringRecord> records) {
+		final ByteBuffer chunkData = this.serialize(serializer, records);
+		return deserializer.deserializeRecords(chunkData, chunkData.remaining());
+	}
+
+	private ByteBuffer serialize(final BinarySerializer serializer, final Collection<IMonitoringRecord> records) {
+		final ByteBuffer buffer = ByteBuffer.allocate(65536);
+		serializer.serializeRecords(records, buffer);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * A raw data writer which keeps each chunk it is asked to write, except for the second one, on which it fails.
+	 */
+	public static final class FailingChunkWriter implements IRawDataWriter {
+
+		static final List<byte[]> CHUNKS = Collections.synchronizedList(new ArrayList<byte[]>());
+
+		private static final int FAILING_WRITE = 2;
+
+		private final AtomicInteger numWrites = new AtomicInteger();
+
+		public FailingChunkWriter(final Configuration configuration) {
+			// nothing to configure
+		}
+
+		@Override
+		public void writeData(final ByteBuffer data, final int offset, final int length) {
+			if (this.numWrites.incrementAndGet() == FAILING_WRITE) {
+				throw new IllegalStateException("Write failed");
+			}
+			final byte[] chunk = new byte[length];
+			data.position(offset);
+			data.get(chunk);
+			CHUNKS.add(chunk);
+		}
+
+		@Override
+		public void onInitialization() {
+			// nothing to do
+		}
+
+		@Override
+		public void onTermination() {
+			// nothing to do
+		}
+	}
+}
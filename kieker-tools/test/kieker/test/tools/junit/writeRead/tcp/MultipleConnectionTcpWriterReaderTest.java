@@ -0,0 +1,220 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.junit.writeRead.tcp;
+
+import java.io.DataOutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import kieker.analysis.AnalysisController;
+import kieker.analysis.AnalysisControllerThread;
+import kieker.analysis.plugin.filter.forward.ListCollectionFilter;
+import kieker.analysis.plugin.reader.tcp.MultipleConnectionTcpReader;
+import kieker.analysis.plugin.reader.tcp.util.MultipleConnectionRecordReader;
+import kieker.analysis.plugin.reader.util.IRecordReceivedListener;
+import kieker.common.configuration.Configuration;
+import kieker.common.logging.LogFactory;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.controlflow.OperationExecutionRecord;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.core.controller.MonitoringController;
+import kieker.monitoring.writer.tcp.SingleSocketTcpWriter;
+
+import kieker.test.common.junit.AbstractKiekerTest;
+
+/**
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public class MultipleConnectionTcpWriterReaderTest extends AbstractKiekerTest {
+
+	private static final String PORT = "10335";
+	private static final int NUM_WRITERS = 3;
+	private static final int NUM_RECORDS_PER_WRITER = 1000;
+	private static final long TIMEOUT_IN_MS = 10000;
+
+	public MultipleConnectionTcpWriterReaderTest() {
+		super();
+	}
+
+	@Test
+	public void testRecordsOfConcurrentWritersAreReadInOrderPerConnection() throws Exception {
+		final AnalysisController analysisController = new AnalysisController();
+		final Configuration readerConfig = new Configuration();
+		readerConfig.setProperty(MultipleConnectionTcpReader.CONFIG_PROPERTY_NAME_PORT, PORT);
+		readerConfig.setProperty(MultipleConnectionTcpReader.CONFIG_PROPERTY_NAME_NUM_WORKERS, "2");
+		final MultipleConnectionTcpReader tcpReader = new MultipleConnectionTcpReader(readerConfig, analysisController);
+		final ListCollectionFilter<IMonitoringRecord> sinkFilter = new ListCollectionFilter<IMonitoringRecord>(new Configuration(), analysisController);
+		analysisController.connect(tcpReader, MultipleConnectionTcpReader.OUTPUT_PORT_NAME_RECORDS, sinkFilter, ListCollectionFilter.INPUT_PORT_NAME);
+		final AnalysisControllerThread analysisThread = new AnalysisControllerThread(analysisController);
+		analysisThread.start();
+
+		Thread.sleep(1000);
+
+		final List<MonitoringController> monitoringControllers = new ArrayList<MonitoringController>();
+		for (int i = 0; i < NUM_WRITERS; i++) {
+			final Configuration monitoringConfig = ConfigurationFactory.createDefaultConfiguration();
+			monitoringConfig.setProperty(ConfigurationFactory.CONTROLLER_NAME, "writer-" + i);
+			monitoringConfig.setProperty(ConfigurationFactory.WRITER_CLASSNAME, SingleSocketTcpWriter.class.getName());
+			monitoringConfig.setProperty(SingleSocketTcpWriter.CONFIG_PORT, PORT);
+			monitoringControllers.add(MonitoringController.createInstance(monitoringConfig));
+		}
+		// interleave the records of the writers
+		for (int r = 0; r < NUM_RECORDS_PER_WRITER; r++) {
+			for (int i = 0; i < NUM_WRITERS; i++) {
+				monitoringControllers.get(i).newMonitoringRecord(new OperationExecutionRecord("op" + i + "()", "session", i, r, r, "host", r, 0));
+			}
+		}
+		for (final MonitoringController monitoringController : monitoringControllers) {
+			monitoringController.terminateMonitoring();
+			monitoringController.waitForTermination(TIMEOUT_IN_MS);
+		}
+
+		final long deadline = System.currentTimeMillis() + TIMEOUT_IN_MS;
+		while ((this.countOperationExecutions(sinkFilter.getList()) < (NUM_WRITERS * NUM_RECORDS_PER_WRITER)) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10);
+		}
+		analysisController.terminate();
+		analysisThread.awaitTermination();
+		Assert.assertEquals(AnalysisController.STATE.TERMINATED, analysisController.getState());
+
+		final int[] nextOrderIndex = new int[NUM_WRITERS];
+		for (final IMonitoringRecord record : sinkFilter.getList()) {
+			if (record instanceof OperationExecutionRecord) {
+				final OperationExecutionRecord execution = (OperationExecutionRecord) record;
+				final int writer = (int) execution.getTraceId();
+				Assert.assertEquals("op" + writer + "()", execution.getOperationSignature());
+				Assert.assertEquals(nextOrderIndex[writer]++, execution.getEoi());
+			}
+		}
+		for (int i = 0; i < NUM_WRITERS; i++) {
+			Assert.assertEquals(NUM_RECORDS_PER_WRITER, nextOrderIndex[i]);
+		}
+	}
+
+	@Test
+	public void testFailingConnectionDoesNotAffectTheOtherConnectionsOfItsWorker() throws Exception {
+		final int port = Integer.parseInt(PORT) + 1;
+		final CountDownLatch failed = new CountDownLatch(1);
+		final List<IMonitoringRecord> records = Collections.synchronizedList(new ArrayList<IMonitoringRecord>());
+		final MultipleConnectionRecordReader reader = this.startReader(port, new IRecordReceivedListener() {
+			@Override
+			public void onRecordReceived(final IMonitoringRecord record) {
+				if ((record instanceof OperationExecutionRecord) && (((OperationExecutionRecord) record).getTraceId() == 0)) {
+					failed.countDown();
+					throw new IllegalStateException("closes the first connection");
+				}
+				records.add(record);
+			}
+		});
+
+		// the single worker fails at the first record of the first connection
+		this.writeRecords(port, 0, 1);
+		Assert.assertTrue(failed.await(TIMEOUT_IN_MS, TimeUnit.MILLISECONDS));
+
+		// the worker must still read the other connections
+		for (int i = 1; i <= NUM_WRITERS; i++) {
+			this.writeRecords(port, i, NUM_RECORDS_PER_WRITER);
+		}
+		this.awaitOperationExecutions(records, NUM_WRITERS * NUM_RECORDS_PER_WRITER);
+		reader.terminate();
+
+		Assert.assertEquals(NUM_WRITERS * NUM_RECORDS_PER_WRITER, this.countOperationExecutions(records));
+	}
+
+	@Test
+	public void testConnectionWithAnInvalidStringLengthIsClosed() throws Exception {
+		final int port = Integer.parseInt(PORT) + 2;
+		final List<IMonitoringRecord> records = Collections.synchronizedList(new ArrayList<IMonitoringRecord>());
+		final MultipleConnectionRecordReader reader = this.startReader(port, new IRecordReceivedListener() {
+			@Override
+			public void onRecordReceived(final IMonitoringRecord record) {
+				records.add(record);
+			}
+		});
+
+		final Socket socket = new Socket("localhost", port);
+		try {
+			socket.setSoTimeout((int) TIMEOUT_IN_MS);
+			final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(-1); // registry entry
+			out.writeInt(0); // string id
+			out.writeInt(-5); // string length
+			out.flush();
+			Assert.assertEquals("the reader must close the connection", -1, socket.getInputStream().read());
+		} finally {
+			socket.close();
+		}
+
+		this.writeRecords(port, 1, NUM_RECORDS_PER_WRITER);
+		this.awaitOperationExecutions(records, NUM_RECORDS_PER_WRITER);
+		reader.terminate();
+
+		Assert.assertEquals(NUM_RECORDS_PER_WRITER, this.countOperationExecutions(records));
+	}
+
+	private MultipleConnectionRecordReader startReader(final int port, final IRecordReceivedListener listener) throws InterruptedException {
+		final MultipleConnectionRecordReader reader = new MultipleConnectionRecordReader(port, 65536, 1,
+				LogFactory.getLog(MultipleConnectionTcpWriterReaderTest.class), listener);
+		final Thread readerThread = new Thread(reader);
+		readerThread.setDaemon(true);
+		readerThread.start();
+
+		Thread.sleep(1000);
+		return reader;
+	}
+
+	private void awaitOperationExecutions(final List<IMonitoringRecord> records, final int numRecords) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT_IN_MS;
+		while ((this.countOperationExecutions(records) < numRecords) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10);
+		}
+	}
+
+	private void writeRecords(final int port, final int writer, final int numRecords) throws InterruptedException {
+		final Configuration monitoringConfig = ConfigurationFactory.createDefaultConfiguration();
+		monitoringConfig.setProperty(ConfigurationFactory.CONTROLLER_NAME, "writer-" + writer);
+		monitoringConfig.setProperty(ConfigurationFactory.WRITER_CLASSNAME, SingleSocketTcpWriter.class.getName());
+		monitoringConfig.setProperty(SingleSocketTcpWriter.CONFIG_PORT, Integer.toString(port));
+		final MonitoringController monitoringController = MonitoringController.createInstance(monitoringConfig);
+		for (int r = 0; r < numRecords; r++) {
+			monitoringController.newMonitoringRecord(new OperationExecutionRecord("op" + writer + "()", "session", writer, r, r, "host", r, 0));
+		}
+		monitoringController.terminateMonitoring();
+		monitoringController.waitForTermination(TIMEOUT_IN_MS);
+	}
+
+	private int countOperationExecutions(final List<IMonitoringRecord> records) {
+		int count = 0;
+		synchronized (records) {
+			for (final IMonitoringRecord record : records) {
+				if (record instanceof OperationExecutionRecord) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,117 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import kieker.analysis.AnalysisController;
+import kieker.analysis.plugin.filter.forward.CountingFilter;
+import kieker.analysis.plugin.reader.filesystem.BinaryLogReader;
+import kieker.common.configuration.Configuration;
+import kieker.common.record.controlflow.OperationExecutionRecord;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.writer.filesystem.BinaryFileWriter;
+
+/**
+ * Measures the time per record read by the {@link BinaryLogReader} from two log directories, once with one reading
+ * thread per directory and once decoded by the given numbers of threads and merged by timestamp (default: 1, 2, and
+ * 4).
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class BinaryLogReaderBenchmark {
+
+	private static final int NUM_LOG_DIRS = 2;
+	private static final int NUM_RECORDS_PER_LOG_DIR = 250000;
+
+	private BinaryLogReaderBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		final Path tmpDir = Files.createTempDirectory("kieker-benchmark");
+		final String[] logDirs = new String[NUM_LOG_DIRS];
+		for (int i = 0; i < NUM_LOG_DIRS; i++) {
+			logDirs[i] = BinaryLogReaderBenchmark.writeLog(Files.createDirectory(tmpDir.resolve("log" + i)), i);
+		}
+
+		MicroBenchmark.measure("one reading thread per log dir", NUM_LOG_DIRS * NUM_RECORDS_PER_LOG_DIR, new MicroBenchmark.IRun() {
+			@Override
+			public long run(final int numOps) throws Exception {
+				return BinaryLogReaderBenchmark.read(logDirs, 0);
+			}
+		});
+		final String[] numThreadsArgs = (args.length > 0) ? args : new String[] { "1", "2", "4" }; // NOCS (?:)
+		for (final String numThreadsArg : numThreadsArgs) {
+			final int numThreads = Integer.parseInt(numThreadsArg);
+			MicroBenchmark.measure(numThreads + " decoding thread(s), merged", NUM_LOG_DIRS * NUM_RECORDS_PER_LOG_DIR, new MicroBenchmark.IRun() {
+				@Override
+				public long run(final int numOps) throws Exception {
+					return BinaryLogReaderBenchmark.read(logDirs, numThreads);
+				}
+			});
+		}
+
+		for (final String logDir : logDirs) {
+			for (final File dir : new File(logDir).getParentFile().listFiles()) {
+				for (final File file : dir.listFiles()) {
+					Files.delete(file.toPath());
+				}
+				Files.delete(dir.toPath());
+			}
+			Files.delete(new File(logDir).getParentFile().toPath());
+		}
+		Files.delete(tmpDir);
+	}
+
+	/**
+	 * @return the Kieker log directory written
+	 */
+	private static String writeLog(final Path path, final int logIndex) throws IOException {
+		final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+		configuration.setProperty(BinaryFileWriter.CONFIG_PATH, path.toString());
+		final BinaryFileWriter writer = new BinaryFileWriter(configuration);
+		writer.onStarting();
+		for (int i = 0; i < NUM_RECORDS_PER_LOG_DIR; i++) {
+			final long time = ((long) i * NUM_LOG_DIRS) + logIndex;
+			final OperationExecutionRecord record = new OperationExecutionRecord("public void pkg.Clazz.op" + (i % 100) + "(int)", "sessionId", i, time,
+					time + 1, "host" + logIndex, 0, 0);
+			record.setLoggingTimestamp(time);
+			writer.writeMonitoringRecord(record);
+		}
+		writer.onTerminating();
+		return writer.getLogFolder().toString();
+	}
+
+	/**
+	 * @return the number of records read
+	 */
+	private static long read(final String[] logDirs, final int numDecodingThreads) throws Exception {
+		final AnalysisController analysisController = new AnalysisController();
+		final Configuration readerConfiguration = new Configuration();
+		readerConfiguration.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_INPUTDIRS, Configuration.toProperty(logDirs));
+		readerConfiguration.setProperty(BinaryLogReader.CONFIG_PROPERTY_NAME_NUM_DECODING_THREADS, Integer.toString(numDecodingThreads));
+		final BinaryLogReader reader = new BinaryLogReader(readerConfiguration, analysisController);
+		final CountingFilter countingFilter = new CountingFilter(new Configuration(), analysisController);
+		analysisController.connect(reader, BinaryLogReader.OUTPUT_PORT_NAME_RECORDS, countingFilter, CountingFilter.INPUT_PORT_NAME_EVENTS);
+		analysisController.run();
+		return countingFilter.getMessageCount();
+	}
+}
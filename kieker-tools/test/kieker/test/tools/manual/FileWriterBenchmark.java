@@ -0,0 +1,90 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import kieker.common.configuration.Configuration;
+import kieker.common.record.controlflow.OperationExecutionRecord;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.writer.AbstractMonitoringWriter;
+import kieker.monitoring.writer.filesystem.BinaryFileWriter;
+import kieker.monitoring.writer.filesystem.MappedBinaryFileWriter;
+
+/**
+ * Measures the time per record written by the {@link BinaryFileWriter} and the {@link MappedBinaryFileWriter} with their
+ * default configurations, including opening and closing the files.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class FileWriterBenchmark {
+
+	private static final int NUM_RECORDS = 500000;
+
+	private FileWriterBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		final Path tmpDir = Files.createTempDirectory("kieker-benchmark");
+		final OperationExecutionRecord record = new OperationExecutionRecord("public void pkg.Clazz.op(int)", "sessionId", 1L, 1L, 2L, "host", 0, 0);
+
+		MicroBenchmark.measure(BinaryFileWriter.class.getSimpleName(), NUM_RECORDS, new MicroBenchmark.IRun() {
+			@Override
+			public long run(final int numOps) throws IOException {
+				final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+				configuration.setProperty(BinaryFileWriter.CONFIG_PATH, tmpDir.toString());
+				return FileWriterBenchmark.write(new BinaryFileWriter(configuration), record, numOps, tmpDir);
+			}
+		});
+		MicroBenchmark.measure(MappedBinaryFileWriter.class.getSimpleName(), NUM_RECORDS, new MicroBenchmark.IRun() {
+			@Override
+			public long run(final int numOps) throws IOException {
+				final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+				configuration.setProperty(MappedBinaryFileWriter.CONFIG_PATH, tmpDir.toString());
+				return FileWriterBenchmark.write(new MappedBinaryFileWriter(configuration), record, numOps, tmpDir);
+			}
+		});
+
+		Files.delete(tmpDir);
+	}
+
+	/**
+	 * @return the number of bytes written
+	 */
+	private static long write(final AbstractMonitoringWriter writer, final OperationExecutionRecord record, final int numRecords, final Path tmpDir)
+			throws IOException {
+		writer.onStarting();
+		for (int i = 0; i < numRecords; i++) {
+			writer.writeMonitoringRecord(record);
+		}
+		writer.onTerminating();
+
+		long numBytes = 0;
+		for (final File logDir : tmpDir.toFile().listFiles()) {
+			for (final File file : logDir.listFiles()) {
+				numBytes += file.length();
+				Files.delete(file.toPath());
+			}
+			Files.delete(logDir.toPath());
+		}
+		return numBytes;
+	}
+}
@@ -0,0 +1,93 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import kieker.common.logging.Log;
+import kieker.common.logging.LogFactory;
+
+/**
+ * A minimal harness for the manual micro-benchmarks in this package. It runs an operation repeatedly for warm-up and
+ * measurement and logs the median duration per operation. It is no replacement for a harness such as JMH, but suffices
+ * to compare the implementations of a feature on the same machine.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class MicroBenchmark {
+	private static final Log LOG = LogFactory.getLog(MicroBenchmark.class);
+
+	private static final int NUM_WARM_UP_RUNS = 5;
+	private static final int NUM_MEASURED_RUNS = 10;
+
+	private static volatile long sink; // NOPMD (consumes the results so that the JIT compiler cannot remove the work)
+
+	private MicroBenchmark() {}
+
+	/**
+	 * Runs the given operation {@value #NUM_WARM_UP_RUNS} times for warm-up and {@value #NUM_MEASURED_RUNS} times for
+	 * measurement, and logs the median duration per operation.
+	 *
+	 * @param name
+	 *            the name of the benchmark in the log
+	 * @param numOps
+	 *            the number of operations performed by one run
+	 * @param operation
+	 *            the operation
+	 *
+	 * @return the median duration per operation in nanoseconds
+	 *
+	 * @throws Exception
+	 *             if the operation fails
+	 */
+	public static double measure(final String name, final int numOps, final IRun operation) throws Exception { // NOPMD NOCS (the runs may throw anything)
+		long result = 0;
+		for (int i = 0; i < NUM_WARM_UP_RUNS; i++) {
+			result += operation.run(numOps);
+		}
+		final long[] durationsInNs = new long[NUM_MEASURED_RUNS];
+		for (int i = 0; i < NUM_MEASURED_RUNS; i++) {
+			final long start = System.nanoTime();
+			result += operation.run(numOps);
+			durationsInNs[i] = System.nanoTime() - start;
+		}
+		sink += result;
+		Arrays.sort(durationsInNs);
+		final double nsPerOp = (double) durationsInNs[NUM_MEASURED_RUNS / 2] / numOps;
+		LOG.info(String.format(Locale.US, "%-60s %12.1f ns/op", name, nsPerOp));
+		return nsPerOp;
+	}
+
+	/**
+	 * One run of a benchmarked operation.
+	 */
+	public interface IRun {
+		/**
+		 * @param numOps
+		 *            the number of operations to perform
+		 *
+		 * @return any value computed from the operations, which is consumed so that they cannot be eliminated
+		 *
+		 * @throws Exception
+		 *             if the operation fails
+		 */
+		long run(int numOps) throws Exception; // NOPMD NOCS (the runs may throw anything)
+	}
+}
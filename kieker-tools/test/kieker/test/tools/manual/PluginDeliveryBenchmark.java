@@ -0,0 +1,147 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import kieker.analysis.AnalysisController;
+import kieker.analysis.IProjectContext;
+import kieker.analysis.plugin.annotation.InputPort;
+import kieker.analysis.plugin.annotation.OutputPort;
+import kieker.analysis.plugin.annotation.Plugin;
+import kieker.analysis.plugin.filter.AbstractFilterPlugin;
+import kieker.analysis.plugin.reader.AbstractReaderPlugin;
+import kieker.common.configuration.Configuration;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.controlflow.OperationExecutionRecord;
+
+/**
+ * Measures the time per record delivered by a reader through two forwarding filters to a sink, i.e., three calls of
+ * {@code AbstractPlugin.deliver} per record.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class PluginDeliveryBenchmark {
+
+	private static final int NUM_RECORDS = 2000000;
+
+	private PluginDeliveryBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		final AnalysisController analysisController = new AnalysisController();
+		final BenchmarkReader reader = new BenchmarkReader(new Configuration(), analysisController);
+		final ForwardingFilter filter1 = new ForwardingFilter(new Configuration(), analysisController);
+		final ForwardingFilter filter2 = new ForwardingFilter(new Configuration(), analysisController);
+		final CountingSink sink = new CountingSink(new Configuration(), analysisController);
+		analysisController.connect(reader, BenchmarkReader.OUTPUT_PORT_NAME, filter1, ForwardingFilter.INPUT_PORT_NAME);
+		analysisController.connect(filter1, ForwardingFilter.OUTPUT_PORT_NAME, filter2, ForwardingFilter.INPUT_PORT_NAME);
+		analysisController.connect(filter2, ForwardingFilter.OUTPUT_PORT_NAME, sink, CountingSink.INPUT_PORT_NAME);
+		analysisController.run();
+	}
+
+	/**
+	 * Runs the measurement when the analysis starts reading.
+	 */
+	@Plugin(programmaticOnly = true, outputPorts = @OutputPort(name = BenchmarkReader.OUTPUT_PORT_NAME, eventTypes = IMonitoringRecord.class))
+	private static final class BenchmarkReader extends AbstractReaderPlugin {
+		public static final String OUTPUT_PORT_NAME = "out";
+
+		public BenchmarkReader(final Configuration configuration, final IProjectContext projectContext) {
+			super(configuration, projectContext);
+		}
+
+		@Override
+		public Configuration getCurrentConfiguration() {
+			return new Configuration();
+		}
+
+		@Override
+		public void terminate(final boolean error) {
+			// nothing to do
+		}
+
+		@Override
+		public boolean read() {
+			final OperationExecutionRecord record = new OperationExecutionRecord("public void pkg.Clazz.op(int)", "sessionId", 1L, 1L, 2L, "host", 0, 0);
+			try {
+				MicroBenchmark.measure("reader -> filter -> filter -> sink", NUM_RECORDS, new MicroBenchmark.IRun() {
+					@Override
+					public long run(final int numOps) {
+						long numDelivered = 0;
+						for (int i = 0; i < numOps; i++) {
+							if (BenchmarkReader.this.deliver(OUTPUT_PORT_NAME, record)) {
+								numDelivered++;
+							}
+						}
+						return numDelivered;
+					}
+				});
+			} catch (final Exception e) { // NOPMD NOCS (IllegalCatchCheck)
+				this.log.error("Benchmark failed", e);
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Forwards every record.
+	 */
+	@Plugin(programmaticOnly = true, outputPorts = @OutputPort(name = ForwardingFilter.OUTPUT_PORT_NAME, eventTypes = IMonitoringRecord.class))
+	private static final class ForwardingFilter extends AbstractFilterPlugin {
+		public static final String INPUT_PORT_NAME = "in";
+		public static final String OUTPUT_PORT_NAME = "out";
+
+		public ForwardingFilter(final Configuration configuration, final IProjectContext projectContext) {
+			super(configuration, projectContext);
+		}
+
+		@Override
+		public Configuration getCurrentConfiguration() {
+			return new Configuration();
+		}
+
+		@InputPort(name = INPUT_PORT_NAME, eventTypes = IMonitoringRecord.class)
+		public void forward(final IMonitoringRecord record) {
+			super.deliver(OUTPUT_PORT_NAME, record);
+		}
+	}
+
+	/**
+	 * Counts the records it receives.
+	 */
+	@Plugin(programmaticOnly = true)
+	private static final class CountingSink extends AbstractFilterPlugin {
+		public static final String INPUT_PORT_NAME = "in";
+
+		private long numRecords;
+
+		public CountingSink(final Configuration configuration, final IProjectContext projectContext) {
+			super(configuration, projectContext);
+		}
+
+		@Override
+		public Configuration getCurrentConfiguration() {
+			return new Configuration();
+		}
+
+		@InputPort(name = INPUT_PORT_NAME, eventTypes = OperationExecutionRecord.class)
+		public void count(final OperationExecutionRecord record) {
+			this.numRecords++;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+import kieker.analysis.plugin.reader.util.ByteBufferDeserializer;
+import kieker.analysis.plugin.reader.util.IMonitoringRecordReceiver;
+import kieker.analysis.plugin.reader.util.RecordStreamDecoder;
+import kieker.common.logging.Log;
+import kieker.common.logging.LogFactory;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.flow.trace.TraceMetadata;
+import kieker.common.record.flow.trace.operation.AfterOperationEvent;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
+import kieker.common.record.io.DefaultValueSerializer;
+import kieker.common.util.registry.Registry;
+import kieker.common.util.registry.reader.ReaderRegistry;
+import kieker.monitoring.registry.IRegistryListener;
+import kieker.monitoring.registry.WriterRegistry;
+
+/**
+ * Measures the time per string of the {@link WriterRegistry}, which registers a string and looks up its id as the
+ * serializers do, and of the {@link ReaderRegistry}, which looks up a string by its id as the deserializers do. Both
+ * registries hold the given numbers of strings (default: 100 and 10000), which are accessed in turn.
+ *
+ * <p>
+ * In addition, it measures the time per record of decoding a generated log of flow events whose operation signatures
+ * are the given numbers of strings. The log is read from a channel in chunks of 8 KiB by a
+ * {@link ByteBufferDeserializer}, i.e., by a {@link RecordStreamDecoder} with a new {@link ReaderRegistry}, like a file
+ * of a binary log. To compare with another implementation of the registry, put its compiled class in front of the
+ * classpath.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class RegistryBenchmark {
+
+	private static final int NUM_LOOKUPS = 10000000;
+	private static final int NUM_TRACES = 20000;
+	/** the number of operations executed by each trace. */
+	private static final int TRACE_LENGTH = 10;
+	private static final int NUM_RECORDS = NUM_TRACES * ((2 * TRACE_LENGTH) + 1);
+	private static final int CHUNK_SIZE = 8192;
+	private static final Charset ENCODING = Charset.forName("UTF-8");
+
+	private static final Log LOG = LogFactory.getLog(RegistryBenchmark.class);
+
+	private RegistryBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		final String[] numStringsArgs = (args.length > 0) ? args : new String[] { "100", "10000" }; // NOCS (?:)
+		for (final String numStringsArg : numStringsArgs) {
+			final int numStrings = Integer.parseInt(numStringsArg);
+			final String[] strings = new String[numStrings];
+			final WriterRegistry writerRegistry = new WriterRegistry(new IRegistryListener<String>() {
+				@Override
+				public void onNewRegistryEntry(final String value, final int id) {
+					// nothing to do
+				}
+			});
+			final ReaderRegistry<String> readerRegistry = new ReaderRegistry<String>();
+			for (int i = 0; i < numStrings; i++) {
+				strings[i] = "public void pkg.Clazz.op" + i + "(int)";
+				writerRegistry.register(strings[i]);
+				readerRegistry.register(i, strings[i]);
+			}
+
+			MicroBenchmark.measure(WriterRegistry.class.getSimpleName() + ", " + numStrings + " strings", NUM_LOOKUPS, new MicroBenchmark.IRun() {
+				@Override
+				public long run(final int numOps) {
+					long sum = 0;
+					for (int i = 0, s = 0; i < numOps; i++, s = (s + 1) % numStrings) {
+						writerRegistry.register(strings[s]);
+						sum += writerRegistry.getId(strings[s]);
+					}
+					return sum;
+				}
+			});
+			MicroBenchmark.measure(ReaderRegistry.class.getSimpleName() + ", " + numStrings + " strings", NUM_LOOKUPS, new MicroBenchmark.IRun() {
+				@Override
+				public long run(final int numOps) {
+					long sum = 0;
+					for (int i = 0, s = 0; i < numOps; i++, s = (s + 1) % numStrings) {
+						sum += readerRegistry.get(s).length();
+					}
+					return sum;
+				}
+			});
+
+			final byte[] log = RegistryBenchmark.createFlowEventLog(numStrings);
+			MicroBenchmark.measure("decoding flow events, " + numStrings + " operation signatures", NUM_RECORDS, new MicroBenchmark.IRun() {
+				@Override
+				public long run(final int numOps) throws Exception {
+					final long numRecords = RegistryBenchmark.decode(log);
+					if (numRecords != numOps) {
+						throw new IllegalStateException("Decoded " + numRecords + " instead of " + numOps + " records");
+					}
+					return numRecords;
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return the number of decoded records
+	 */
+	private static long decode(final byte[] log) throws Exception { // NOPMD NOCS (the runs may throw anything)
+		final long[] numRecords = new long[1];
+		final ByteBufferDeserializer deserializer = new ByteBufferDeserializer(new ReaderRegistry<String>(), LOG, CHUNK_SIZE);
+		deserializer.register(new IMonitoringRecordReceiver() {
+			@Override
+			public boolean newMonitoringRecord(final IMonitoringRecord record) {
+				numRecords[0]++;
+				return true;
+			}
+
+			@Override
+			public void newEndOfFileRecord() {
+				// nothing to do
+			}
+		});
+		final ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(log));
+		while (deserializer.deserializeNextChunk(channel)) { // NOPMD (empty loop body)
+			// the records are counted by the receiver
+		}
+		return numRecords[0];
+	}
+
+	/**
+	 * Serializes traces of nested operations in the format of the binary writers, with each registry entry in front of the
+	 * first record using the string.
+	 */
+	private static byte[] createFlowEventLog(final int numSignatures) {
+		final Registry<String> stringRegistry = new Registry<String>();
+		final ByteBuffer recordBuffer = ByteBuffer.allocate(1024);
+		final DefaultValueSerializer serializer = DefaultValueSerializer.create(recordBuffer, stringRegistry);
+		final ByteBuffer log = ByteBuffer.allocate(NUM_RECORDS * 64);
+		int signature = 0;
+		long timestamp = 0;
+		for (int traceId = 0; traceId < NUM_TRACES; traceId++) {
+			RegistryBenchmark.append(new TraceMetadata(traceId, 1, "sessionId", "host", -1, -1), serializer, recordBuffer, stringRegistry, log);
+			final String[] operationSignatures = new String[TRACE_LENGTH];
+			for (int i = 0; i < TRACE_LENGTH; i++, signature = (signature + 1) % numSignatures) {
+				operationSignatures[i] = "public void pkg.Clazz.op" + signature + "(int)";
+				RegistryBenchmark.append(new BeforeOperationEvent(timestamp++, traceId, i, operationSignatures[i], "pkg.Clazz"), serializer, recordBuffer,
+						stringRegistry, log);
+			}
+			for (int i = TRACE_LENGTH - 1; i >= 0; i--) {
+				RegistryBenchmark.append(new AfterOperationEvent(timestamp++, traceId, (2 * TRACE_LENGTH) - i, operationSignatures[i], "pkg.Clazz"), serializer,
+						recordBuffer, stringRegistry, log);
+			}
+		}
+		log.flip();
+		final byte[] bytes = new byte[log.remaining()];
+		log.get(bytes);
+		return bytes;
+	}
+
+	private static void append(final IMonitoringRecord record, final DefaultValueSerializer serializer, final ByteBuffer recordBuffer,
+			final Registry<String> stringRegistry, final ByteBuffer log) {
+		final int numStringsBefore = stringRegistry.getSize();
+		serializer.putString(record.getClass().getName());
+		serializer.putLong(record.getLoggingTimestamp());
+		record.serialize(serializer);
+		for (int id = numStringsBefore; id < stringRegistry.getSize(); id++) {
+			final byte[] bytes = stringRegistry.get(id).getBytes(ENCODING);
+			log.putInt(-1);
+			log.putInt(id);
+			log.putInt(bytes.length);
+			log.put(bytes);
+		}
+		recordBuffer.flip();
+		log.put(recordBuffer);
+		recordBuffer.clear();
+	}
+}
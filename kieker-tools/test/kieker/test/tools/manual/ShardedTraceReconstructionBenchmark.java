@@ -0,0 +1,93 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import kieker.analysis.AnalysisController;
+import kieker.analysis.plugin.filter.flow.EventRecordTraceReconstructionFilter;
+import kieker.common.configuration.Configuration;
+import kieker.common.record.flow.IFlowRecord;
+import kieker.common.record.flow.trace.TraceMetadata;
+import kieker.common.record.flow.trace.operation.AfterOperationEvent;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
+
+/**
+ * Measures the time per record reconstructed by the {@link EventRecordTraceReconstructionFilter} with the given numbers
+ * of shards (default: 1, 2, and 4), including the termination which waits for the shard workers. The records of 100
+ * traces with 10 operation calls each are interleaved.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class ShardedTraceReconstructionBenchmark {
+
+	private static final int NUM_CONCURRENT_TRACES = 100;
+	private static final int NUM_CALLS_PER_TRACE = 10;
+	private static final int NUM_RECORDS_PER_TRACE = 1 + (2 * NUM_CALLS_PER_TRACE);
+	private static final int NUM_TRACES = 15000;
+	private static final String OPERATION_SIGNATURE = "public void pkg.Clazz.op()";
+	private static final String CLASS_SIGNATURE = "pkg.Clazz";
+
+	private ShardedTraceReconstructionBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		final List<IFlowRecord> records = ShardedTraceReconstructionBenchmark.createRecords();
+
+		final String[] numShardsArgs = (args.length > 0) ? args : new String[] { "1", "2", "4" }; // NOCS (?:)
+		for (final String numShardsArg : numShardsArgs) {
+			final Configuration configuration = new Configuration();
+			configuration.setProperty(EventRecordTraceReconstructionFilter.CONFIG_PROPERTY_NAME_NUM_SHARDS, numShardsArg);
+			MicroBenchmark.measure(numShardsArg + " shard(s)", records.size(), new MicroBenchmark.IRun() {
+				@Override
+				public long run(final int numOps) {
+					final EventRecordTraceReconstructionFilter filter = new EventRecordTraceReconstructionFilter(configuration, new AnalysisController());
+					filter.init();
+					for (final IFlowRecord record : records) {
+						filter.newEvent(record);
+					}
+					filter.terminate(false);
+					return numOps;
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return the records of {@value #NUM_TRACES} traces, of which {@value #NUM_CONCURRENT_TRACES} are interleaved
+	 */
+	private static List<IFlowRecord> createRecords() {
+		final List<IFlowRecord> records = new ArrayList<IFlowRecord>(NUM_TRACES * NUM_RECORDS_PER_TRACE);
+		long timestamp = 0;
+		for (int firstTraceId = 0; firstTraceId < NUM_TRACES; firstTraceId += NUM_CONCURRENT_TRACES) {
+			for (int i = 0; i < NUM_RECORDS_PER_TRACE; i++) {
+				for (long traceId = firstTraceId; traceId < (firstTraceId + NUM_CONCURRENT_TRACES); traceId++) {
+					if (i == 0) {
+						records.add(new TraceMetadata(traceId, 1, "session", "host", -1, -1));
+					} else if ((i % 2) == 1) {
+						records.add(new BeforeOperationEvent(timestamp++, traceId, i - 1, OPERATION_SIGNATURE, CLASS_SIGNATURE));
+					} else {
+						records.add(new AfterOperationEvent(timestamp++, traceId, i - 1, OPERATION_SIGNATURE, CLASS_SIGNATURE));
+					}
+				}
+			}
+		}
+		return records;
+	}
+}
@@ -0,0 +1,97 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import kieker.monitoring.core.signaturePattern.PatternEntry;
+import kieker.monitoring.core.signaturePattern.SignatureMatcher;
+
+/**
+ * Measures the evaluation of the probe patterns for a signature, i.e., a cache miss of the probe controller, by the
+ * {@link SignatureMatcher} compared to the former sequential evaluation of all patterns, for pattern lists of the given
+ * sizes (default: 10, 100, and 1000). Each list deactivates everything and activates one method per class.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class SignatureMatcherBenchmark {
+
+	private static final int NUM_SIGNATURES = 1000;
+
+	private SignatureMatcherBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		final String[] numPatternsArgs = (args.length > 0) ? args : new String[] { "10", "100", "1000" }; // NOCS (?:)
+		for (final String numPatternsArg : numPatternsArgs) {
+			final int numPatterns = Integer.parseInt(numPatternsArg);
+			final List<PatternEntry> entries = new ArrayList<PatternEntry>(numPatterns + 1);
+			entries.add(new PatternEntry("*", false));
+			for (int i = 0; i < numPatterns; i++) {
+				entries.add(new PatternEntry("public void pkg.Class" + i + ".op" + i + "(..)", true));
+			}
+			// half of the signatures are activated, the other half falls back to the first pattern
+			final String[] signatures = new String[NUM_SIGNATURES];
+			for (int i = 0; i < NUM_SIGNATURES; i++) {
+				final int classIndex = i % numPatterns;
+				final int methodIndex = ((i % 2) == 0) ? classIndex : classIndex + 1; // NOCS (?:)
+				signatures[i] = "public void pkg.Class" + classIndex + ".op" + methodIndex + "(int, java.lang.String)";
+			}
+
+			MicroBenchmark.measure(numPatterns + " patterns, sequential", NUM_SIGNATURES, new MicroBenchmark.IRun() {
+				@Override
+				public long run(final int numOps) {
+					long numActivated = 0;
+					for (int i = 0; i < numOps; i++) {
+						if (SignatureMatcherBenchmark.isActivated(entries, signatures[i])) {
+							numActivated++;
+						}
+					}
+					return numActivated;
+				}
+			});
+			final SignatureMatcher matcher = new SignatureMatcher(entries);
+			MicroBenchmark.measure(numPatterns + " patterns, " + SignatureMatcher.class.getSimpleName(), NUM_SIGNATURES, new MicroBenchmark.IRun() {
+				@Override
+				public long run(final int numOps) {
+					long numActivated = 0;
+					for (int i = 0; i < numOps; i++) {
+						if (matcher.isActivated(signatures[i])) {
+							numActivated++;
+						}
+					}
+					return numActivated;
+				}
+			});
+		}
+	}
+
+	/**
+	 * The former evaluation of the probe controller.
+	 */
+	private static boolean isActivated(final List<PatternEntry> entries, final String signature) {
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			final PatternEntry entry = entries.get(i);
+			if (entry.getPattern().matcher(signature).matches()) {
+				return entry.isActivated();
+			}
+		}
+		return true;
+	}
+}
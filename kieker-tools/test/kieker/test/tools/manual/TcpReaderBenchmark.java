@@ -0,0 +1,153 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import kieker.analysis.plugin.reader.tcp.util.MultipleConnectionRecordReader;
+import kieker.analysis.plugin.reader.tcp.util.SingleSocketRecordReader;
+import kieker.analysis.plugin.reader.util.IRecordReceivedListener;
+import kieker.common.configuration.Configuration;
+import kieker.common.logging.Log;
+import kieker.common.logging.LogFactory;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.controlflow.OperationExecutionRecord;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.writer.tcp.SingleSocketTcpWriter;
+
+/**
+ * Measures the time per record sent by {@link SingleSocketTcpWriter}s over local connections until it has been received
+ * by the {@link SingleSocketRecordReader} (one connection) or by the {@link MultipleConnectionRecordReader} with the
+ * given numbers of connections and workers. Every connection is written by its own thread.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class TcpReaderBenchmark {
+
+	private static final Log LOG = LogFactory.getLog(TcpReaderBenchmark.class);
+
+	private static final int NUM_RECORDS = 400000;
+	private static final int BUFFER_CAPACITY = 65536;
+	private static final long CONNECT_RETRY_INTERVAL_MS = 10;
+
+	private static int nextPort = 10433;
+
+	private TcpReaderBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		MicroBenchmark.measure("single socket reader, 1 connection", NUM_RECORDS, new ReaderRun(1, 0));
+		MicroBenchmark.measure("multiple connection reader, 1 connection, 1 worker", NUM_RECORDS, new ReaderRun(1, 1));
+		MicroBenchmark.measure("multiple connection reader, 4 connections, 1 worker", NUM_RECORDS, new ReaderRun(4, 1));
+		MicroBenchmark.measure("multiple connection reader, 4 connections, 2 workers", NUM_RECORDS, new ReaderRun(4, 2));
+	}
+
+	/**
+	 * Starts a new reader on a new port, writes the records, and waits until they have been received.
+	 */
+	private static final class ReaderRun implements MicroBenchmark.IRun {
+
+		private final int numConnections;
+		/** 0 for the single socket reader */
+		private final int numWorkers;
+
+		public ReaderRun(final int numConnections, final int numWorkers) {
+			this.numConnections = numConnections;
+			this.numWorkers = numWorkers;
+		}
+
+		@Override
+		public long run(final int numOps) throws Exception {
+			final int port = nextPort++;
+			final AtomicLong numReceived = new AtomicLong();
+			final IRecordReceivedListener listener = new IRecordReceivedListener() {
+				@Override
+				public void onRecordReceived(final IMonitoringRecord record) {
+					if (record instanceof OperationExecutionRecord) {
+						numReceived.incrementAndGet();
+					}
+				}
+			};
+
+			final Thread readerThread;
+			final MultipleConnectionRecordReader multipleConnectionReader;
+			final SingleSocketRecordReader singleSocketReader;
+			if (this.numWorkers == 0) {
+				singleSocketReader = new SingleSocketRecordReader(port, BUFFER_CAPACITY, LOG, listener);
+				multipleConnectionReader = null;
+				readerThread = new Thread(singleSocketReader);
+			} else {
+				singleSocketReader = null;
+				multipleConnectionReader = new MultipleConnectionRecordReader(port, BUFFER_CAPACITY, this.numWorkers, LOG, listener);
+				readerThread = new Thread(multipleConnectionReader);
+			}
+			readerThread.start();
+
+			final Thread[] writerThreads = new Thread[this.numConnections];
+			for (int i = 0; i < this.numConnections; i++) {
+				final SingleSocketTcpWriter writer = TcpReaderBenchmark.connect(port);
+				final int numRecords = numOps / this.numConnections;
+				final int connection = i;
+				writerThreads[i] = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						writer.onStarting();
+						for (int r = 0; r < numRecords; r++) {
+							writer.writeMonitoringRecord(
+									new OperationExecutionRecord("public void pkg.Clazz.op(int)", "sessionId", connection, r, r + 1, "host", r, 0));
+						}
+						writer.onTerminating();
+					}
+				});
+				writerThreads[i].start();
+			}
+			for (final Thread writerThread : writerThreads) {
+				writerThread.join();
+			}
+			final long numExpected = (long) (numOps / this.numConnections) * this.numConnections;
+			while (numReceived.get() < numExpected) {
+				Thread.sleep(1);
+			}
+
+			if (singleSocketReader != null) {
+				singleSocketReader.terminate();
+			} else {
+				multipleConnectionReader.terminate();
+			}
+			readerThread.join();
+			return numReceived.get();
+		}
+	}
+
+	/**
+	 * @return a writer connected to the given local port as soon as a reader listens on it
+	 */
+	private static SingleSocketTcpWriter connect(final int port) throws IOException, InterruptedException {
+		final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+		configuration.setProperty(SingleSocketTcpWriter.CONFIG_PORT, Integer.toString(port));
+		while (true) {
+			try {
+				return new SingleSocketTcpWriter(configuration);
+			} catch (final ConnectException e) {
+				Thread.sleep(CONNECT_RETRY_INTERVAL_MS);
+			}
+		}
+	}
+}
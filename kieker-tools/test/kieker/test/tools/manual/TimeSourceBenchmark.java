@@ -0,0 +1,74 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import kieker.common.configuration.Configuration;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.timer.AbstractTimeSource;
+import kieker.monitoring.timer.CachedNanoTimer;
+import kieker.monitoring.timer.CalibratedNanoTimer;
+import kieker.monitoring.timer.SystemNanoTimer;
+
+/**
+ * Measures the time per call of {@code getTime()} of the {@link SystemNanoTimer}, the {@link CalibratedNanoTimer}, and
+ * the started {@link CachedNanoTimer} with their default configurations, and of the first two with microseconds as
+ * time unit.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class TimeSourceBenchmark {
+
+	private static final int NUM_CALLS = 20000000;
+	private static final String MICROSECONDS = "1";
+
+	private TimeSourceBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		TimeSourceBenchmark.measure(new SystemNanoTimer(ConfigurationFactory.createDefaultConfiguration()));
+		TimeSourceBenchmark.measure(new CalibratedNanoTimer(ConfigurationFactory.createDefaultConfiguration()));
+		final CachedNanoTimer cachedNanoTimer = new CachedNanoTimer(ConfigurationFactory.createDefaultConfiguration());
+		cachedNanoTimer.start();
+		TimeSourceBenchmark.measure(cachedNanoTimer);
+		cachedNanoTimer.terminate();
+
+		final Configuration systemConfiguration = ConfigurationFactory.createDefaultConfiguration();
+		systemConfiguration.setProperty(SystemNanoTimer.CONFIG_UNIT, MICROSECONDS);
+		TimeSourceBenchmark.measure(new SystemNanoTimer(systemConfiguration), "SystemNanoTimer, microseconds");
+		final Configuration calibratedConfiguration = ConfigurationFactory.createDefaultConfiguration();
+		calibratedConfiguration.setProperty(CalibratedNanoTimer.CONFIG_UNIT, MICROSECONDS);
+		TimeSourceBenchmark.measure(new CalibratedNanoTimer(calibratedConfiguration), "CalibratedNanoTimer, microseconds");
+	}
+
+	private static void measure(final AbstractTimeSource timeSource) throws Exception {
+		TimeSourceBenchmark.measure(timeSource, timeSource.getClass().getSimpleName());
+	}
+
+	private static void measure(final AbstractTimeSource timeSource, final String name) throws Exception {
+		MicroBenchmark.measure(name, NUM_CALLS, new MicroBenchmark.IRun() {
+			@Override
+			public long run(final int numOps) {
+				long sum = 0;
+				for (int i = 0; i < numOps; i++) {
+					sum += timeSource.getTime();
+				}
+				return sum;
+			}
+		});
+	}
+}
@@ -0,0 +1,142 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import kieker.analysis.AnalysisController;
+import kieker.analysis.plugin.filter.flow.EventRecordTraceReconstructionFilter;
+import kieker.common.configuration.Configuration;
+import kieker.common.logging.Log;
+import kieker.common.logging.LogFactory;
+import kieker.common.record.flow.IFlowRecord;
+import kieker.common.record.flow.trace.TraceMetadata;
+import kieker.common.record.flow.trace.operation.AfterOperationEvent;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
+
+/**
+ * Measures the trace buffers of the {@link EventRecordTraceReconstructionFilter} with its default configuration: the
+ * heap retained per open trace, whose metadata and {@value #OPEN_CALL_DEPTH} nested before events have been received,
+ * and the time per record and the records per second of reconstructing traces of {@value #NUM_CALLS_PER_TRACE} nested
+ * operation calls. The heap is the used heap after garbage collection and hence only approximate; run it with a fixed
+ * heap size (e.g., -Xms1g -Xmx1g).
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class TraceBufferBenchmark {
+
+	private static final Log LOG = LogFactory.getLog(TraceBufferBenchmark.class);
+
+	private static final int NUM_OPEN_TRACES = 100000;
+	private static final int OPEN_CALL_DEPTH = 5;
+	private static final int NUM_TRACES = 50000;
+	private static final int NUM_CALLS_PER_TRACE = 10;
+	private static final int NUM_GCS = 5;
+	private static final long GC_PAUSE_MS = 100;
+	private static final String OPERATION_SIGNATURE = "public void pkg.Clazz.op()";
+	private static final String CLASS_SIGNATURE = "pkg.Clazz";
+
+	private TraceBufferBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		// measured first, since the open traces of the heap measurement, which never finish, mislead the JIT compiler
+		final List<IFlowRecord> records = TraceBufferBenchmark.createTraces();
+		final double nsPerRecord = MicroBenchmark.measure("traces of " + NUM_CALLS_PER_TRACE + " nested calls", records.size(), new MicroBenchmark.IRun() {
+			@Override
+			public long run(final int numOps) {
+				final EventRecordTraceReconstructionFilter filter = new EventRecordTraceReconstructionFilter(new Configuration(), new AnalysisController());
+				filter.init();
+				for (final IFlowRecord record : records) {
+					filter.newEvent(record);
+				}
+				filter.terminate(false);
+				return numOps;
+			}
+		});
+		LOG.info(String.format(Locale.US, "%-60s %12.0f records/s", "traces of " + NUM_CALLS_PER_TRACE + " nested calls", 1e9 / nsPerRecord));
+
+		TraceBufferBenchmark.measureHeapPerOpenTrace();
+	}
+
+	private static void measureHeapPerOpenTrace() throws InterruptedException {
+		final long usedHeapBefore = TraceBufferBenchmark.usedHeapAfterGc();
+		final EventRecordTraceReconstructionFilter filter = new EventRecordTraceReconstructionFilter(new Configuration(), new AnalysisController());
+		filter.init();
+		long timestamp = 0;
+		for (long traceId = 0; traceId < NUM_OPEN_TRACES; traceId++) {
+			filter.newEvent(new TraceMetadata(traceId, 1, "session", "host", -1, -1));
+			for (int orderIndex = 0; orderIndex < OPEN_CALL_DEPTH; orderIndex++) {
+				filter.newEvent(new BeforeOperationEvent(timestamp++, traceId, orderIndex, OPERATION_SIGNATURE, CLASS_SIGNATURE));
+			}
+		}
+		final long usedHeapAfter = TraceBufferBenchmark.usedHeapAfterGc();
+		final long recordBytes = TraceBufferBenchmark.measureRecordBytes();
+		LOG.info(String.format(Locale.US, "%-60s %12d bytes/trace", NUM_OPEN_TRACES + " open traces, including their records",
+				(usedHeapAfter - usedHeapBefore) / NUM_OPEN_TRACES));
+		LOG.info(String.format(Locale.US, "%-60s %12d bytes/trace", NUM_OPEN_TRACES + " open traces, without their records",
+				((usedHeapAfter - usedHeapBefore) / NUM_OPEN_TRACES) - recordBytes));
+		filter.terminate(true); // keeps the filter reachable until the heap has been measured
+	}
+
+	/**
+	 * @return the heap retained by the records of one open trace
+	 */
+	private static long measureRecordBytes() throws InterruptedException {
+		final long usedHeapBefore = TraceBufferBenchmark.usedHeapAfterGc();
+		final List<IFlowRecord> records = new ArrayList<IFlowRecord>(NUM_OPEN_TRACES * (1 + OPEN_CALL_DEPTH));
+		long timestamp = 0;
+		for (long traceId = 0; traceId < NUM_OPEN_TRACES; traceId++) {
+			records.add(new TraceMetadata(traceId, 1, "session", "host", -1, -1));
+			for (int orderIndex = 0; orderIndex < OPEN_CALL_DEPTH; orderIndex++) {
+				records.add(new BeforeOperationEvent(timestamp++, traceId, orderIndex, OPERATION_SIGNATURE, CLASS_SIGNATURE));
+			}
+		}
+		final long usedHeapAfter = TraceBufferBenchmark.usedHeapAfterGc();
+		return (usedHeapAfter - usedHeapBefore) / records.size() * (1 + OPEN_CALL_DEPTH);
+	}
+
+	private static long usedHeapAfterGc() throws InterruptedException {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < NUM_GCS; i++) {
+			System.gc(); // NOPMD (the heap is measured)
+			Thread.sleep(GC_PAUSE_MS);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * @return the records of {@value #NUM_TRACES} traces one after the other
+	 */
+	private static List<IFlowRecord> createTraces() {
+		final List<IFlowRecord> records = new ArrayList<IFlowRecord>(NUM_TRACES * (1 + (2 * NUM_CALLS_PER_TRACE)));
+		long timestamp = 0;
+		for (long traceId = 0; traceId < NUM_TRACES; traceId++) {
+			records.add(new TraceMetadata(traceId, 1, "session", "host", -1, -1));
+			for (int i = 0; i < NUM_CALLS_PER_TRACE; i++) {
+				records.add(new BeforeOperationEvent(timestamp++, traceId, i, OPERATION_SIGNATURE, CLASS_SIGNATURE));
+			}
+			for (int i = 0; i < NUM_CALLS_PER_TRACE; i++) {
+				records.add(new AfterOperationEvent(timestamp++, traceId, NUM_CALLS_PER_TRACE + i, OPERATION_SIGNATURE, CLASS_SIGNATURE));
+			}
+		}
+		return records;
+	}
+}
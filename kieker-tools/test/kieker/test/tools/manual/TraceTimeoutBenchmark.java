@@ -0,0 +1,77 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.util.concurrent.TimeUnit;
+
+import kieker.analysis.AnalysisController;
+import kieker.analysis.plugin.filter.flow.EventRecordTraceReconstructionFilter;
+import kieker.common.configuration.Configuration;
+import kieker.common.record.flow.trace.TraceMetadata;
+import kieker.common.record.flow.trace.operation.AfterOperationEvent;
+import kieker.common.record.flow.trace.operation.BeforeOperationEvent;
+
+/**
+ * Measures the time per record reconstructed by the {@link EventRecordTraceReconstructionFilter} with a trace timeout
+ * and a maximal trace duration while the given numbers of traces are open (default: 0, 1000, 10000, and 100000). Each
+ * measured trace consists of its metadata, a before event, and an after event. The open traces do not time out during
+ * the measurement.
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class TraceTimeoutBenchmark {
+
+	private static final int NUM_RECORDS = 300000;
+	private static final String OPERATION_SIGNATURE = "public void pkg.Clazz.op()";
+	private static final String CLASS_SIGNATURE = "pkg.Clazz";
+
+	private TraceTimeoutBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		final String[] numOpenTracesArgs = (args.length > 0) ? args : new String[] { "0", "1000", "10000", "100000" }; // NOCS (?:)
+		for (final String numOpenTracesArg : numOpenTracesArgs) {
+			final int numOpenTraces = Integer.parseInt(numOpenTracesArg);
+			final Configuration configuration = new Configuration();
+			configuration.setProperty(EventRecordTraceReconstructionFilter.CONFIG_PROPERTY_NAME_TIMEUNIT, TimeUnit.NANOSECONDS.name());
+			configuration.setProperty(EventRecordTraceReconstructionFilter.CONFIG_PROPERTY_NAME_MAX_TRACE_TIMEOUT, Long.toString(TimeUnit.HOURS.toNanos(1)));
+			configuration.setProperty(EventRecordTraceReconstructionFilter.CONFIG_PROPERTY_NAME_MAX_TRACE_DURATION, Long.toString(TimeUnit.HOURS.toNanos(1)));
+			final EventRecordTraceReconstructionFilter filter = new EventRecordTraceReconstructionFilter(configuration, new AnalysisController());
+
+			final long[] next = new long[] { 0 }; // the next trace id and timestamp
+			for (int i = 0; i < numOpenTraces; i++) {
+				final long traceId = next[0]++;
+				filter.newEvent(new TraceMetadata(traceId, 1, "session", "host", -1, -1));
+				filter.newEvent(new BeforeOperationEvent(traceId, traceId, 0, OPERATION_SIGNATURE, CLASS_SIGNATURE));
+			}
+
+			MicroBenchmark.measure(numOpenTraces + " open traces", NUM_RECORDS, new MicroBenchmark.IRun() {
+				@Override
+				public long run(final int numOps) {
+					for (int i = numOps / 3; i > 0; i--) {
+						final long traceId = next[0]++;
+						filter.newEvent(new TraceMetadata(traceId, 1, "session", "host", -1, -1));
+						filter.newEvent(new BeforeOperationEvent(traceId, traceId, 0, OPERATION_SIGNATURE, CLASS_SIGNATURE));
+						filter.newEvent(new AfterOperationEvent(traceId + 1, traceId, 1, OPERATION_SIGNATURE, CLASS_SIGNATURE));
+					}
+					return next[0];
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/***************************************************************************
+ * Copyright 2017 Kieker Project (http://kieker-monitoring.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ***************************************************************************/
+
+package kieker.test.tools.manual;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.jctools.queues.MpscArrayQueue;
+
+import kieker.common.configuration.Configuration;
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.misc.EmptyRecord;
+import kieker.monitoring.core.configuration.ConfigurationFactory;
+import kieker.monitoring.core.controller.IMonitoringController;
+import kieker.monitoring.core.controller.MonitoringController;
+import kieker.monitoring.core.controller.WriterController;
+import kieker.monitoring.queue.BlockingQueueDecorator;
+import kieker.monitoring.queue.MpscRingBuffer;
+import kieker.monitoring.queue.putstrategy.SPBlockingPutStrategy;
+import kieker.monitoring.queue.takestrategy.SCBlockingTakeStrategy;
+import kieker.monitoring.writer.dump.DumpWriter;
+
+/**
+ * Measures the available writer queue implementations: first the time of an offer and a poll by a single thread,
+ * then the time per record passed from the given numbers of monitored threads (default: 1 and 4) through the writer
+ * queue to the {@link DumpWriter}.
+ *
+ * <p>
+ * A JCTools queue is wrapped with a single-producer put strategy by the {@link WriterController}, which may miss wake-ups
+ * if several producers block on the full queue. Hence, it is only measured with one producer.
+ * </p>
+ *
+ * @author Kieker Team
+ *
+ * @since 1.14
+ */
+public final class WriterQueueBenchmark {
+
+	private static final int NUM_RECORDS = 200000;
+	private static final int QUEUE_CAPACITY = 10000;
+	private static final Class<?>[] QUEUE_CLASSES = { ArrayBlockingQueue.class, MpscArrayQueue.class, MpscRingBuffer.class };
+
+	private WriterQueueBenchmark() {}
+
+	public static void main(final String[] args) throws Exception {
+		final List<BlockingQueue<IMonitoringRecord>> queues = new ArrayList<BlockingQueue<IMonitoringRecord>>();
+		queues.add(new ArrayBlockingQueue<IMonitoringRecord>(QUEUE_CAPACITY));
+		queues.add(new BlockingQueueDecorator<IMonitoringRecord>(new MpscArrayQueue<IMonitoringRecord>(QUEUE_CAPACITY), new SPBlockingPutStrategy(),
+				new SCBlockingTakeStrategy()));
+		queues.add(new MpscRingBuffer<IMonitoringRecord>(QUEUE_CAPACITY));
+		for (final BlockingQueue<IMonitoringRecord> queue : queues) {
+			final String name = (queue instanceof BlockingQueueDecorator) ? MpscArrayQueue.class.getSimpleName() : queue.getClass().getSimpleName(); // NOCS
+			MicroBenchmark.measure(name + ", offer and poll", NUM_RECORDS, new MicroBenchmark.IRun() {
+				@Override
+				public long run(final int numOps) {
+					return WriterQueueBenchmark.offerAndPoll(queue, numOps);
+				}
+			});
+		}
+
+		final String[] numThreadsArgs = (args.length > 0) ? args : new String[] { "1", "4" }; // NOCS (?:)
+		for (final String numThreadsArg : numThreadsArgs) {
+			final int numThreads = Integer.parseInt(numThreadsArg);
+			for (final Class<?> queueClass : QUEUE_CLASSES) {
+				if ((queueClass == MpscArrayQueue.class) && (numThreads > 1)) {
+					continue; // see the class comment
+				}
+				final Configuration configuration = ConfigurationFactory.createDefaultConfiguration();
+				configuration.setProperty(ConfigurationFactory.WRITER_CLASSNAME, DumpWriter.class.getName());
+				configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_QUEUE_FQN, queueClass.getName());
+				configuration.setProperty(WriterController.PREFIX + WriterController.RECORD_QUEUE_INSERT_BEHAVIOR, "1");
+				final MonitoringController monitoringController = MonitoringController.createInstance(configuration);
+
+				MicroBenchmark.measure(queueClass.getSimpleName() + ", " + numThreads + " producer(s)", NUM_RECORDS, new MicroBenchmark.IRun() {
+					@Override
+					public long run(final int numOps) throws InterruptedException {
+						return WriterQueueBenchmark.produce(monitoringController, numThreads, numOps);
+					}
+				});
+
+				monitoringController.terminateMonitoring();
+				monitoringController.waitForTermination(0);
+			}
+		}
+	}
+
+	private static long offerAndPoll(final BlockingQueue<IMonitoringRecord> queue, final int numRecords) {
+		final EmptyRecord record = new EmptyRecord();
+		long numPolled = 0;
+		for (int i = 0; i < numRecords; i++) {
+			queue.offer(record);
+			if (queue.poll() != null) {
+				numPolled++;
+			}
+		}
+		return numPolled;
+	}
+
+	private static long produce(final IMonitoringController monitoringController, final int numThreads, final int numRecords) throws InterruptedException {
+		final EmptyRecord record = new EmptyRecord();
+		final List<Thread> producers = new ArrayList<Thread>(numThreads);
+		for (int t = 0; t < numThreads; t++) {
+			producers.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = numRecords / numThreads; i > 0; i--) {
+						monitoringController.newMonitoringRecord(record);
+					}
+				}
+			}));
+		}
+		for (final Thread producer : producers) {
+			producer.start();
+		}
+		for (final Thread producer : producers) {
+			producer.join();
+		}
+		return numRecords;
+	}
+}